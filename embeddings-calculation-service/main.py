@@ -28,6 +28,14 @@ class EmbedResponse(BaseModel):
     embedding: List[float]
 
 
+class EmbedBatchRequest(BaseModel):
+    texts: List[str] = Field(..., min_length=1, description="Input texts to embed, in order")
+
+
+class EmbedBatchResponse(BaseModel):
+    embeddings: List[List[float]]
+
+
 @app.on_event("startup")
 def load_model() -> None:
     """Load the embedding model once when the service starts."""
@@ -77,3 +85,25 @@ async def embed(request: EmbedRequest) -> EmbedResponse:
         raise HTTPException(
             status_code=500, detail="Internal server error while generating embedding."
         ) from exc
+
+
+@app.post("/embed/batch", response_model=EmbedBatchResponse)
+async def embed_batch(request: EmbedBatchRequest) -> EmbedBatchResponse:
+    """Generate embeddings for many texts in one forward pass, in request order."""
+    logger.info("Received /embed/batch request (texts=%d)", len(request.texts))
+
+    if any(not text.strip() for text in request.texts):
+        raise HTTPException(status_code=400, detail="Every entry of 'texts' must be a non-empty string.")
+
+    if model is None:
+        logger.error("Model not loaded when handling request.")
+        raise HTTPException(status_code=503, detail="Model not loaded yet.")
+
+    try:
+        embeddings = model.encode(request.texts, normalize_embeddings=True)
+        return EmbedBatchResponse(embeddings=embeddings.tolist())
+    except Exception as exc:
+        logger.exception("Failed to generate embeddings.")
+        raise HTTPException(
+            status_code=500, detail="Internal server error while generating embeddings."
+        ) from exc
@@ -2,6 +2,7 @@
     id("org.springframework.boot") version "3.5.8"
     id("io.spring.dependency-management") version "1.1.6"
     id("java")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.neviswealth"
@@ -38,8 +39,26 @@ dependencies {
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.testcontainers:junit-jupiter")
     testImplementation("org.testcontainers:postgresql")
+
+    jmh("org.testcontainers:postgresql")
+}
+
+// SIMD distance kernels, see SimdVectorScorer
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(vectorModule)
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    jvmArgs(vectorModule)
+}
+
+tasks.named<JavaExec>("bootRun") {
+    jvmArgs(vectorModule)
+}
+
+jmh {
+    jvmArgs.addAll(vectorModule)
 }
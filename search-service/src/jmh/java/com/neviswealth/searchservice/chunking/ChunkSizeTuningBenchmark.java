@@ -0,0 +1,186 @@
+package com.neviswealth.searchservice.chunking;
+
+import com.neviswealth.searchservice.SearchServiceApplication;
+import com.neviswealth.searchservice.api.TestDataController;
+import com.neviswealth.searchservice.api.dto.ScoredDocumentDto;
+import com.neviswealth.searchservice.api.dto.SearchResultDto;
+import com.neviswealth.searchservice.service.SearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunk size against retrieval quality and embedding cost. Each chunking configuration starts the service on a fresh
+ * database and ingests the {@code /populate-data} datasets. Setup prints the chunk count, embedded characters, ingest
+ * time, recall@1, recall@5 and MRR of the labeled queries, the benchmark measures their search latency.
+ * <p>
+ * The mock embedder only weighs lexical matches, run with {@code -p embedder=http} for the embeddings service at
+ * {@code EMBEDDING_BASE_URL}. Needs Docker, run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkSizeTuningBenchmark {
+
+    private static final int RANKED = 10;
+
+    /**
+     * Queries worded unlike the documents they are about, mostly about a passage in the middle of a long document.
+     */
+    private static final List<LabeledQuery> QUERIES = List.of(
+            new LabeledQuery("proof of address", Set.of("Utility bill September 2025", "Proof of address letter",
+                    "Electricity bill July 2025", "Proof of address – utility bill", "Internet bill November 2025")),
+            new LabeledQuery("rental agreement for the flat", Set.of("Rent contract 2024–2025")),
+            new LabeledQuery("remaining mortgage balance", Set.of("Mortgage statement 2025")),
+            new LabeledQuery("when does the ID card expire", Set.of("National ID card copy")),
+            new LabeledQuery("hologram checked on the passport during the call",
+                    Set.of("Video identification session log – Emma Jones")),
+            new LabeledQuery("salary slip not provided for one month",
+                    Set.of("Email follow-up – missing payslip for September")),
+            new LabeledQuery("employer still uses her old surname",
+                    Set.of("Name change note – passport vs employer records")),
+            new LabeledQuery("HR confirmed permanent full-time employment",
+                    Set.of("HR verification call summary – Tagus Advisors")),
+            new LabeledQuery("is the income regular enough for credit",
+                    Set.of("Internal credit committee note – income stability assessment")),
+            new LabeledQuery("not a politically exposed person", Set.of("Client declaration – no political exposure")),
+            new LabeledQuery("land registry extract for the sold property",
+                    Set.of("Enhanced due diligence note – apartment sale proceeds")),
+            new LabeledQuery("has invested in exchange-traded funds before",
+                    Set.of("Investment experience and knowledge questionnaire – summary")),
+            new LabeledQuery("trips abroad for technology conferences",
+                    Set.of("Travel history note – unrelated to tax residency")),
+            new LabeledQuery("repeat small habits instead of radical gestures",
+                    Set.of("Personal reflections on everyday sustainability")),
+            new LabeledQuery("risk profile and investment horizon for a discretionary mandate",
+                    Set.of("Suitability assessment summary – multi-asset mandate")),
+            new LabeledQuery("CRS FATCA form still not returned",
+                    Set.of("Email reminder thread – outstanding self-certification")),
+            new LabeledQuery("cannot log in to the mobile app",
+                    Set.of("Service complaint log – mobile app login issue")),
+            new LabeledQuery("possible name matches on watchlists were false positives",
+                    Set.of("Sanctions and watchlist screening result – Oliver Brown")),
+            new LabeledQuery("taxpayer identification number matches the self-certification",
+                    Set.of("CRS data quality review note – Oliver Brown")),
+            new LabeledQuery("worried about short-term volatility of equities and bonds",
+                    Set.of("Meeting minutes – investment performance review")),
+            new LabeledQuery("sold her share of the family logistics company",
+                    Set.of("Source of wealth note – family business share sale")),
+            new LabeledQuery("wants contracts in Italian", Set.of("Communication preferences and language note")),
+            new LabeledQuery("extra time to get translated tax papers",
+                    Set.of("Onboarding timeline explanation – delayed document delivery")),
+            new LabeledQuery("alert on an unusually large transfer from another bank",
+                    Set.of("AML monitoring alert review – large incoming transfer")),
+            new LabeledQuery("sold his cryptocurrency", Set.of("Client follow-up – explanation of crypto cash-out")),
+            new LabeledQuery("trail running shoes", Set.of("Random chat notes – hiking gear and weekend plans")),
+            new LabeledQuery("moved back to Portugal from Spain",
+                    Set.of("Tax residency clarification – move between Portugal and Spain")),
+            new LabeledQuery("difference between source of funds and source of wealth",
+                    Set.of("Form completion helper note – guidance for KYC questions")),
+            new LabeledQuery("chat with the receptionist about the museum",
+                    Set.of("Office visit log – coffee and non-financial chat"))
+    );
+
+    /**
+     * {@code paragraph/<max-chars>} or {@code token-window/<window-tokens>/<overlap-tokens>}.
+     */
+    @Param({"paragraph/60", "paragraph/300", "paragraph/1200", "token-window/64/8", "token-window/256/32"})
+    private String chunking;
+
+    @Param({"mock"})
+    private String embedder;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private SearchService searchService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16");
+        postgres.start();
+
+        // arguments rather than default properties, which application.yml would override
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.profiles.active=demo",
+                "--server.port=0",
+                "--embedding.provider=" + embedder));
+        String[] config = chunking.split("/");
+        arguments.add("--chunking.strategy=" + config[0]);
+        if (config[0].equals("paragraph")) {
+            arguments.add("--chunking.max-chars=" + config[1]);
+        } else {
+            arguments.add("--chunking.window-tokens=" + config[1]);
+            arguments.add("--chunking.overlap-tokens=" + config[2]);
+        }
+        context = new SpringApplicationBuilder(SearchServiceApplication.class).run(arguments.toArray(String[]::new));
+        searchService = context.getBean(SearchService.class);
+
+        TestDataController testData = context.getBean(TestDataController.class);
+        long started = System.nanoTime();
+        testData.populate();
+        testData.populateComplex();
+        long ingestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        Map<String, Object> chunks = context.getBean(JdbcTemplate.class).queryForMap("""
+                SELECT count(*) AS chunks, sum(coalesce(char_length(content), chunk_end - chunk_start)) AS chars
+                FROM document_chunks
+                """);
+        double recallAt1 = 0;
+        double recallAt5 = 0;
+        double reciprocalRanks = 0;
+        for (LabeledQuery query : QUERIES) {
+            List<Integer> ranks = relevantRanks(query);
+            recallAt1 += (double) ranks.stream().filter(rank -> rank <= 1).count() / query.relevantTitles().size();
+            recallAt5 += (double) ranks.stream().filter(rank -> rank <= 5).count() / query.relevantTitles().size();
+            reciprocalRanks += ranks.isEmpty() ? 0 : 1.0 / ranks.getFirst();
+        }
+        System.out.printf("%n%s (%s embedder): %s chunks, %s embedded chars, ingest %d ms, recall@1 %.2f, recall@5 %.2f, MRR %.3f%n",
+                chunking, embedder, chunks.get("chunks"), chunks.get("chars"), ingestMillis,
+                recallAt1 / QUERIES.size(), recallAt5 / QUERIES.size(), reciprocalRanks / QUERIES.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Object search() {
+        LabeledQuery query = QUERIES.get(next++ % QUERIES.size());
+        return searchService.search(query.query(), null);
+    }
+
+    /**
+     * @return the 1-based ranks of the relevant documents among the top {@link #RANKED}
+     */
+    private List<Integer> relevantRanks(LabeledQuery query) {
+        SearchResultDto result = searchService.search(query.query(), null);
+        List<ScoredDocumentDto> documents = result.documents() == null ? List.of() : result.documents();
+        List<Integer> ranks = new ArrayList<>();
+        for (int i = 0; i < Math.min(RANKED, documents.size()); i++) {
+            if (query.relevantTitles().contains(documents.get(i).document().title())) {
+                ranks.add(i + 1);
+            }
+        }
+        return ranks;
+    }
+
+    private record LabeledQuery(String query, Set<String> relevantTitles) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.neviswealth.searchservice.chunking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paragraph chunking of large documents: the regex split baseline against the index scan, collected into a list or
+ * consumed as the chunks are produced, and against streaming the content through a reader.
+ * Run with {@code ./gradlew jmh}, add {@code -prof gc} to the JMH arguments for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkingBenchmark {
+
+    private static final String[] WORDS = {"portfolio", "fee", "custody", "equities", "bonds", "rebalancing", "tax",
+            "client", "mandate", "risk", "allocation", "of", "the", "and", "a", "is", "for", "with", "per", "annum"};
+    private static final int MAX_CHARS = 1200;
+
+    @Param({"100000", "10000000"})
+    private int contentChars;
+
+    private String content;
+    private final SplitParagraphChunking split = new SplitParagraphChunking(MAX_CHARS);
+    private final ParagraphChunkingStrategy strategy = new ParagraphChunkingStrategy(MAX_CHARS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(contentChars + 100);
+        while (builder.length() < contentChars) {
+            // mostly short paragraphs that merge, every tenth one long enough to be split by words
+            int words = random.nextInt(10) == 0 ? 400 + random.nextInt(400) : 10 + random.nextInt(60);
+            for (int i = 0; i < words; i++) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? "\n" : " ");
+            }
+            builder.append(random.nextBoolean() ? "\n\n" : "\r\n  \r\n");
+        }
+        content = builder.toString();
+    }
+
+    @Benchmark
+    public Object splitBaseline() {
+        return split.chunk("Report", content);
+    }
+
+    @Benchmark
+    public Object chunk() {
+        return strategy.chunk("Report", content);
+    }
+
+    @Benchmark
+    public void chunksLazily(Blackhole blackhole) {
+        Iterator<Chunk> chunks = strategy.chunks("Report", content);
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+
+    @Benchmark
+    public void chunkStream(Blackhole blackhole) {
+        Iterator<Chunk> chunks = strategy.chunkStream("Report", new StringReader(content));
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+}
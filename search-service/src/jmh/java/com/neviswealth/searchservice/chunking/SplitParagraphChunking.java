@@ -0,0 +1,84 @@
+package com.neviswealth.searchservice.chunking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The regex split chunking {@link ParagraphChunkingStrategy} replaced, kept as the baseline of
+ * {@link ChunkingBenchmark}. It drops a paragraph that does not fit the merged paragraphs before it.
+ */
+final class SplitParagraphChunking {
+
+    private final int maxChars;
+
+    SplitParagraphChunking(int maxChars) {
+        this.maxChars = Math.max(1, maxChars);
+    }
+
+    List<Chunk> chunk(String title, String fullContent) {
+        if (fullContent == null || fullContent.isBlank()) {
+            return List.of();
+        }
+
+        List<String> pieces = new ArrayList<>();
+        if (title != null && !title.isBlank()) {
+            pieces.add(title);
+        }
+        StringBuilder paragraphMerge = new StringBuilder();
+        for (String rawParagraph : fullContent.split("\\n\\s*\\n")) {
+            String paragraph = rawParagraph.strip();
+            if (paragraph.isEmpty()) {
+                continue;
+            }
+            if (paragraph.length() > maxChars) {
+                if (!paragraphMerge.isEmpty()) {
+                    pieces.add(paragraphMerge.toString());
+                    paragraphMerge.setLength(0);
+                }
+                pieces.addAll(splitLongParagraph(paragraph));
+            } else if (!paragraphMerge.isEmpty() && paragraphMerge.length() + 2 + paragraph.length() > maxChars) {
+                pieces.add(paragraphMerge.toString());
+                paragraphMerge.setLength(0);
+                paragraphMerge.append(paragraph);
+                paragraphMerge.setLength(0);
+            } else {
+                if (!paragraphMerge.isEmpty()) {
+                    paragraphMerge.append("\n\n");
+                }
+                paragraphMerge.append(paragraph);
+            }
+        }
+        if (!paragraphMerge.isEmpty()) {
+            pieces.add(paragraphMerge.toString());
+        }
+
+        List<Chunk> result = new ArrayList<>();
+        for (int i = 0; i < pieces.size(); i++) {
+            result.add(new Chunk(i, pieces.get(i)));
+        }
+        return result;
+    }
+
+    private List<String> splitLongParagraph(String paragraph) {
+        String[] words = paragraph.split("\\s+");
+        List<String> pieces = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (String word : words) {
+            if (builder.isEmpty()) {
+                builder.append(word);
+                continue;
+            }
+            if (builder.length() + 1 + word.length() > maxChars) {
+                pieces.add(builder.toString());
+                builder.setLength(0);
+                builder.append(word);
+            } else {
+                builder.append(' ').append(word);
+            }
+        }
+        if (!builder.isEmpty()) {
+            pieces.add(builder.toString());
+        }
+        return pieces;
+    }
+}
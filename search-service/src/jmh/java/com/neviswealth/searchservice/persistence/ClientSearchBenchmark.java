@@ -0,0 +1,175 @@
+package com.neviswealth.searchservice.persistence;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client name/domain search over 1M synthetic clients: the per-column query it replaced against the combined
+ * {@code search_key} query. Plans of both are printed during setup. Needs Docker, run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClientSearchBenchmark {
+
+    private static final int CLIENTS = 1_000_000;
+    private static final int LIMIT = 20;
+
+    private static final String PER_COLUMN_SQL = """
+            SELECT *,
+                   CASE WHEN (full_name LIKE '%' || ? || '%' OR email LIKE '%' || ? || '%')
+                   THEN 1
+                   ELSE GREATEST(
+                        similarity(full_name, ?),
+                        similarity(full_name, ?),
+                        similarity(email_domain_slug, ?),
+                        similarity(email_domain, ?),
+                        similarity(first_name, ?),
+                        similarity(last_name, ?)
+                   )
+                   END AS score
+            FROM clients
+            WHERE  (
+                full_name LIKE '%' || ? || '%' OR
+                email LIKE '%' || ? || '%' OR
+                full_name % ? OR
+                full_name % ? OR
+                email_domain_slug % ? OR
+                email_domain % ? OR
+                first_name % ? OR
+                last_name % ?
+            )
+            ORDER BY score DESC
+            LIMIT ?
+            """;
+
+    private static final String SEARCH_KEY_SQL = """
+            SELECT *,
+                   CASE WHEN (search_key LIKE '%' || ? || '%' OR search_key LIKE '%' || ? || '%')
+                   THEN 1
+                   ELSE word_similarity(?, search_key)
+                   END AS score
+            FROM clients
+            WHERE search_key LIKE '%' || ? || '%'
+               OR search_key LIKE '%' || ? || '%'
+               OR ? <% search_key
+            ORDER BY score DESC
+            LIMIT ?
+            """;
+
+    @Param({"marcus lee", "laurel weal", "mari"})
+    private String query;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private Object[] perColumnParameters;
+    private Object[] searchKeyParameters;
+    private PreparedStatement perColumn;
+    private PreparedStatement searchKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16");
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION pg_trgm");
+            statement.execute("""
+                    CREATE TABLE clients (
+                        id bigserial PRIMARY KEY,
+                        email text NOT NULL UNIQUE,
+                        email_domain text NOT NULL,
+                        email_domain_slug text NOT NULL,
+                        first_name text NOT NULL,
+                        last_name text NOT NULL,
+                        full_name text NOT NULL,
+                        search_key text GENERATED ALWAYS AS (full_name || ' ' || email || ' ' || email_domain_slug) STORED
+                    )
+                    """);
+            // 40 x 40 names, 5000 firms; the numeric suffix keeps emails unique
+            statement.execute("""
+                    INSERT INTO clients (email, email_domain, email_domain_slug, first_name, last_name, full_name)
+                    SELECT lower(f || '.' || l || i) || '@' || d || '.com', d || '.com', replace(d, '-', ''), f, l, lower(f || ' ' || l)
+                    FROM generate_series(1, %d) i,
+                         LATERAL (SELECT (ARRAY['Maria','Li','Marcus','Joana','Miguel','Sofia','Patrick','John','Alex','Anna',
+                                                'Pedro','Chen','Olga','Ivan','Lucas','Emma','Noah','Mia','Liam','Ava',
+                                                'Mateo','Elena','Hugo','Clara','Omar','Sara','Yuki','Arjun','Nina','Tomas',
+                                                'Ines','Rui','Marta','Paul','Lea','Jonas','Eva','Karl','Ana','Luis'])[1 + i %% 40] AS f,
+                                         (ARRAY['Lopez','Chen','Wee','Silva','Gomes','Dubois','OConnor','Smyth','Eremenkov','Novak',
+                                                'Costa','Wang','Petrov','Ivanova','Martin','Bernard','Muller','Schmidt','Rossi','Russo',
+                                                'Garcia','Fernandez','Moreau','Laurent','Haddad','Tanaka','Sato','Patel','Kumar','Nowak',
+                                                'Santos','Pereira','Weber','Meyer','Fischer','Hansen','Larsen','Berg','Lind','Eriksson'])[1 + (i / 40) %% 40] AS l,
+                                         (ARRAY['laurel','north','atlantic','green','paris','lisboa','alpine','harbor','summit','crest'])[1 + i %% 10]
+                                             || '-' || (ARRAY['wealth','bank','fund','invest','capital'])[1 + (i / 10) %% 5]
+                                             || (i %% 100) AS d) n
+                    """.formatted(CLIENTS));
+            statement.execute("CREATE INDEX idx_clients_email_trgm ON clients USING gin (email gin_trgm_ops)");
+            statement.execute("CREATE INDEX idx_clients_email_domain_trgm ON clients USING gin (email_domain gin_trgm_ops)");
+            statement.execute("CREATE INDEX idx_clients_email_domain_slug_trgm ON clients USING gin (email_domain_slug gin_trgm_ops)");
+            statement.execute("CREATE INDEX idx_clients_full_name_trgm ON clients USING gin (full_name gin_trgm_ops)");
+            statement.execute("CREATE INDEX idx_clients_search_key_trgm ON clients USING gin (search_key gin_trgm_ops)");
+            statement.execute("SET pg_trgm.word_similarity_threshold = 0.5");
+            statement.execute("ANALYZE clients");
+        }
+
+        String slug = query.replaceAll("[^a-z0-9]", "");
+        perColumnParameters = new Object[]{query, query, query, slug, slug, slug, query, query,
+                query, query, query, slug, slug, slug, query, query, LIMIT};
+        searchKeyParameters = new Object[]{query, slug, query, query, slug, query, LIMIT};
+        perColumn = prepare(PER_COLUMN_SQL, perColumnParameters);
+        searchKey = prepare(SEARCH_KEY_SQL, searchKeyParameters);
+
+        explain("per-column", PER_COLUMN_SQL, perColumnParameters);
+        explain("search_key", SEARCH_KEY_SQL, searchKeyParameters);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void perColumn(Blackhole blackhole) throws SQLException {
+        consume(perColumn, blackhole);
+    }
+
+    @Benchmark
+    public void searchKey(Blackhole blackhole) throws SQLException {
+        consume(searchKey, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getString("email"));
+                blackhole.consume(rs.getDouble("score"));
+            }
+        }
+    }
+
+    private PreparedStatement prepare(String sql, Object[] parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+
+    private void explain(String name, String sql, Object[] parameters) throws SQLException {
+        System.out.println("\n" + name + " plan for '" + query + "':");
+        try (PreparedStatement explain = prepare("EXPLAIN (ANALYZE, BUFFERS) " + sql, parameters);
+             ResultSet rs = explain.executeQuery()) {
+            while (rs.next()) {
+                System.out.println(rs.getString(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.pgvector.PGvector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.*;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-scoped semantic search: the SQL query served by pgvector against the in-memory exact scan.
+ * Needs Docker, run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientExactScanBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int CHUNKS_PER_DOCUMENT = 10;
+    private static final int OTHER_CLIENTS = 20;
+    private static final int LIMIT = 10;
+    private static final double THRESHOLD = -10;
+
+    private static final String SEARCH_SQL = """
+            SELECT id, client_id, title, created_at, chunk_content, score
+            FROM (
+                     SELECT d.id AS id,
+                            d.client_id,
+                            d.title,
+                            d.created_at,
+                            c.content AS chunk_content,
+                            (1 - (c.embedding <-> ?)) AS score,
+                            ROW_NUMBER() OVER (PARTITION BY d.id ORDER BY c.embedding <-> ?) AS rn
+                     FROM (SELECT document_id, content, embedding FROM document_chunks WHERE client_id = ?) c
+                     JOIN documents d ON d.id = c.document_id
+                 ) ranked
+            WHERE rn = 1 AND score >= ?
+            ORDER BY score DESC
+            LIMIT ?
+            """;
+
+    @Param({"500", "5000"})
+    private int chunks;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private PreparedStatement search;
+    private UUID clientId;
+    private float[] query;
+    private ClientVectors vectors;
+    private final VectorScorer simd = new SimdVectorScorer();
+    private final VectorScorer scalar = new ScalarVectorScorer();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        clientId = UUID.randomUUID();
+        query = randomVector(random);
+
+        postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16");
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION vector");
+            statement.execute("""
+                    CREATE TABLE documents (id uuid PRIMARY KEY, client_id uuid NOT NULL, title text NOT NULL,
+                                            created_at timestamptz NOT NULL DEFAULT now())
+                    """);
+            statement.execute("""
+                    CREATE TABLE document_chunks (document_id uuid NOT NULL REFERENCES documents (id), client_id uuid NOT NULL,
+                                                  chunk_index int NOT NULL, content text NOT NULL, embedding vector(%d) NOT NULL,
+                                                  PRIMARY KEY (document_id, chunk_index))
+                    """.formatted(DIMENSION));
+            statement.execute("CREATE INDEX ON document_chunks (client_id)");
+        }
+
+        List<ChunkEmbeddingRow> clientRows = insertClient(clientId, random);
+        for (int i = 0; i < OTHER_CLIENTS; i++) {
+            insertClient(UUID.randomUUID(), random);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+
+        vectors = ClientVectors.of(DIMENSION, clientRows);
+        search = connection.prepareStatement(SEARCH_SQL);
+        search.setObject(1, new PGvector(query));
+        search.setObject(2, new PGvector(query));
+        search.setObject(3, clientId);
+        search.setDouble(4, THRESHOLD);
+        search.setInt(5, LIMIT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void sql(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = search.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getObject("id", UUID.class));
+                blackhole.consume(rs.getDouble("score"));
+                blackhole.consume(rs.getString("chunk_content"));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object simdScan() {
+        return vectors.search(simd, query, LIMIT, THRESHOLD);
+    }
+
+    @Benchmark
+    public Object scalarScan() {
+        return vectors.search(scalar, query, LIMIT, THRESHOLD);
+    }
+
+    private List<ChunkEmbeddingRow> insertClient(UUID client, Random random) throws SQLException {
+        List<ChunkEmbeddingRow> rows = new ArrayList<>(chunks);
+        try (PreparedStatement documents = connection.prepareStatement("INSERT INTO documents (id, client_id, title) VALUES (?, ?, ?)");
+             PreparedStatement chunkRows = connection.prepareStatement(
+                     "INSERT INTO document_chunks (document_id, client_id, chunk_index, content, embedding) VALUES (?, ?, ?, ?, ?)")) {
+            Document document = null;
+            for (int i = 0; i < chunks; i++) {
+                if (i % CHUNKS_PER_DOCUMENT == 0) {
+                    document = new Document(UUID.randomUUID(), client, "Document " + i, null, null, null, OffsetDateTime.now());
+                    documents.setObject(1, document.id());
+                    documents.setObject(2, client);
+                    documents.setString(3, document.title());
+                    documents.addBatch();
+                }
+                float[] embedding = randomVector(random);
+                String content = "Chunk " + i;
+                chunkRows.setObject(1, document.id());
+                chunkRows.setObject(2, client);
+                chunkRows.setInt(3, i % CHUNKS_PER_DOCUMENT);
+                chunkRows.setString(4, content);
+                chunkRows.setObject(5, new PGvector(embedding));
+                chunkRows.addBatch();
+                rows.add(new ChunkEmbeddingRow(document, i % CHUNKS_PER_DOCUMENT, content, embedding));
+            }
+            documents.executeBatch();
+            chunkRows.executeBatch();
+        }
+        return rows;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
@@ -1,28 +1,60 @@
 package com.neviswealth.searchservice.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto;
 import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.api.dto.PageDto;
+import com.neviswealth.searchservice.service.ClientImportService;
 import com.neviswealth.searchservice.service.ClientService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/clients")
+@Validated
 public class ClientController {
 
     private final ClientService clientService;
+    private final ClientImportService clientImportService;
+    private final ObjectMapper objectMapper;
 
-    public ClientController(ClientService clientService) {
+    public ClientController(ClientService clientService, ClientImportService clientImportService, ObjectMapper objectMapper) {
         this.clientService = clientService;
+        this.clientImportService = clientImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<ClientDto> allClients() {
-        return clientService.getAll();
+    public PageDto<ClientDto> listClients(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return clientService.listClients(from, to, cursor, limit);
+    }
+
+    /**
+     * Streams one JSON line per client in the order of {@link #listClients}, without pagination.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamClients(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        return out -> clientService.streamClients(from, to, client -> Ndjson.writeLine(objectMapper, out, client));
     }
 
     @PostMapping
@@ -31,8 +63,49 @@ public class ClientController {
         return clientService.createClient(request);
     }
 
+    /**
+     * Imports clients from CSV with a header row, see {@link CsvClientRows}. Emails that are taken are counted as
+     * duplicates, rows that fail validation as invalid.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ClientImportSummaryDto importCsv(InputStream body) {
+        return clientImportService.importClients(CsvClientRows.read(reader(body)));
+    }
+
+    /**
+     * Imports clients from one JSON object per line, shaped like the body of {@link #createClient}.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ClientImportSummaryDto importNdjson(InputStream body) {
+        return clientImportService.importClients(reader(body).lines()
+                .filter(line -> !line.isBlank())
+                .map(this::readClient)
+                .iterator());
+    }
+
+    /**
+     * Deletes the client with its documents, they disappear from reads and searches at once.
+     */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteClient(@PathVariable("id") UUID id) {
+        clientService.deleteClient(id);
+    }
+
     @GetMapping("/{id}")
     public ClientDto getClient(@PathVariable("id") UUID id) {
         return clientService.getClient(id);
     }
+
+    private CreateClientRequest readClient(String line) {
+        try {
+            return objectMapper.readValue(line, CreateClientRequest.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,109 @@
+package com.neviswealth.searchservice.api;
+
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads clients from CSV with a header row. Columns are matched by name regardless of case, underscores and
+ * dashes; {@code firstName}, {@code lastName} and {@code email} are required, {@code countryOfResidence} is optional.
+ * Quoted fields may contain commas and doubled quotes but not line breaks.
+ */
+final class CsvClientRows {
+
+    private CsvClientRows() {
+    }
+
+    /**
+     * @return one request per non-blank data line, {@code null} for lines that cannot be parsed
+     */
+    static Iterator<CreateClientRequest> read(BufferedReader reader) {
+        Iterator<String> lines = reader.lines().filter(line -> !line.isBlank()).iterator();
+        if (!lines.hasNext()) {
+            return Collections.emptyIterator();
+        }
+        List<String> header = fields(stripBom(lines.next()));
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed CSV header");
+        }
+        int firstName = column(header, "firstName", true);
+        int lastName = column(header, "lastName", true);
+        int email = column(header, "email", true);
+        int country = column(header, "countryOfResidence", false);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public CreateClientRequest next() {
+                List<String> fields = fields(lines.next());
+                if (fields == null || fields.size() != header.size()) {
+                    return null;
+                }
+                return new CreateClientRequest(fields.get(firstName), fields.get(lastName), fields.get(email),
+                        country < 0 || fields.get(country).isBlank() ? null : fields.get(country).trim());
+            }
+        };
+    }
+
+    private static int column(List<String> header, String name, boolean required) {
+        for (int i = 0; i < header.size(); i++) {
+            String normalized = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "").replace("-", "");
+            if (normalized.equals(name.toLowerCase(Locale.ROOT))) {
+                return i;
+            }
+        }
+        if (required) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain " + name);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the fields of one line, {@code null} if a quote is not closed
+     */
+    static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String stripBom(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+}
@@ -1,24 +1,52 @@
 package com.neviswealth.searchservice.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.dto.BulkDocumentRequest;
 import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
 import com.neviswealth.searchservice.api.dto.DocumentDto;
 import com.neviswealth.searchservice.api.dto.DocumentWithContentDto;
+import com.neviswealth.searchservice.api.dto.PageDto;
+import com.neviswealth.searchservice.api.dto.UpdateDocumentRequest;
+import com.neviswealth.searchservice.service.DocumentIngestionService;
 import com.neviswealth.searchservice.service.DocumentService;
+import com.neviswealth.searchservice.service.DocumentUploadService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @RestController
 @RequestMapping
+@Validated
 public class DocumentController {
 
     private final DocumentService documentService;
+    private final DocumentIngestionService documentIngestionService;
+    private final DocumentUploadService documentUploadService;
+    private final ObjectMapper objectMapper;
 
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService,
+                              DocumentIngestionService documentIngestionService,
+                              DocumentUploadService documentUploadService,
+                              ObjectMapper objectMapper) {
         this.documentService = documentService;
+        this.documentIngestionService = documentIngestionService;
+        this.documentUploadService = documentUploadService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/clients/{clientId}/documents")
@@ -28,13 +56,91 @@ public class DocumentController {
         return documentService.createDocument(clientId, request);
     }
 
+    /**
+     * Creates a document from a plain-text body of any size, the content is read and embedded as it arrives.
+     */
+    @PostMapping(value = "/clients/{clientId}/documents", consumes = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public DocumentDto uploadDocument(@PathVariable("clientId") UUID clientId,
+                                      @RequestParam("title") @NotBlank String title,
+                                      InputStream body) {
+        return documentUploadService.uploadDocument(clientId, title, new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a document from an uploaded UTF-8 text file, see {@link #uploadDocument}.
+     */
+    @PostMapping(value = "/clients/{clientId}/documents", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public DocumentDto uploadDocumentFile(@PathVariable("clientId") UUID clientId,
+                                          @RequestParam("title") @NotBlank String title,
+                                          @RequestPart("file") MultipartFile file) throws IOException {
+        try (Reader content = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return documentUploadService.uploadDocument(clientId, title, content);
+        }
+    }
+
     @GetMapping("/documents")
-    public List<DocumentDto> getAll() {
-        return documentService.getAll();
+    public PageDto<DocumentDto> listDocuments(@RequestParam(value = "clientId", required = false) UUID clientId,
+                                              @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                              @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return documentService.listDocuments(clientId, from, to, cursor, limit);
+    }
+
+    /**
+     * Streams one JSON line per document in the order of {@link #listDocuments}, without pagination.
+     */
+    @GetMapping(value = "/documents/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamDocuments(@RequestParam(value = "clientId", required = false) UUID clientId,
+                                                 @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                                 @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        return out -> documentService.streamDocuments(clientId, from, to, document -> Ndjson.writeLine(objectMapper, out, document));
+    }
+
+    /**
+     * Bulk ingestion: one JSON document per line in, one status line per document out, in input order.
+     */
+    @PostMapping(value = "/documents/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void ingestDocuments(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        documentIngestionService.ingest(
+                reader.lines().filter(line -> !line.isBlank()).map(this::readDocument).iterator(),
+                result -> Ndjson.writeLine(objectMapper, out, result)
+        );
     }
 
     @GetMapping("/documents/{id}")
     public DocumentWithContentDto getDocument(@PathVariable("id") UUID documentId) {
         return documentService.getDocument(documentId);
     }
+
+    /**
+     * Deletes the document, it disappears from reads and searches at once.
+     */
+    @DeleteMapping("/documents/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteDocument(@PathVariable("id") UUID documentId) {
+        documentService.deleteDocument(documentId);
+    }
+
+    /**
+     * Replaces the content of a document, only chunks whose text changed are embedded again.
+     */
+    @PutMapping("/documents/{id}")
+    public DocumentDto updateDocument(@PathVariable("id") UUID documentId,
+                                      @Valid @RequestBody UpdateDocumentRequest request) {
+        return documentService.updateDocument(documentId, request);
+    }
+
+    private BulkDocumentRequest readDocument(String line) {
+        try {
+            return objectMapper.readValue(line, BulkDocumentRequest.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.neviswealth.searchservice.api;
+
+import com.neviswealth.searchservice.api.dto.EmbeddingModelDto;
+import com.neviswealth.searchservice.service.ReembeddingService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/embedding-models")
+public class EmbeddingModelController {
+
+    private final ReembeddingService reembeddingService;
+
+    public EmbeddingModelController(ReembeddingService reembeddingService) {
+        this.reembeddingService = reembeddingService;
+    }
+
+    /**
+     * Models in the order they were introduced, with the progress of the one being re-embedded with.
+     */
+    @GetMapping
+    public List<EmbeddingModelDto> listModels() {
+        return reembeddingService.listModels();
+    }
+}
@@ -0,0 +1,26 @@
+package com.neviswealth.searchservice.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Newline-delimited JSON for streaming responses, each line is flushed as soon as it is written.
+ */
+final class Ndjson {
+
+    private Ndjson() {
+    }
+
+    static void writeLine(ObjectMapper objectMapper, OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
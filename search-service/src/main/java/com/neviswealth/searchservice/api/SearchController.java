@@ -1,14 +1,21 @@
 package com.neviswealth.searchservice.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.dto.BatchSearchRequest;
 import com.neviswealth.searchservice.api.dto.SearchResultDto;
+import com.neviswealth.searchservice.api.dto.SuggestResultDto;
 import com.neviswealth.searchservice.service.SearchService;
+import com.neviswealth.searchservice.service.SuggestService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -17,14 +24,35 @@ import java.util.UUID;
 public class SearchController {
 
     private final SearchService searchService;
+    private final SuggestService suggestService;
+    private final ObjectMapper objectMapper;
 
-    public SearchController(SearchService searchService) {
+    public SearchController(SearchService searchService, SuggestService suggestService, ObjectMapper objectMapper) {
         this.searchService = searchService;
+        this.suggestService = suggestService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
     public SearchResultDto search(@RequestParam("q") @NotBlank String query,
-                                  @RequestParam(value = "clientId", required = false) UUID clientId) {
-        return searchService.search(query, clientId);
+                                  @RequestParam(value = "clientId", required = false) List<UUID> clientIds,
+                                  @RequestParam(value = "limit", required = false) @Min(1) @Max(100) Integer limit,
+                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        return searchService.search(query, clientIds, limit, cursor);
+    }
+
+    @GetMapping("/suggest")
+    public SuggestResultDto suggest(@RequestParam("prefix") @NotBlank String prefix,
+                                    @RequestParam(value = "clientId", required = false) UUID clientId) {
+        return suggestService.suggest(prefix, clientId);
+    }
+
+    /**
+     * Streams one JSON line per query in request order.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody searchBatch(@Valid @RequestBody BatchSearchRequest request) {
+        searchService.validateBatch(request.queries());
+        return out -> searchService.searchBatch(request.queries(), result -> Ndjson.writeLine(objectMapper, out, result));
     }
 }
@@ -3,8 +3,14 @@ package com.neviswealth.searchservice.api;
 import com.neviswealth.searchservice.api.dto.ClientDto;
 import com.neviswealth.searchservice.api.dto.CreateClientRequest;
 import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
+import com.neviswealth.searchservice.index.ClientSearchIndex;
+import com.neviswealth.searchservice.index.SuggestIndex;
 import com.neviswealth.searchservice.service.ClientService;
 import com.neviswealth.searchservice.service.DocumentService;
+import com.neviswealth.searchservice.service.SearchSnapshots;
+import com.neviswealth.searchservice.service.VerifiedClientIds;
+import com.neviswealth.searchservice.vector.ClientExactScanner;
+import com.neviswealth.searchservice.vector.VectorStore;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,16 +26,37 @@ public class TestDataController {
     private final ClientService clientService;
     private final DocumentService documentService;
     private final JdbcTemplate jdbcTemplate;
-
-    public TestDataController(ClientService clientService, DocumentService documentService, JdbcTemplate jdbcTemplate) {
+    private final VectorStore vectorStore;
+    private final ClientExactScanner clientExactScanner;
+    private final ClientSearchIndex clientSearchIndex;
+    private final SuggestIndex suggestIndex;
+    private final VerifiedClientIds verifiedClientIds;
+    private final SearchSnapshots searchSnapshots;
+
+    public TestDataController(ClientService clientService, DocumentService documentService, JdbcTemplate jdbcTemplate,
+                              VectorStore vectorStore, ClientExactScanner clientExactScanner,
+                              ClientSearchIndex clientSearchIndex, SuggestIndex suggestIndex,
+                              VerifiedClientIds verifiedClientIds, SearchSnapshots searchSnapshots) {
         this.clientService = clientService;
         this.documentService = documentService;
         this.jdbcTemplate = jdbcTemplate;
+        this.vectorStore = vectorStore;
+        this.clientExactScanner = clientExactScanner;
+        this.clientSearchIndex = clientSearchIndex;
+        this.suggestIndex = suggestIndex;
+        this.verifiedClientIds = verifiedClientIds;
+        this.searchSnapshots = searchSnapshots;
     }
 
     @PostMapping("/wipe-everything")
     public void wipeOut() {
         jdbcTemplate.execute("truncate table clients cascade");
+        vectorStore.reload();
+        clientExactScanner.clear();
+        clientSearchIndex.reload();
+        suggestIndex.reload();
+        verifiedClientIds.clear();
+        searchSnapshots.clear();
     }
 
     @GetMapping("/simple")
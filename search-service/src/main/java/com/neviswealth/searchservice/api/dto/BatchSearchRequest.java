@@ -0,0 +1,22 @@
+package com.neviswealth.searchservice.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchSearchRequest(
+        @NotEmpty(message = "At least one query is required")
+        @Size(max = 1000, message = "At most 1000 queries per batch")
+        List<@Valid Query> queries
+) {
+    public record Query(
+            @NotBlank(message = "Query 'q' is required")
+            String q,
+            UUID clientId
+    ) {
+    }
+}
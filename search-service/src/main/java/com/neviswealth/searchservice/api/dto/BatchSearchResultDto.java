@@ -0,0 +1,18 @@
+package com.neviswealth.searchservice.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of one query of a batch, {@code index} is its position in the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchSearchResultDto(
+        int index,
+        String q,
+        UUID clientId,
+        List<ScoredClientDto> clients,
+        List<ScoredDocumentDto> documents
+) {}
@@ -0,0 +1,13 @@
+package com.neviswealth.searchservice.api.dto;
+
+import java.util.UUID;
+
+/**
+ * One line of a bulk ingestion request; validated per line so that one bad document does not fail the others.
+ */
+public record BulkDocumentRequest(
+        UUID clientId,
+        String title,
+        String content
+) {
+}
@@ -0,0 +1,21 @@
+package com.neviswealth.searchservice.api.dto;
+
+import java.util.List;
+
+/**
+ * @param duplicates  rows whose email already belonged to a client or to an earlier row
+ * @param invalidRows the first invalid rows with their reason, at most a bounded number of them
+ */
+public record ClientImportSummaryDto(
+        int inserted,
+        int duplicates,
+        int invalid,
+        List<InvalidRow> invalidRows
+) {
+
+    /**
+     * @param row position of the row in the import, starting at 1 and not counting a header
+     */
+    public record InvalidRow(int row, String error) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.neviswealth.searchservice.api.dto;
+
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelRow;
+
+import java.time.OffsetDateTime;
+
+/**
+ * @param status            {@code ACTIVE}, {@code BUILDING} while chunks are re-embedded, {@code INDEXING} while
+ *                          indexes are built, or {@code RETIRED}
+ * @param reembeddedChunks  chunks re-embedded with the model so far
+ * @param totalChunks       chunks there were when re-embedding started, {@code null} for the initial model
+ */
+public record EmbeddingModelDto(
+        String name,
+        int dimension,
+        String status,
+        long reembeddedChunks,
+        Long totalChunks,
+        OffsetDateTime createdAt,
+        OffsetDateTime activatedAt
+) {
+    public static EmbeddingModelDto from(ModelRow row) {
+        return new EmbeddingModelDto(
+                row.name(),
+                row.dimension(),
+                row.status().name(),
+                row.reembeddedChunks(),
+                row.totalChunks(),
+                row.createdAt(),
+                row.activatedAt()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.neviswealth.searchservice.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * @param index position of the document in the request, starting at 0
+ * @param id    of the created document
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestionResultDto(
+        int index,
+        Status status,
+        UUID id,
+        String error
+) {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT,
+        FAILED
+    }
+
+    public static IngestionResultDto created(int index, UUID id) {
+        return new IngestionResultDto(index, Status.CREATED, id, null);
+    }
+
+    public static IngestionResultDto rejected(int index, Status status, String error) {
+        return new IngestionResultDto(index, status, null, error);
+    }
+}
@@ -0,0 +1,11 @@
+package com.neviswealth.searchservice.api.dto;
+
+import java.util.List;
+
+/**
+ * @param nextCursor passed back as {@code cursor} to fetch the next page, {@code null} on the last page
+ */
+public record PageDto<T>(
+        List<T> items,
+        String nextCursor
+) {}
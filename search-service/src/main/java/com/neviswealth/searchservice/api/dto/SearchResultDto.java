@@ -7,6 +7,12 @@ import java.util.List;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record SearchResultDto(
         List<ScoredClientDto> clients,
-        List<ScoredDocumentDto> documents
-) {}
+        List<ScoredDocumentDto> documents,
+        String nextCursor
+) {
+
+    public SearchResultDto(List<ScoredClientDto> clients, List<ScoredDocumentDto> documents) {
+        this(clients, documents, null);
+    }
+}
 
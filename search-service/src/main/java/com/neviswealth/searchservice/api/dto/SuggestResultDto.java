@@ -0,0 +1,11 @@
+package com.neviswealth.searchservice.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SuggestResultDto(
+        List<ClientDto> clients,
+        List<DocumentDto> documents
+) {}
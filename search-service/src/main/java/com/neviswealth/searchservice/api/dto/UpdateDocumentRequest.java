@@ -0,0 +1,9 @@
+package com.neviswealth.searchservice.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record UpdateDocumentRequest(
+        @NotBlank(message = "Content is required")
+        String content
+) {
+}
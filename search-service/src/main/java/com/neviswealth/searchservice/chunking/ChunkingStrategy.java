@@ -1,7 +1,33 @@
 package com.neviswealth.searchservice.chunking;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 
 public interface ChunkingStrategy {
     List<Chunk> chunk(String title, String fullContent);
+
+    /**
+     * The chunks {@link #chunk(String, String)} would return, produced as the iterator advances.
+     */
+    default Iterator<Chunk> chunks(String title, CharSequence content) {
+        return chunk(title, content == null ? null : content.toString()).iterator();
+    }
+
+    /**
+     * The chunks {@link #chunk(String, String)} would return for the whole content, produced as the iterator
+     * advances. Strategies that cannot chunk incrementally read all the content first.
+     */
+    default Iterator<Chunk> chunkStream(String title, Reader content) {
+        StringWriter fullContent = new StringWriter();
+        try {
+            content.transferTo(fullContent);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunk(title, fullContent.toString()).iterator();
+    }
 }
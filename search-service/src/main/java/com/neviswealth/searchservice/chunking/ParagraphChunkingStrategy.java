@@ -1,10 +1,19 @@
 package com.neviswealth.searchservice.chunking;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
 
 /**
- * Splits text into paragraph-based chunks capped by a max character length.
+ * Splits text into paragraph-based chunks capped by a max character length. Paragraphs are separated by lines of
+ * regex whitespace ({@code \s}) only, long paragraphs are split into pieces of whole words.
  */
 public class ParagraphChunkingStrategy implements ChunkingStrategy {
 
@@ -19,77 +28,292 @@ public class ParagraphChunkingStrategy implements ChunkingStrategy {
         if (fullContent == null || fullContent.isBlank()) {
             return List.of();
         }
+        List<Chunk> result = new ArrayList<>();
+        chunks(title, fullContent).forEachRemaining(result::add);
+        return result;
+    }
 
-        String[] paragraphs = fullContent.split("\\n\\s*\\n");
-        List<String> chunks = new ArrayList<>();
-        StringBuilder paragraphMerge = new StringBuilder();
+    /**
+     * Scans the content by index as the iterator advances, only the chunk strings themselves are allocated.
+     */
+    @Override
+    public Iterator<Chunk> chunks(String title, CharSequence content) {
+        Pieces pieces = new Pieces(title);
+        ContentParagraphs paragraphs = new ContentParagraphs(content);
+        return iterator(pieces, () -> paragraphs.next(pieces));
+    }
 
-        if (!title.isBlank()) {
-            chunks.add(title);
-        }
+    /**
+     * Holds one paragraph of the content in memory at a time.
+     */
+    @Override
+    public Iterator<Chunk> chunkStream(String title, Reader content) {
+        ParagraphReader paragraphs = new ParagraphReader(content);
+        Pieces pieces = new Pieces(title);
+        return iterator(pieces, () -> paragraphs.next(pieces));
+    }
+
+    /**
+     * @param paragraphs adds the next paragraph to the pieces, {@code false} at the end of the content
+     */
+    private static Iterator<Chunk> iterator(Pieces pieces, BooleanSupplier paragraphs) {
+        return new Iterator<>() {
+            private int index;
+            private boolean finished;
 
-        for (String rawParagraph : paragraphs) {
-            String paragraph = rawParagraph.strip();
-            if (paragraph.isEmpty()) {
-                continue;
+            @Override
+            public boolean hasNext() {
+                while (pieces.ready.isEmpty() && !finished) {
+                    if (!paragraphs.getAsBoolean()) {
+                        pieces.finish();
+                        finished = true;
+                    }
+                }
+                return !pieces.ready.isEmpty();
             }
-            if (paragraph.length() > maxChars) {
-                if (!paragraphMerge.isEmpty()) {
-                    chunks.add(paragraphMerge.toString());
-                    paragraphMerge.setLength(0);
+
+            @Override
+            public Chunk next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                return new Chunk(index++, pieces.ready.poll());
+            }
+        };
+    }
+
+    /**
+     * Merges paragraphs into pieces of at most {@code maxChars}. The title becomes the first piece once the content
+     * turns out not to be blank.
+     */
+    private final class Pieces {
 
-                chunks.addAll(splitLongParagraph(paragraph));
+        private final Deque<String> ready = new ArrayDeque<>();
+        private final StringBuilder paragraphMerge = new StringBuilder();
+        private final StringBuilder words = new StringBuilder();
+        private String title;
+
+        private Pieces(String title) {
+            this.title = title;
+        }
+
+        private void add(CharSequence text, int start, int end) {
+            while (start < end && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            if (start == end) {
+                return;
+            }
+            if (title != null) {
+                if (!title.isBlank()) {
+                    ready.add(title);
+                }
+                title = null;
+            }
+            if (end - start > maxChars) {
+                finish();
+                splitLongParagraph(text, start, end);
             } else {
-                appendPiece(paragraph, chunks, paragraphMerge);
+                appendPiece(text, start, end);
             }
         }
 
-        if (!paragraphMerge.isEmpty()) {
-            chunks.add(paragraphMerge.toString());
+        private void appendPiece(CharSequence text, int start, int end) {
+            if (!paragraphMerge.isEmpty() && paragraphMerge.length() + 2 + (end - start) > maxChars) {
+                finish();
+            } else if (!paragraphMerge.isEmpty()) {
+                paragraphMerge.append("\n\n");
+            }
+            paragraphMerge.append(text, start, end);
         }
 
-        List<Chunk> result = new ArrayList<>();
-        for (int i = 0; i <= chunks.size() - 1; i++) {
-            result.add(new Chunk(i, chunks.get(i)));
+        /**
+         * Joins the words of the paragraph with single spaces into pieces of at most {@code maxChars}, a longer
+         * word is a piece of its own.
+         */
+        private void splitLongParagraph(CharSequence text, int start, int end) {
+            int position = start;
+            while (position < end) {
+                while (position < end && isSpace(text.charAt(position))) {
+                    position++;
+                }
+                int wordStart = position;
+                while (position < end && !isSpace(text.charAt(position))) {
+                    position++;
+                }
+                if (wordStart == position) {
+                    break;
+                }
+                if (!words.isEmpty() && words.length() + 1 + (position - wordStart) > maxChars) {
+                    ready.add(words.toString());
+                    words.setLength(0);
+                } else if (!words.isEmpty()) {
+                    words.append(' ');
+                }
+                words.append(text, wordStart, position);
+            }
+            if (!words.isEmpty()) {
+                ready.add(words.toString());
+                words.setLength(0);
+            }
         }
-        return result;
-    }
 
-    private void appendPiece(String paragraph, List<String> chunks, StringBuilder paragraphMerge) {
-        if (!paragraphMerge.isEmpty() && paragraphMerge.length() + 2 + paragraph.length() > maxChars) {
-            chunks.add(paragraphMerge.toString());
-            paragraphMerge.setLength(0);
-            paragraphMerge.append(paragraph);
-            paragraphMerge.setLength(0);
-        } else {
+        private void finish() {
             if (!paragraphMerge.isEmpty()) {
-                paragraphMerge.append("\n\n");
+                ready.add(paragraphMerge.toString());
+                paragraphMerge.setLength(0);
             }
-            paragraphMerge.append(paragraph);
         }
     }
 
-    private List<String> splitLongParagraph(String paragraph) {
-        String[] words = paragraph.split("\\s+");
-        List<String> pieces = new ArrayList<>();
-        StringBuilder builder = new StringBuilder();
-        for (String word : words) {
-            if (builder.isEmpty()) {
-                builder.append(word);
-                continue;
-            }
-            if (builder.length() + 1 + word.length() > maxChars) {
-                pieces.add(builder.toString());
-                builder.setLength(0);
-                builder.append(word);
-            } else {
-                builder.append(' ').append(word);
+    /**
+     * Finds the paragraphs of content held in memory: a run of {@code \s} with two or more line breaks separates them.
+     */
+    private static final class ContentParagraphs {
+
+        private final CharSequence content;
+        private int position;
+
+        private ContentParagraphs(CharSequence content) {
+            this.content = content == null ? "" : content;
+        }
+
+        private boolean next(Pieces pieces) {
+            int length = content.length();
+            if (position >= length) {
+                return false;
             }
+            int start = position;
+            int i = start;
+            while (i < length) {
+                if (content.charAt(i) != '\n') {
+                    i++;
+                    continue;
+                }
+                int lastBreak = -1;
+                int j = i + 1;
+                while (j < length && isSpace(content.charAt(j))) {
+                    if (content.charAt(j) == '\n') {
+                        lastBreak = j;
+                    }
+                    j++;
+                }
+                if (lastBreak >= 0) {
+                    pieces.add(content, start, i);
+                    position = lastBreak + 1;
+                    return true;
+                }
+                i = j;
+            }
+            pieces.add(content, start, length);
+            position = length;
+            return true;
         }
-        if (!builder.isEmpty()) {
-            pieces.add(builder.toString());
+    }
+
+    /**
+     * Reads the paragraphs of streamed content: lines of {@code \s} only separate them.
+     */
+    private static final class ParagraphReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder paragraph = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        private ParagraphReader(Reader reader) {
+            this.reader = reader;
         }
-        return pieces;
+
+        /**
+         * Adds the next paragraph with its lines joined by {@code \n} to the pieces.
+         *
+         * @return {@code false} at the end of the content
+         */
+        private boolean next(Pieces pieces) {
+            paragraph.setLength(0);
+            boolean hasLines = false;
+            while (true) {
+                int mark = paragraph.length();
+                if (hasLines) {
+                    paragraph.append('\n');
+                }
+                int lineStart = paragraph.length();
+                if (!readLine()) {
+                    paragraph.setLength(mark);
+                    break;
+                }
+                if (isSeparator(lineStart)) {
+                    paragraph.setLength(mark);
+                    if (hasLines) {
+                        break;
+                    }
+                    continue;
+                }
+                hasLines = true;
+            }
+            if (hasLines) {
+                pieces.add(paragraph, 0, paragraph.length());
+            }
+            return hasLines;
+        }
+
+        /**
+         * Appends the next line to the paragraph.
+         *
+         * @return {@code false} at the end of the content
+         */
+        private boolean readLine() {
+            boolean hasLine = false;
+            while (true) {
+                if (position == limit && !fill()) {
+                    return hasLine;
+                }
+                hasLine = true;
+                while (position < limit) {
+                    char c = buffer[position++];
+                    if (c == '\n') {
+                        return true;
+                    }
+                    paragraph.append(c);
+                }
+            }
+        }
+
+        private boolean fill() {
+            if (eof) {
+                return false;
+            }
+            try {
+                int read = reader.read(buffer);
+                if (read < 0) {
+                    eof = true;
+                    return false;
+                }
+                position = 0;
+                limit = read;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private boolean isSeparator(int lineStart) {
+            for (int i = lineStart; i < paragraph.length(); i++) {
+                if (!isSpace(paragraph.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
@@ -0,0 +1,193 @@
+package com.neviswealth.searchservice.chunking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Cuts text into windows of {@code windowTokens} tokens, each window starting {@code overlapTokens} tokens before
+ * the previous one ended. Tokens are runs of non-whitespace, runs longer than {@link #MAX_TOKEN_CHARS} count as
+ * several tokens. Chunks are verbatim slices of the content, from the first to the last token of their window.
+ */
+public class TokenWindowChunkingStrategy implements ChunkingStrategy {
+
+    static final int MAX_TOKEN_CHARS = 32;
+
+    private final int windowTokens;
+    private final int overlapTokens;
+
+    public TokenWindowChunkingStrategy(int windowTokens, int overlapTokens) {
+        if (windowTokens < 1 || overlapTokens < 0 || overlapTokens >= windowTokens) {
+            throw new IllegalArgumentException("Overlap of " + overlapTokens
+                    + " tokens must be at least 0 and less than the window of " + windowTokens + " tokens");
+        }
+        this.windowTokens = windowTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    @Override
+    public List<Chunk> chunk(String title, String fullContent) {
+        if (fullContent == null) {
+            return List.of();
+        }
+        List<Chunk> result = new ArrayList<>();
+        chunkStream(title, new StringReader(fullContent)).forEachRemaining(result::add);
+        return result;
+    }
+
+    @Override
+    public Iterator<Chunk> chunks(String title, CharSequence content) {
+        return chunkStream(title, new StringReader(content == null ? "" : content.toString()));
+    }
+
+    /**
+     * Holds one window of the content in memory at a time.
+     */
+    @Override
+    public Iterator<Chunk> chunkStream(String title, Reader content) {
+        Windows windows = new Windows(title, content);
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return windows.advance();
+            }
+
+            @Override
+            public Chunk next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Chunk(index++, windows.ready.poll());
+            }
+        };
+    }
+
+    /**
+     * Reads the content one character at a time into the current window. {@code text} starts at the first token of
+     * the window and token bounds are offsets into it. The title becomes the first piece once the content turns out
+     * not to be blank.
+     */
+    private final class Windows {
+
+        private final Deque<String> ready = new ArrayDeque<>();
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder text = new StringBuilder();
+        private final int[] starts = new int[windowTokens];
+        private final int[] ends = new int[windowTokens];
+        private String title;
+        private int position;
+        private int limit;
+        private boolean eof;
+        private int tokens;
+        // tokens not yet part of a ready piece
+        private int fresh;
+        private boolean inToken;
+
+        private Windows(String title, Reader reader) {
+            this.title = title;
+            this.reader = reader;
+        }
+
+        /**
+         * @return whether a piece is ready
+         */
+        private boolean advance() {
+            while (ready.isEmpty() && !eof) {
+                if (position == limit && !fill()) {
+                    endToken();
+                    if (fresh > 0) {
+                        emit();
+                    }
+                    break;
+                }
+                accept(buffer[position++]);
+            }
+            return !ready.isEmpty();
+        }
+
+        private void accept(char c) {
+            if (Character.isWhitespace(c)) {
+                endToken();
+                if (tokens > 0) {
+                    text.append(c);
+                }
+                return;
+            }
+            if (inToken && text.length() - starts[tokens] >= MAX_TOKEN_CHARS && !Character.isLowSurrogate(c)) {
+                endToken();
+            }
+            if (!inToken) {
+                startToken();
+            }
+            text.append(c);
+        }
+
+        private void startToken() {
+            if (title != null) {
+                if (!title.isBlank()) {
+                    ready.add(title);
+                }
+                title = null;
+            }
+            starts[tokens] = text.length();
+            inToken = true;
+        }
+
+        private void endToken() {
+            if (!inToken) {
+                return;
+            }
+            ends[tokens++] = text.length();
+            fresh++;
+            inToken = false;
+            if (tokens == windowTokens) {
+                emit();
+                slide();
+            }
+        }
+
+        private void emit() {
+            ready.add(text.substring(starts[0], ends[tokens - 1]));
+            fresh = 0;
+        }
+
+        /**
+         * Keeps the last {@code overlapTokens} tokens of a full window as the start of the next one.
+         */
+        private void slide() {
+            int from = windowTokens - overlapTokens;
+            int shift = from < tokens ? starts[from] : text.length();
+            text.delete(0, shift);
+            for (int i = 0; i < overlapTokens; i++) {
+                starts[i] = starts[from + i] - shift;
+                ends[i] = ends[from + i] - shift;
+            }
+            tokens = overlapTokens;
+        }
+
+        private boolean fill() {
+            try {
+                int read = reader.read(buffer);
+                if (read < 0) {
+                    eof = true;
+                    return false;
+                }
+                position = 0;
+                limit = read;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
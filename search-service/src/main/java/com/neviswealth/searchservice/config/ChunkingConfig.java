@@ -2,6 +2,7 @@ package com.neviswealth.searchservice.config;
 
 import com.neviswealth.searchservice.chunking.ChunkingStrategy;
 import com.neviswealth.searchservice.chunking.ParagraphChunkingStrategy;
+import com.neviswealth.searchservice.chunking.TokenWindowChunkingStrategy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,6 +11,9 @@ public class ChunkingConfig {
 
     @Bean
     public ChunkingStrategy chunkingStrategy(ChunkingProperties properties) {
-        return new ParagraphChunkingStrategy(properties.getMaxChars());
+        return switch (properties.getStrategy()) {
+            case PARAGRAPH -> new ParagraphChunkingStrategy(properties.getMaxChars());
+            case TOKEN_WINDOW -> new TokenWindowChunkingStrategy(properties.getWindowTokens(), properties.getOverlapTokens());
+        };
     }
 }
@@ -8,9 +8,36 @@ import org.springframework.validation.annotation.Validated;
 @ConfigurationProperties(prefix = "chunking")
 public class ChunkingProperties {
 
+    private ChunkingStrategyType strategy = ChunkingStrategyType.PARAGRAPH;
+
     @Min(1)
     private int maxChars = 1200;
 
+    /**
+     * Tokens per chunk of the token window strategy.
+     */
+    @Min(1)
+    private int windowTokens = 200;
+
+    /**
+     * Tokens a chunk of the token window strategy repeats from the end of the previous one, less than the window.
+     */
+    @Min(0)
+    private int overlapTokens = 20;
+
+    /**
+     * Store chunks cut verbatim from the content as offsets into it rather than as a copy of their text.
+     */
+    private boolean storeOffsets = false;
+
+    public ChunkingStrategyType getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(ChunkingStrategyType strategy) {
+        this.strategy = strategy;
+    }
+
     public int getMaxChars() {
         return maxChars;
     }
@@ -18,4 +45,38 @@ public class ChunkingProperties {
     public void setMaxChars(int maxChars) {
         this.maxChars = maxChars;
     }
+
+    public int getWindowTokens() {
+        return windowTokens;
+    }
+
+    public void setWindowTokens(int windowTokens) {
+        this.windowTokens = windowTokens;
+    }
+
+    public int getOverlapTokens() {
+        return overlapTokens;
+    }
+
+    public void setOverlapTokens(int overlapTokens) {
+        this.overlapTokens = overlapTokens;
+    }
+
+    /**
+     * Identifies the chunks the configured strategy cuts, documents chunked under other settings share no chunks.
+     */
+    public String fingerprint() {
+        return switch (strategy) {
+            case PARAGRAPH -> "paragraph:" + maxChars;
+            case TOKEN_WINDOW -> "token-window:" + windowTokens + ":" + overlapTokens;
+        };
+    }
+
+    public boolean isStoreOffsets() {
+        return storeOffsets;
+    }
+
+    public void setStoreOffsets(boolean storeOffsets) {
+        this.storeOffsets = storeOffsets;
+    }
 }
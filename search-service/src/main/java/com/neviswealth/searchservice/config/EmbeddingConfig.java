@@ -1,20 +1,56 @@
 package com.neviswealth.searchservice.config;
 
 import com.neviswealth.searchservice.embedding.EmbeddingClient;
+import com.neviswealth.searchservice.embedding.EmbeddingModel;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
 import com.neviswealth.searchservice.embedding.EmbeddingProvider;
 import com.neviswealth.searchservice.embedding.HttpEmbeddingProvider;
 import com.neviswealth.searchservice.embedding.MockEmbeddingProvider;
+import com.neviswealth.searchservice.embedding.NextEmbeddingClient;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 public class EmbeddingConfig {
 
     @Bean
-    public EmbeddingProvider embeddingProvider(EmbeddingProperties properties, EmbeddingClient embeddingClient) {
-        return switch (properties.getProvider()) {
-            case HTTP -> new HttpEmbeddingProvider(embeddingClient);
-            case MOCK -> new MockEmbeddingProvider(properties.getDimension());
+    public EmbeddingModels embeddingModels(EmbeddingProperties properties,
+                                           EmbeddingClient embeddingClient,
+                                           NextEmbeddingClient nextEmbeddingClient,
+                                           EmbeddingModelRepository repository) {
+        EmbeddingModel configured = new EmbeddingModel(properties.getModel(), properties.getDimension(),
+                provider(properties.getProvider(), properties.getDimension(), embeddingClient));
+        EmbeddingProperties.Next next = properties.getNext();
+        return new EmbeddingModels(repository, configured, next.isConfigured()
+                ? new EmbeddingModel(next.getModel(), next.getDimension(), provider(next.getProvider(), next.getDimension(), nextEmbeddingClient))
+                : null);
+    }
+
+    /**
+     * Embeds with whichever model is active, so search and ingestion follow a switch to a re-embedded corpus.
+     */
+    @Bean
+    public EmbeddingProvider embeddingProvider(EmbeddingModels models) {
+        return new EmbeddingProvider() {
+            @Override
+            public float[] embed(String text) {
+                return models.active().provider().embed(text);
+            }
+
+            @Override
+            public List<float[]> embedAll(List<String> texts) {
+                return models.active().provider().embedAll(texts);
+            }
+        };
+    }
+
+    private static EmbeddingProvider provider(ProviderType type, int dimension, EmbeddingClient client) {
+        return switch (type) {
+            case HTTP -> new HttpEmbeddingProvider(client);
+            case MOCK -> new MockEmbeddingProvider(dimension);
         };
     }
 }
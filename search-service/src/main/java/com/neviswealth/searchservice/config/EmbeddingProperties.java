@@ -1,5 +1,7 @@
 package com.neviswealth.searchservice.config;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -7,6 +9,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @Validated
 @ConfigurationProperties(prefix = "embedding")
 public class EmbeddingProperties {
@@ -14,12 +18,26 @@ public class EmbeddingProperties {
     @NotNull
     private ProviderType provider = ProviderType.MOCK;
 
+    /**
+     * Name the model is recorded under in {@code embedding_models}; changing it means a new model.
+     */
+    @NotBlank
+    private String model = "default";
+
     @Min(1)
     private int dimension = 768;
 
     @NestedConfigurationProperty
     private final Http http = new Http();
 
+    @Valid
+    @NestedConfigurationProperty
+    private final Next next = new Next();
+
+    @Valid
+    @NestedConfigurationProperty
+    private final Reembedding reembedding = new Reembedding();
+
     public ProviderType getProvider() {
         return provider;
     }
@@ -28,6 +46,14 @@ public class EmbeddingProperties {
         this.provider = provider;
     }
 
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
     public int getDimension() {
         return dimension;
     }
@@ -40,6 +66,14 @@ public class EmbeddingProperties {
         return http;
     }
 
+    public Next getNext() {
+        return next;
+    }
+
+    public Reembedding getReembedding() {
+        return reembedding;
+    }
+
     @Validated
     public static class Http {
         @NotBlank
@@ -63,4 +97,96 @@ public class EmbeddingProperties {
             this.apiToken = apiToken;
         }
     }
+
+    /**
+     * The model the corpus is re-embedded with, unset when no re-embedding is wanted.
+     */
+    @Validated
+    public static class Next {
+        private String model;
+
+        @NotNull
+        private ProviderType provider = ProviderType.MOCK;
+
+        @Min(1)
+        private int dimension = 768;
+
+        @NestedConfigurationProperty
+        private final Http http = new Http();
+
+        public boolean isConfigured() {
+            return model != null && !model.isBlank();
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public ProviderType getProvider() {
+            return provider;
+        }
+
+        public void setProvider(ProviderType provider) {
+            this.provider = provider;
+        }
+
+        public int getDimension() {
+            return dimension;
+        }
+
+        public void setDimension(int dimension) {
+            this.dimension = dimension;
+        }
+
+        public Http getHttp() {
+            return http;
+        }
+    }
+
+    @Validated
+    public static class Reembedding {
+        /**
+         * Chunks embedded in one request to the next model and written together.
+         */
+        @Min(1)
+        @Max(10_000)
+        private int batchSize = 64;
+
+        /**
+         * Batches per run; with the interval between runs this caps the load re-embedding puts on the next model.
+         */
+        @Min(1)
+        @Max(10_000)
+        private int batchesPerRun = 16;
+
+        private Duration interval = Duration.ofSeconds(2);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getBatchesPerRun() {
+            return batchesPerRun;
+        }
+
+        public void setBatchesPerRun(int batchesPerRun) {
+            this.batchesPerRun = batchesPerRun;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
 }
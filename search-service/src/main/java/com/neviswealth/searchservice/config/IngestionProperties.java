@@ -0,0 +1,57 @@
+package com.neviswealth.searchservice.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "ingestion")
+public class IngestionProperties {
+
+    /**
+     * Documents chunked, embedded and copied together by bulk ingestion.
+     */
+    @Min(1)
+    @Max(10_000)
+    private int batchSize = 100;
+
+    /**
+     * Clients copied into the staging table and merged together by the client import.
+     */
+    @Min(1)
+    @Max(100_000)
+    private int clientBatchSize = 5_000;
+
+    /**
+     * Chunks embedded and inserted together when a document is uploaded as a stream, which bounds the memory an
+     * upload takes.
+     */
+    @Min(1)
+    @Max(1_000)
+    private int uploadWindow = 32;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getClientBatchSize() {
+        return clientBatchSize;
+    }
+
+    public void setClientBatchSize(int clientBatchSize) {
+        this.clientBatchSize = clientBatchSize;
+    }
+
+    public int getUploadWindow() {
+        return uploadWindow;
+    }
+
+    public void setUploadWindow(int uploadWindow) {
+        this.uploadWindow = uploadWindow;
+    }
+}
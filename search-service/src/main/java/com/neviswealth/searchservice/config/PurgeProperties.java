@@ -0,0 +1,56 @@
+package com.neviswealth.searchservice.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Validated
+@ConfigurationProperties(prefix = "purge")
+public class PurgeProperties {
+
+    /**
+     * Rows removed by a single delete statement, which bounds how long a purge holds its locks.
+     */
+    @Min(1)
+    @Max(100_000)
+    private int batchSize = 1_000;
+
+    /**
+     * Batches of chunks removed per run before the purge yields until the next run.
+     */
+    @Min(1)
+    @Max(10_000)
+    private int batchesPerRun = 20;
+
+    /**
+     * Pause between the end of one purge run and the start of the next.
+     */
+    private Duration interval = Duration.ofSeconds(10);
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchesPerRun() {
+        return batchesPerRun;
+    }
+
+    public void setBatchesPerRun(int batchesPerRun) {
+        this.batchesPerRun = batchesPerRun;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+}
@@ -1,28 +1,356 @@
 package com.neviswealth.searchservice.config;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @Validated
-@ConfigurationProperties(prefix = "search.threshold")
+@ConfigurationProperties(prefix = "search")
 public class SearchingProperties {
 
-    private double embedding = 0.2;
-    private double similarity = 0.15;
+    @NestedConfigurationProperty
+    private final Threshold threshold = new Threshold();
+
+    @NestedConfigurationProperty
+    private final Quantization quantization = new Quantization();
+
+    @NestedConfigurationProperty
+    private final ExactScan exactScan = new ExactScan();
+
+    @NestedConfigurationProperty
+    private final ClientScope clientScope = new ClientScope();
+
+    @NestedConfigurationProperty
+    private final CoarseToFine coarseToFine = new CoarseToFine();
+
+    @NestedConfigurationProperty
+    private final ClientIndex clientIndex = new ClientIndex();
 
-    public double getEmbedding() {
-        return embedding;
+    @NestedConfigurationProperty
+    private final Suggest suggest = new Suggest();
+
+    @NestedConfigurationProperty
+    private final Pagination pagination = new Pagination();
+
+    public Threshold getThreshold() {
+        return threshold;
     }
 
-    public void setEmbedding(double embedding) {
-        this.embedding = embedding;
+    public Quantization getQuantization() {
+        return quantization;
     }
 
-    public double getSimilarity() {
-        return similarity;
+    public ExactScan getExactScan() {
+        return exactScan;
     }
 
-    public void setSimilarity(double similarity) {
-        this.similarity = similarity;
+    public ClientScope getClientScope() {
+        return clientScope;
+    }
+
+    public CoarseToFine getCoarseToFine() {
+        return coarseToFine;
+    }
+
+    public ClientIndex getClientIndex() {
+        return clientIndex;
+    }
+
+    public Suggest getSuggest() {
+        return suggest;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    @Validated
+    public static class Threshold {
+        private double embedding = 0.2;
+        private double similarity = 0.15;
+        private double wordSimilarity = 0.5;
+
+        public double getEmbedding() {
+            return embedding;
+        }
+
+        public void setEmbedding(double embedding) {
+            this.embedding = embedding;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        public void setSimilarity(double similarity) {
+            this.similarity = similarity;
+        }
+
+        public double getWordSimilarity() {
+            return wordSimilarity;
+        }
+
+        public void setWordSimilarity(double wordSimilarity) {
+            this.wordSimilarity = wordSimilarity;
+        }
+    }
+
+    /**
+     * Two-stage semantic search: a Hamming-distance pass over sign-quantized embeddings picks candidates,
+     * which are then rescored with the exact distance.
+     */
+    @Validated
+    public static class Quantization {
+        private boolean enabled = false;
+
+        /**
+         * Minimal number of chunks fetched by the quantized pass.
+         */
+        @Min(1)
+        @Max(1000)
+        private int candidates = 100;
+
+        /**
+         * Candidates fetched per requested result; raising it trades latency for recall.
+         */
+        @Min(1)
+        private int oversampling = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+
+        public int getOversampling() {
+            return oversampling;
+        }
+
+        public void setOversampling(int oversampling) {
+            this.oversampling = oversampling;
+        }
+    }
+
+    /**
+     * In-memory exact scan for client-scoped semantic searches.
+     */
+    @Validated
+    public static class ExactScan {
+        private boolean enabled = true;
+
+        /**
+         * Clients with more chunks fall back to the vector store.
+         */
+        @Min(1)
+        private int maxChunks = 5000;
+
+        /**
+         * Upper bound of chunks kept in memory across all cached clients.
+         */
+        @Min(1)
+        private long maxCachedChunks = 200_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxChunks() {
+            return maxChunks;
+        }
+
+        public void setMaxChunks(int maxChunks) {
+            this.maxChunks = maxChunks;
+        }
+
+        public long getMaxCachedChunks() {
+            return maxCachedChunks;
+        }
+
+        public void setMaxCachedChunks(long maxCachedChunks) {
+            this.maxCachedChunks = maxCachedChunks;
+        }
+    }
+
+    /**
+     * Client-scoped semantic search in the database: clients up to {@code exactMaxChunks} chunks are scanned exactly,
+     * larger ones go through the ANN index.
+     */
+    @Validated
+    public static class ClientScope {
+        @Min(0)
+        private int exactMaxChunks = 10_000;
+
+        /**
+         * Minimal number of chunks fetched from the ANN index (also its ef_search).
+         */
+        @Min(1)
+        @Max(1000)
+        private int candidates = 200;
+
+        public int getExactMaxChunks() {
+            return exactMaxChunks;
+        }
+
+        public void setExactMaxChunks(int exactMaxChunks) {
+            this.exactMaxChunks = exactMaxChunks;
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+    }
+
+    /**
+     * Two-stage semantic search: document centroids pick candidate documents, their chunks are scored exactly.
+     */
+    @Validated
+    public static class CoarseToFine {
+        private boolean enabled = false;
+
+        /**
+         * Minimal number of candidate documents.
+         */
+        @Min(1)
+        @Max(1000)
+        private int documents = 50;
+
+        /**
+         * Candidate documents per requested result.
+         */
+        @Min(1)
+        private int oversampling = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public void setDocuments(int documents) {
+            this.documents = documents;
+        }
+
+        public int getOversampling() {
+            return oversampling;
+        }
+
+        public void setOversampling(int oversampling) {
+            this.oversampling = oversampling;
+        }
+    }
+
+    /**
+     * In-memory trigram index serving client search instead of the database.
+     */
+    @Validated
+    public static class ClientIndex {
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    @Validated
+    public static class Suggest {
+        @Min(1)
+        @Max(100)
+        private int limit = 10;
+        // entries looked at per lookup, bounds latency of short prefixes filtered by client
+        @Min(1)
+        private int maxScanned = 10000;
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public int getMaxScanned() {
+            return maxScanned;
+        }
+
+        public void setMaxScanned(int maxScanned) {
+            this.maxScanned = maxScanned;
+        }
+    }
+
+    /**
+     * Paginated search ranks once to a fixed depth and serves later pages from that ranking.
+     */
+    @Validated
+    public static class Pagination {
+        /**
+         * Clients and documents ranked per paginated search.
+         */
+        @Min(1)
+        @Max(1000)
+        private int depth = 500;
+
+        @Min(1)
+        private int maxSnapshots = 1000;
+
+        /**
+         * How long later pages read the first ranking before it is computed again.
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public int getMaxSnapshots() {
+            return maxSnapshots;
+        }
+
+        public void setMaxSnapshots(int maxSnapshots) {
+            this.maxSnapshots = maxSnapshots;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
     }
 }
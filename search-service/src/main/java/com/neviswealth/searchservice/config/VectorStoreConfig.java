@@ -0,0 +1,30 @@
+package com.neviswealth.searchservice.config;
+
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.vector.HnswVectorStore;
+import com.neviswealth.searchservice.vector.PgVectorStore;
+import com.neviswealth.searchservice.vector.VectorStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class VectorStoreConfig {
+
+    @Bean
+    public VectorStore vectorStore(VectorStoreProperties properties,
+                                   EmbeddingModels embeddingModels,
+                                   SearchingProperties searchingProperties,
+                                   DocumentRepository documentRepository) {
+        return switch (properties.getType()) {
+            case PGVECTOR -> new PgVectorStore(documentRepository);
+            case HNSW -> new HnswVectorStore(documentRepository,
+                    embeddingModels,
+                    properties.getHnsw(),
+                    searchingProperties.getThreshold().getEmbedding(),
+                    Executors.newSingleThreadExecutor(Thread.ofPlatform().name("hnsw-compaction").daemon().factory()));
+        };
+    }
+}
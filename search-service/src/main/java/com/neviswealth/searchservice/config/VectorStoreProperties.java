@@ -0,0 +1,85 @@
+package com.neviswealth.searchservice.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "vector-store")
+public class VectorStoreProperties {
+
+    @NotNull
+    private VectorStoreType type = VectorStoreType.PGVECTOR;
+
+    @NestedConfigurationProperty
+    private final Hnsw hnsw = new Hnsw();
+
+    public VectorStoreType getType() {
+        return type;
+    }
+
+    public void setType(VectorStoreType type) {
+        this.type = type;
+    }
+
+    public Hnsw getHnsw() {
+        return hnsw;
+    }
+
+    @Validated
+    public static class Hnsw {
+        /**
+         * Links kept per node on the upper layers, twice as many on the bottom one.
+         */
+        @Min(2)
+        private int m = 16;
+
+        @Min(1)
+        private int efConstruction = 64;
+
+        @Min(1)
+        private int efSearch = 64;
+
+        /**
+         * Share of the graph's nodes, in percent, left by replaced or deleted chunks that triggers a compaction.
+         */
+        @Min(1)
+        @Max(100)
+        private int compactRetiredPercent = 20;
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public int getCompactRetiredPercent() {
+            return compactRetiredPercent;
+        }
+
+        public void setCompactRetiredPercent(int compactRetiredPercent) {
+            this.compactRetiredPercent = compactRetiredPercent;
+        }
+    }
+}
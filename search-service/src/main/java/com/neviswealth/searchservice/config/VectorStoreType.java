@@ -0,0 +1,6 @@
+package com.neviswealth.searchservice.config;
+
+public enum VectorStoreType {
+    PGVECTOR,
+    HNSW
+}
@@ -14,4 +14,11 @@ public record Client(
         String countryOfResidence,
         OffsetDateTime createdAt
 ) {
+
+    /**
+     * Same value as the generated {@code clients.search_key} column.
+     */
+    public String searchKey() {
+        return fullName + " " + email + " " + emailDomainSlug;
+    }
 }
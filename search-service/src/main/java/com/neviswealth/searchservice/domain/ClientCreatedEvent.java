@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once the client row is written.
+ */
+public record ClientCreatedEvent(Client client) {
+}
@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once the client and its documents are marked deleted; their rows are purged later.
+ */
+public record ClientDeletedEvent(Client client) {
+}
@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once the document and its chunks are written; carries no content or chunks.
+ */
+public record DocumentCreatedEvent(Document document) {
+}
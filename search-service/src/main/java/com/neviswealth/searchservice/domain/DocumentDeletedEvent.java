@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once the document is marked deleted; its rows are purged later. Carries no content or chunks.
+ */
+public record DocumentDeletedEvent(Document document) {
+}
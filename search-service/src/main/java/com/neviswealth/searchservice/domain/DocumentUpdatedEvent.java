@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once the content and chunks of a document are replaced; carries no content or chunks.
+ */
+public record DocumentUpdatedEvent(Document document) {
+}
@@ -0,0 +1,7 @@
+package com.neviswealth.searchservice.domain;
+
+/**
+ * Published once search and ingestion use another embedding model, whose vectors are now the stored ones.
+ */
+public record EmbeddingModelActivatedEvent(String name, int dimension) {
+}
@@ -5,6 +5,8 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(
         name = "embeddingClient",
         url = "${embedding.http.base-url}",
@@ -15,9 +17,18 @@ public interface EmbeddingClient {
     @PostMapping("/embed")
     EmbeddingResponse embed(@RequestBody EmbeddingRequest request);
 
+    @PostMapping("/embed/batch")
+    BatchEmbeddingResponse embedBatch(@RequestBody BatchEmbeddingRequest request);
+
     record EmbeddingRequest(String text) {
     }
 
     record EmbeddingResponse(float[] embedding) {
     }
+
+    record BatchEmbeddingRequest(List<String> texts) {
+    }
+
+    record BatchEmbeddingResponse(List<float[]> embeddings) {
+    }
 }
@@ -0,0 +1,8 @@
+package com.neviswealth.searchservice.embedding;
+
+/**
+ * @param name      the model is recorded under in {@code embedding_models}
+ * @param dimension of the vectors the provider returns
+ */
+public record EmbeddingModel(String name, int dimension, EmbeddingProvider provider) {
+}
@@ -0,0 +1,16 @@
+package com.neviswealth.searchservice.embedding;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Embeddings computed with a model that is no longer the active one by the time they are written, e.g. across a
+ * switch to a re-embedded corpus. Nothing is written; the request can be retried with the new model.
+ */
+public class EmbeddingModelChangedException extends ResponseStatusException {
+
+    public EmbeddingModelChangedException(int embeddingModelId, int activeModelId) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Embedded with model " + embeddingModelId + " but model " + activeModelId
+                + " became active, retry the request");
+    }
+}
@@ -0,0 +1,92 @@
+package com.neviswealth.searchservice.embedding;
+
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.Optional;
+
+/**
+ * The configured embedding model and, when {@code embedding.next} is set, the model the corpus is re-embedded
+ * with. Which of them is active, i.e. embedded with by search and ingestion, is recorded in {@code embedding_models}
+ * and changes when the re-embedded corpus is switched to.
+ */
+public class EmbeddingModels implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingModels.class);
+
+    private final EmbeddingModelRepository repository;
+    private final EmbeddingModel configured;
+    private final EmbeddingModel next;
+    private volatile Active active;
+
+    /**
+     * @param next {@code null} when no re-embedding is configured
+     */
+    public EmbeddingModels(EmbeddingModelRepository repository, EmbeddingModel configured, EmbeddingModel next) {
+        this.repository = repository;
+        this.configured = configured;
+        this.next = next;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+    }
+
+    /**
+     * Follows the model recorded as active, which this or another instance may have switched to.
+     *
+     * @return whether the active model changed
+     */
+    public boolean refresh() {
+        ModelRow row = repository.findActive().orElseThrow(() -> new IllegalStateException("No embedding model is active"));
+        Active current = active;
+        if (current != null && current.id() == row.id()) {
+            return false;
+        }
+        active = new Active(row.id(), resolve(row));
+        if (current != null || !row.name().equals(configured.name())) {
+            log.info("Embedding with model {} of dimension {}", row.name(), row.dimension());
+        }
+        return current != null;
+    }
+
+    private EmbeddingModel resolve(ModelRow row) {
+        EmbeddingModel model = row.name().equals(configured.name()) ? configured
+                : next != null && row.name().equals(next.name()) ? next
+                : null;
+        if (model == null) {
+            throw new IllegalStateException("Active embedding model " + row.name()
+                    + " is neither embedding.model nor embedding.next.model");
+        }
+        if (model.dimension() != row.dimension()) {
+            throw new IllegalStateException("Embedding model " + row.name() + " has dimension " + row.dimension()
+                    + " but is configured with " + model.dimension());
+        }
+        return model;
+    }
+
+    public EmbeddingModel active() {
+        return active.model();
+    }
+
+    /**
+     * @return the {@code embedding_models} id chunks embedded with the active model are recorded with
+     */
+    public int activeId() {
+        return active.id();
+    }
+
+    /**
+     * @return the model to re-embed the corpus with, empty when none is configured or it is already active
+     */
+    public Optional<EmbeddingModel> next() {
+        return next == null || next.name().equals(active().name()) ? Optional.empty() : Optional.of(next);
+    }
+
+    private record Active(int id, EmbeddingModel model) {
+    }
+}
@@ -1,5 +1,14 @@
 package com.neviswealth.searchservice.embedding;
 
+import java.util.List;
+
 public interface EmbeddingProvider {
     float[] embed(String text);
+
+    /**
+     * Embeddings in the order of the texts; providers backed by a remote model send them in one request.
+     */
+    default List<float[]> embedAll(List<String> texts) {
+        return texts.stream().map(this::embed).toList();
+    }
 }
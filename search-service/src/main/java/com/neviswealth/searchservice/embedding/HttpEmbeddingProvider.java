@@ -6,6 +6,9 @@ import feign.codec.DecodeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 public class HttpEmbeddingProvider implements EmbeddingProvider {
 
     private static final Logger log = LoggerFactory.getLogger(HttpEmbeddingProvider.class);
@@ -17,15 +20,33 @@ public class HttpEmbeddingProvider implements EmbeddingProvider {
 
     @Override
     public float[] embed(String text) {
-        try {
-            EmbeddingClient.EmbeddingResponse response = embeddingClient.embed(new EmbeddingClient.EmbeddingRequest(text));
-            float[] embedding = response == null ? null : response.embedding();
+        EmbeddingClient.EmbeddingResponse response = call(() -> embeddingClient.embed(new EmbeddingClient.EmbeddingRequest(text)));
+        float[] embedding = response == null ? null : response.embedding();
 
-            if (embedding == null) {
-                throw new EmbeddingFailedException("Embedding service returned no vector");
-            }
-            return embedding;
+        if (embedding == null) {
+            throw new EmbeddingFailedException("Embedding service returned no vector");
+        }
+        return embedding;
+    }
 
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        EmbeddingClient.BatchEmbeddingResponse response =
+                call(() -> embeddingClient.embedBatch(new EmbeddingClient.BatchEmbeddingRequest(texts)));
+        List<float[]> embeddings = response == null ? null : response.embeddings();
+
+        if (embeddings == null || embeddings.size() != texts.size() || embeddings.contains(null)) {
+            throw new EmbeddingFailedException("Embedding service returned no vector for some of the texts");
+        }
+        return embeddings;
+    }
+
+    private <T> T call(Supplier<T> request) {
+        try {
+            return request.get();
         } catch (RetryableException e) {
             // all reties failed
             log.error("Error during querying for embedding", e);
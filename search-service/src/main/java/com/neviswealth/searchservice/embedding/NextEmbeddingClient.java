@@ -0,0 +1,16 @@
+package com.neviswealth.searchservice.embedding;
+
+import com.neviswealth.searchservice.config.NextEmbeddingFeignConfig;
+import org.springframework.cloud.openfeign.FeignClient;
+
+/**
+ * {@link EmbeddingClient} of the model the corpus is re-embedded with.
+ */
+@FeignClient(
+        name = "nextEmbeddingClient",
+        url = "${embedding.next.http.base-url:http://localhost:8000}",
+        configuration = NextEmbeddingFeignConfig.class,
+        primary = false
+)
+public interface NextEmbeddingClient extends EmbeddingClient {
+}
@@ -0,0 +1,308 @@
+package com.neviswealth.searchservice.index;
+
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.ClientRepository.ClientSearchRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over clients answering the same queries as {@link ClientRepository#searchByNameOrDomain}
+ * and {@link ClientRepository#searchByEmail} with the same scores. Loaded at startup and kept up to date after each
+ * client commit; every search returns empty while the index is disabled or not loaded, callers then query the database.
+ */
+@Component
+public class ClientSearchIndex implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSearchIndex.class);
+    // pg_trgm.similarity_threshold default, applied by the % operator of the email search
+    private static final double EMAIL_SIMILARITY_THRESHOLD = 0.3;
+    private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[0]);
+
+    private final ClientRepository clientRepository;
+    private final boolean enabled;
+    private final double wordSimilarityThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state;
+    private List<Client> createdDuringReload;
+    private List<Client> deletedDuringReload;
+
+    public ClientSearchIndex(ClientRepository clientRepository, SearchingProperties properties) {
+        this.clientRepository = clientRepository;
+        this.enabled = properties.getClientIndex().isEnabled();
+        this.wordSimilarityThreshold = properties.getThreshold().getWordSimilarity();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            createdDuringReload = new ArrayList<>();
+            deletedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State loaded = new State();
+        clientRepository.forEach(loaded::add);
+
+        lock.writeLock().lock();
+        try {
+            createdDuringReload.forEach(loaded::addIfAbsent);
+            deletedDuringReload.forEach(loaded::remove);
+            createdDuringReload = null;
+            deletedDuringReload = null;
+            state = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} clients into the client search index in {} ms", loaded.size, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCreated(ClientCreatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (createdDuringReload != null) {
+                createdDuringReload.add(event.client());
+            }
+            if (state != null) {
+                state.addIfAbsent(event.client());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (deletedDuringReload != null) {
+                deletedDuringReload.add(event.client());
+            }
+            if (state != null) {
+                state.remove(event.client());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Substring of the query or its slug scores 1, otherwise {@code word_similarity} above the configured threshold.
+     */
+    public Optional<List<ClientSearchRow>> searchByNameOrDomain(String normalizedQuery, String slugQuery, int limit) {
+        lock.readLock().lock();
+        try {
+            if (state == null) {
+                return Optional.empty();
+            }
+            return Optional.of(state.search(state.searchKeyIndex, state.searchKeys, normalizedQuery, slugQuery,
+                    true, wordSimilarityThreshold, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Substring of the email scores 1, otherwise {@code similarity} above the pg_trgm default threshold.
+     */
+    public Optional<List<ClientSearchRow>> searchByEmail(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            if (state == null) {
+                return Optional.empty();
+            }
+            return Optional.of(state.search(state.emailIndex, state.emails, query, null,
+                    false, EMAIL_SIMILARITY_THRESHOLD, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class State {
+        private final TrigramIndex searchKeyIndex = new TrigramIndex();
+        private final TrigramIndex emailIndex = new TrigramIndex();
+        private Client[] clients = new Client[1024];
+        private String[] searchKeys = new String[1024];
+        private String[] emails = new String[1024];
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        // deleted clients keep their postings and ordinals until the next reload but never match
+        private final BitSet removed = new BitSet();
+        private int size;
+
+        private void add(Client client) {
+            if (size == clients.length) {
+                clients = Arrays.copyOf(clients, size * 2);
+                searchKeys = Arrays.copyOf(searchKeys, size * 2);
+                emails = Arrays.copyOf(emails, size * 2);
+            }
+            clients[size] = client;
+            searchKeys[size] = client.searchKey();
+            emails[size] = client.email();
+            ordinals.put(client.id(), size);
+            searchKeyIndex.add(size, Trigrams.unique(searchKeys[size]));
+            emailIndex.add(size, Trigrams.unique(emails[size]));
+            size++;
+        }
+
+        private void addIfAbsent(Client client) {
+            if (!ordinals.containsKey(client.id())) {
+                add(client);
+            }
+        }
+
+        private void remove(Client client) {
+            Integer id = ordinals.get(client.id());
+            if (id != null) {
+                removed.set(id);
+            }
+        }
+
+        private List<ClientSearchRow> search(TrigramIndex index, String[] texts, String query, String alternative,
+                                             boolean wordSimilarity, double threshold, int limit) {
+            Results results = new Results();
+            // deleted clients count as matched already, so neither pass returns them
+            BitSet matched = (BitSet) removed.clone();
+            matchSubstrings(index, texts, query, matched, results);
+            if (alternative != null && !alternative.equals(query)) {
+                matchSubstrings(index, texts, alternative, matched, results);
+            }
+
+            int[] queryTrigrams = Trigrams.unique(query);
+            if (queryTrigrams.length > 0) {
+                int[] counts = COUNTS.get();
+                if (counts.length < size) {
+                    counts = new int[clients.length];
+                    COUNTS.set(counts);
+                }
+                int[] touched = new int[64];
+                int touchedSize = 0;
+                for (int trigram : queryTrigrams) {
+                    int[] posting = index.posting(trigram);
+                    for (int i = 0, n = index.size(trigram); i < n; i++) {
+                        int id = posting[i];
+                        if (counts[id]++ == 0) {
+                            if (touchedSize == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedSize * 2);
+                            }
+                            touched[touchedSize++] = id;
+                        }
+                    }
+                }
+
+                for (int t = 0; t < touchedSize; t++) {
+                    int id = touched[t];
+                    int common = counts[id];
+                    counts[id] = 0;
+                    // both similarities are at most shared trigrams over query trigrams
+                    if (matched.get(id) || (double) common / queryTrigrams.length < threshold) {
+                        continue;
+                    }
+                    float score = wordSimilarity
+                            ? Trigrams.wordSimilarity(queryTrigrams, Trigrams.extract(texts[id]))
+                            : Trigrams.similarity(queryTrigrams, Trigrams.unique(texts[id]));
+                    if (score >= threshold) {
+                        results.add(id, score);
+                    }
+                }
+            }
+
+            return results.top(limit, clients);
+        }
+
+        private void matchSubstrings(TrigramIndex index, String[] texts, String pattern, BitSet matched, Results results) {
+            if (pattern.isEmpty()) {
+                return;
+            }
+            int[] interior = Trigrams.interior(pattern);
+            if (interior.length == 0) {
+                for (int id = 0; id < size; id++) {
+                    matchSubstring(texts, id, pattern, matched, results);
+                }
+                return;
+            }
+
+            int rarest = interior[0];
+            for (int trigram : interior) {
+                if (index.size(trigram) < index.size(rarest)) {
+                    rarest = trigram;
+                }
+            }
+            int[] posting = index.posting(rarest);
+            for (int i = 0, n = index.size(rarest); i < n; i++) {
+                matchSubstring(texts, posting[i], pattern, matched, results);
+            }
+        }
+
+        private void matchSubstring(String[] texts, int id, String pattern, BitSet matched, Results results) {
+            if (!matched.get(id) && texts[id].contains(pattern)) {
+                matched.set(id);
+                results.add(id, 1f);
+            }
+        }
+    }
+
+    private static class Results {
+        private int[] ids = new int[32];
+        private float[] scores = new float[32];
+        private int size;
+
+        private void add(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            ids[size] = id;
+            scores[size] = score;
+            size++;
+        }
+
+        private List<ClientSearchRow> top(int limit, Client[] clients) {
+            int[] best = new int[Math.max(0, Math.min(limit, size))];
+            int count = 0;
+            for (int i = 0; i < size && best.length > 0; i++) {
+                if (count == best.length && !better(i, best[count - 1])) {
+                    continue;
+                }
+                int position = count == best.length ? count - 1 : count++;
+                while (position > 0 && better(i, best[position - 1])) {
+                    best[position] = best[position - 1];
+                    position--;
+                }
+                best[position] = i;
+            }
+
+            List<ClientSearchRow> top = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                top.add(new ClientSearchRow(clients[ids[best[i]]], scores[best[i]]));
+            }
+            return top;
+        }
+
+        // best scores first, ties in load order like a heap scan
+        private boolean better(int a, int b) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && ids[a] < ids[b]);
+        }
+    }
+}
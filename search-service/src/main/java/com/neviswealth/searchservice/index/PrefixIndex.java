@@ -0,0 +1,143 @@
+package com.neviswealth.searchservice.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * Sorted (term, ordinal) pairs answering prefix lookups with binary search. Bulk loads are sorted once in
+ * {@link #build()}; later additions go to a small sorted tail which is merged into the main arrays once it reaches
+ * {@link #MERGE_THRESHOLD} entries. Not thread-safe: callers serialize writes against reads.
+ */
+class PrefixIndex {
+
+    private static final int MERGE_THRESHOLD = 4096;
+
+    private String[] terms = new String[0];
+    private int[] ordinals = new int[0];
+    private String[] tailTerms = new String[64];
+    private int[] tailOrdinals = new int[64];
+    private int tailSize;
+    private Entry[] pending = new Entry[1024];
+    private int pendingSize;
+
+    /**
+     * Queues an entry of the initial load, searchable after {@link #build()}.
+     */
+    void load(String term, int ordinal) {
+        if (pendingSize == pending.length) {
+            pending = Arrays.copyOf(pending, pendingSize * 2);
+        }
+        pending[pendingSize++] = new Entry(term, ordinal);
+    }
+
+    void build() {
+        Arrays.sort(pending, 0, pendingSize, Comparator.comparing(Entry::term));
+        String[] loadedTerms = new String[pendingSize];
+        int[] loadedOrdinals = new int[pendingSize];
+        for (int i = 0; i < pendingSize; i++) {
+            loadedTerms[i] = pending[i].term();
+            loadedOrdinals[i] = pending[i].ordinal();
+        }
+        pending = new Entry[0];
+        pendingSize = 0;
+        merge(loadedTerms, loadedOrdinals, loadedTerms.length);
+    }
+
+    void add(String term, int ordinal) {
+        if (tailSize == tailTerms.length) {
+            tailTerms = Arrays.copyOf(tailTerms, tailSize * 2);
+            tailOrdinals = Arrays.copyOf(tailOrdinals, tailSize * 2);
+        }
+        int at = lowerBound(tailTerms, tailSize, term);
+        while (at < tailSize && tailTerms[at].equals(term)) {
+            at++;
+        }
+        System.arraycopy(tailTerms, at, tailTerms, at + 1, tailSize - at);
+        System.arraycopy(tailOrdinals, at, tailOrdinals, at + 1, tailSize - at);
+        tailTerms[at] = term;
+        tailOrdinals[at] = ordinal;
+        tailSize++;
+        if (tailSize >= MERGE_THRESHOLD) {
+            merge(tailTerms, tailOrdinals, tailSize);
+            tailSize = 0;
+        }
+    }
+
+    int size() {
+        return terms.length + tailSize;
+    }
+
+    /**
+     * Walks entries starting with the prefix in term order and collects distinct ordinals accepted by the filter.
+     *
+     * @param maxScanned bound on the entries looked at, keeps lookups of short prefixes under a selective filter cheap
+     * @return at most {@code limit} ordinals
+     */
+    int[] find(String prefix, int limit, int maxScanned, IntPredicate filter) {
+        int[] found = new int[limit];
+        int count = 0;
+        int i = lowerBound(terms, terms.length, prefix);
+        int j = lowerBound(tailTerms, tailSize, prefix);
+        for (int scanned = 0; count < limit && scanned < maxScanned; scanned++) {
+            boolean fromMain = i < terms.length && terms[i].startsWith(prefix);
+            boolean fromTail = j < tailSize && tailTerms[j].startsWith(prefix);
+            int ordinal;
+            if (fromMain && (!fromTail || terms[i].compareTo(tailTerms[j]) <= 0)) {
+                ordinal = ordinals[i++];
+            } else if (fromTail) {
+                ordinal = tailOrdinals[j++];
+            } else {
+                break;
+            }
+            if (filter.test(ordinal) && !contains(found, count, ordinal)) {
+                found[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private void merge(String[] addedTerms, int[] addedOrdinals, int addedSize) {
+        String[] mergedTerms = new String[terms.length + addedSize];
+        int[] mergedOrdinals = new int[mergedTerms.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedTerms.length; k++) {
+            if (j == addedSize || (i < terms.length && terms[i].compareTo(addedTerms[j]) <= 0)) {
+                mergedTerms[k] = terms[i];
+                mergedOrdinals[k] = ordinals[i++];
+            } else {
+                mergedTerms[k] = addedTerms[j];
+                mergedOrdinals[k] = addedOrdinals[j++];
+            }
+        }
+        terms = mergedTerms;
+        ordinals = mergedOrdinals;
+    }
+
+    private static int lowerBound(String[] sorted, int size, String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry(String term, int ordinal) {
+    }
+}
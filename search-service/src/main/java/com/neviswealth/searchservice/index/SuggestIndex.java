@@ -0,0 +1,278 @@
+package com.neviswealth.searchservice.index;
+
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index for as-you-type suggestions. Clients are found by full name, any later word of the name, email or
+ * email domain; documents by title or any later word of it. Matches come back in term order, so an exact match
+ * precedes its extensions. Loaded at startup and kept up to date after each client or document commit.
+ */
+@Component
+public class SuggestIndex implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestIndex.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ClientRepository clientRepository;
+    private final DocumentRepository documentRepository;
+    private final int maxScanned;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+    private List<Object> changedDuringReload;
+
+    public SuggestIndex(ClientRepository clientRepository, DocumentRepository documentRepository,
+                        SearchingProperties properties) {
+        this.clientRepository = clientRepository;
+        this.documentRepository = documentRepository;
+        this.maxScanned = properties.getSuggest().getMaxScanned();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    public void reload() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State loaded = new State();
+        clientRepository.forEach(loaded::loadClient);
+        documentRepository.forEachDocument(loaded::loadDocument);
+        loaded.clientTerms.build();
+        loaded.documentTerms.build();
+
+        lock.writeLock().lock();
+        try {
+            for (Object changed : changedDuringReload) {
+                if (changed instanceof Client client) {
+                    loaded.addClient(client);
+                } else if (changed instanceof Document document) {
+                    loaded.addDocument(document);
+                } else if (changed instanceof ClientDeletedEvent deleted) {
+                    loaded.removeClient(deleted.client().id());
+                } else if (changed instanceof DocumentDeletedEvent deleted) {
+                    loaded.removeDocument(deleted.document().id());
+                }
+            }
+            changedDuringReload = null;
+            state = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} clients and {} documents into the suggest index in {} ms",
+                loaded.clientCount, loaded.documentCount, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCreated(ClientCreatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReload != null) {
+                changedDuringReload.add(event.client());
+            }
+            state.addClient(event.client());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReload != null) {
+                changedDuringReload.add(event.document());
+            }
+            state.addDocument(event.document());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReload != null) {
+                changedDuringReload.add(event);
+            }
+            state.removeClient(event.client().id());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReload != null) {
+                changedDuringReload.add(event);
+            }
+            state.removeDocument(event.document().id());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param clientId restricts documents to the client and skips clients, {@code null} suggests both
+     */
+    public Suggestions suggest(String prefix, UUID clientId, int limit) {
+        String normalized = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            State current = state;
+            List<Client> clients = new ArrayList<>();
+            if (clientId == null) {
+                for (int ordinal : current.clientTerms.find(normalized, limit, maxScanned, ordinal -> current.clients[ordinal] != null)) {
+                    clients.add(current.clients[ordinal]);
+                }
+            }
+            List<Document> documents = new ArrayList<>();
+            for (int ordinal : current.documentTerms.find(normalized, limit, maxScanned,
+                    ordinal -> current.documents[ordinal] != null
+                            && (clientId == null || clientId.equals(current.documents[ordinal].clientId())))) {
+                documents.add(current.documents[ordinal]);
+            }
+            return new Suggestions(clients, documents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    /**
+     * The whole text plus the suffixes starting at each later word.
+     */
+    private static Set<String> terms(String text) {
+        String normalized = normalize(text);
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(normalized);
+        var matcher = WORD_SEPARATOR.matcher(normalized);
+        while (matcher.find()) {
+            if (matcher.end() < normalized.length()) {
+                terms.add(normalized.substring(matcher.end()));
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> clientTerms(Client client) {
+        Set<String> terms = terms(client.fullName());
+        terms.add(normalize(client.email()));
+        terms.add(normalize(client.emailDomain()));
+        return terms;
+    }
+
+    public record Suggestions(List<Client> clients, List<Document> documents) {
+    }
+
+    private static class State {
+        private final PrefixIndex clientTerms = new PrefixIndex();
+        private final PrefixIndex documentTerms = new PrefixIndex();
+        // ordinals stay mapped once their entry is removed, so an id is never added twice
+        private final Map<UUID, Integer> clientOrdinals = new HashMap<>();
+        private final Map<UUID, Integer> documentOrdinals = new HashMap<>();
+        private final Map<UUID, List<Integer>> clientDocumentOrdinals = new HashMap<>();
+        private Client[] clients = new Client[1024];
+        private Document[] documents = new Document[1024];
+        private int clientCount;
+        private int documentCount;
+
+        private void loadClient(Client client) {
+            if (clientOrdinals.putIfAbsent(client.id(), clientCount) == null) {
+                clientTerms(client).forEach(term -> clientTerms.load(term, clientCount));
+                appendClient(client);
+            }
+        }
+
+        private void addClient(Client client) {
+            if (clientOrdinals.putIfAbsent(client.id(), clientCount) == null) {
+                clientTerms(client).forEach(term -> clientTerms.add(term, clientCount));
+                appendClient(client);
+            }
+        }
+
+        private void appendClient(Client client) {
+            if (clientCount == clients.length) {
+                clients = Arrays.copyOf(clients, clientCount * 2);
+            }
+            clients[clientCount++] = client;
+        }
+
+        private void loadDocument(Document document) {
+            if (documentOrdinals.putIfAbsent(document.id(), documentCount) == null) {
+                terms(document.title()).forEach(term -> documentTerms.load(term, documentCount));
+                appendDocument(document);
+            }
+        }
+
+        private void addDocument(Document document) {
+            if (documentOrdinals.putIfAbsent(document.id(), documentCount) == null) {
+                terms(document.title()).forEach(term -> documentTerms.add(term, documentCount));
+                appendDocument(document);
+            }
+        }
+
+        // deleted entries leave an empty slot, their terms stay until the next reload but match nothing
+        private void removeClient(UUID clientId) {
+            Integer ordinal = clientOrdinals.get(clientId);
+            if (ordinal != null) {
+                clients[ordinal] = null;
+            }
+            List<Integer> documentOrdinals = clientDocumentOrdinals.remove(clientId);
+            if (documentOrdinals != null) {
+                for (int documentOrdinal : documentOrdinals) {
+                    documents[documentOrdinal] = null;
+                }
+            }
+        }
+
+        private void removeDocument(UUID documentId) {
+            Integer ordinal = documentOrdinals.get(documentId);
+            if (ordinal != null) {
+                documents[ordinal] = null;
+            }
+        }
+
+        private void appendDocument(Document document) {
+            if (documentCount == documents.length) {
+                documents = Arrays.copyOf(documents, documentCount * 2);
+            }
+            clientDocumentOrdinals.computeIfAbsent(document.clientId(), id -> new ArrayList<>()).add(documentCount);
+            // content is not needed for suggestions, drop it so the index stays small
+            documents[documentCount++] = new Document(document.id(), document.clientId(), document.title(),
+                    null, null, null, document.createdAt());
+        }
+    }
+}
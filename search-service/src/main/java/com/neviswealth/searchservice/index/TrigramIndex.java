@@ -0,0 +1,102 @@
+package com.neviswealth.searchservice.index;
+
+import java.util.Arrays;
+
+/**
+ * Inverted index from trigram to the ids of texts containing it. Postings are packed int arrays, sorted because
+ * ids are added in increasing order; trigrams are mapped to postings by an open-addressing table.
+ * Not thread-safe: callers serialize writes against reads.
+ */
+class TrigramIndex {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int FREE = 0;
+
+    private int[] tableKeys = new int[1024];
+    private int[] tableSlots = new int[1024];
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+    private int trigrams;
+
+    /**
+     * @param id must be greater than every id added before
+     */
+    void add(int id, int[] distinctTrigrams) {
+        for (int trigram : distinctTrigrams) {
+            int slot = slot(trigram, true);
+            int[] posting = postings[slot];
+            int size = postingSizes[slot];
+            if (size == posting.length) {
+                posting = Arrays.copyOf(posting, size * 2);
+                postings[slot] = posting;
+            }
+            posting[size] = id;
+            postingSizes[slot] = size + 1;
+        }
+    }
+
+    /**
+     * Ids of texts containing the trigram; only the first {@link #size(int)} entries are valid.
+     */
+    int[] posting(int trigram) {
+        int slot = slot(trigram, false);
+        return slot < 0 ? EMPTY : postings[slot];
+    }
+
+    int size(int trigram) {
+        int slot = slot(trigram, false);
+        return slot < 0 ? 0 : postingSizes[slot];
+    }
+
+    private int slot(int trigram, boolean create) {
+        // packed trigrams are never 0, it marks a free cell
+        int mask = tableKeys.length - 1;
+        int cell = mix(trigram) & mask;
+        while (tableKeys[cell] != FREE) {
+            if (tableKeys[cell] == trigram) {
+                return tableSlots[cell];
+            }
+            cell = (cell + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+
+        int slot = trigrams++;
+        if (slot == postings.length) {
+            postings = Arrays.copyOf(postings, slot * 2);
+            postingSizes = Arrays.copyOf(postingSizes, slot * 2);
+        }
+        postings[slot] = new int[4];
+        tableKeys[cell] = trigram;
+        tableSlots[cell] = slot;
+        if (trigrams * 2 > tableKeys.length) {
+            rehash();
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new int[oldKeys.length * 2];
+        tableSlots = new int[oldKeys.length * 2];
+        int mask = tableKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) {
+                continue;
+            }
+            int cell = mix(oldKeys[i]) & mask;
+            while (tableKeys[cell] != FREE) {
+                cell = (cell + 1) & mask;
+            }
+            tableKeys[cell] = oldKeys[i];
+            tableSlots[cell] = oldSlots[i];
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,220 @@
+package com.neviswealth.searchservice.index;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Port of the pg_trgm trigram model, so in-memory scores equal {@code similarity} and {@code word_similarity}.
+ * Text is lower-cased and split into words of letters and digits; each word is padded with two spaces in front and
+ * one behind. A trigram is packed into an int: three code points of up to 8 bits, a hash with the sign bit set otherwise.
+ */
+public final class Trigrams {
+
+    private static final int[] EMPTY = new int[0];
+
+    private Trigrams() {
+    }
+
+    /**
+     * Trigrams of every word in order of appearance, duplicates kept.
+     */
+    public static int[] extract(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int[] codePoints = lower.codePoints().toArray();
+        int[] trigrams = new int[codePoints.length * 3 + 3];
+        int size = 0;
+        int i = 0;
+        while (i < codePoints.length) {
+            if (!Character.isLetterOrDigit(codePoints[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < codePoints.length && Character.isLetterOrDigit(codePoints[i])) {
+                i++;
+            }
+            int a = ' ';
+            int b = ' ';
+            for (int p = start; p <= i; p++) {
+                int c = p < i ? codePoints[p] : ' ';
+                if (size == trigrams.length) {
+                    trigrams = Arrays.copyOf(trigrams, size * 2);
+                }
+                trigrams[size++] = pack(a, b, c);
+                a = b;
+                b = c;
+            }
+        }
+        return size == 0 ? EMPTY : Arrays.copyOf(trigrams, size);
+    }
+
+    /**
+     * Distinct trigrams, sorted.
+     */
+    public static int[] unique(String text) {
+        return distinct(extract(text));
+    }
+
+    /**
+     * Distinct trigrams lying fully inside words of at least three characters, sorted. Any text containing
+     * the given one as a substring contains all of them.
+     */
+    public static int[] interior(String text) {
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        int[] trigrams = new int[Math.max(0, codePoints.length - 2)];
+        int size = 0;
+        for (int i = 2; i < codePoints.length; i++) {
+            if (Character.isLetterOrDigit(codePoints[i - 2]) && Character.isLetterOrDigit(codePoints[i - 1])
+                    && Character.isLetterOrDigit(codePoints[i])) {
+                trigrams[size++] = pack(codePoints[i - 2], codePoints[i - 1], codePoints[i]);
+            }
+        }
+        return distinct(Arrays.copyOf(trigrams, size));
+    }
+
+    /**
+     * {@code similarity(a, b)}: shared distinct trigrams over the size of their union.
+     */
+    public static float similarity(String a, String b) {
+        return similarity(unique(a), unique(b));
+    }
+
+    static float similarity(int[] sortedA, int[] sortedB) {
+        if (sortedA.length == 0 || sortedB.length == 0) {
+            return 0f;
+        }
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sortedA.length && j < sortedB.length) {
+            int cmp = Integer.compare(sortedA[i], sortedB[j]);
+            if (cmp == 0) {
+                count++;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return calcSimilarity(count, sortedA.length, sortedB.length);
+    }
+
+    /**
+     * {@code word_similarity(query, text)}: the greatest similarity between the query and any continuous extent of
+     * the text's trigrams.
+     */
+    public static float wordSimilarity(String query, String text) {
+        return wordSimilarity(unique(query), extract(text));
+    }
+
+    static float wordSimilarity(int[] sortedQuery, int[] textTrigrams) {
+        if (sortedQuery.length == 0 || textTrigrams.length == 0) {
+            return 0f;
+        }
+        // number distinct trigrams of both sides, remember which of them belong to the query
+        int[] all = Arrays.copyOf(sortedQuery, sortedQuery.length + textTrigrams.length);
+        System.arraycopy(textTrigrams, 0, all, sortedQuery.length, textTrigrams.length);
+        int[] distinct = distinct(all);
+        boolean[] found = new boolean[distinct.length];
+        for (int trigram : sortedQuery) {
+            found[Arrays.binarySearch(distinct, trigram)] = true;
+        }
+        int[] indexes = new int[textTrigrams.length];
+        for (int i = 0; i < textTrigrams.length; i++) {
+            indexes[i] = Arrays.binarySearch(distinct, textTrigrams[i]);
+        }
+        return iterateWordSimilarity(indexes, found, sortedQuery.length, distinct.length);
+    }
+
+    // same walk as pg_trgm's iterate_word_similarity: grow the extent to the right, then try to shrink it from the left
+    private static float iterateWordSimilarity(int[] indexes, boolean[] found, int queryLength, int distinctLength) {
+        int[] lastPosition = new int[distinctLength];
+        Arrays.fill(lastPosition, -1);
+        int extentLength = 0;
+        int count = 0;
+        int upper;
+        int lower = -1;
+        float max = 0f;
+
+        for (int i = 0; i < indexes.length; i++) {
+            int index = indexes[i];
+            if (lower >= 0 || found[index]) {
+                if (lastPosition[index] < 0) {
+                    extentLength++;
+                    if (found[index]) {
+                        count++;
+                    }
+                }
+                lastPosition[index] = i;
+            }
+            if (!found[index]) {
+                continue;
+            }
+
+            upper = i;
+            if (lower == -1) {
+                lower = i;
+                extentLength = 1;
+            }
+            float current = calcSimilarity(count, queryLength, extentLength);
+
+            int shrunkCount = count;
+            int shrunkLength = extentLength;
+            int previousLower = lower;
+            for (int candidateLower = lower; candidateLower <= upper; candidateLower++) {
+                float shrunk = calcSimilarity(shrunkCount, queryLength, shrunkLength);
+                if (shrunk > current) {
+                    current = shrunk;
+                    extentLength = shrunkLength;
+                    lower = candidateLower;
+                    count = shrunkCount;
+                }
+                int dropped = indexes[candidateLower];
+                if (lastPosition[dropped] == candidateLower) {
+                    shrunkLength--;
+                    if (found[dropped]) {
+                        shrunkCount--;
+                    }
+                }
+            }
+            max = Math.max(max, current);
+
+            for (int dropped = previousLower; dropped < lower; dropped++) {
+                int droppedIndex = indexes[dropped];
+                if (lastPosition[droppedIndex] == dropped) {
+                    lastPosition[droppedIndex] = -1;
+                }
+            }
+        }
+        return max;
+    }
+
+    private static float calcSimilarity(int count, int length1, int length2) {
+        return ((float) count) / ((float) (length1 + length2 - count));
+    }
+
+    private static int[] distinct(int[] trigrams) {
+        if (trigrams.length == 0) {
+            return EMPTY;
+        }
+        int[] sorted = trigrams.clone();
+        Arrays.sort(sorted);
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    private static int pack(int a, int b, int c) {
+        if (a <= 0xFF && b <= 0xFF && c <= 0xFF) {
+            return (a << 16) | (b << 8) | c;
+        }
+        int hash = 31 * (31 * a + b) + c;
+        return Integer.MIN_VALUE | (hash & Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,66 @@
+package com.neviswealth.searchservice.persistence;
+
+import java.util.List;
+
+/**
+ * Finds chunks in the content they were cut from. Offsets count code points, like {@code substr} in PostgreSQL.
+ */
+final class ChunkOffsets {
+
+    private ChunkOffsets() {
+    }
+
+    /**
+     * Chunks are looked for in order, each after the previous one found and past any whitespace between them, or else
+     * starting inside the previous one, as windows that overlap it do.
+     *
+     * @return start and end per chunk, {@code null} for chunks that are not a verbatim part of the content there
+     */
+    static int[][] locate(String content, List<String> chunks) {
+        int[][] offsets = new int[chunks.size()][];
+        // the previous chunk found, in chars and code points; -1 before the first
+        int previousStart = -1;
+        int previousStartCodePoint = 0;
+        int position = 0;
+        int codePoints = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            if (chunk.isEmpty()) {
+                continue;
+            }
+            int start = position;
+            while (start < content.length() && Character.isWhitespace(content.charAt(start))) {
+                start++;
+            }
+            int startCodePoint;
+            if (content.startsWith(chunk, start)) {
+                startCodePoint = codePoints + (start - position);
+            } else {
+                start = previousStart < 0 ? -1 : overlapping(content, chunk, previousStart + 1, position);
+                if (start < 0) {
+                    continue;
+                }
+                startCodePoint = previousStartCodePoint + content.codePointCount(previousStart, start);
+            }
+            int endCodePoint = startCodePoint + chunk.codePointCount(0, chunk.length());
+            offsets[i] = new int[]{startCodePoint, endCodePoint};
+            previousStart = start;
+            previousStartCodePoint = startCodePoint;
+            position = start + chunk.length();
+            codePoints = endCodePoint;
+        }
+        return offsets;
+    }
+
+    /**
+     * @return the first start of the chunk in {@code [from, to)}, -1 if there is none
+     */
+    private static int overlapping(String content, String chunk, int from, int to) {
+        for (int start = from; start < to; start++) {
+            if (content.startsWith(chunk, start)) {
+                return start;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,27 +1,46 @@
 package com.neviswealth.searchservice.persistence;
 
+import com.neviswealth.searchservice.config.SearchingProperties;
 import com.neviswealth.searchservice.domain.Client;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 public class ClientRepository {
 
     private static final RowMapper<Client> CLIENT_ROW_MAPPER = new ClientRowMapper();
+    private static final int STREAM_FETCH_SIZE = 1000;
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final double wordSimilarityThreshold;
 
-    public ClientRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+    public ClientRepository(NamedParameterJdbcTemplate jdbcTemplate, SearchingProperties properties) {
         this.jdbcTemplate = jdbcTemplate;
+        this.wordSimilarityThreshold = properties.getThreshold().getWordSimilarity();
     }
 
     public Client insert(Client client) {
@@ -42,23 +61,118 @@ public class ClientRepository {
         return jdbcTemplate.queryForObject(sql, params, CLIENT_ROW_MAPPER);
     }
 
+    /**
+     * Copies the clients into a staging table and merges them, clients whose email is taken, also by an earlier
+     * client of the same list, are skipped. Runs in the caller's transaction, which the staging table lives for.
+     *
+     * @return the inserted clients
+     */
+    public List<Client> importClients(List<Client> clients) {
+        PgBinaryCopy rows = new PgBinaryCopy();
+        for (int i = 0; i < clients.size(); i++) {
+            Client client = clients.get(i);
+            rows.row(8)
+                    .int4(i)
+                    .text(client.email())
+                    .text(client.emailDomain())
+                    .text(client.emailDomainSlug())
+                    .text(client.firstName())
+                    .text(client.lastName())
+                    .text(client.fullName())
+                    .text(client.countryOfResidence());
+        }
+
+        JdbcTemplate template = jdbcTemplate.getJdbcTemplate();
+        template.execute("""
+                CREATE TEMP TABLE IF NOT EXISTS client_import (
+                    position INT,
+                    email TEXT,
+                    email_domain TEXT,
+                    email_domain_slug TEXT,
+                    first_name TEXT,
+                    last_name TEXT,
+                    full_name TEXT,
+                    country_of_residence TEXT
+                ) ON COMMIT DROP
+                """);
+        template.execute((ConnectionCallback<Void>) con -> {
+            try {
+                con.unwrap(PGConnection.class).getCopyAPI().copyIn("""
+                        COPY client_import (position, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence)
+                        FROM STDIN (FORMAT BINARY)
+                        """, new ByteArrayInputStream(rows.finish()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        return template.query("""
+                INSERT INTO clients (email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence)
+                SELECT email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence
+                FROM client_import
+                ORDER BY position
+                ON CONFLICT (email) WHERE deleted_at IS NULL DO NOTHING
+                RETURNING id, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence, created_at
+                """, CLIENT_ROW_MAPPER);
+    }
+
     public Optional<Client> findById(UUID id) {
         String sql = """
                 SELECT id, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence, created_at
                 FROM clients
-                WHERE id = :id
+                WHERE id = :id AND deleted_at IS NULL
                 """;
         var params = new MapSqlParameterSource("id", id);
         return jdbcTemplate.query(sql, params, CLIENT_ROW_MAPPER).stream().findFirst();
     }
 
-    public boolean existsById(UUID id) {
-        String sql = "SELECT EXISTS (SELECT 1 FROM clients WHERE id = :id)";
-        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("id", id), Boolean.class));
+    /**
+     * Marks the client and its documents deleted, they drop out of every read at once and are purged later.
+     *
+     * @return empty when there is no such live client
+     */
+    public Optional<Client> delete(UUID id) {
+        String sql = """
+                WITH deleted_documents AS (
+                    UPDATE documents SET deleted_at = now() WHERE client_id = :id AND deleted_at IS NULL
+                )
+                UPDATE clients
+                SET deleted_at = now()
+                WHERE id = :id AND deleted_at IS NULL
+                RETURNING id, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence, created_at
+                """;
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("id", id), CLIENT_ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Deletes up to {@code limit} deleted clients whose documents are purged.
+     *
+     * @return the number of clients deleted
+     */
+    public int purgeClients(int limit) {
+        String sql = """
+                DELETE FROM clients
+                WHERE id IN (
+                    SELECT c.id
+                    FROM clients c
+                    WHERE c.deleted_at IS NOT NULL
+                      AND NOT EXISTS (SELECT 1 FROM documents d WHERE d.client_id = c.id)
+                    LIMIT :limit
+                )
+                """;
+        return jdbcTemplate.update(sql, new MapSqlParameterSource("limit", limit));
+    }
+
+    public Set<UUID> findExistingIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT id FROM clients WHERE id IN (:ids) AND deleted_at IS NULL";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, new MapSqlParameterSource("ids", ids), UUID.class));
     }
 
     public boolean existsByEmail(String email) {
-        String sql = "SELECT EXISTS (SELECT 1 FROM clients WHERE email = :email)";
+        String sql = "SELECT EXISTS (SELECT 1 FROM clients WHERE email = :email AND deleted_at IS NULL)";
         return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("email", email), Boolean.class));
     }
 
@@ -70,7 +184,7 @@ public class ClientRepository {
                 WHERE (
                     email LIKE '%' || :query || '%' OR
                     email % :query
-                )
+                ) AND deleted_at IS NULL
                 ORDER BY score DESC
                 LIMIT :limit
                 """;
@@ -80,31 +194,27 @@ public class ClientRepository {
         return jdbcTemplate.query(sql, params, new ClientSearchRowMapper());
     }
 
+    /**
+     * Matches the combined {@code search_key}: substrings of the query or its slug score 1, anything else scores by
+     * word similarity, i.e. against the best matching part of the key rather than the whole of it.
+     */
+    @Transactional(readOnly = true)
     public List<ClientSearchRow> searchByNameOrDomain(String normalizedQuery, String slugQuery, int limit) {
+        // <% filters by this threshold and is served by the trigram index
+        jdbcTemplate.queryForObject("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)",
+                new MapSqlParameterSource("threshold", String.valueOf(wordSimilarityThreshold)), String.class);
+
         String sql = """
                 SELECT *,
-                       CASE WHEN (full_name LIKE '%' || :normalizedQuery || '%' OR email LIKE '%' || :normalizedQuery || '%')
+                       CASE WHEN (search_key LIKE '%' || :normalizedQuery || '%' OR search_key LIKE '%' || :slugQuery || '%')
                        THEN 1
-                       ELSE GREATEST(
-                            similarity(full_name, :normalizedQuery),
-                            similarity(full_name, :slugQuery),
-                            similarity(email_domain_slug, :slugQuery),
-                            similarity(email_domain, :slugQuery),
-                            similarity(first_name, :normalizedQuery),
-                            similarity(last_name, :normalizedQuery)
-                       )
+                       ELSE word_similarity(:normalizedQuery, search_key)
                        END AS score
                 FROM clients
-                WHERE  (
-                    full_name LIKE '%' || :normalizedQuery || '%' OR
-                    email LIKE '%' || :normalizedQuery || '%' OR
-                    full_name % :normalizedQuery OR
-                    full_name % :slugQuery OR
-                    email_domain_slug % :slugQuery OR
-                    email_domain % :slugQuery OR
-                    first_name % :normalizedQuery OR
-                    last_name % :normalizedQuery
-                )
+                WHERE (search_key LIKE '%' || :normalizedQuery || '%'
+                   OR search_key LIKE '%' || :slugQuery || '%'
+                   OR :normalizedQuery <% search_key)
+                  AND deleted_at IS NULL
                 ORDER BY score DESC
                 LIMIT :limit
                 """;
@@ -115,8 +225,57 @@ public class ClientRepository {
         return jdbcTemplate.query(sql, params, new ClientSearchRowMapper());
     }
 
-    public List<Client> getAll() {
-        return jdbcTemplate.query("SELECT * from clients", CLIENT_ROW_MAPPER);
+    /**
+     * Streams every client, rows are fetched in bounded batches.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<Client> consumer) {
+        String sql = """
+                SELECT id, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence, created_at
+                FROM clients
+                WHERE deleted_at IS NULL
+                ORDER BY created_at
+                """;
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(CLIENT_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * One page of clients in {@code (created_at, id)} order, optionally restricted to a {@code [from, to)} creation
+     * range.
+     */
+    public List<Client> findPage(OffsetDateTime from, OffsetDateTime to, Keyset after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = listingSql(from, to, after, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.getJdbcTemplate().query(sql, CLIENT_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams the clients {@link #findPage} would return across all pages, rows are fetched in bounded batches.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(OffsetDateTime from, OffsetDateTime to, Consumer<Client> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = listingSql(from, to, null, args);
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(CLIENT_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    private static String listingSql(OffsetDateTime from, OffsetDateTime to, Keyset after, List<Object> args) {
+        return """
+                SELECT id, email, email_domain, email_domain_slug, first_name, last_name, full_name, country_of_residence, created_at
+                FROM clients
+                """
+                + Keyset.where(new ArrayList<>(List.of("deleted_at IS NULL")), from, to, after, args)
+                + " ORDER BY created_at, id";
     }
 
     private static class ClientRowMapper implements RowMapper<Client> {
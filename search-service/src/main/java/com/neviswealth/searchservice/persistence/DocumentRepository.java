@@ -1,82 +1,515 @@
 package com.neviswealth.searchservice.persistence;
 
+import com.neviswealth.searchservice.config.ChunkingProperties;
 import com.neviswealth.searchservice.config.SearchingProperties;
 import com.neviswealth.searchservice.domain.Document;
 import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.embedding.EmbeddingModelChangedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
 import com.pgvector.PGvector;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 public class DocumentRepository {
 
     private static final RowMapper<Document> FULL_DOCUMENT_ROW_MAPPER = new FullDocumentRowMapper();
     private static final RowMapper<Document> NO_CONTENT_DOCUMENT_ROW_MAPPER = new NoContentDocumentRowMapper();
+    private static final RowMapper<ChunkEmbeddingRow> CHUNK_EMBEDDING_ROW_MAPPER = new ChunkEmbeddingRowMapper();
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // several chunks of the same document usually sit next to each other among the candidates
+    private static final int CHUNKS_PER_DOCUMENT_RESULT = 4;
+    // the largest hnsw.ef_search pgvector accepts, candidate lists are capped to it
+    private static final int MAX_CANDIDATES = 1000;
+    private static final String CHUNK_EMBEDDINGS_SQL = """
+            SELECT d.id, d.client_id, d.title, d.created_at, dc.chunk_index,
+                   COALESCE(dc.content, substr(d.content, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) AS content,
+                   dc.embedding::text AS embedding
+            FROM document_chunks dc
+            JOIN documents d ON d.id = dc.document_id AND d.deleted_at IS NULL
+            """;
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final double embeddingThreshold;
     private final double similarityThreshold;
+    private final SearchingProperties.Quantization quantization;
+    private final SearchingProperties.ClientScope clientScope;
+    private final SearchingProperties.CoarseToFine coarseToFine;
+    private final EmbeddingModels embeddingModels;
+    private final boolean storeOffsets;
+    private final String chunking;
 
-    public DocumentRepository(NamedParameterJdbcTemplate jdbcTemplate, SearchingProperties properties) {
+    public DocumentRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                              SearchingProperties properties,
+                              EmbeddingModels embeddingModels,
+                              ChunkingProperties chunkingProperties) {
         this.jdbcTemplate = jdbcTemplate;
-        this.embeddingThreshold = properties.getEmbedding();
-        this.similarityThreshold = properties.getSimilarity();
+        this.embeddingThreshold = properties.getThreshold().getEmbedding();
+        this.similarityThreshold = properties.getThreshold().getSimilarity();
+        this.quantization = properties.getQuantization();
+        this.clientScope = properties.getClientScope();
+        this.coarseToFine = properties.getCoarseToFine();
+        this.embeddingModels = embeddingModels;
+        this.storeOffsets = chunkingProperties.isStoreOffsets();
+        this.chunking = chunkingProperties.fingerprint();
     }
 
-    public Document insert(Document document) {
+    /**
+     * @return empty when the client already has a document with this title or is deleted; an unknown client fails
+     * on {@code fk_documents_client}
+     */
+    public Optional<Document> insert(Document document) {
         var params = new MapSqlParameterSource()
                 .addValue("client_id", document.clientId())
                 .addValue("title", document.title())
                 .addValue("content", document.content())
-                .addValue("content_hash", document.contentHash());
+                .addValue("content_hash", document.contentHash())
+                .addValue("chunking", chunking);
 
         String sql = """
-                INSERT INTO documents (client_id, title, content, content_hash)
-                VALUES (:client_id, :title, :content, :content_hash)
+                INSERT INTO documents (client_id, title, content, content_hash, chunking)
+                SELECT :client_id, :title, :content, :content_hash, :chunking
+                WHERE NOT EXISTS (SELECT 1 FROM clients WHERE id = :client_id AND deleted_at IS NOT NULL)
+                ON CONFLICT (client_id, title) WHERE deleted_at IS NULL DO NOTHING
                 RETURNING id, client_id, title, created_at
                 """;
-        return jdbcTemplate.queryForObject(sql, params, NO_CONTENT_DOCUMENT_ROW_MAPPER);
+        return jdbcTemplate.query(sql, params, NO_CONTENT_DOCUMENT_ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * @return another document with the same content chunked under the same settings, one with the same title too if
+     * there is one. Chunks depend on the title, the content and the settings only: a twin with the same title has the
+     * chunks the given document needs, any other twin all but the title chunk
+     */
+    public Optional<Twin> findTwin(UUID documentId, String contentHash, String title) {
+        String sql = """
+                SELECT id, title = :title AS same_title
+                FROM documents
+                WHERE content_hash = :contentHash AND chunking = :chunking AND id <> :id AND deleted_at IS NULL
+                ORDER BY title = :title DESC
+                LIMIT 1
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("id", documentId)
+                .addValue("contentHash", contentHash)
+                .addValue("chunking", chunking)
+                .addValue("title", title);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new Twin(rs.getObject("id", UUID.class),
+                rs.getBoolean("same_title"))).stream().findFirst();
+    }
+
+    /**
+     * Copies the chunks, embeddings and centroid of the source document to the target document in one statement.
+     */
+    public void cloneChunks(UUID sourceId, Document target) {
+        String sql = """
+                WITH cloned AS (
+                    INSERT INTO document_chunks (document_id, client_id, chunk_index, content, chunk_start, chunk_end, embedding,
+                                                 embedding_model_id)
+                    SELECT :targetId, :clientId, chunk_index, content, chunk_start, chunk_end, embedding, embedding_model_id
+                    FROM document_chunks
+                    WHERE document_id = :sourceId
+                )
+                UPDATE documents
+                SET embedding = source.embedding
+                FROM documents source
+                WHERE documents.id = :targetId AND source.id = :sourceId
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("sourceId", sourceId)
+                .addValue("targetId", target.id())
+                .addValue("clientId", target.clientId());
+        jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * Copies the chunks after the title chunk of the source document and their embeddings to the target document,
+     * for a twin under another title. The centroid is left to be computed with the target's own title chunk.
+     */
+    public void cloneContentChunks(UUID sourceId, Document target) {
+        String sql = """
+                INSERT INTO document_chunks (document_id, client_id, chunk_index, content, chunk_start, chunk_end, embedding,
+                                             embedding_model_id)
+                SELECT :targetId, :clientId, chunk_index, content, chunk_start, chunk_end, embedding, embedding_model_id
+                FROM document_chunks
+                WHERE document_id = :sourceId AND chunk_index >= 1
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("sourceId", sourceId)
+                .addValue("targetId", target.id())
+                .addValue("clientId", target.clientId());
+        jdbcTemplate.update(sql, params);
     }
 
     public Optional<Document> findById(UUID id) {
-        String sql = "SELECT * FROM documents WHERE id = :id";
+        String sql = "SELECT * FROM documents WHERE id = :id AND deleted_at IS NULL";
+        var params = new MapSqlParameterSource("id", id);
+        return jdbcTemplate.query(sql, params, FULL_DOCUMENT_ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * {@link #findById} that keeps the document locked against concurrent updates until the transaction ends.
+     */
+    public Optional<Document> findByIdForUpdate(UUID id) {
+        String sql = "SELECT * FROM documents WHERE id = :id AND deleted_at IS NULL FOR UPDATE";
         var params = new MapSqlParameterSource("id", id);
         return jdbcTemplate.query(sql, params, FULL_DOCUMENT_ROW_MAPPER).stream().findFirst();
     }
 
-    public boolean existsByClientIdAndTitle(UUID clientId, String title) {
-        String sql = "SELECT EXISTS (SELECT 1 FROM documents WHERE client_id = :client_id AND title = :title)";
+    /**
+     * @return the {@link com.neviswealth.searchservice.util.ContentHash} of each chunk's text by chunk index, in
+     * index order; hashed in the database so the texts are not transferred
+     */
+    public Map<Integer, String> findChunkHashes(UUID documentId) {
+        String sql = """
+                SELECT dc.chunk_index,
+                       encode(sha256(convert_to(
+                           COALESCE(dc.content, substr(d.content, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)),
+                           'UTF8')), 'hex') AS content_hash
+                FROM document_chunks dc
+                JOIN documents d ON d.id = dc.document_id
+                WHERE dc.document_id = :id
+                ORDER BY dc.chunk_index
+                """;
+        Map<Integer, String> hashes = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, new MapSqlParameterSource("id", documentId),
+                (RowCallbackHandler) rs -> hashes.put(rs.getInt("chunk_index"), rs.getString("content_hash")));
+        return hashes;
+    }
+
+    /**
+     * Sets new content and its hash; the summary was written for the old content and is dropped.
+     */
+    public void updateContent(UUID id, String content, String contentHash) {
+        String sql = """
+                UPDATE documents
+                SET content = :content, content_hash = :contentHash, chunking = :chunking, summary = NULL
+                WHERE id = :id
+                """;
         var params = new MapSqlParameterSource()
-                .addValue("client_id", clientId)
-                .addValue("title", title);
-        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, params, Boolean.class));
+                .addValue("id", id)
+                .addValue("content", content)
+                .addValue("contentHash", contentHash)
+                .addValue("chunking", chunking);
+        jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * Brings the chunks of a document in line with its new content: chunks that are not kept are deleted, kept
+     * chunks move to their new index with their embedding and added chunks are inserted. A kept chunk that stays at
+     * its index with the same stored text or offsets is not written at all. The centroid is recomputed from the
+     * resulting chunks.
+     *
+     * @param document         carries the new content
+     * @param embeddingModelId the model the added chunks were embedded with, see {@link #requireActiveModel}
+     */
+    public void replaceChunks(Document document, List<KeptChunk> kept, List<DocumentChunk> added, int embeddingModelId) {
+        TreeMap<Integer, String> texts = new TreeMap<>();
+        kept.forEach(chunk -> texts.put(chunk.chunkIndex(), chunk.content()));
+        added.forEach(chunk -> texts.put(chunk.chunkIndex(), chunk.content()));
+        int[][] located = locate(document, new ArrayList<>(texts.values()));
+        Map<Integer, int[]> offsets = new HashMap<>();
+        int position = 0;
+        for (int chunkIndex : texts.keySet()) {
+            offsets.put(chunkIndex, located[position++]);
+        }
+
+        var params = new MapSqlParameterSource()
+                .addValue("id", document.id())
+                .addValue("previousIndexes", new SqlArrayValue("integer", kept.stream().map(KeptChunk::previousIndex).toArray()), Types.ARRAY);
+        jdbcTemplate.update("DELETE FROM document_chunks WHERE document_id = :id AND chunk_index <> ALL(:previousIndexes)", params);
+
+        if (!kept.isEmpty()) {
+            Object[] chunkIndexes = new Object[kept.size()];
+            Object[] contents = new Object[kept.size()];
+            Object[] starts = new Object[kept.size()];
+            Object[] ends = new Object[kept.size()];
+            for (int i = 0; i < kept.size(); i++) {
+                KeptChunk chunk = kept.get(i);
+                int[] chunkOffsets = offsets.get(chunk.chunkIndex());
+                chunkIndexes[i] = chunk.chunkIndex();
+                contents[i] = chunkOffsets == null ? chunk.content() : null;
+                starts[i] = chunkOffsets == null ? null : chunkOffsets[0];
+                ends[i] = chunkOffsets == null ? null : chunkOffsets[1];
+            }
+            params.addValue("chunkIndexes", new SqlArrayValue("integer", chunkIndexes), Types.ARRAY)
+                    .addValue("contents", new SqlArrayValue("text", contents), Types.ARRAY)
+                    .addValue("starts", new SqlArrayValue("integer", starts), Types.ARRAY)
+                    .addValue("ends", new SqlArrayValue("integer", ends), Types.ARRAY);
+            // moved rows pass through negative indexes, the primary key is checked row by row
+            jdbcTemplate.update("""
+                    UPDATE document_chunks dc
+                    SET chunk_index = -1 - k.chunk_index,
+                        content = k.content,
+                        chunk_start = k.chunk_start,
+                        chunk_end = k.chunk_end
+                    FROM unnest(:previousIndexes, :chunkIndexes, :contents, :starts, :ends)
+                         AS k(previous_index, chunk_index, content, chunk_start, chunk_end)
+                    WHERE dc.document_id = :id
+                      AND dc.chunk_index = k.previous_index
+                      AND (dc.chunk_index <> k.chunk_index
+                           OR (dc.content, dc.chunk_start, dc.chunk_end) IS DISTINCT FROM (k.content, k.chunk_start, k.chunk_end))
+                    """, params);
+            jdbcTemplate.update("UPDATE document_chunks SET chunk_index = -1 - chunk_index WHERE document_id = :id AND chunk_index < 0",
+                    params);
+        }
+
+        if (!added.isEmpty()) {
+            insertChunks(document, added, added.stream().map(chunk -> offsets.get(chunk.chunkIndex())).toArray(int[][]::new),
+                    embeddingModelId);
+        }
+        jdbcTemplate.update("""
+                UPDATE documents
+                SET embedding = (SELECT l2_normalize(avg(embedding)) FROM document_chunks WHERE document_id = :id)
+                WHERE id = :id
+                """, params);
+    }
+
+    /**
+     * Marks the document deleted, it drops out of every read at once while its chunks wait for {@link #purgeChunks}.
+     *
+     * @return the document without content, empty when there is no such live document
+     */
+    public Optional<Document> delete(UUID id) {
+        String sql = """
+                UPDATE documents
+                SET deleted_at = now()
+                WHERE id = :id AND deleted_at IS NULL
+                RETURNING id, client_id, title, created_at
+                """;
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("id", id), NO_CONTENT_DOCUMENT_ROW_MAPPER).stream().findFirst();
+    }
+
+    public boolean isClientDeleted(UUID clientId) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM clients WHERE id = :id AND deleted_at IS NOT NULL)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("id", clientId), Boolean.class));
+    }
+
+    /**
+     * Marks deleted the live documents of deleted clients, left by document inserts that raced the client's
+     * deletion.
+     *
+     * @return the number of documents marked
+     */
+    public int deleteDocumentsOfDeletedClients() {
+        String sql = """
+                UPDATE documents d
+                SET deleted_at = c.deleted_at
+                FROM clients c
+                WHERE c.id = d.client_id AND c.deleted_at IS NOT NULL AND d.deleted_at IS NULL
+                """;
+        return jdbcTemplate.update(sql, new MapSqlParameterSource());
+    }
+
+    /**
+     * Deletes up to {@code limit} chunks of deleted documents in one statement, so that locks and the dead tuples
+     * left in the vector indexes stay bounded per call.
+     *
+     * @return the number of chunks deleted
+     */
+    public int purgeChunks(int limit) {
+        String sql = """
+                DELETE FROM document_chunks dc
+                USING (
+                    SELECT c.document_id, c.chunk_index
+                    FROM documents d
+                    JOIN document_chunks c ON c.document_id = d.id
+                    WHERE d.deleted_at IS NOT NULL
+                    LIMIT :limit
+                ) purged
+                WHERE dc.document_id = purged.document_id AND dc.chunk_index = purged.chunk_index
+                """;
+        return jdbcTemplate.update(sql, new MapSqlParameterSource("limit", limit));
+    }
+
+    /**
+     * Deletes up to {@code limit} deleted documents whose chunks are purged.
+     *
+     * @return the number of documents deleted
+     */
+    public int purgeDocuments(int limit) {
+        String sql = """
+                DELETE FROM documents
+                WHERE id IN (
+                    SELECT d.id
+                    FROM documents d
+                    WHERE d.deleted_at IS NOT NULL
+                      AND NOT EXISTS (SELECT 1 FROM document_chunks dc WHERE dc.document_id = d.id)
+                    LIMIT :limit
+                )
+                """;
+        return jdbcTemplate.update(sql, new MapSqlParameterSource("limit", limit));
+    }
+
+    /**
+     * Writes documents with their chunks and centroids through binary COPY. Ids and creation times are taken from
+     * the documents; callers run it in a transaction and make sure no title is taken yet.
+     *
+     * @param embeddingModelId the model the chunks and centroids were embedded with, see {@link #requireActiveModel}
+     */
+    public void copyIn(List<NewDocument> documents, int embeddingModelId) {
+        requireActiveModel(embeddingModelId);
+        PgBinaryCopy documentRows = new PgBinaryCopy();
+        PgBinaryCopy chunkRows = new PgBinaryCopy();
+        for (NewDocument newDocument : documents) {
+            Document document = newDocument.document();
+            documentRows.row(8)
+                    .uuid(document.id())
+                    .uuid(document.clientId())
+                    .text(document.title())
+                    .text(document.content())
+                    .text(document.contentHash())
+                    .text(chunking)
+                    .vector(newDocument.centroid())
+                    .timestamptz(document.createdAt());
+            int[][] offsets = offsets(document, newDocument.chunks());
+            for (int i = 0; i < newDocument.chunks().size(); i++) {
+                DocumentChunk chunk = newDocument.chunks().get(i);
+                chunkRows.row(8)
+                        .uuid(document.id())
+                        .uuid(document.clientId())
+                        .int4(chunk.chunkIndex());
+                if (offsets[i] == null) {
+                    chunkRows.text(chunk.content()).nullValue().nullValue();
+                } else {
+                    chunkRows.nullValue().int4(offsets[i][0]).int4(offsets[i][1]);
+                }
+                chunkRows.vector(chunk.embedding()).int4(embeddingModelId);
+            }
+        }
+
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) con -> {
+            CopyManager copyManager = con.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copyManager.copyIn("""
+                        COPY documents (id, client_id, title, content, content_hash, chunking, embedding, created_at)
+                        FROM STDIN (FORMAT BINARY)
+                        """, new ByteArrayInputStream(documentRows.finish()));
+                copyManager.copyIn("""
+                        COPY document_chunks (document_id, client_id, chunk_index, content, chunk_start, chunk_end, embedding,
+                                              embedding_model_id)
+                        FROM STDIN (FORMAT BINARY)
+                        """, new ByteArrayInputStream(chunkRows.finish()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Fails unless the embeddings about to be written were computed with the model that is active now. Writers take
+     * the lock a swap of the embedding columns conflicts with first, so the model cannot change until they commit,
+     * and only then look up the active model; embeddings computed just before a swap are rejected rather than stored
+     * in the swapped in column under the wrong model.
+     */
+    private void requireActiveModel(int embeddingModelId) {
+        var none = EmptySqlParameterSource.INSTANCE;
+        jdbcTemplate.update("LOCK TABLE documents, document_chunks IN ROW EXCLUSIVE MODE", none);
+        int activeModelId = jdbcTemplate.queryForObject("SELECT id FROM embedding_models WHERE status = 'ACTIVE' FOR SHARE",
+                none, Integer.class);
+        if (activeModelId != embeddingModelId) {
+            throw new EmbeddingModelChangedException(embeddingModelId, activeModelId);
+        }
+    }
+
+    private int[][] offsets(Document document, List<DocumentChunk> chunks) {
+        return locate(document, chunks.stream().map(DocumentChunk::content).toList());
+    }
+
+    private int[][] locate(Document document, List<String> chunks) {
+        if (!storeOffsets || document.content() == null) {
+            return new int[chunks.size()][];
+        }
+        return ChunkOffsets.locate(document.content(), chunks);
+    }
+
+    /**
+     * @return the pairs of client and title that already have a document
+     */
+    public Set<ClientTitle> findExistingTitles(List<ClientTitle> candidates) {
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        String sql = """
+                SELECT d.client_id, d.title
+                FROM documents d
+                JOIN unnest(:clientIds, :titles) AS c(client_id, title)
+                  ON d.client_id = c.client_id AND d.title = c.title AND d.deleted_at IS NULL
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("clientIds", uuidArray(candidates.stream().map(ClientTitle::clientId).toList()), Types.ARRAY)
+                .addValue("titles", new SqlArrayValue("text", candidates.stream().map(ClientTitle::title).toArray()), Types.ARRAY);
+        return new HashSet<>(jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new ClientTitle(rs.getObject("client_id", UUID.class), rs.getString("title"))));
+    }
+
+    /**
+     * @param document         carries the content when chunks may be stored as offsets into it
+     * @param embeddingModelId the model the chunks were embedded with, see {@link #requireActiveModel}
+     */
+    public void insertChunks(Document document, List<DocumentChunk> chunks, int embeddingModelId) {
+        insertChunks(document, chunks, offsets(document, chunks), embeddingModelId);
     }
 
-    public void insertChunks(UUID documentId, List<DocumentChunk> chunks) {
+    private void insertChunks(Document document, List<DocumentChunk> chunks, int[][] offsets, int embeddingModelId) {
+        requireActiveModel(embeddingModelId);
         String sql = """
-                INSERT INTO document_chunks (document_id, chunk_index, content, embedding)
-                VALUES (?, ?, ?, ?)
+                INSERT INTO document_chunks (document_id, client_id, chunk_index, content, chunk_start, chunk_end, embedding,
+                                             embedding_model_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
                 """;
         jdbcTemplate.getJdbcTemplate().batchUpdate(sql, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
                 DocumentChunk chunk = chunks.get(i);
-                ps.setObject(1, documentId);
-                ps.setInt(2, chunk.chunkIndex());
-                ps.setString(3, chunk.content());
-                ps.setObject(4, new PGvector(chunk.embedding()));
+                ps.setObject(1, document.id());
+                ps.setObject(2, document.clientId());
+                ps.setInt(3, chunk.chunkIndex());
+                if (offsets[i] == null) {
+                    ps.setString(4, chunk.content());
+                    ps.setNull(5, Types.INTEGER);
+                    ps.setNull(6, Types.INTEGER);
+                } else {
+                    ps.setNull(4, Types.VARCHAR);
+                    ps.setInt(5, offsets[i][0]);
+                    ps.setInt(6, offsets[i][1]);
+                }
+                ps.setObject(7, new PGvector(chunk.embedding()));
+                ps.setInt(8, embeddingModelId);
             }
 
             @Override
@@ -86,40 +519,85 @@ public class DocumentRepository {
         });
     }
 
-    public List<DocumentSearchRow> searchLexically(UUID clientId, String query, int limit) {
+    /**
+     * @param clientIds clients to search within, {@code null} searches every client
+     */
+    public List<DocumentSearchRow> searchLexically(List<UUID> clientIds, String query, int limit) {
+        return searchLexically(clientIds, query, null, null, limit);
+    }
+
+    /**
+     * {@link #searchLexically} resumed after a document of its ranking, descending score then id.
+     *
+     * @param score lexical score of that document; scores are {@code real}, this is compared as one so that a score
+     *              read back from a double arithmetic round trip still finds its ties
+     */
+    public List<DocumentSearchRow> searchLexicallyAfter(List<UUID> clientIds, String query, double score, UUID id,
+                                                        int limit) {
+        return searchLexically(clientIds, query, score, id, limit);
+    }
+
+    private List<DocumentSearchRow> searchLexically(List<UUID> clientIds, String query, Double afterScore, UUID afterId,
+                                                    int limit) {
+        // d.content || '' detoasts the content once per document for its chunks stored as offsets to be matched
+        // against, snippets are cut from the document again only once the limit is applied
         String sql = """
-                SELECT *
+                SELECT top.id,
+                       top.client_id,
+                       top.title,
+                       top.created_at,
+                       COALESCE(top.content, substr(d.content, top.chunk_start + 1, top.chunk_end - top.chunk_start)) AS chunk_content,
+                       top.score
                 FROM (
-                    SELECT
-                        d.id as id,
-                        d.client_id,
-                        d.title,
-                        d.created_at,
-                        dc.content AS chunk_content,
-                        CASE WHEN dc.content ILIKE '%' || :q || '%' THEN 1 ELSE 0 END AS prefix_match,
-                        CASE WHEN dc.content ILIKE '%' || :q || '%' THEN 1 ELSE similarity(dc.content, :q) END as score,
-                        ROW_NUMBER() OVER (
-                            PARTITION BY d.id
-                            ORDER BY
-                                CASE WHEN dc.content ILIKE '%' || :q || '%' THEN 1 ELSE 0 END DESC,
-                                similarity(dc.content, :q) DESC
-                        ) AS rn
-                    FROM documents d
-                    JOIN document_chunks dc ON dc.document_id = d.id
-                    WHERE
-                        (:clientId::uuid IS NULL OR d.client_id = :clientId)
-                         AND
-                        ((dc.content ILIKE '%' || :q || '%') OR (similarity(dc.content, :q) >= :threshold))
-                ) ranked
-                WHERE rn = 1
+                    SELECT *
+                    FROM (
+                        SELECT
+                            d.id as id,
+                            d.client_id,
+                            d.title,
+                            d.created_at,
+                            dc.content,
+                            dc.chunk_start,
+                            dc.chunk_end,
+                            CASE WHEN chunk.text ILIKE '%' || :q || '%' THEN 1 ELSE similarity(chunk.text, :q) END as score,
+                            ROW_NUMBER() OVER (
+                                PARTITION BY d.id
+                                ORDER BY
+                                    CASE WHEN chunk.text ILIKE '%' || :q || '%' THEN 1 ELSE 0 END DESC,
+                                    similarity(chunk.text, :q) DESC
+                            ) AS rn
+                        FROM documents d
+                        CROSS JOIN LATERAL (SELECT d.content || '' AS body OFFSET 0) doc
+                        JOIN document_chunks dc ON dc.document_id = d.id
+                        CROSS JOIN LATERAL (
+                            SELECT COALESCE(dc.content, substr(doc.body, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) AS text
+                        ) chunk
+                        WHERE
+                            d.deleted_at IS NULL
+                             AND
+                            (:clientIds::uuid[] IS NULL OR d.client_id = ANY(:clientIds))
+                             AND
+                            ((chunk.text ILIKE '%' || :q || '%') OR (similarity(chunk.text, :q) >= :threshold))
+                    ) ranked
+                    WHERE rn = 1
+                      AND (CAST(:afterScore AS real) IS NULL
+                           OR score < CAST(:afterScore AS real)
+                           OR (score = CAST(:afterScore AS real) AND id > CAST(:afterId AS uuid)))
+                    ORDER BY
+                        score DESC,
+                        id
+                    LIMIT :limit
+                ) top
+                JOIN documents d ON d.id = top.id
                 ORDER BY
-                    prefix_match DESC,
-                    score DESC
-                LIMIT :limit;
+                    top.score DESC,
+                    top.id
                 """;
         var params = new MapSqlParameterSource()
                 .addValue("q", query)
-                .addValue("clientId", clientId, Types.OTHER)
+                .addValue("clientIds", uuidArray(clientIds), Types.ARRAY)
+                .addValue("afterScore", afterScore, Types.DOUBLE)
+                .addValue("afterId", afterId, Types.OTHER)
                 .addValue("limit", limit)
                 .addValue("threshold", similarityThreshold);
 
@@ -131,33 +609,378 @@ public class DocumentRepository {
         ));
     }
 
-    public List<DocumentSearchRow> searchWithEmbeddings(UUID clientId, float[] queryVector, int limit) {
+    /**
+     * @return those of the documents {@link #searchLexically} finds for the query at any rank
+     */
+    public Set<UUID> findLexicalMatches(List<UUID> documentIds, String query) {
+        if (documentIds.isEmpty()) {
+            return Set.of();
+        }
         String sql = """
-                SELECT id,
-                       client_id,
-                       title,
-                       created_at,
-                       chunk_content,
-                       score
+                SELECT d.id
+                FROM documents d
+                CROSS JOIN LATERAL (SELECT d.content || '' AS body OFFSET 0) doc
+                WHERE d.id = ANY(:ids)
+                  AND d.deleted_at IS NULL
+                  AND EXISTS (
+                      SELECT 1
+                      FROM document_chunks dc
+                      CROSS JOIN LATERAL (
+                          SELECT COALESCE(dc.content, substr(doc.body, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) AS text
+                      ) chunk
+                      WHERE dc.document_id = d.id
+                        AND ((chunk.text ILIKE '%' || :q || '%') OR (similarity(chunk.text, :q) >= :threshold))
+                  )
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("ids", uuidArray(documentIds), Types.ARRAY)
+                .addValue("q", query)
+                .addValue("threshold", similarityThreshold);
+        return new HashSet<>(jdbcTemplate.queryForList(sql, params, UUID.class));
+    }
+
+    /**
+     * {@link #searchLexically} for many queries in one statement, every query is joined laterally against the chunks.
+     * The content of a document is detoasted once per query.
+     *
+     * @param clientIds client scope per query, entries may be null
+     * @return results per query, in query order
+     */
+    public List<List<DocumentSearchRow>> searchLexicallyBatch(List<UUID> clientIds, List<String> queries, int limit) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+        var params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("threshold", similarityThreshold);
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < queries.size(); i++) {
+            values.add("(%d, CAST(:clientId%d AS uuid), CAST(:q%d AS text))".formatted(i, i, i));
+            params.addValue("clientId" + i, clientIds.get(i), Types.OTHER)
+                    .addValue("q" + i, queries.get(i));
+        }
+        String sql = """
+                SELECT q.ord,
+                       r.id,
+                       r.client_id,
+                       r.title,
+                       r.created_at,
+                       COALESCE(r.content, substr(d.content, r.chunk_start + 1, r.chunk_end - r.chunk_start)) AS chunk_content,
+                       r.score
+                FROM (VALUES %s) AS q(ord, scope_client_id, query)
+                CROSS JOIN LATERAL (
+                    SELECT *
+                    FROM (
+                        SELECT
+                            d.id as id,
+                            d.client_id,
+                            d.title,
+                            d.created_at,
+                            dc.content,
+                            dc.chunk_start,
+                            dc.chunk_end,
+                            CASE WHEN chunk.text ILIKE '%%' || q.query || '%%' THEN 1 ELSE 0 END AS prefix_match,
+                            CASE WHEN chunk.text ILIKE '%%' || q.query || '%%' THEN 1 ELSE similarity(chunk.text, q.query) END as score,
+                            ROW_NUMBER() OVER (
+                                PARTITION BY d.id
+                                ORDER BY
+                                    CASE WHEN chunk.text ILIKE '%%' || q.query || '%%' THEN 1 ELSE 0 END DESC,
+                                    similarity(chunk.text, q.query) DESC
+                            ) AS rn
+                        FROM documents d
+                        CROSS JOIN LATERAL (SELECT d.content || '' AS body OFFSET 0) doc
+                        JOIN document_chunks dc ON dc.document_id = d.id
+                        CROSS JOIN LATERAL (
+                            SELECT COALESCE(dc.content, substr(doc.body, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) AS text
+                        ) chunk
+                        WHERE
+                            d.deleted_at IS NULL
+                             AND
+                            (q.scope_client_id IS NULL OR d.client_id = q.scope_client_id)
+                             AND
+                            ((chunk.text ILIKE '%%' || q.query || '%%') OR (similarity(chunk.text, q.query) >= :threshold))
+                    ) ranked
+                    WHERE rn = 1
+                    ORDER BY
+                        prefix_match DESC,
+                        score DESC
+                    LIMIT :limit
+                ) r
+                JOIN documents d ON d.id = r.id
+                ORDER BY q.ord, r.prefix_match DESC, r.score DESC
+                """.formatted(values);
+
+        List<List<DocumentSearchRow>> results = emptyResults(queries.size());
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> results.get(rs.getInt("ord")).add(new DocumentSearchRow(
+                NO_CONTENT_DOCUMENT_ROW_MAPPER.mapRow(rs, rs.getRow()),
+                rs.getDouble("score"),
+                rs.getString("chunk_content"),
+                true
+        )));
+        return results;
+    }
+
+    /**
+     * @param clientIds clients to search within, {@code null} searches every client
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentSearchRow> searchWithEmbeddings(List<UUID> clientIds, float[] queryVector, int limit) {
+        if (clientIds != null) {
+            int exactMaxChunks = clientScope.getExactMaxChunks();
+            return countChunksUpTo(clientIds, exactMaxChunks + 1) > exactMaxChunks
+                    ? searchClientsWithIndex(clientIds, queryVector, limit)
+                    : searchClientsExactly(clientIds, queryVector, limit);
+        }
+        if (coarseToFine.isEnabled()) {
+            return searchWithinCandidateDocuments(queryVector, limit);
+        }
+        if (quantization.isEnabled()) {
+            return searchWithQuantizedEmbeddings(queryVector, limit);
+        }
+        return searchBestChunkPerDocument("document_chunks", queryVector, limit, new MapSqlParameterSource());
+    }
+
+    /**
+     * Whether {@link #searchWithEmbeddings} ranks the chunks of every client directly, without quantized or
+     * coarse-to-fine candidates, which is what {@link #searchWithEmbeddingsBatch} does.
+     */
+    public boolean isPlainSearch() {
+        return !coarseToFine.isEnabled() && !quantization.isEnabled();
+    }
+
+    /**
+     * Semantic search across all clients for many queries in one statement, for the plain search only (see
+     * {@link #isPlainSearch}). Every query ranks the nearest chunks found through the ANN index, so it may miss a
+     * neighbour that the exact ranking of {@link #searchWithEmbeddings} finds.
+     *
+     * @return results per query, in query order
+     */
+    @Transactional(readOnly = true)
+    public List<List<DocumentSearchRow>> searchWithEmbeddingsBatch(List<float[]> queryVectors, int limit) {
+        if (queryVectors.isEmpty()) {
+            return List.of();
+        }
+        int candidates = Math.min(MAX_CANDIDATES, Math.max(clientScope.getCandidates(), limit * CHUNKS_PER_DOCUMENT_RESULT));
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', :efSearch, true)",
+                new MapSqlParameterSource("efSearch", String.valueOf(candidates)), String.class);
+
+        var params = new MapSqlParameterSource()
+                .addValue("candidates", candidates)
+                .addValue("limit", limit)
+                .addValue("threshold", embeddingThreshold);
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < queryVectors.size(); i++) {
+            values.add("(%d, CAST(:queryVector%d AS vector))".formatted(i, i));
+            params.addValue("queryVector" + i, new SqlParameterValue(Types.OTHER, new PGvector(queryVectors.get(i))));
+        }
+        String sql = """
+                SELECT q.ord, r.*
+                FROM (VALUES %s) AS q(ord, query_vector)
+                CROSS JOIN LATERAL (
+                    SELECT top.id,
+                           top.client_id,
+                           top.title,
+                           top.created_at,
+                           COALESCE(top.content, substr(d.content, top.chunk_start + 1, top.chunk_end - top.chunk_start)) AS chunk_content,
+                           top.score
+                    FROM (
+                             SELECT id,
+                                    client_id,
+                                    title,
+                                    created_at,
+                                    content,
+                                    chunk_start,
+                                    chunk_end,
+                                    score
+                             FROM (
+                                      SELECT d.id AS id,
+                                             d.client_id,
+                                             d.title,
+                                             d.created_at,
+                                             c.content,
+                                             c.chunk_start,
+                                             c.chunk_end,
+                                             (1 - (c.embedding <-> q.query_vector)) AS score,
+                                             ROW_NUMBER() OVER (PARTITION BY d.id ORDER BY c.embedding <-> q.query_vector) AS rn
+                                      FROM (
+                                               SELECT document_id, content, chunk_start, chunk_end, embedding
+                                               FROM document_chunks
+                                               ORDER BY embedding <-> q.query_vector
+                                               LIMIT :candidates
+                                           ) c
+                                      JOIN documents d ON d.id = c.document_id AND d.deleted_at IS NULL
+                                  ) ranked
+                             WHERE rn = 1 AND score >= :threshold
+                             ORDER BY score DESC
+                             LIMIT :limit
+                         ) top
+                    JOIN documents d ON d.id = top.id
+                ) r
+                ORDER BY q.ord, r.score DESC
+                """.formatted(values);
+
+        List<List<DocumentSearchRow>> results = emptyResults(queryVectors.size());
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> results.get(rs.getInt("ord")).add(new DocumentSearchRow(
+                NO_CONTENT_DOCUMENT_ROW_MAPPER.mapRow(rs, rs.getRow()),
+                rs.getDouble("score"),
+                rs.getString("chunk_content"),
+                false
+        )));
+        return results;
+    }
+
+    private static List<List<DocumentSearchRow>> emptyResults(int queries) {
+        List<List<DocumentSearchRow>> results = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            results.add(new ArrayList<>());
+        }
+        return results;
+    }
+
+    /**
+     * Small clients: every chunk of the clients is scored, the client index keeps other clients' chunks out of the scan.
+     */
+    private List<DocumentSearchRow> searchClientsExactly(List<UUID> clientIds, float[] queryVector, int limit) {
+        String chunks = """
+                (
+                    SELECT document_id, content, chunk_start, chunk_end, embedding
+                    FROM document_chunks
+                    WHERE client_id = ANY(:clientIds)
+                )""";
+        var params = new MapSqlParameterSource().addValue("clientIds", uuidArray(clientIds), Types.ARRAY);
+        return searchBestChunkPerDocument(chunks, queryVector, limit, params);
+    }
+
+    /**
+     * Large clients: the ANN index is walked with the filter applied during the scan, iterative scanning keeps going
+     * until enough of the clients' chunks are found instead of returning what survived a fixed ef_search.
+     */
+    private List<DocumentSearchRow> searchClientsWithIndex(List<UUID> clientIds, float[] queryVector, int limit) {
+        int candidates = Math.min(MAX_CANDIDATES, Math.max(clientScope.getCandidates(), limit * CHUNKS_PER_DOCUMENT_RESULT));
+        jdbcTemplate.queryForList("""
+                        SELECT set_config('hnsw.ef_search', :efSearch, true),
+                               set_config('hnsw.iterative_scan', 'relaxed_order', true)
+                        """,
+                new MapSqlParameterSource("efSearch", String.valueOf(candidates)));
+
+        // relaxed order may return slightly unordered rows, the outer ranking sorts them again
+        String chunks = """
+                (
+                    SELECT document_id, content, chunk_start, chunk_end, embedding
+                    FROM document_chunks
+                    WHERE client_id = ANY(:clientIds)
+                    ORDER BY embedding <-> :queryVector
+                    LIMIT :candidates
+                )""";
+        var params = new MapSqlParameterSource()
+                .addValue("clientIds", uuidArray(clientIds), Types.ARRAY)
+                .addValue("candidates", candidates);
+        return searchBestChunkPerDocument(chunks, queryVector, limit, params);
+    }
+
+    /**
+     * Picks candidates by Hamming distance between sign-quantized embeddings (served by the bit index),
+     * then rescores them with the exact distance used by {@link #searchWithEmbeddings}.
+     */
+    private List<DocumentSearchRow> searchWithQuantizedEmbeddings(float[] queryVector, int limit) {
+        int candidates = Math.min(MAX_CANDIDATES, Math.max(quantization.getCandidates(), limit * quantization.getOversampling()));
+        // the hnsw index scan never returns more rows than ef_search
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', :efSearch, true)",
+                new MapSqlParameterSource("efSearch", String.valueOf(candidates)), String.class);
+
+        String chunks = """
+                (
+                    SELECT document_id, content, chunk_start, chunk_end, embedding
+                    FROM document_chunks
+                    ORDER BY binary_quantize(embedding)::bit(%d) <~> binary_quantize(:queryVector)
+                    LIMIT :candidates
+                )""".formatted(embeddingModels.active().dimension());
+        return searchBestChunkPerDocument(chunks, queryVector, limit, new MapSqlParameterSource("candidates", candidates));
+    }
+
+    /**
+     * Picks candidate documents by their centroid through the documents index, only their chunks are then scored
+     * to rank them and pick the snippet.
+     */
+    private List<DocumentSearchRow> searchWithinCandidateDocuments(float[] queryVector, int limit) {
+        int candidates = Math.min(MAX_CANDIDATES, Math.max(coarseToFine.getDocuments(), limit * coarseToFine.getOversampling()));
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', :efSearch, true)",
+                new MapSqlParameterSource("efSearch", String.valueOf(candidates)), String.class);
+
+        String chunks = """
+                (
+                    SELECT dc.document_id, dc.content, dc.chunk_start, dc.chunk_end, dc.embedding
+                    FROM (
+                             SELECT id
+                             FROM documents
+                             WHERE deleted_at IS NULL
+                             ORDER BY embedding <=> :queryVector
+                             LIMIT :candidates
+                         ) candidate
+                    JOIN document_chunks dc ON dc.document_id = candidate.id
+                )""";
+        return searchBestChunkPerDocument(chunks, queryVector, limit, new MapSqlParameterSource("candidates", candidates));
+    }
+
+    private int countChunksUpTo(List<UUID> clientIds, int cap) {
+        String sql = """
+                SELECT count(*)
+                FROM (SELECT 1 FROM document_chunks WHERE client_id = ANY(:clientIds) LIMIT :cap) c
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("clientIds", uuidArray(clientIds), Types.ARRAY)
+                .addValue("cap", cap);
+        Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private static SqlArrayValue uuidArray(List<UUID> ids) {
+        return ids == null ? null : new SqlArrayValue("uuid", ids.toArray());
+    }
+
+    /**
+     * Ranks the given chunk source by exact euclidean distance and keeps the best chunk per document.
+     */
+    private List<DocumentSearchRow> searchBestChunkPerDocument(String chunks, float[] queryVector, int limit,
+                                                               MapSqlParameterSource params) {
+        // chunks stored as offsets get their snippet cut from the document only once the limit is applied
+        String sql = """
+                SELECT top.id,
+                       top.client_id,
+                       top.title,
+                       top.created_at,
+                       COALESCE(top.content, substr(d.content, top.chunk_start + 1, top.chunk_end - top.chunk_start)) AS chunk_content,
+                       top.score
                 FROM (
-                         SELECT d.id AS id,
-                                d.client_id,
-                                d.title,
-                                d.created_at,
-                                dc.content AS chunk_content,
-                                (1 - (dc.embedding <-> :queryVector)) AS score,
-                                ROW_NUMBER() OVER (PARTITION BY d.id ORDER BY dc.embedding <-> :queryVector) AS rn
-                         FROM document_chunks dc
-                         JOIN documents d ON d.id = dc.document_id
-                         WHERE :clientId::uuid IS NULL OR d.client_id = :clientId
-                     ) ranked
-                WHERE rn = 1 AND score >= :threshold
-                ORDER BY score DESC
-                LIMIT :limit
-                """;
-        var params = new MapSqlParameterSource()
-                .addValue("clientId", clientId, Types.OTHER)
-                .addValue("queryVector", new SqlParameterValue(Types.OTHER, new PGvector(queryVector)))
+                         SELECT id,
+                                client_id,
+                                title,
+                                created_at,
+                                content,
+                                chunk_start,
+                                chunk_end,
+                                score
+                         FROM (
+                                  SELECT d.id AS id,
+                                         d.client_id,
+                                         d.title,
+                                         d.created_at,
+                                         c.content,
+                                         c.chunk_start,
+                                         c.chunk_end,
+                                         (1 - (c.embedding <-> :queryVector)) AS score,
+                                         ROW_NUMBER() OVER (PARTITION BY d.id ORDER BY c.embedding <-> :queryVector) AS rn
+                                  FROM %s c
+                                  JOIN documents d ON d.id = c.document_id AND d.deleted_at IS NULL
+                              ) ranked
+                         WHERE rn = 1 AND score >= :threshold
+                         ORDER BY score DESC
+                         LIMIT :limit
+                     ) top
+                JOIN documents d ON d.id = top.id
+                ORDER BY top.score DESC
+                """.formatted(chunks);
+        params.addValue("queryVector", new SqlParameterValue(Types.OTHER, new PGvector(queryVector)))
                 .addValue("limit", limit)
                 .addValue("threshold", embeddingThreshold);
 
@@ -169,8 +992,124 @@ public class DocumentRepository {
         ));
     }
 
-    public List<Document> getAll() {
-        return jdbcTemplate.query("Select * from documents", NO_CONTENT_DOCUMENT_ROW_MAPPER);
+    /**
+     * Streams every chunk with its embedding, rows are fetched in bounded batches.
+     */
+    @Transactional(readOnly = true)
+    public void forEachChunk(Consumer<ChunkEmbeddingRow> consumer) {
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(CHUNK_EMBEDDINGS_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(CHUNK_EMBEDDING_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Streams every document without content, rows are fetched in bounded batches.
+     */
+    @Transactional(readOnly = true)
+    public void forEachDocument(Consumer<Document> consumer) {
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, client_id, title, created_at FROM documents WHERE deleted_at IS NULL ORDER BY created_at");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(NO_CONTENT_DOCUMENT_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    public List<ChunkEmbeddingRow> findChunks(UUID documentId) {
+        String sql = CHUNK_EMBEDDINGS_SQL + " WHERE dc.document_id = :documentId ORDER BY dc.chunk_index";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("documentId", documentId), CHUNK_EMBEDDING_ROW_MAPPER);
+    }
+
+    public List<ChunkEmbeddingRow> findClientChunks(UUID clientId, int limit) {
+        String sql = CHUNK_EMBEDDINGS_SQL + " WHERE dc.client_id = :clientId LIMIT :limit";
+        var params = new MapSqlParameterSource()
+                .addValue("clientId", clientId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sql, params, CHUNK_EMBEDDING_ROW_MAPPER);
+    }
+
+    /**
+     * One page of documents without content in {@code (created_at, id)} order, optionally restricted to a client
+     * and a {@code [from, to)} creation range.
+     */
+    public List<Document> findPage(UUID clientId, OffsetDateTime from, OffsetDateTime to, Keyset after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = listingSql(clientId, from, to, after, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.getJdbcTemplate().query(sql, NO_CONTENT_DOCUMENT_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams the documents {@link #findPage} would return across all pages, rows are fetched in bounded batches.
+     */
+    @Transactional(readOnly = true)
+    public void forEachDocument(UUID clientId, OffsetDateTime from, OffsetDateTime to, Consumer<Document> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = listingSql(clientId, from, to, null, args);
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(NO_CONTENT_DOCUMENT_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    private static String listingSql(UUID clientId, OffsetDateTime from, OffsetDateTime to, Keyset after, List<Object> args) {
+        List<String> conditions = new ArrayList<>(List.of("deleted_at IS NULL"));
+        if (clientId != null) {
+            conditions.add("client_id = ?");
+            args.add(clientId);
+        }
+        return "SELECT id, client_id, title, created_at FROM documents"
+                + Keyset.where(conditions, from, to, after, args)
+                + " ORDER BY created_at, id";
+    }
+
+    /**
+     * Keeps one piece of a document's content in a transaction-scoped table until {@link #completeUpload} joins the
+     * pieces, so that content arriving as a stream is never held in memory as a whole. Callers run both in one
+     * transaction.
+     */
+    public void stageContent(UUID documentId, int position, String piece) {
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TEMP TABLE IF NOT EXISTS document_upload (
+                    document_id UUID,
+                    position INT,
+                    piece TEXT
+                ) ON COMMIT DROP
+                """);
+        var params = new MapSqlParameterSource()
+                .addValue("documentId", documentId)
+                .addValue("position", position)
+                .addValue("piece", piece);
+        jdbcTemplate.update("INSERT INTO document_upload (document_id, position, piece) VALUES (:documentId, :position, :piece)", params);
+    }
+
+    /**
+     * Sets the staged pieces as the document's content, together with its hash and centroid.
+     */
+    public void completeUpload(UUID documentId, String contentHash, float[] centroid) {
+        var params = new MapSqlParameterSource()
+                .addValue("id", documentId)
+                .addValue("contentHash", contentHash)
+                .addValue("embedding", new SqlParameterValue(Types.OTHER, centroid == null ? null : new PGvector(centroid)));
+        String sql = """
+                UPDATE documents
+                SET content = (SELECT string_agg(piece, '' ORDER BY position) FROM document_upload WHERE document_id = :id),
+                    content_hash = :contentHash,
+                    embedding = :embedding
+                WHERE id = :id
+                """;
+        jdbcTemplate.update(sql, params);
+        jdbcTemplate.update("DELETE FROM document_upload WHERE document_id = :id", params);
+    }
+
+    public void updateEmbedding(UUID id, float[] embedding) {
+        var params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("embedding", new SqlParameterValue(Types.OTHER, new PGvector(embedding)));
+        jdbcTemplate.update("UPDATE documents SET embedding = :embedding WHERE id = :id", params);
     }
 
     public void updateDocumentWithSummary(UUID id, String summary) {
@@ -213,6 +1152,39 @@ public class DocumentRepository {
         }
     }
 
+    private static class ChunkEmbeddingRowMapper implements RowMapper<ChunkEmbeddingRow> {
+        @Override
+        public ChunkEmbeddingRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new ChunkEmbeddingRow(
+                    NO_CONTENT_DOCUMENT_ROW_MAPPER.mapRow(rs, rowNum),
+                    rs.getInt("chunk_index"),
+                    rs.getString("content"),
+                    new PGvector(rs.getString("embedding")).toArray()
+            );
+        }
+    }
+
+    /**
+     * @param centroid {@code null} for documents without chunks
+     */
+    public record NewDocument(Document document, List<DocumentChunk> chunks, float[] centroid) {
+    }
+
+    public record ClientTitle(UUID clientId, String title) {
+    }
+
+    public record Twin(UUID id, boolean sameTitle) {
+    }
+
+    /**
+     * A chunk whose text is unchanged by an update, it keeps its row and embedding under its new index.
+     */
+    public record KeptChunk(int previousIndex, int chunkIndex, String content) {
+    }
+
+    public record ChunkEmbeddingRow(Document document, int chunkIndex, String content, float[] embedding) {
+    }
+
     public record DocumentSearchRow(Document document, double score, String matchedSnippet, boolean lexically) {
     }
 }
@@ -0,0 +1,329 @@
+package com.neviswealth.searchservice.persistence;
+
+import com.pgvector.PGvector;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Embedding models and the shadow columns a new model is built in. While a model is built, chunks carry
+ * {@code embedding_next} and {@code embedding_next_model_id} and documents {@code embedding_next} next to the live
+ * columns; a swap drops the live columns and renames the shadow ones in their place.
+ */
+@Repository
+public class EmbeddingModelRepository {
+
+    private static final RowMapper<ModelRow> MODEL_ROW_MAPPER = (rs, rowNum) -> new ModelRow(
+            rs.getInt("id"),
+            rs.getString("name"),
+            rs.getInt("dimension"),
+            ModelStatus.valueOf(rs.getString("status")),
+            rs.getLong("reembedded_chunks"),
+            rs.getObject("total_chunks", Long.class),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getObject("activated_at", OffsetDateTime.class)
+    );
+    private static final String PENDING_CHUNKS_SQL = """
+            FROM document_chunks dc
+            JOIN documents d ON d.id = dc.document_id AND d.deleted_at IS NULL
+            WHERE dc.embedding_next_model_id IS NULL
+            """;
+    // the live indexes, each built over the shadow column under its name with a _next suffix
+    private static final List<ShadowIndex> SHADOW_INDEXES = List.of(
+            new ShadowIndex("idx_document_chunks_embedding", "document_chunks USING ivfflat (embedding_next vector_cosine_ops)"),
+            new ShadowIndex("idx_document_chunks_embedding_bq",
+                    "document_chunks USING hnsw ((binary_quantize(embedding_next)::bit(%d)) bit_hamming_ops)"),
+            new ShadowIndex("idx_document_chunks_embedding_l2", "document_chunks USING hnsw (embedding_next vector_l2_ops)"),
+            new ShadowIndex("idx_documents_embedding", "documents USING hnsw (embedding_next vector_cosine_ops)")
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public EmbeddingModelRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ModelRow> findAll() {
+        return jdbcTemplate.query("SELECT * FROM embedding_models ORDER BY created_at, id", MODEL_ROW_MAPPER);
+    }
+
+    public Optional<ModelRow> findActive() {
+        return jdbcTemplate.query("SELECT * FROM embedding_models WHERE status = 'ACTIVE'", MODEL_ROW_MAPPER)
+                .stream().findFirst();
+    }
+
+    /**
+     * @return the model being re-embedded or indexed, if any
+     */
+    public Optional<ModelRow> findBuilding() {
+        return jdbcTemplate.query("SELECT * FROM embedding_models WHERE status IN ('BUILDING', 'INDEXING')", MODEL_ROW_MAPPER)
+                .stream().findFirst();
+    }
+
+    /**
+     * Records the model as being built; a model that was retired before starts over. Callers retire any other
+     * model being built first.
+     */
+    public ModelRow startBuilding(String name, int dimension) {
+        String sql = """
+                INSERT INTO embedding_models (name, dimension, status, total_chunks)
+                VALUES (:name, :dimension, 'BUILDING', (SELECT count(*) FROM document_chunks))
+                ON CONFLICT (name) DO UPDATE
+                SET dimension = EXCLUDED.dimension,
+                    status = 'BUILDING',
+                    reembedded_chunks = 0,
+                    total_chunks = EXCLUDED.total_chunks,
+                    created_at = now(),
+                    activated_at = NULL
+                WHERE embedding_models.status = 'RETIRED'
+                RETURNING *
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("name", name)
+                .addValue("dimension", dimension);
+        return jdbcTemplate.query(sql, params, MODEL_ROW_MAPPER).stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("Embedding model " + name + " is already active or being built"));
+    }
+
+    public void markIndexing(int id) {
+        jdbcTemplate.update("UPDATE embedding_models SET status = 'INDEXING' WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    public void retire(int id) {
+        jdbcTemplate.update("UPDATE embedding_models SET status = 'RETIRED' WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    /**
+     * Adds the shadow columns for a model of the given dimension, replacing shadow columns of another dimension.
+     * Centroids changed while the model is built lose their shadow centroid so the swap recomputes it.
+     */
+    @Transactional
+    public void createShadow(int dimension) {
+        OptionalInt existing = shadowDimension();
+        if (existing.isPresent() && existing.getAsInt() != dimension) {
+            dropShadow();
+        }
+        var none = EmptySqlParameterSource.INSTANCE;
+        lockTimeout();
+        jdbcTemplate.update("""
+                ALTER TABLE document_chunks
+                ADD COLUMN IF NOT EXISTS embedding_next vector(%d),
+                ADD COLUMN IF NOT EXISTS embedding_next_model_id INTEGER
+                """.formatted(dimension), none);
+        jdbcTemplate.update("ALTER TABLE documents ADD COLUMN IF NOT EXISTS embedding_next vector(%d)".formatted(dimension), none);
+        jdbcTemplate.update("""
+                CREATE OR REPLACE TRIGGER trg_documents_embedding_next
+                BEFORE UPDATE OF embedding ON documents
+                FOR EACH ROW WHEN (OLD.embedding IS DISTINCT FROM NEW.embedding)
+                EXECUTE FUNCTION reset_embedding_next()
+                """, none);
+    }
+
+    /**
+     * Indexes the rows still without a shadow embedding, which is every row at first, so catching up on rows
+     * written during the build does not scan the tables.
+     */
+    public void createPendingIndexes() {
+        createIndexConcurrently("idx_document_chunks_embedding_pending",
+                "document_chunks (document_id, chunk_index) WHERE embedding_next_model_id IS NULL");
+        createIndexConcurrently("idx_documents_embedding_pending", "documents (id) WHERE embedding_next IS NULL");
+    }
+
+    @Transactional
+    public void dropShadow() {
+        var none = EmptySqlParameterSource.INSTANCE;
+        lockTimeout();
+        jdbcTemplate.update("DROP TRIGGER IF EXISTS trg_documents_embedding_next ON documents", none);
+        jdbcTemplate.update("ALTER TABLE document_chunks DROP COLUMN IF EXISTS embedding_next, DROP COLUMN IF EXISTS embedding_next_model_id",
+                none);
+        jdbcTemplate.update("ALTER TABLE documents DROP COLUMN IF EXISTS embedding_next", none);
+    }
+
+    private OptionalInt shadowDimension() {
+        // the type modifier of a pgvector column is its dimension
+        String sql = """
+                SELECT atttypmod
+                FROM pg_attribute
+                WHERE attrelid = 'document_chunks'::regclass AND attname = 'embedding_next' AND NOT attisdropped
+                """;
+        return jdbcTemplate.queryForList(sql, EmptySqlParameterSource.INSTANCE, Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .findFirst();
+    }
+
+    /**
+     * @return chunks of live documents without a shadow embedding, served by the pending index
+     */
+    public List<PendingChunk> findPendingChunks(int limit) {
+        String sql = """
+                SELECT dc.document_id, dc.chunk_index,
+                       COALESCE(dc.content, substr(d.content, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) AS content
+                """ + PENDING_CHUNKS_SQL + """
+                LIMIT :limit
+                """;
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("limit", limit), (rs, rowNum) -> new PendingChunk(
+                rs.getObject("document_id", UUID.class),
+                rs.getInt("chunk_index"),
+                rs.getString("content")));
+    }
+
+    /**
+     * Stores shadow embeddings and counts them towards the model's progress. A chunk that was replaced or moved
+     * since it was read keeps waiting: the embedding is only written where the chunk still has the text it was
+     * computed from.
+     *
+     * @return the number of chunks written
+     */
+    @Transactional
+    public int writeShadow(int modelId, List<PendingChunk> chunks, List<float[]> embeddings) {
+        String sql = """
+                UPDATE document_chunks dc
+                SET embedding_next = e.embedding::vector,
+                    embedding_next_model_id = :modelId
+                FROM unnest(:documentIds, :chunkIndexes, :contents, :embeddings) AS e(document_id, chunk_index, content, embedding),
+                     documents d
+                WHERE dc.document_id = e.document_id
+                  AND dc.chunk_index = e.chunk_index
+                  AND dc.embedding_next_model_id IS NULL
+                  AND d.id = dc.document_id
+                  AND COALESCE(dc.content, substr(d.content, dc.chunk_start + 1, dc.chunk_end - dc.chunk_start)) = e.content
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("modelId", modelId)
+                .addValue("documentIds", new SqlArrayValue("uuid", chunks.stream().map(PendingChunk::documentId).toArray()), Types.ARRAY)
+                .addValue("chunkIndexes", new SqlArrayValue("integer", chunks.stream().map(PendingChunk::chunkIndex).toArray()), Types.ARRAY)
+                .addValue("contents", new SqlArrayValue("text", chunks.stream().map(PendingChunk::content).toArray()), Types.ARRAY)
+                .addValue("embeddings", new SqlArrayValue("text", embeddings.stream().map(e -> new PGvector(e).toString()).toArray()),
+                        Types.ARRAY);
+        int written = jdbcTemplate.update(sql, params);
+        jdbcTemplate.update("UPDATE embedding_models SET reembedded_chunks = reembedded_chunks + :written WHERE id = :modelId",
+                new MapSqlParameterSource().addValue("written", written).addValue("modelId", modelId));
+        return written;
+    }
+
+    /**
+     * Builds the search indexes over the shadow columns without blocking writes; an index left invalid by an
+     * interrupted build is built again.
+     */
+    public void createShadowIndexes(int dimension) {
+        for (ShadowIndex index : SHADOW_INDEXES) {
+            createIndexConcurrently(index.name() + "_next", index.definition().formatted(dimension));
+        }
+    }
+
+    /**
+     * Computes the shadow centroids of the next documents after {@code after} in id order.
+     *
+     * @return the last document of the batch, empty when there was none
+     */
+    public Optional<UUID> computeShadowCentroids(UUID after, int limit) {
+        String sql = """
+                WITH batch AS (
+                    SELECT id FROM documents WHERE id > :after ORDER BY id LIMIT :limit
+                ), centroids AS (
+                    UPDATE documents d
+                    SET embedding_next = (
+                        SELECT l2_normalize(avg(dc.embedding_next)) FROM document_chunks dc WHERE dc.document_id = d.id
+                    )
+                    FROM batch
+                    WHERE d.id = batch.id
+                )
+                SELECT id FROM batch ORDER BY id DESC LIMIT 1
+                """;
+        var params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit);
+        return jdbcTemplate.queryForList(sql, params, UUID.class).stream().findFirst();
+    }
+
+    /**
+     * Switches search, ingestion and the model status to the shadow columns in one transaction. Writes are held
+     * off while centroids changed during the build are recomputed and the columns are swapped; reads only wait
+     * for the swap itself.
+     *
+     * @return false, with nothing changed, when chunks written since the last batch still lack a shadow embedding
+     */
+    @Transactional
+    public boolean swap(int previousId, int nextId) {
+        var none = EmptySqlParameterSource.INSTANCE;
+        lockTimeout();
+        jdbcTemplate.update("LOCK TABLE documents, document_chunks IN SHARE ROW EXCLUSIVE MODE", none);
+        Integer pending = jdbcTemplate.queryForObject("SELECT count(*) " + PENDING_CHUNKS_SQL, none, Integer.class);
+        if (pending != null && pending > 0) {
+            return false;
+        }
+        jdbcTemplate.update("""
+                UPDATE documents d
+                SET embedding_next = (
+                    SELECT l2_normalize(avg(dc.embedding_next)) FROM document_chunks dc WHERE dc.document_id = d.id
+                )
+                WHERE d.embedding_next IS NULL AND d.embedding IS NOT NULL
+                """, none);
+        jdbcTemplate.update("DROP TRIGGER trg_documents_embedding_next ON documents", none);
+        jdbcTemplate.update("DROP INDEX idx_document_chunks_embedding_pending, idx_documents_embedding_pending", none);
+        // the live indexes go with the live columns
+        jdbcTemplate.update("ALTER TABLE document_chunks DROP COLUMN embedding, DROP COLUMN embedding_model_id", none);
+        jdbcTemplate.update("ALTER TABLE document_chunks RENAME COLUMN embedding_next TO embedding", none);
+        jdbcTemplate.update("ALTER TABLE document_chunks RENAME COLUMN embedding_next_model_id TO embedding_model_id", none);
+        jdbcTemplate.update("""
+                ALTER TABLE document_chunks
+                ADD CONSTRAINT fk_chunks_embedding_model FOREIGN KEY (embedding_model_id) REFERENCES embedding_models (id) NOT VALID
+                """, none);
+        jdbcTemplate.update("ALTER TABLE documents DROP COLUMN embedding", none);
+        jdbcTemplate.update("ALTER TABLE documents RENAME COLUMN embedding_next TO embedding", none);
+        for (ShadowIndex index : SHADOW_INDEXES) {
+            jdbcTemplate.update("ALTER INDEX %s_next RENAME TO %s".formatted(index.name(), index.name()), none);
+        }
+        jdbcTemplate.update("UPDATE embedding_models SET status = 'RETIRED' WHERE id = :id", new MapSqlParameterSource("id", previousId));
+        jdbcTemplate.update("UPDATE embedding_models SET status = 'ACTIVE', activated_at = now() WHERE id = :id",
+                new MapSqlParameterSource("id", nextId));
+        return true;
+    }
+
+    // a DDL lock waiting behind a long query would queue every other query behind it, better to fail and retry
+    private void lockTimeout() {
+        jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', '5s', true)", EmptySqlParameterSource.INSTANCE, String.class);
+    }
+
+    // runs outside a transaction, which CREATE INDEX CONCURRENTLY requires
+    private void createIndexConcurrently(String name, String definition) {
+        var params = new MapSqlParameterSource("name", name);
+        List<Boolean> valid = jdbcTemplate.queryForList(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(:name)", params, Boolean.class);
+        if (valid.contains(Boolean.FALSE)) {
+            jdbcTemplate.update("DROP INDEX CONCURRENTLY " + name, params);
+        }
+        jdbcTemplate.update("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s".formatted(name, definition), params);
+    }
+
+    public enum ModelStatus {
+        ACTIVE,
+        BUILDING,
+        INDEXING,
+        RETIRED
+    }
+
+    /**
+     * @param totalChunks chunks there were when the model started building
+     */
+    public record ModelRow(int id, String name, int dimension, ModelStatus status, long reembeddedChunks, Long totalChunks,
+                           OffsetDateTime createdAt, OffsetDateTime activatedAt) {
+    }
+
+    public record PendingChunk(UUID documentId, int chunkIndex, String content) {
+    }
+
+    private record ShadowIndex(String name, String definition) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.neviswealth.searchservice.persistence;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Position of a row in listings ordered by {@code (created_at, id)}.
+ */
+public record Keyset(OffsetDateTime createdAt, UUID id) {
+
+    /**
+     * Restricts rows to {@code [from, to)} and after the given keyset, any bound may be {@code null}. Conditions
+     * use {@code ?} placeholders, their arguments are appended in order.
+     */
+    static String where(List<String> conditions, OffsetDateTime from, OffsetDateTime to, Keyset after, List<Object> args) {
+        if (from != null) {
+            conditions.add("created_at >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            conditions.add("created_at < ?");
+            args.add(to);
+        }
+        if (after != null) {
+            conditions.add("(created_at, id) > (?, ?)");
+            args.add(after.createdAt());
+            args.add(after.id());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,113 @@
+package com.neviswealth.searchservice.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Rows in the PostgreSQL binary COPY format, buffered in memory. Values are written in the column order of the
+ * {@code COPY} statement; {@code vector} values use the pgvector binary representation.
+ */
+final class PgBinaryCopy {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final OffsetDateTime POSTGRES_EPOCH = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    PgBinaryCopy() {
+        write(() -> {
+            out.write(SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+        });
+    }
+
+    PgBinaryCopy row(int columns) {
+        return write(() -> out.writeShort(columns));
+    }
+
+    PgBinaryCopy uuid(UUID value) {
+        return write(() -> {
+            out.writeInt(16);
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        });
+    }
+
+    PgBinaryCopy text(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        return write(() -> {
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        });
+    }
+
+    PgBinaryCopy int4(int value) {
+        return write(() -> {
+            out.writeInt(4);
+            out.writeInt(value);
+        });
+    }
+
+    PgBinaryCopy timestamptz(OffsetDateTime value) {
+        return write(() -> {
+            out.writeInt(8);
+            out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+        });
+    }
+
+    PgBinaryCopy vector(float[] value) {
+        if (value == null) {
+            return nullValue();
+        }
+        return write(() -> {
+            out.writeInt(4 + 4 * value.length);
+            out.writeShort(value.length);
+            out.writeShort(0);
+            for (float component : value) {
+                out.writeFloat(component);
+            }
+        });
+    }
+
+    PgBinaryCopy nullValue() {
+        return write(() -> out.writeInt(-1));
+    }
+
+    /**
+     * @return the rows followed by the end-of-data marker
+     */
+    byte[] finish() {
+        write(() -> {
+            out.writeShort(-1);
+            out.flush();
+        });
+        return bytes.toByteArray();
+    }
+
+    private PgBinaryCopy write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            // writes into memory only
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,119 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto;
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto.InvalidRow;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk client import: rows are validated and normalized like {@link ClientService#createClient}, then merged in
+ * batches with one transaction per batch. A failing batch aborts the import, earlier batches stay committed.
+ */
+@Service
+public class ClientImportService {
+
+    private static final int MAX_REPORTED_INVALID_ROWS = 100;
+
+    private final ClientRepository clientRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ClientImportService(ClientRepository clientRepository,
+                               Validator validator,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               IngestionProperties properties) {
+        this.clientRepository = clientRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.getClientBatchSize();
+    }
+
+    /**
+     * @param rows {@code null} entries stand for rows that could not be read
+     */
+    public ClientImportSummaryDto importClients(Iterator<CreateClientRequest> rows) {
+        int inserted = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        List<InvalidRow> invalidRows = new ArrayList<>();
+        List<Client> batch = new ArrayList<>(batchSize);
+        int row = 0;
+        while (rows.hasNext()) {
+            row++;
+            CreateClientRequest request = rows.next();
+            String error = validate(request);
+            Client client = null;
+            if (error == null) {
+                try {
+                    client = ClientService.newClient(request);
+                } catch (ResponseStatusException e) {
+                    error = e.getReason();
+                }
+            }
+            if (client == null) {
+                invalid++;
+                if (invalidRows.size() < MAX_REPORTED_INVALID_ROWS) {
+                    invalidRows.add(new InvalidRow(row, error));
+                }
+                continue;
+            }
+
+            batch.add(client);
+            if (batch.size() == batchSize) {
+                int merged = merge(batch);
+                inserted += merged;
+                duplicates += batch.size() - merged;
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            int merged = merge(batch);
+            inserted += merged;
+            duplicates += batch.size() - merged;
+        }
+        return new ClientImportSummaryDto(inserted, duplicates, invalid, invalidRows);
+    }
+
+    private int merge(List<Client> batch) {
+        List<Client> inserted = transactionTemplate.execute(status -> {
+            List<Client> clients = clientRepository.importClients(batch);
+            clients.forEach(client -> eventPublisher.publishEvent(new ClientCreatedEvent(client)));
+            return clients;
+        });
+        return inserted == null ? 0 : inserted.size();
+    }
+
+    private String validate(CreateClientRequest request) {
+        if (request == null) {
+            return "Malformed row";
+        }
+        Set<ConstraintViolation<CreateClientRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
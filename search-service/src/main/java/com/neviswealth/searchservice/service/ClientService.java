@@ -2,39 +2,71 @@ package com.neviswealth.searchservice.service;
 
 import com.neviswealth.searchservice.api.dto.ClientDto;
 import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.api.dto.PageDto;
 import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
 import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.Keyset;
 import com.neviswealth.searchservice.util.SlugUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class ClientService {
 
     private final ClientRepository clientRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ClientService(ClientRepository clientRepository) {
+    public ClientService(ClientRepository clientRepository, ApplicationEventPublisher eventPublisher) {
         this.clientRepository = clientRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public ClientDto createClient(CreateClientRequest request) {
-        String email = normalizeEmail(request.email());
-        if (clientRepository.existsByEmail(email)) {
+        Client toInsert = newClient(request);
+        if (clientRepository.existsByEmail(toInsert.email())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Client with this email already exists");
         }
+        Client saved = clientRepository.insert(toInsert);
+        eventPublisher.publishEvent(new ClientCreatedEvent(saved));
+        return ClientDto.from(saved);
+    }
+
+    @Transactional
+    public void deleteClient(UUID id) {
+        Client deleted = clientRepository.delete(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found"));
+        eventPublisher.publishEvent(new ClientDeletedEvent(deleted));
+    }
+
+    public ClientDto getClient(UUID id) {
+        return clientRepository.findById(id)
+                .map(ClientDto::from)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found"));
+    }
+
+    /**
+     * Normalizes email, domain and names the same way for single and bulk creation.
+     */
+    static Client newClient(CreateClientRequest request) {
+        String email = normalizeEmail(request.email());
         String firstName = request.firstName().trim();
         String lastName = request.lastName().trim();
         String fullName = (firstName + " " + lastName).trim().toLowerCase();
         String emailDomain = extractDomain(email);
         String emailDomainSlug = SlugUtil.slugify(emailDomain);
 
-        Client toInsert = new Client(
+        return new Client(
                 null,
                 email,
                 emailDomain,
@@ -45,24 +77,16 @@ public class ClientService {
                 request.countryOfResidence(),
                 null
         );
-        Client saved = clientRepository.insert(toInsert);
-        return ClientDto.from(saved);
     }
 
-    public ClientDto getClient(UUID id) {
-        return clientRepository.findById(id)
-                .map(ClientDto::from)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found"));
-    }
-
-    private String normalizeEmail(String email) {
+    private static String normalizeEmail(String email) {
         if (email == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email is required");
         }
         return email.trim().toLowerCase();
     }
 
-    private String extractDomain(String email) {
+    private static String extractDomain(String email) {
         int atIndex = email.indexOf('@');
         if (atIndex < 0 || atIndex == email.length() - 1) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email must contain domain");
@@ -70,7 +94,19 @@ public class ClientService {
         return email.substring(atIndex + 1);
     }
 
-    public List<ClientDto> getAll() {
-        return clientRepository.getAll().stream().map(ClientDto::from).toList();
+    /**
+     * @param cursor {@link PageDto#nextCursor()} of the previous page, {@code null} for the first one
+     */
+    public PageDto<ClientDto> listClients(OffsetDateTime from, OffsetDateTime to, String cursor, int limit) {
+        List<Client> clients = clientRepository.findPage(from, to, Cursors.decodeKeyset(cursor), limit + 1);
+        List<Client> page = clients.subList(0, Math.min(limit, clients.size()));
+        String nextCursor = clients.size() > limit
+                ? Cursors.encode(new Keyset(page.getLast().createdAt(), page.getLast().id()))
+                : null;
+        return new PageDto<>(page.stream().map(ClientDto::from).toList(), nextCursor);
+    }
+
+    public void streamClients(OffsetDateTime from, OffsetDateTime to, Consumer<ClientDto> sink) {
+        clientRepository.forEach(from, to, client -> sink.accept(ClientDto.from(client)));
     }
 }
@@ -0,0 +1,65 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.persistence.Keyset;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque page cursors handed out to clients of the API.
+ */
+final class Cursors {
+
+    private static final String SEPARATOR = "|";
+
+    private Cursors() {
+    }
+
+    static String encode(Keyset keyset) {
+        return encode(keyset.createdAt().toInstant().toString(), keyset.id().toString());
+    }
+
+    /**
+     * @return {@code null} for a {@code null} cursor, the first page
+     */
+    static Keyset decodeKeyset(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] fields = decode(cursor, 2);
+        try {
+            return new Keyset(OffsetDateTime.ofInstant(Instant.parse(fields[0]), ZoneOffset.UTC), UUID.fromString(fields[1]));
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    static String encode(String... fields) {
+        String value = String.join(SEPARATOR, fields);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String cursor, int fieldCount) {
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        String[] fields = value.split("\\|", -1);
+        if (fields.length != fieldCount) {
+            throw invalid();
+        }
+        return fields;
+    }
+
+    static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
@@ -0,0 +1,248 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.BulkDocumentRequest;
+import com.neviswealth.searchservice.api.dto.IngestionResultDto;
+import com.neviswealth.searchservice.api.dto.IngestionResultDto.Status;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModelChangedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ClientTitle;
+import com.neviswealth.searchservice.persistence.DocumentRepository.NewDocument;
+import com.neviswealth.searchservice.util.ContentHash;
+import com.neviswealth.searchservice.util.VectorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk ingestion: documents are chunked and embedded per batch with one embedding request, then written with binary
+ * COPY in one transaction per batch. The copy of a batch runs while the next batch is embedded.
+ */
+@Service
+public class DocumentIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentIngestionService.class);
+
+    private final DocumentRepository documentRepository;
+    private final VerifiedClientIds verifiedClientIds;
+    private final ClientRepository clientRepository;
+    private final ChunkingStrategy chunkingStrategy;
+    private final EmbeddingProvider embeddingProvider;
+    private final EmbeddingModels embeddingModels;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public DocumentIngestionService(DocumentRepository documentRepository,
+                                    VerifiedClientIds verifiedClientIds,
+                                    ClientRepository clientRepository,
+                                    ChunkingStrategy chunkingStrategy,
+                                    EmbeddingProvider embeddingProvider,
+                                    EmbeddingModels embeddingModels,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    IngestionProperties properties) {
+        this.documentRepository = documentRepository;
+        this.verifiedClientIds = verifiedClientIds;
+        this.clientRepository = clientRepository;
+        this.chunkingStrategy = chunkingStrategy;
+        this.embeddingProvider = embeddingProvider;
+        this.embeddingModels = embeddingModels;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.getBatchSize();
+    }
+
+    /**
+     * Hands one result per document to the sink, in input order, as soon as the document's batch is written.
+     *
+     * @param documents {@code null} entries stand for lines that could not be read
+     */
+    public void ingest(Iterator<BulkDocumentRequest> documents, Consumer<IngestionResultDto> sink) {
+        Set<ClientTitle> titles = new HashSet<>();
+        try (ExecutorService writer = Executors.newSingleThreadExecutor()) {
+            Future<List<IngestionResultDto>> written = CompletableFuture.completedFuture(List.of());
+            int index = 0;
+            while (documents.hasNext()) {
+                List<BulkDocumentRequest> batch = new ArrayList<>(batchSize);
+                while (documents.hasNext() && batch.size() < batchSize) {
+                    batch.add(documents.next());
+                }
+                Batch prepared = prepare(index, batch, titles);
+                index += batch.size();
+
+                drain(written, sink);
+                written = writer.submit(() -> write(prepared));
+            }
+            drain(written, sink);
+        }
+    }
+
+    private Batch prepare(int offset, List<BulkDocumentRequest> documents, Set<ClientTitle> titles) {
+        List<IngestionResultDto> rejected = new ArrayList<>();
+        Map<Integer, BulkDocumentRequest> valid = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            BulkDocumentRequest document = documents.get(i);
+            String error = validate(document);
+            if (error != null) {
+                rejected.add(IngestionResultDto.rejected(offset + i, Status.INVALID, error));
+            } else if (!titles.add(new ClientTitle(document.clientId(), document.title().trim()))) {
+                rejected.add(IngestionResultDto.rejected(offset + i, Status.CONFLICT, "Duplicate title in this request"));
+            } else {
+                valid.put(offset + i, document);
+            }
+        }
+
+        Set<UUID> missingClients = verifiedClientIds.missing(valid.values().stream().map(BulkDocumentRequest::clientId).toList());
+        Set<ClientTitle> takenTitles = documentRepository.findExistingTitles(valid.values().stream()
+                .filter(document -> !missingClients.contains(document.clientId()))
+                .map(document -> new ClientTitle(document.clientId(), document.title().trim()))
+                .toList());
+
+        Map<Integer, List<Chunk>> chunked = new LinkedHashMap<>();
+        valid.forEach((index, document) -> {
+            if (missingClients.contains(document.clientId())) {
+                rejected.add(IngestionResultDto.rejected(index, Status.NOT_FOUND, "Client not found"));
+            } else if (takenTitles.contains(new ClientTitle(document.clientId(), document.title().trim()))) {
+                rejected.add(IngestionResultDto.rejected(index, Status.CONFLICT,
+                        "Document with the same title already exists for this client"));
+            } else {
+                try {
+                    chunked.put(index, chunkingStrategy.chunk(document.title().trim(), document.content().trim()));
+                } catch (RuntimeException e) {
+                    rejected.add(IngestionResultDto.rejected(index, Status.FAILED, "Chunking failed"));
+                }
+            }
+        });
+        if (chunked.isEmpty()) {
+            return new Batch(rejected, List.of(), List.of(), 0);
+        }
+
+        // taken before embedding, the active model only ever moves forward
+        int embeddingModelId = embeddingModels.activeId();
+        List<float[]> embeddings;
+        try {
+            embeddings = embeddingProvider.embedAll(chunked.values().stream()
+                    .flatMap(List::stream)
+                    .map(Chunk::content)
+                    .toList());
+        } catch (RuntimeException e) {
+            log.warn("Embedding failed for a batch of {} documents", chunked.size(), e);
+            chunked.keySet().forEach(index -> rejected.add(IngestionResultDto.rejected(index, Status.FAILED, "Embedding failed")));
+            return new Batch(rejected, List.of(), List.of(), 0);
+        }
+
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        List<Integer> indexes = new ArrayList<>(chunked.size());
+        List<NewDocument> accepted = new ArrayList<>(chunked.size());
+        Iterator<float[]> nextEmbedding = embeddings.iterator();
+        chunked.forEach((index, chunks) -> {
+            BulkDocumentRequest request = valid.get(index);
+            String content = request.content().trim();
+            Document document = new Document(UUID.randomUUID(), request.clientId(), request.title().trim(), content,
+                    ContentHash.sha256(content), null, createdAt);
+            List<DocumentChunk> documentChunks = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                documentChunks.add(new DocumentChunk(document.id(), chunk.index(), chunk.content(), nextEmbedding.next()));
+            }
+            indexes.add(index);
+            accepted.add(new NewDocument(document, documentChunks,
+                    VectorUtil.centroid(documentChunks.stream().map(DocumentChunk::embedding).toList())));
+        });
+        return new Batch(rejected, indexes, accepted, embeddingModelId);
+    }
+
+    private List<IngestionResultDto> write(Batch batch) {
+        List<IngestionResultDto> results = new ArrayList<>(batch.rejected());
+        if (!batch.accepted().isEmpty()) {
+            try {
+                Set<UUID> liveClients = transactionTemplate.execute(status -> {
+                    // clients were verified through a cache that misses deletions committed by other instances
+                    Set<UUID> live = clientRepository.findExistingIds(batch.accepted().stream()
+                            .map(accepted -> accepted.document().clientId())
+                            .collect(Collectors.toSet()));
+                    List<NewDocument> written = batch.accepted().stream()
+                            .filter(accepted -> live.contains(accepted.document().clientId()))
+                            .toList();
+                    if (!written.isEmpty()) {
+                        documentRepository.copyIn(written, batch.embeddingModelId());
+                    }
+                    for (NewDocument accepted : written) {
+                        Document document = accepted.document();
+                        eventPublisher.publishEvent(new DocumentCreatedEvent(new Document(document.id(),
+                                document.clientId(), document.title(), null, null, null, document.createdAt())));
+                    }
+                    return live;
+                });
+                for (int i = 0; i < batch.accepted().size(); i++) {
+                    Document document = batch.accepted().get(i).document();
+                    results.add(liveClients.contains(document.clientId())
+                            ? IngestionResultDto.created(batch.indexes().get(i), document.id())
+                            : IngestionResultDto.rejected(batch.indexes().get(i), Status.NOT_FOUND, "Client not found"));
+                }
+            } catch (EmbeddingModelChangedException e) {
+                log.warn("Embedding model changed while a batch of {} documents was embedded", batch.accepted().size());
+                batch.indexes().forEach(index -> results.add(IngestionResultDto.rejected(index, Status.FAILED,
+                        "Embedding model changed, retry")));
+            } catch (RuntimeException e) {
+                // a title taken concurrently fails the whole copy
+                log.warn("Writing a batch of {} documents failed", batch.accepted().size(), e);
+                batch.indexes().forEach(index -> results.add(IngestionResultDto.rejected(index, Status.FAILED, "Write failed")));
+            }
+        }
+        results.sort(Comparator.comparingInt(IngestionResultDto::index));
+        return results;
+    }
+
+    private static void drain(Future<List<IngestionResultDto>> written, Consumer<IngestionResultDto> sink) {
+        try {
+            written.get().forEach(sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing documents", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Writing documents failed", e.getCause());
+        }
+    }
+
+    private static String validate(BulkDocumentRequest document) {
+        if (document == null) {
+            return "Malformed document";
+        }
+        if (document.clientId() == null) {
+            return "Client id is required";
+        }
+        if (document.title() == null || document.title().isBlank()) {
+            return "Title is required";
+        }
+        if (document.content() == null || document.content().isBlank()) {
+            return "Content is required";
+        }
+        return null;
+    }
+
+    /**
+     * @param indexes          request positions of the accepted documents
+     * @param embeddingModelId the model the accepted documents were embedded with
+     */
+    private record Batch(List<IngestionResultDto> rejected, List<Integer> indexes, List<NewDocument> accepted,
+                         int embeddingModelId) {
+    }
+}
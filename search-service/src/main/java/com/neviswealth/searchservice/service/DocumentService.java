@@ -3,83 +3,207 @@ package com.neviswealth.searchservice.service;
 import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
 import com.neviswealth.searchservice.api.dto.DocumentDto;
 import com.neviswealth.searchservice.api.dto.DocumentWithContentDto;
+import com.neviswealth.searchservice.api.dto.PageDto;
+import com.neviswealth.searchservice.api.dto.UpdateDocumentRequest;
 import com.neviswealth.searchservice.chunking.Chunk;
 import com.neviswealth.searchservice.chunking.ChunkingFailedException;
 import com.neviswealth.searchservice.chunking.ChunkingStrategy;
 import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
 import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentUpdatedEvent;
 import com.neviswealth.searchservice.embedding.EmbeddingFailedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
 import com.neviswealth.searchservice.embedding.EmbeddingProvider;
-import com.neviswealth.searchservice.persistence.ClientRepository;
 import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.KeptChunk;
+import com.neviswealth.searchservice.persistence.DocumentRepository.Twin;
+import com.neviswealth.searchservice.persistence.Keyset;
 import com.neviswealth.searchservice.summary.SummaryProvider;
+import com.neviswealth.searchservice.util.ContentHash;
 import com.neviswealth.searchservice.util.SingleFlightLoader;
+import com.neviswealth.searchservice.util.VectorUtil;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HexFormat;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class DocumentService {
 
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
     private final DocumentRepository documentRepository;
-    private final ClientRepository clientRepository;
     private final ChunkingStrategy chunkingStrategy;
     private final EmbeddingProvider embeddingProvider;
+    private final EmbeddingModels embeddingModels;
     private final SummaryProvider summaryProvider;
+    private final ApplicationEventPublisher eventPublisher;
     private final SingleFlightLoader<UUID, String> summaryLoader;
 
     public DocumentService(DocumentRepository documentRepository,
-                           ClientRepository clientRepository,
                            ChunkingStrategy chunkingStrategy,
                            EmbeddingProvider embeddingProvider,
-                           SummaryProvider summaryProvider) {
+                           EmbeddingModels embeddingModels,
+                           SummaryProvider summaryProvider,
+                           ApplicationEventPublisher eventPublisher) {
         this.documentRepository = documentRepository;
-        this.clientRepository = clientRepository;
         this.chunkingStrategy = chunkingStrategy;
         this.embeddingProvider = embeddingProvider;
+        this.embeddingModels = embeddingModels;
         this.summaryProvider = summaryProvider;
+        this.eventPublisher = eventPublisher;
         this.summaryLoader = new SingleFlightLoader<>();
     }
 
     @Transactional
     public DocumentDto createDocument(UUID clientId, CreateDocumentRequest request) {
-        if (!clientRepository.existsById(clientId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found");
-        }
         String title = request.title().trim();
         String content = request.content().trim();
-        if (documentRepository.existsByClientIdAndTitle(clientId, title)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Document with the same title already exists for this client");
-        }
-
         Document document = new Document(
                 null,
                 clientId,
                 title,
                 content,
-                computeContentHash(content),
+                ContentHash.sha256(content),
                 null,
                 null
         );
-        Document saved = documentRepository.insert(document);
+        Document saved = insert(documentRepository, document);
+
+        // chunks depend on the title, the content and the chunking settings only, a twin's chunks are ours without
+        // chunking or embedding but for the title chunk when its title differs
+        Optional<Twin> twin = documentRepository.findTwin(saved.id(), document.contentHash(), title);
+        if (twin.isPresent() && twin.get().sameTitle()) {
+            documentRepository.cloneChunks(twin.get().id(), saved);
+            eventPublisher.publishEvent(new DocumentCreatedEvent(saved));
+            return DocumentDto.from(saved);
+        }
+        // taken before embedding, the active model only ever moves forward
+        int embeddingModelId = embeddingModels.activeId();
+        Chunk titleChunk = twin.isPresent() ? titleChunk(title, content) : null;
+        if (titleChunk != null) {
+            documentRepository.cloneContentChunks(twin.get().id(), saved);
+            documentRepository.insertChunks(new Document(saved.id(), clientId, title, content, document.contentHash(),
+                    null, saved.createdAt()), embedChunks(saved.id(), List.of(titleChunk)), embeddingModelId);
+            float[] centroid = VectorUtil.centroid(documentRepository.findChunks(saved.id()).stream()
+                    .map(ChunkEmbeddingRow::embedding)
+                    .toList());
+            if (centroid != null) {
+                documentRepository.updateEmbedding(saved.id(), centroid);
+            }
+            eventPublisher.publishEvent(new DocumentCreatedEvent(saved));
+            return DocumentDto.from(saved);
+        }
 
         List<Chunk> chunks = chunkContent(title, content);
         List<DocumentChunk> toPersist = embedChunks(saved.id(), chunks);
         if (!toPersist.isEmpty()) {
-            documentRepository.insertChunks(saved.id(), toPersist);
+            // the content lets the repository store chunks as offsets into it
+            documentRepository.insertChunks(new Document(saved.id(), clientId, title, content, document.contentHash(),
+                    null, saved.createdAt()), toPersist, embeddingModelId);
+            float[] centroid = VectorUtil.centroid(toPersist.stream().map(DocumentChunk::embedding).toList());
+            if (centroid != null) {
+                documentRepository.updateEmbedding(saved.id(), centroid);
+            }
         }
+        eventPublisher.publishEvent(new DocumentCreatedEvent(saved));
         return DocumentDto.from(saved);
     }
 
+    /**
+     * Replaces the content of a document under its title. Chunks are matched to the stored ones by content hash:
+     * matching chunks keep their embedding and row, only new or changed chunks are embedded. The stored summary is
+     * dropped with the old content.
+     */
+    @Transactional
+    public DocumentDto updateDocument(UUID documentId, UpdateDocumentRequest request) {
+        String content = request.content().trim();
+        String contentHash = ContentHash.sha256(content);
+        Document document = documentRepository.findByIdForUpdate(documentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
+        if (contentHash.equals(document.contentHash())) {
+            return DocumentDto.from(document);
+        }
+
+        List<Chunk> chunks = chunkContent(document.title(), content);
+        List<String> chunkHashes = chunks.stream().map(chunk -> ContentHash.sha256(chunk.content())).toList();
+        Integer[] previousIndexes = new Integer[chunks.size()];
+        Map<String, Deque<Integer>> unclaimed = new HashMap<>();
+        // a chunk found at its own index stays in place, others take the first free stored chunk with their hash
+        documentRepository.findChunkHashes(documentId).forEach((index, hash) -> {
+            if (index < chunks.size() && hash.equals(chunkHashes.get(index))) {
+                previousIndexes[index] = index;
+            } else {
+                unclaimed.computeIfAbsent(hash, h -> new ArrayDeque<>()).add(index);
+            }
+        });
+        List<KeptChunk> kept = new ArrayList<>();
+        List<Chunk> changed = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            Deque<Integer> candidates = unclaimed.get(chunkHashes.get(i));
+            if (previousIndexes[i] == null && candidates != null && !candidates.isEmpty()) {
+                previousIndexes[i] = candidates.poll();
+            }
+            if (previousIndexes[i] == null) {
+                changed.add(chunk);
+            } else {
+                kept.add(new KeptChunk(previousIndexes[i], chunk.index(), chunk.content()));
+            }
+        }
+        int embeddingModelId = embeddingModels.activeId();
+        List<DocumentChunk> added = embedChunks(documentId, changed);
+
+        documentRepository.updateContent(documentId, content, contentHash);
+        documentRepository.replaceChunks(new Document(documentId, document.clientId(), document.title(), content,
+                contentHash, null, document.createdAt()), kept, added, embeddingModelId);
+        Document updated = new Document(documentId, document.clientId(), document.title(), null, null, null,
+                document.createdAt());
+        eventPublisher.publishEvent(new DocumentUpdatedEvent(updated));
+        return DocumentDto.from(updated);
+    }
+
+    @Transactional
+    public void deleteDocument(UUID documentId) {
+        Document deleted = documentRepository.delete(documentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
+        eventPublisher.publishEvent(new DocumentDeletedEvent(deleted));
+    }
+
+    // the client and title checks ride on the insert itself: unknown clients fail on the foreign key,
+    // duplicate titles hit ON CONFLICT DO NOTHING; only then is a deleted client told apart from a taken title
+    static Document insert(DocumentRepository documentRepository, Document document) {
+        try {
+            return documentRepository.insert(document).orElseThrow(() -> documentRepository.isClientDeleted(document.clientId())
+                    ? new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found")
+                    : new ResponseStatusException(HttpStatus.CONFLICT, "Document with the same title already exists for this client"));
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && FOREIGN_KEY_VIOLATION.equals(sqlException.getSQLState())) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found");
+            }
+            throw e;
+        }
+    }
+
     @Transactional
     public DocumentWithContentDto getDocument(UUID documentId) {
         var document = documentRepository.findById(documentId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
@@ -112,6 +236,24 @@ public class DocumentService {
         }
     }
 
+    /**
+     * @return the first chunk if it is the title, {@code null} otherwise; later chunks are not cut
+     */
+    private Chunk titleChunk(String title, String content) {
+        try {
+            Iterator<Chunk> chunks = chunkingStrategy.chunks(title, content);
+            if (!chunks.hasNext()) {
+                return null;
+            }
+            Chunk first = chunks.next();
+            return first.index() == 0 && first.content().equals(title) ? first : null;
+        } catch (ChunkingFailedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ChunkingFailedException("Chunking failed", e);
+        }
+    }
+
     private List<DocumentChunk> embedChunks(UUID id, List<Chunk> chunks) {
         try {
             List<DocumentChunk> toPersist = new ArrayList<>(chunks.size());
@@ -127,17 +269,19 @@ public class DocumentService {
         }
     }
 
-    private String computeContentHash(String content) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("SHA-256 algorithm unavailable", e);
-        }
+    /**
+     * @param cursor {@link PageDto#nextCursor()} of the previous page, {@code null} for the first one
+     */
+    public PageDto<DocumentDto> listDocuments(UUID clientId, OffsetDateTime from, OffsetDateTime to, String cursor, int limit) {
+        List<Document> documents = documentRepository.findPage(clientId, from, to, Cursors.decodeKeyset(cursor), limit + 1);
+        List<Document> page = documents.subList(0, Math.min(limit, documents.size()));
+        String nextCursor = documents.size() > limit
+                ? Cursors.encode(new Keyset(page.getLast().createdAt(), page.getLast().id()))
+                : null;
+        return new PageDto<>(page.stream().map(DocumentDto::from).toList(), nextCursor);
     }
 
-    public List<DocumentDto> getAll() {
-        return documentRepository.getAll().stream().map(DocumentDto::from).toList();
+    public void streamDocuments(UUID clientId, OffsetDateTime from, OffsetDateTime to, Consumer<DocumentDto> sink) {
+        documentRepository.forEachDocument(clientId, from, to, document -> sink.accept(DocumentDto.from(document)));
     }
 }
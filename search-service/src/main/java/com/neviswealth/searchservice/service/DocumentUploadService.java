@@ -0,0 +1,161 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.DocumentDto;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingFailedException;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingFailedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.util.ContentHash;
+import com.neviswealth.searchservice.util.VectorUtil;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates documents whose content is read as a stream. Content is chunked lazily and chunks are embedded and
+ * inserted in windows, the next window is chunked while the previous one is embedded. Memory per upload is bounded
+ * by the window rather than by the document.
+ */
+@Service
+public class DocumentUploadService {
+
+    private final DocumentRepository documentRepository;
+    private final ChunkingStrategy chunkingStrategy;
+    private final EmbeddingProvider embeddingProvider;
+    private final EmbeddingModels embeddingModels;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int window;
+
+    public DocumentUploadService(DocumentRepository documentRepository,
+                                 ChunkingStrategy chunkingStrategy,
+                                 EmbeddingProvider embeddingProvider,
+                                 EmbeddingModels embeddingModels,
+                                 ApplicationEventPublisher eventPublisher,
+                                 IngestionProperties properties) {
+        this.documentRepository = documentRepository;
+        this.chunkingStrategy = chunkingStrategy;
+        this.embeddingProvider = embeddingProvider;
+        this.embeddingModels = embeddingModels;
+        this.eventPublisher = eventPublisher;
+        this.window = properties.getUploadWindow();
+    }
+
+    /**
+     * Stores the same content, hash, chunks and centroid as {@link DocumentService#createDocument} would for the
+     * whole content.
+     */
+    @Transactional
+    public DocumentDto uploadDocument(UUID clientId, String title, Reader source) {
+        if (title == null || title.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title is required");
+        }
+        String trimmedTitle = title.trim();
+        Document saved = DocumentService.insert(documentRepository,
+                new Document(null, clientId, trimmedTitle, "", ContentHash.sha256(""), null, null));
+
+        StreamedContent content = new StreamedContent(source);
+        Iterator<Chunk> chunks = chunkingStrategy.chunkStream(trimmedTitle, content);
+        double[] embeddingSum = null;
+        int position = 0;
+        // taken before embedding, the active model only ever moves forward
+        int embeddingModelId = embeddingModels.activeId();
+        try (ExecutorService embedder = Executors.newSingleThreadExecutor()) {
+            List<Chunk> pending = List.of();
+            Future<List<float[]>> embeddings = null;
+            while (true) {
+                List<Chunk> next = nextWindow(chunks);
+                String piece = content.takePiece();
+                if (!piece.isEmpty()) {
+                    documentRepository.stageContent(saved.id(), position++, piece);
+                }
+
+                if (embeddings != null) {
+                    List<DocumentChunk> toPersist = toDocumentChunks(saved.id(), pending, await(embeddings));
+                    documentRepository.insertChunks(saved, toPersist, embeddingModelId);
+                    for (DocumentChunk chunk : toPersist) {
+                        if (embeddingSum == null) {
+                            embeddingSum = new double[chunk.embedding().length];
+                        }
+                        VectorUtil.add(embeddingSum, chunk.embedding());
+                    }
+                }
+                if (next.isEmpty()) {
+                    break;
+                }
+                pending = next;
+                embeddings = embedder.submit(() -> embed(next));
+            }
+        }
+        if (content.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Content is required");
+        }
+
+        documentRepository.completeUpload(saved.id(), content.hash(),
+                embeddingSum == null ? null : VectorUtil.centroid(embeddingSum));
+        eventPublisher.publishEvent(new DocumentCreatedEvent(saved));
+        return DocumentDto.from(saved);
+    }
+
+    private List<Chunk> nextWindow(Iterator<Chunk> chunks) {
+        try {
+            List<Chunk> next = new ArrayList<>(window);
+            while (next.size() < window && chunks.hasNext()) {
+                next.add(chunks.next());
+            }
+            return next;
+        } catch (RuntimeException e) {
+            throw new ChunkingFailedException("Chunking failed", e);
+        }
+    }
+
+    private List<float[]> embed(List<Chunk> chunks) {
+        try {
+            return embeddingProvider.embedAll(chunks.stream().map(Chunk::content).toList());
+        } catch (EmbeddingFailedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new EmbeddingFailedException("Embedding failed", e);
+        }
+    }
+
+    private static List<DocumentChunk> toDocumentChunks(UUID documentId, List<Chunk> chunks, List<float[]> embeddings) {
+        List<DocumentChunk> documentChunks = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            documentChunks.add(new DocumentChunk(documentId, chunks.get(i).index(), chunks.get(i).content(), embeddings.get(i)));
+        }
+        return documentChunks;
+    }
+
+    private static List<float[]> await(Future<List<float[]>> embeddings) {
+        try {
+            return embeddings.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingFailedException("Interrupted while embedding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new EmbeddingFailedException("Embedding failed", e.getCause());
+        }
+    }
+}
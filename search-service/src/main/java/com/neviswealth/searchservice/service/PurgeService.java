@@ -0,0 +1,64 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.config.PurgeProperties;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Removes deleted clients and documents in the background. Every statement touches at most one batch of rows, so a
+ * purge never holds long locks or competes with searches and ingestion for long.
+ */
+@Service
+public class PurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurgeService.class);
+
+    private final DocumentRepository documentRepository;
+    private final ClientRepository clientRepository;
+    private final PurgeProperties properties;
+
+    public PurgeService(DocumentRepository documentRepository, ClientRepository clientRepository, PurgeProperties properties) {
+        this.documentRepository = documentRepository;
+        this.clientRepository = clientRepository;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${purge.interval:PT10S}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Purge of deleted clients and documents failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Runs one purge: chunks first, then the documents and clients they no longer hold back.
+     *
+     * @return the number of chunks removed
+     */
+    public int purge() {
+        // documents inserted while their client was being deleted
+        documentRepository.deleteDocumentsOfDeletedClients();
+
+        int batchSize = properties.getBatchSize();
+        int chunks = 0;
+        for (int batch = 0; batch < properties.getBatchesPerRun(); batch++) {
+            int purged = documentRepository.purgeChunks(batchSize);
+            chunks += purged;
+            if (purged < batchSize) {
+                break;
+            }
+        }
+        int documents = documentRepository.purgeDocuments(batchSize);
+        int clients = clientRepository.purgeClients(batchSize);
+        if (chunks + documents + clients > 0) {
+            log.debug("Purged {} chunks, {} documents and {} clients", chunks, documents, clients);
+        }
+        return chunks;
+    }
+}
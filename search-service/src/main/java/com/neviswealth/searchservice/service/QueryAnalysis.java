@@ -0,0 +1,99 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.util.SlugUtil;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Search query normalized and classified once, so that only the branches able to match it run.
+ * Embeddings of emails, domains, ids, person names and one or two characters carry no meaning, those queries skip
+ * semantic search.
+ */
+record QueryAnalysis(String normalized, String slug, Type type) {
+
+    static final int MIN_SEMANTIC_LENGTH = 3;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern UUID_PATTERN =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern DOMAIN_PATTERN =
+            Pattern.compile("(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+([a-z]{2,})");
+    // a capitalized word, not an acronym: Jones, O'Neil, McDonald, Smith-Brown
+    private static final Pattern NAME_WORD_PATTERN = Pattern.compile("\\p{Lu}['\\p{L}-]*\\p{Ll}");
+    // country codes are two letters, longer top-level domains have to be known ones
+    private static final Set<String> GENERIC_TOP_LEVEL_DOMAINS = Set.of(
+            "com", "net", "org", "edu", "gov", "int", "mil", "info", "biz", "name", "pro", "app", "dev", "tech",
+            "online", "site", "bank", "finance", "financial", "capital", "fund", "investments", "money", "insurance",
+            "legal", "law", "group", "global", "partners", "consulting", "company", "email", "swiss", "london", "berlin");
+    // two-letter file name extensions, read as file names rather than country code domains: node.js, setup.py
+    private static final Set<String> FILE_EXTENSIONS = Set.of("js", "ts", "md", "py", "rs", "sh", "rb", "cs", "gz");
+    // words that make capitalized words a title rather than a name: For Sale
+    private static final Set<String> FUNCTION_WORDS = Set.of(
+            "a", "an", "and", "at", "by", "for", "from", "in", "of", "on", "or", "the", "to", "with");
+
+    enum Type {
+        EMAIL,
+        DOMAIN,
+        IDENTIFIER,
+        NAME,
+        SHORT_TOKEN,
+        TEXT
+    }
+
+    static QueryAnalysis of(String query) {
+        String normalized = WHITESPACE.matcher(query.trim().toLowerCase()).replaceAll(" ");
+        String slug = SlugUtil.slugify(normalized);
+        return new QueryAnalysis(normalized, slug.isEmpty() ? normalized : slug, classify(query.trim(), normalized));
+    }
+
+    private static Type classify(String query, String normalized) {
+        if (normalized.contains("@")) {
+            return Type.EMAIL;
+        }
+        if (isName(query)) {
+            return Type.NAME;
+        }
+        if (normalized.contains(" ")) {
+            return Type.TEXT;
+        }
+        if (UUID_PATTERN.matcher(normalized).matches()) {
+            return Type.IDENTIFIER;
+        }
+        if (isDomain(normalized)) {
+            return Type.DOMAIN;
+        }
+        return normalized.length() < MIN_SEMANTIC_LENGTH ? Type.SHORT_TOKEN : Type.TEXT;
+    }
+
+    /**
+     * A first and last name: two capitalized words as typed, neither a function word. Three words are as likely to
+     * be a title or a company, those stay free text.
+     */
+    private static boolean isName(String query) {
+        String[] words = WHITESPACE.split(query);
+        if (words.length != 2) {
+            return false;
+        }
+        for (String word : words) {
+            if (!NAME_WORD_PATTERN.matcher(word).matches() || FUNCTION_WORDS.contains(word.toLowerCase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDomain(String normalized) {
+        Matcher matcher = DOMAIN_PATTERN.matcher(normalized);
+        if (!matcher.matches()) {
+            return false;
+        }
+        String topLevelDomain = matcher.group(1);
+        return !FILE_EXTENSIONS.contains(topLevelDomain)
+                && (topLevelDomain.length() == 2 || GENERIC_TOP_LEVEL_DOMAINS.contains(topLevelDomain));
+    }
+
+    boolean semantic() {
+        return type == Type.TEXT;
+    }
+}
@@ -0,0 +1,170 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.EmbeddingModelDto;
+import com.neviswealth.searchservice.config.EmbeddingProperties;
+import com.neviswealth.searchservice.domain.EmbeddingModelActivatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModel;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelRow;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelStatus;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.PendingChunk;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Re-embeds the corpus with {@code embedding.next} in the background, into shadow columns next to the live
+ * embeddings that search keeps using. Each run embeds a few batches, which throttles the load on the next model,
+ * and a restart resumes with the chunks that have no shadow embedding yet. Once every chunk has one, the shadow
+ * indexes and centroids are built and search switches to them in one transaction.
+ */
+@Service
+public class ReembeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReembeddingService.class);
+    private static final int CENTROID_BATCH_SIZE = 1_000;
+
+    private final EmbeddingModels models;
+    private final EmbeddingModelRepository repository;
+    private final EmbeddingProperties.Reembedding properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSource dataSource;
+    // shadow state known to match the model being built, checked once per process
+    private int preparedModelId = -1;
+    private int centroidsModelId = -1;
+
+    public ReembeddingService(EmbeddingModels models,
+                              EmbeddingModelRepository repository,
+                              EmbeddingProperties properties,
+                              ApplicationEventPublisher eventPublisher,
+                              DataSource dataSource) {
+        this.models = models;
+        this.repository = repository;
+        this.properties = properties.getReembedding();
+        this.eventPublisher = eventPublisher;
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${embedding.reembedding.interval:PT2S}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.warn("Re-embedding run failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Follows a switch made by another instance, then does one run of work towards the next model.
+     */
+    public synchronized void run() {
+        if (models.refresh()) {
+            activated();
+        }
+        Optional<EmbeddingModel> next = models.next();
+        if (next.isEmpty()) {
+            return;
+        }
+        ModelRow building = building(next.get());
+        if (!reembed(building.id(), next.get())) {
+            return;
+        }
+        if (building.status() == ModelStatus.BUILDING) {
+            repository.markIndexing(building.id());
+            log.info("Re-embedded the chunks for embedding model {}, building its indexes", building.name());
+        }
+        repository.createShadowIndexes(next.get().dimension());
+        if (centroidsModelId != building.id()) {
+            computeCentroids();
+            centroidsModelId = building.id();
+        }
+        if (repository.swap(models.activeId(), building.id())) {
+            models.refresh();
+            activated();
+        }
+    }
+
+    public List<EmbeddingModelDto> listModels() {
+        return repository.findAll().stream().map(EmbeddingModelDto::from).toList();
+    }
+
+    private ModelRow building(EmbeddingModel next) {
+        Optional<ModelRow> building = repository.findBuilding();
+        if (building.isPresent() && building.get().name().equals(next.name())) {
+            if (preparedModelId != building.get().id()) {
+                prepare(building.get(), next);
+            }
+            return building.get();
+        }
+        building.ifPresent(abandoned -> {
+            log.info("Abandoning re-embedding with model {} for {}", abandoned.name(), next.name());
+            repository.retire(abandoned.id());
+        });
+        repository.dropShadow();
+        ModelRow started = repository.startBuilding(next.name(), next.dimension());
+        prepare(started, next);
+        log.info("Re-embedding {} chunks with model {}", started.totalChunks(), started.name());
+        return started;
+    }
+
+    private void prepare(ModelRow building, EmbeddingModel next) {
+        repository.createShadow(next.dimension());
+        repository.createPendingIndexes();
+        preparedModelId = building.id();
+    }
+
+    /**
+     * @return whether no chunk was left without a shadow embedding
+     */
+    private boolean reembed(int modelId, EmbeddingModel next) {
+        int batchSize = properties.getBatchSize();
+        for (int batch = 0; batch < properties.getBatchesPerRun(); batch++) {
+            List<PendingChunk> pending = repository.findPendingChunks(batchSize);
+            if (pending.isEmpty()) {
+                return true;
+            }
+            List<float[]> embeddings = next.provider().embedAll(pending.stream().map(PendingChunk::content).toList());
+            repository.writeShadow(modelId, pending, embeddings);
+            if (pending.size() < batchSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void computeCentroids() {
+        UUID after = new UUID(0, 0);
+        Optional<UUID> last;
+        while ((last = repository.computeShadowCentroids(after, CENTROID_BATCH_SIZE)).isPresent()) {
+            after = last.get();
+        }
+    }
+
+    private void activated() {
+        EmbeddingModel active = models.active();
+        log.info("Switched search to embedding model {}", active.name());
+        evictPooledConnections();
+        eventPublisher.publishEvent(new EmbeddingModelActivatedEvent(active.name(), active.dimension()));
+    }
+
+    // statements prepared by pooled connections were planned against the swapped out columns
+    private void evictPooledConnections() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().softEvictConnections();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not evict pooled connections after the embedding model switch", e);
+        }
+    }
+}
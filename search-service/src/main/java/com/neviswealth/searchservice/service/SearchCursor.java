@@ -0,0 +1,61 @@
+package com.neviswealth.searchservice.service;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Position of a paginated search: the ranked snapshot it reads from and the last client and document handed out,
+ * either of them {@code null} while nothing of that list was returned.
+ *
+ * @param fingerprint SHA-256 of the query and clients the cursor was issued for
+ */
+record SearchCursor(UUID snapshotId, String fingerprint, Position clients, Position documents) {
+
+    /**
+     * Ties of a ranking are broken by id in the order of Postgres, unsigned byte by byte rather than the signed order
+     * of {@link UUID#compareTo}, so that a ranking resumed in SQL continues where the one in memory stopped.
+     */
+    static final Comparator<UUID> ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    /**
+     * Entry in ranking order, descending score then ascending id.
+     */
+    record Position(double score, UUID id) {
+
+        boolean precedes(double otherScore, UUID otherId) {
+            int byScore = Double.compare(score, otherScore);
+            return byScore != 0 ? byScore > 0 : ID_ORDER.compare(id, otherId) < 0;
+        }
+    }
+
+    String encode() {
+        return Cursors.encode(
+                snapshotId.toString(),
+                fingerprint,
+                clients == null ? "" : Double.toString(clients.score()),
+                clients == null ? "" : clients.id().toString(),
+                documents == null ? "" : Double.toString(documents.score()),
+                documents == null ? "" : documents.id().toString()
+        );
+    }
+
+    static SearchCursor decode(String cursor) {
+        String[] fields = Cursors.decode(cursor, 6);
+        try {
+            return new SearchCursor(
+                    UUID.fromString(fields[0]),
+                    fields[1],
+                    position(fields[2], fields[3]),
+                    position(fields[4], fields[5])
+            );
+        } catch (RuntimeException e) {
+            throw Cursors.invalid();
+        }
+    }
+
+    private static Position position(String score, String id) {
+        return score.isEmpty() ? null : new Position(Double.parseDouble(score), UUID.fromString(id));
+    }
+}
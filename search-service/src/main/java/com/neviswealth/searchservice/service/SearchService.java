@@ -2,9 +2,12 @@ package com.neviswealth.searchservice.service;
 
 import com.neviswealth.searchservice.api.dto.*;
 import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.ClientSearchIndex;
 import com.neviswealth.searchservice.persistence.ClientRepository;
 import com.neviswealth.searchservice.persistence.DocumentRepository;
-import com.neviswealth.searchservice.util.SlugUtil;
+import com.neviswealth.searchservice.util.ContentHash;
+import com.neviswealth.searchservice.vector.ClientExactScanner;
+import com.neviswealth.searchservice.vector.VectorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -12,71 +15,310 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 @Service
 public class SearchService {
 
     private static final int MAX_CLIENT_RESULTS = 20;
     private static final int MAX_DOCUMENT_RESULTS = 10;
+    private static final int MAX_SCOPED_CLIENTS = 100;
+    // queries sharing one embedding request and one statement per search branch
+    private static final int BATCH_SLICE = 50;
+    // descending score, ties by id so that pages of one ranking never overlap
+    private static final Comparator<ScoredClientDto> CLIENT_RANKING = Comparator
+            .comparingDouble(ScoredClientDto::score).reversed()
+            .thenComparing(hit -> hit.client().id(), SearchCursor.ID_ORDER);
+    private static final Comparator<ScoredDocumentDto> DOCUMENT_RANKING = Comparator
+            .comparingDouble(ScoredDocumentDto::score).reversed()
+            .thenComparing(hit -> hit.document().id(), SearchCursor.ID_ORDER);
     private static final Logger log = LoggerFactory.getLogger(SearchService.class);
 
     private final ClientRepository clientRepository;
     private final DocumentRepository documentRepository;
     private final EmbeddingProvider embeddingProvider;
+    private final VectorStore vectorStore;
+    private final ClientExactScanner clientExactScanner;
+    private final ClientSearchIndex clientSearchIndex;
+    private final VerifiedClientIds verifiedClientIds;
+    private final SearchSnapshots searchSnapshots;
 
     public SearchService(ClientRepository clientRepository,
                          DocumentRepository documentRepository,
-                         EmbeddingProvider embeddingProvider) {
+                         EmbeddingProvider embeddingProvider,
+                         VectorStore vectorStore,
+                         ClientExactScanner clientExactScanner,
+                         ClientSearchIndex clientSearchIndex,
+                         VerifiedClientIds verifiedClientIds,
+                         SearchSnapshots searchSnapshots) {
         this.clientRepository = clientRepository;
         this.documentRepository = documentRepository;
         this.embeddingProvider = embeddingProvider;
+        this.vectorStore = vectorStore;
+        this.clientExactScanner = clientExactScanner;
+        this.clientSearchIndex = clientSearchIndex;
+        this.verifiedClientIds = verifiedClientIds;
+        this.searchSnapshots = searchSnapshots;
     }
 
-    public SearchResultDto search(String query, UUID clientId) {
+    public SearchResultDto search(String query, List<UUID> clientIds) {
+        return search(query, clientIds, null, null);
+    }
+
+    /**
+     * @param clientIds restricts documents to these clients and skips the client search, {@code null} or empty
+     *                  searches everything
+     * @param limit     page size of both result lists; with a limit or cursor results are paginated and carry
+     *                  {@link SearchResultDto#nextCursor()}
+     * @param cursor    {@code nextCursor} of the previous page of the same search
+     */
+    public SearchResultDto search(String query, List<UUID> clientIds, Integer limit, String cursor) {
         if (query == null || query.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query 'q' is required");
         }
-        if (clientId != null) {
-            log.info("Searching will be implemented only for client with id {}. Not searching for other clients", clientId);
-            if (!clientRepository.existsById(clientId)) {
+        List<UUID> scope = clientIds == null || clientIds.isEmpty() ? null : List.copyOf(new LinkedHashSet<>(clientIds));
+        if (scope != null) {
+            if (scope.size() > MAX_SCOPED_CLIENTS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_SCOPED_CLIENTS + " client ids per search");
+            }
+            log.info("Searching will be implemented only for clients with ids {}. Not searching for other clients", scope);
+            if (!verifiedClientIds.allExist(scope)) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found");
             }
         }
 
-        return new SearchResultDto(
-                clientId == null ? searchClients(query) : null,
-                searchDocuments(query, clientId)
-        );
+        QueryAnalysis analysis = QueryAnalysis.of(query);
+        if (limit == null && cursor == null) {
+            return new SearchResultDto(
+                    scope == null ? searchClients(analysis, MAX_CLIENT_RESULTS) : null,
+                    searchDocuments(query, scope, analysis, MAX_DOCUMENT_RESULTS)
+            );
+        }
+        return searchPage(query, scope, analysis, limit == null ? MAX_DOCUMENT_RESULTS : limit, cursor);
+    }
+
+    /**
+     * The first page ranks clients and documents to the snapshot depth, later pages continue after the last
+     * (score, id) of the cursor in that ranking. Without the snapshot, e.g. once it expired, documents are ranked
+     * again from that position on and clients from the top.
+     */
+    private SearchResultDto searchPage(String query, List<UUID> scope, QueryAnalysis analysis, int limit, String cursor) {
+        String key = scope == null ? query : query + " " + scope;
+        String fingerprint = ContentHash.sha256(key);
+        SearchCursor after = cursor == null ? null : SearchCursor.decode(cursor);
+        if (after != null && !after.fingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor belongs to another search");
+        }
+
+        SearchCursor.Position clientsAfter = after == null ? null : after.clients();
+        SearchCursor.Position documentsAfter = after == null ? null : after.documents();
+        UUID snapshotId = after == null ? null : after.snapshotId();
+        SearchSnapshots.Snapshot snapshot = after == null ? null : searchSnapshots.get(snapshotId, key).orElse(null);
+        if (snapshot == null) {
+            int depth = searchSnapshots.depth();
+            List<ScoredClientDto> clients = scope == null
+                    ? searchClients(analysis, depth).stream().sorted(CLIENT_RANKING).toList()
+                    : null;
+            List<ScoredDocumentDto> documents = documentsAfter == null
+                    ? searchDocuments(query, scope, analysis, depth)
+                    : searchDocumentsAfter(query, scope, analysis, documentsAfter, depth);
+            snapshot = new SearchSnapshots.Snapshot(key, clients, documents);
+            snapshotId = searchSnapshots.put(snapshot);
+        }
+
+        List<ScoredClientDto> clients = snapshot.clients() == null ? null
+                : page(snapshot.clients(), clientsAfter, limit, ScoredClientDto::score, hit -> hit.client().id());
+        List<ScoredDocumentDto> documents =
+                page(snapshot.documents(), documentsAfter, limit, ScoredDocumentDto::score, hit -> hit.document().id());
+
+        boolean moreClients = clients != null && !clients.isEmpty() && clients.getLast() != snapshot.clients().getLast();
+        boolean moreDocuments = !documents.isEmpty() && documents.getLast() != snapshot.documents().getLast();
+        String nextCursor = moreClients || moreDocuments
+                ? new SearchCursor(
+                        snapshotId,
+                        fingerprint,
+                        clients == null || clients.isEmpty() ? clientsAfter
+                                : new SearchCursor.Position(clients.getLast().score(), clients.getLast().client().id()),
+                        documents.isEmpty() ? documentsAfter
+                                : new SearchCursor.Position(documents.getLast().score(), documents.getLast().document().id())
+                ).encode()
+                : null;
+        return new SearchResultDto(clients, documents, nextCursor);
     }
 
-    private List<ScoredClientDto> searchClients(String query) {
-        String normalizedQuery = query.trim().toLowerCase().replaceAll("\\s+", " ");
-        String slugQuery = SlugUtil.slugify(normalizedQuery);
-        if (slugQuery.isEmpty()) {
-            slugQuery = normalizedQuery;
+    private static <T> List<T> page(List<T> ranked, SearchCursor.Position after, int limit,
+                                    ToDoubleFunction<T> score, Function<T, UUID> id) {
+        int from = 0;
+        if (after != null) {
+            // first entry ranked after the cursor position
+            int to = ranked.size();
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                T entry = ranked.get(middle);
+                if (after.precedes(score.applyAsDouble(entry), id.apply(entry))) {
+                    to = middle;
+                } else {
+                    from = middle + 1;
+                }
+            }
         }
-        boolean emailQuery = normalizedQuery.contains("@");
+        return ranked.subList(from, Math.min(ranked.size(), from + limit));
+    }
 
-        List<ClientRepository.ClientSearchRow> clientHits = emailQuery
-                ? clientRepository.searchByEmail(normalizedQuery, MAX_CLIENT_RESULTS)
-                : clientRepository.searchByNameOrDomain(normalizedQuery, slugQuery, MAX_CLIENT_RESULTS);
+    /**
+     * Fails fast on unknown clients, before any batch result is written.
+     */
+    public void validateBatch(List<BatchSearchRequest.Query> queries) {
+        Set<UUID> clientIds = new HashSet<>();
+        for (BatchSearchRequest.Query query : queries) {
+            if (query.q() == null || query.q().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query 'q' is required");
+            }
+            if (query.clientId() != null) {
+                clientIds.add(query.clientId());
+            }
+        }
+        if (!verifiedClientIds.allExist(clientIds)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found");
+        }
+    }
+
+    /**
+     * Searches each query like {@link #search}. Each slice of queries is embedded in one request and searched with one
+     * lexical statement; unscoped queries of the plain semantic search share one statement through the ANN index,
+     * which may miss a neighbour the exact single search finds (see {@link VectorStore#searchAll}). Results are handed
+     * over in query order as soon as their slice is done.
+     */
+    public void searchBatch(List<BatchSearchRequest.Query> queries, Consumer<BatchSearchResultDto> sink) {
+        for (int from = 0; from < queries.size(); from += BATCH_SLICE) {
+            List<BatchSearchRequest.Query> slice = queries.subList(from, Math.min(queries.size(), from + BATCH_SLICE));
+            List<QueryAnalysis> analyses = slice.stream().map(query -> QueryAnalysis.of(query.q())).toList();
+            List<UUID> clientIds = slice.stream().map(BatchSearchRequest.Query::clientId).toList();
+
+            List<List<DocumentRepository.DocumentSearchRow>> lexically = documentRepository.searchLexicallyBatch(
+                    clientIds, slice.stream().map(BatchSearchRequest.Query::q).toList(), MAX_DOCUMENT_RESULTS);
+            List<List<DocumentRepository.DocumentSearchRow>> byEmbeddings = searchSemantically(slice, analyses);
+
+            for (int i = 0; i < slice.size(); i++) {
+                BatchSearchRequest.Query query = slice.get(i);
+                sink.accept(new BatchSearchResultDto(
+                        from + i,
+                        query.q(),
+                        query.clientId(),
+                        query.clientId() == null ? searchClients(analyses.get(i), MAX_CLIENT_RESULTS) : null,
+                        rank(lexically.get(i), byEmbeddings.get(i), MAX_DOCUMENT_RESULTS)
+                ));
+            }
+        }
+    }
+
+    private List<List<DocumentRepository.DocumentSearchRow>> searchSemantically(List<BatchSearchRequest.Query> queries,
+                                                                                List<QueryAnalysis> analyses) {
+        List<List<DocumentRepository.DocumentSearchRow>> results = new ArrayList<>(Collections.nCopies(queries.size(), List.of()));
+        List<Integer> semantic = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            if (analyses.get(i).semantic()) {
+                semantic.add(i);
+            }
+        }
+        if (semantic.isEmpty()) {
+            return results;
+        }
+
+        List<float[]> queryVectors = embeddingProvider.embedAll(semantic.stream().map(i -> queries.get(i).q()).toList());
+        List<Integer> fromStore = new ArrayList<>();
+        List<UUID> storeClientIds = new ArrayList<>();
+        List<float[]> storeVectors = new ArrayList<>();
+        for (int k = 0; k < semantic.size(); k++) {
+            int i = semantic.get(k);
+            UUID clientId = queries.get(i).clientId();
+            Optional<List<DocumentRepository.DocumentSearchRow>> exact = clientId == null
+                    ? Optional.empty()
+                    : clientExactScanner.search(clientId, queryVectors.get(k), MAX_DOCUMENT_RESULTS);
+            if (exact.isPresent()) {
+                results.set(i, exact.get());
+            } else {
+                fromStore.add(i);
+                storeClientIds.add(clientId);
+                storeVectors.add(queryVectors.get(k));
+            }
+        }
+
+        List<List<DocumentRepository.DocumentSearchRow>> found =
+                vectorStore.searchAll(storeClientIds, storeVectors, MAX_DOCUMENT_RESULTS);
+        for (int k = 0; k < fromStore.size(); k++) {
+            results.set(fromStore.get(k), found.get(k));
+        }
+        return results;
+    }
+
+    private List<ScoredClientDto> searchClients(QueryAnalysis analysis, int limit) {
+        String normalizedQuery = analysis.normalized();
+        String slugQuery = analysis.slug();
+
+        List<ClientRepository.ClientSearchRow> clientHits = switch (analysis.type()) {
+            case EMAIL -> clientSearchIndex.searchByEmail(normalizedQuery, limit)
+                    .orElseGet(() -> clientRepository.searchByEmail(normalizedQuery, limit));
+            case IDENTIFIER -> clientRepository.findById(UUID.fromString(normalizedQuery))
+                    .map(client -> List.of(new ClientRepository.ClientSearchRow(client, 1.0)))
+                    .orElse(List.of());
+            default -> clientSearchIndex.searchByNameOrDomain(normalizedQuery, slugQuery, limit)
+                    .orElseGet(() -> clientRepository.searchByNameOrDomain(normalizedQuery, slugQuery, limit));
+        };
 
         return clientHits.stream()
-                .limit(MAX_CLIENT_RESULTS)
+                .limit(limit)
                 .map(hit -> new ScoredClientDto(ClientDto.from(hit.client()), hit.score()))
                 .toList();
     }
 
-    private List<ScoredDocumentDto> searchDocuments(String query, UUID clientId) {
+    private List<ScoredDocumentDto> searchDocuments(String query, List<UUID> clientIds, QueryAnalysis analysis, int limit) {
         List<DocumentRepository.DocumentSearchRow> lexically =
-                documentRepository.searchLexically(clientId, query, MAX_DOCUMENT_RESULTS);
+                documentRepository.searchLexically(clientIds, query, limit);
+        return rank(lexically, searchByEmbeddings(query, clientIds, analysis, limit), limit);
+    }
+
+    /**
+     * The ranking of {@link #searchDocuments} after a position in it. Lexical hits resume in SQL; semantic hits are
+     * searched from the top, so they reach only as deep as in the first ranking. A semantic hit whose document matches
+     * lexically at all is dropped, its lexical score places it.
+     */
+    private List<ScoredDocumentDto> searchDocumentsAfter(String query, List<UUID> clientIds, QueryAnalysis analysis,
+                                                         SearchCursor.Position after, int limit) {
+        // merged lexical scores are s / 2 + 0.5
+        List<DocumentRepository.DocumentSearchRow> lexically = documentRepository.searchLexicallyAfter(
+                clientIds, query, (after.score() - 0.5) * 2, after.id(), limit);
 
-        List<DocumentRepository.DocumentSearchRow> byEmbeddings =
-                documentRepository.searchWithEmbeddings(clientId, embeddingProvider.embed(query), MAX_DOCUMENT_RESULTS);
+        List<DocumentRepository.DocumentSearchRow> byEmbeddings = searchByEmbeddings(query, clientIds, analysis, limit).stream()
+                .filter(row -> after.precedes(row.score(), row.document().id()))
+                .toList();
+        Set<UUID> matchedLexically = documentRepository.findLexicalMatches(
+                byEmbeddings.stream().map(row -> row.document().id()).toList(), query);
+        return rank(lexically, byEmbeddings.stream()
+                .filter(row -> !matchedLexically.contains(row.document().id()))
+                .toList(), limit);
+    }
+
+    private List<DocumentRepository.DocumentSearchRow> searchByEmbeddings(String query, List<UUID> clientIds,
+                                                                         QueryAnalysis analysis, int limit) {
+        if (!analysis.semantic()) {
+            return List.of();
+        }
+        float[] queryVector = embeddingProvider.embed(query);
+        return clientIds == null || clientIds.size() > 1
+                ? vectorStore.search(clientIds, queryVector, limit)
+                : clientExactScanner.search(clientIds.getFirst(), queryVector, limit)
+                        .orElseGet(() -> vectorStore.search(clientIds, queryVector, limit));
+    }
 
+    private List<ScoredDocumentDto> rank(List<DocumentRepository.DocumentSearchRow> lexically,
+                                         List<DocumentRepository.DocumentSearchRow> byEmbeddings,
+                                         int limit) {
         return mergeResults(lexically, byEmbeddings).stream()
-                .sorted(Comparator.comparingDouble(ScoredDocumentDto::score).reversed())
-                .limit(MAX_DOCUMENT_RESULTS)
+                .sorted(DOCUMENT_RANKING)
+                .limit(limit)
                 .toList();
     }
 
@@ -0,0 +1,117 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.ScoredClientDto;
+import com.neviswealth.searchservice.api.dto.ScoredDocumentDto;
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.domain.EmbeddingModelActivatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Rankings of recent paginated searches, later pages are cut from them instead of searching again. Bounded, least
+ * recently used first out, and dropped after the configured time to live.
+ */
+@Component
+public class SearchSnapshots {
+
+    private final SearchingProperties.Pagination properties;
+    private final Map<UUID, Snapshot> snapshots;
+
+    public SearchSnapshots(SearchingProperties properties) {
+        this.properties = properties.getPagination();
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Snapshot> eldest) {
+                return size() > SearchSnapshots.this.properties.getMaxSnapshots();
+            }
+        };
+    }
+
+    public int depth() {
+        return properties.getDepth();
+    }
+
+    /**
+     * @param key query and clients of the search, a snapshot is only handed out for the search it was taken for
+     */
+    public Optional<Snapshot> get(UUID id, String key) {
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(id);
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            if (System.nanoTime() - snapshot.takenAt() > properties.getTtl().toNanos()) {
+                snapshots.remove(id);
+                return Optional.empty();
+            }
+            return snapshot.key().equals(key) ? Optional.of(snapshot) : Optional.empty();
+        }
+    }
+
+    public UUID put(Snapshot snapshot) {
+        UUID id = UUID.randomUUID();
+        synchronized (snapshots) {
+            snapshots.put(id, snapshot);
+        }
+        return id;
+    }
+
+    // a deletion must not linger in later pages of searches that ranked before it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        UUID documentId = event.document().id();
+        remove(client -> false, document -> document.document().id().equals(documentId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        UUID clientId = event.client().id();
+        remove(client -> client.client().id().equals(clientId), document -> document.document().clientId().equals(clientId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingModelActivated(EmbeddingModelActivatedEvent event) {
+        clear();
+    }
+
+    private void remove(Predicate<ScoredClientDto> client, Predicate<ScoredDocumentDto> document) {
+        synchronized (snapshots) {
+            // replacing values leaves the access order alone
+            snapshots.replaceAll((id, snapshot) -> snapshot.without(client, document));
+        }
+    }
+
+    public void clear() {
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * @param clients   in ranking order, {@code null} for client-scoped searches
+     * @param documents in ranking order
+     */
+    public record Snapshot(String key, List<ScoredClientDto> clients, List<ScoredDocumentDto> documents, long takenAt) {
+
+        public Snapshot(String key, List<ScoredClientDto> clients, List<ScoredDocumentDto> documents) {
+            this(key, clients, documents, System.nanoTime());
+        }
+
+        private Snapshot without(Predicate<ScoredClientDto> client, Predicate<ScoredDocumentDto> document) {
+            boolean clientsMatch = clients != null && clients.stream().anyMatch(client);
+            boolean documentsMatch = documents.stream().anyMatch(document);
+            if (!clientsMatch && !documentsMatch) {
+                return this;
+            }
+            return new Snapshot(key,
+                    clientsMatch ? clients.stream().filter(client.negate()).toList() : clients,
+                    documentsMatch ? documents.stream().filter(document.negate()).toList() : documents,
+                    takenAt);
+        }
+    }
+}
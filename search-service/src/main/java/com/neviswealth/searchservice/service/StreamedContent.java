@@ -0,0 +1,107 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.util.ContentHash;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Document content read from a stream, trimmed like {@link String#trim()}: leading whitespace is skipped and
+ * whitespace is held back until more content follows it. What has been read is handed out in pieces, which are
+ * hashed on the way so the full content never has to be in memory.
+ */
+final class StreamedContent extends Reader {
+
+    private final Reader source;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder readable = new StringBuilder();
+    private final StringBuilder whitespace = new StringBuilder();
+    private final StringBuilder piece = new StringBuilder();
+    private final ContentHash.Incremental hash = ContentHash.incremental();
+    private int readPosition;
+    private long length;
+    private boolean eof;
+
+    StreamedContent(Reader source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read(char[] target, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        while (readPosition == readable.length()) {
+            readable.setLength(0);
+            readPosition = 0;
+            if (eof || !fill()) {
+                return -1;
+            }
+        }
+        int read = Math.min(count, readable.length() - readPosition);
+        readable.getChars(readPosition, readPosition + read, target, offset);
+        readPosition += read;
+        return read;
+    }
+
+    private boolean fill() throws IOException {
+        int read = source.read(buffer);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        for (int i = 0; i < read; i++) {
+            char c = buffer[i];
+            if (c <= ' ') {
+                if (length > 0) {
+                    whitespace.append(c);
+                }
+                continue;
+            }
+            if (!whitespace.isEmpty()) {
+                emit(whitespace);
+                whitespace.setLength(0);
+            }
+            readable.append(c);
+            piece.append(c);
+            length++;
+        }
+        return true;
+    }
+
+    private void emit(CharSequence chars) {
+        readable.append(chars);
+        piece.append(chars);
+        length += chars.length();
+    }
+
+    /**
+     * @return the content read since the previous piece, never ending inside a surrogate pair
+     */
+    String takePiece() {
+        int end = piece.length();
+        if (end > 0 && Character.isHighSurrogate(piece.charAt(end - 1))) {
+            end--;
+        }
+        String taken = piece.substring(0, end);
+        piece.delete(0, end);
+        hash.update(taken);
+        return taken;
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @return the hash of all pieces taken, valid once the content has been read to the end
+     */
+    String hash() {
+        return hash.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
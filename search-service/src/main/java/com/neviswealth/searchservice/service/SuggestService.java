@@ -0,0 +1,42 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.DocumentDto;
+import com.neviswealth.searchservice.api.dto.SuggestResultDto;
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class SuggestService {
+
+    private final VerifiedClientIds verifiedClientIds;
+    private final SuggestIndex suggestIndex;
+    private final int limit;
+
+    public SuggestService(VerifiedClientIds verifiedClientIds, SuggestIndex suggestIndex, SearchingProperties properties) {
+        this.verifiedClientIds = verifiedClientIds;
+        this.suggestIndex = suggestIndex;
+        this.limit = properties.getSuggest().getLimit();
+    }
+
+    public SuggestResultDto suggest(String prefix, UUID clientId) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query 'prefix' is required");
+        }
+        if (clientId != null && !verifiedClientIds.allExist(List.of(clientId))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found");
+        }
+
+        SuggestIndex.Suggestions suggestions = suggestIndex.suggest(prefix, clientId, limit);
+        return new SuggestResultDto(
+                clientId == null ? suggestions.clients().stream().map(ClientDto::from).toList() : null,
+                suggestions.documents().stream().map(DocumentDto::from).toList()
+        );
+    }
+}
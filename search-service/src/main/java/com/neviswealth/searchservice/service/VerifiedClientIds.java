@@ -0,0 +1,93 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids of clients known to exist, so that client-scoped requests skip the existence query once a client has been
+ * seen. Bounded, least recently used first out; new clients are added and deleted ones removed on commit. Deletions
+ * committed by another instance are not seen: a scoped search of such a client finds its documents deleted with it,
+ * writes check the client again in their transaction.
+ */
+@Component
+public class VerifiedClientIds {
+
+    private static final int MAX_SIZE = 50_000;
+
+    private final ClientRepository clientRepository;
+    // bumped on every removal, ids verified before it may belong to a client deleted meanwhile
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<UUID, Boolean> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    public VerifiedClientIds(ClientRepository clientRepository) {
+        this.clientRepository = clientRepository;
+    }
+
+    /**
+     * Queries the database only for ids not verified yet.
+     */
+    public boolean allExist(Collection<UUID> clientIds) {
+        return missing(clientIds).isEmpty();
+    }
+
+    /**
+     * @return the given ids of clients that do not exist
+     */
+    public Set<UUID> missing(Collection<UUID> clientIds) {
+        Set<UUID> unverified = new HashSet<>();
+        synchronized (verified) {
+            for (UUID clientId : clientIds) {
+                if (verified.get(clientId) == null) {
+                    unverified.add(clientId);
+                }
+            }
+        }
+        if (unverified.isEmpty()) {
+            return Set.of();
+        }
+
+        long verifiedAt = generation.get();
+        Set<UUID> existing = clientRepository.findExistingIds(unverified);
+        synchronized (verified) {
+            if (generation.get() == verifiedAt) {
+                existing.forEach(clientId -> verified.put(clientId, Boolean.TRUE));
+            }
+        }
+        Set<UUID> missing = new HashSet<>(unverified);
+        missing.removeAll(existing);
+        return missing;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCreated(ClientCreatedEvent event) {
+        synchronized (verified) {
+            verified.put(event.client().id(), Boolean.TRUE);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        generation.incrementAndGet();
+        synchronized (verified) {
+            verified.remove(event.client().id());
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (verified) {
+            verified.clear();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.neviswealth.searchservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * Hex-encoded SHA-256 of the UTF-8 content, the value of {@code documents.content_hash}.
+     */
+    public static String sha256(String content) {
+        return HexFormat.of().formatHex(newDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hash of content that arrives in parts, equal to {@link #sha256} of the parts concatenated as long as no part
+     * ends inside a surrogate pair.
+     */
+    public static Incremental incremental() {
+        return new Incremental(newDigest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm unavailable", e);
+        }
+    }
+
+    public static final class Incremental {
+
+        private final MessageDigest digest;
+
+        private Incremental(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        public void update(String part) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public String finish() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
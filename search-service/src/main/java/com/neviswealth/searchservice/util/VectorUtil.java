@@ -0,0 +1,55 @@
+package com.neviswealth.searchservice.util;
+
+import java.util.List;
+
+public final class VectorUtil {
+
+    private VectorUtil() {
+    }
+
+    /**
+     * Mean of the vectors scaled to unit length, {@code null} when there is no direction to keep.
+     */
+    public static float[] centroid(List<float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return null;
+        }
+        double[] sum = new double[vectors.getFirst().length];
+        for (float[] vector : vectors) {
+            add(sum, vector);
+        }
+        return centroid(sum);
+    }
+
+    /**
+     * Adds the vector to a running sum, for centroids of vectors that are not all in memory at once.
+     */
+    public static void add(double[] sum, float[] vector) {
+        if (vector.length != sum.length) {
+            throw new IllegalArgumentException("Expected vector of dimension " + sum.length + " but got " + vector.length);
+        }
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += vector[i];
+        }
+    }
+
+    /**
+     * Centroid of the vectors a sum was built from, see {@link #centroid(List)}.
+     */
+    public static float[] centroid(double[] sum) {
+        int dimension = sum.length;
+        double norm = 0;
+        for (double value : sum) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        norm = Math.sqrt(norm);
+        float[] centroid = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            centroid[i] = (float) (sum[i] / norm);
+        }
+        return centroid;
+    }
+}
@@ -0,0 +1,148 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentUpdatedEvent;
+import com.neviswealth.searchservice.domain.EmbeddingModelActivatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+import com.neviswealth.searchservice.util.SingleFlightLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact top-K semantic search over a single client's chunks. A client owns at most a few thousand chunks,
+ * scanning them all in memory is cheaper than an ANN or SQL round trip. Chunk sets are cached per client
+ * (least recently used first out) and dropped when the client gets a new document.
+ */
+@Component
+public class ClientExactScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientExactScanner.class);
+
+    private final DocumentRepository documentRepository;
+    private final SearchingProperties.ExactScan properties;
+    private final double threshold;
+    private final EmbeddingModels embeddingModels;
+    private final VectorScorer scorer = VectorScorer.create();
+    private final SingleFlightLoader<UUID, Optional<ClientVectors>> loader = new SingleFlightLoader<>();
+    private final LinkedHashMap<UUID, ClientVectors> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<UUID> oversized = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private long cachedChunks;
+
+    public ClientExactScanner(DocumentRepository documentRepository,
+                              SearchingProperties searchingProperties,
+                              EmbeddingModels embeddingModels) {
+        this.documentRepository = documentRepository;
+        this.properties = searchingProperties.getExactScan();
+        this.threshold = searchingProperties.getThreshold().getEmbedding();
+        this.embeddingModels = embeddingModels;
+        log.info("Exact client scan uses {}", scorer.getClass().getSimpleName());
+    }
+
+    /**
+     * @return empty when the scan is disabled or the client has too many chunks for it
+     */
+    public Optional<List<DocumentSearchRow>> search(UUID clientId, float[] queryVector, int limit) {
+        if (!properties.isEnabled() || oversized.contains(clientId)) {
+            return Optional.empty();
+        }
+        return vectors(clientId).map(vectors -> vectors.search(scorer, queryVector, limit, threshold));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        evictClient(event.document().clientId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentUpdated(DocumentUpdatedEvent event) {
+        evictClient(event.document().clientId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        evictClient(event.document().clientId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        evictClient(event.client().id());
+        oversized.remove(event.client().id());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingModelActivated(EmbeddingModelActivatedEvent event) {
+        clear();
+    }
+
+    private void evictClient(UUID clientId) {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            evict(clientId);
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            cache.clear();
+            cachedChunks = 0;
+        }
+        oversized.clear();
+    }
+
+    private Optional<ClientVectors> vectors(UUID clientId) {
+        synchronized (cache) {
+            ClientVectors cached = cache.get(clientId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        return loader.load(clientId, () -> load(clientId));
+    }
+
+    private Optional<ClientVectors> load(UUID clientId) {
+        long loadedAt = generation.get();
+        int maxChunks = properties.getMaxChunks();
+        List<ChunkEmbeddingRow> rows = documentRepository.findClientChunks(clientId, maxChunks + 1);
+        if (rows.size() > maxChunks) {
+            oversized.add(clientId);
+            return Optional.empty();
+        }
+
+        ClientVectors vectors = ClientVectors.of(embeddingModels.active().dimension(), rows);
+        synchronized (cache) {
+            // a document committed while loading would be missing from this snapshot
+            if (generation.get() == loadedAt) {
+                evict(clientId);
+                cache.put(clientId, vectors);
+                cachedChunks += vectors.size();
+                Iterator<ClientVectors> leastRecentlyUsed = cache.values().iterator();
+                while (cachedChunks > properties.getMaxCachedChunks() && leastRecentlyUsed.hasNext()) {
+                    cachedChunks -= leastRecentlyUsed.next().size();
+                    leastRecentlyUsed.remove();
+                }
+            }
+        }
+        return Optional.of(vectors);
+    }
+
+    private void evict(UUID clientId) {
+        ClientVectors removed = cache.remove(clientId);
+        if (removed != null) {
+            cachedChunks -= removed.size();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.*;
+
+/**
+ * Immutable snapshot of one client's chunk embeddings, stored contiguously off-heap for exact scans.
+ */
+public class ClientVectors {
+
+    private final int dimension;
+    private final int size;
+    private final MemorySegment vectors;
+    private final int[] chunkDocuments;
+    private final String[] snippets;
+    private final List<Document> documents;
+
+    private ClientVectors(int dimension, int size, MemorySegment vectors, int[] chunkDocuments, String[] snippets,
+                          List<Document> documents) {
+        this.dimension = dimension;
+        this.size = size;
+        this.vectors = vectors;
+        this.chunkDocuments = chunkDocuments;
+        this.snippets = snippets;
+        this.documents = documents;
+    }
+
+    public static ClientVectors of(int dimension, List<ChunkEmbeddingRow> rows) {
+        MemorySegment vectors = Arena.ofAuto().allocate((long) Math.max(1, rows.size()) * dimension * Float.BYTES, Float.BYTES);
+        int[] chunkDocuments = new int[rows.size()];
+        String[] snippets = new String[rows.size()];
+        List<Document> documents = new ArrayList<>();
+        Map<UUID, Integer> ordinals = new HashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            ChunkEmbeddingRow row = rows.get(i);
+            if (row.embedding().length != dimension) {
+                throw new IllegalArgumentException("Expected embedding of dimension " + dimension + " but got " + row.embedding().length);
+            }
+            MemorySegment.copy(row.embedding(), 0, vectors, ValueLayout.JAVA_FLOAT, (long) i * dimension * Float.BYTES, dimension);
+            chunkDocuments[i] = ordinals.computeIfAbsent(row.document().id(), id -> {
+                documents.add(row.document());
+                return documents.size() - 1;
+            });
+            snippets[i] = row.content();
+        }
+        return new ClientVectors(dimension, rows.size(), vectors, chunkDocuments, snippets, List.copyOf(documents));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Best chunk per document scored as {@code 1 - euclidean distance}, ordered by descending score.
+     */
+    public List<DocumentSearchRow> search(VectorScorer scorer, float[] queryVector, int limit, double threshold) {
+        if (queryVector.length != dimension) {
+            throw new IllegalArgumentException("Expected query vector of dimension " + dimension + " but got " + queryVector.length);
+        }
+        float[] distances = new float[size];
+        scorer.squaredDistances(queryVector, vectors, size, distances);
+
+        int[] bestChunk = new int[documents.size()];
+        Arrays.fill(bestChunk, -1);
+        for (int chunk = 0; chunk < size; chunk++) {
+            int document = chunkDocuments[chunk];
+            if (bestChunk[document] < 0 || distances[chunk] < distances[bestChunk[document]]) {
+                bestChunk[document] = chunk;
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>(documents.size());
+        for (int document = 0; document < bestChunk.length; document++) {
+            if (bestChunk[document] >= 0) {
+                ranked.add(bestChunk[document]);
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(chunk -> distances[chunk]));
+
+        List<DocumentSearchRow> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int chunk : ranked) {
+            double score = 1 - Math.sqrt(distances[chunk]);
+            if (score < threshold || result.size() == limit) {
+                break;
+            }
+            result.add(new DocumentSearchRow(documents.get(chunkDocuments[chunk]), score, snippets[chunk], false));
+        }
+        return result;
+    }
+}
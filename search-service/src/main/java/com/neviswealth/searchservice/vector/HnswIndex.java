@@ -0,0 +1,272 @@
+package com.neviswealth.searchservice.vector;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over squared euclidean distance.
+ * Vectors are kept off-heap in a single contiguous segment, nodes are addressed by insertion order.
+ * Not thread-safe: callers serialize writes against reads.
+ */
+public class HnswIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimension;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private MemorySegment vectors;
+    private int[][][] links;
+    private int capacity;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int maxConnections, int efConstruction) {
+        this(dimension, maxConnections, efConstruction, 42);
+    }
+
+    public HnswIndex(int dimension, int maxConnections, int efConstruction, long seed) {
+        this.dimension = dimension;
+        this.maxConnections = Math.max(2, maxConnections);
+        this.maxConnectionsLevel0 = this.maxConnections * 2;
+        this.efConstruction = Math.max(this.maxConnections, efConstruction);
+        this.levelMultiplier = 1 / Math.log(this.maxConnections);
+        this.random = new SplittableRandom(seed);
+        this.capacity = INITIAL_CAPACITY;
+        this.vectors = Arena.ofAuto().allocate((long) capacity * dimension * Float.BYTES, Float.BYTES);
+        this.links = new int[capacity][][];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * @return a copy of the vector of the node
+     */
+    public float[] vector(int node) {
+        float[] vector = new float[dimension];
+        MemorySegment.copy(vectors, ValueLayout.JAVA_FLOAT, (long) node * dimension * Float.BYTES, vector, 0, dimension);
+        return vector;
+    }
+
+    /**
+     * @return node id of the added vector
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected vector of dimension " + dimension + " but got " + vector.length);
+        }
+        ensureCapacity(size + 1);
+        int node = size;
+        MemorySegment.copy(vector, 0, vectors, ValueLayout.JAVA_FLOAT, (long) node * dimension * Float.BYTES, dimension);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[1 + (l == 0 ? maxConnectionsLevel0 : maxConnections)];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Neighbor> candidates = searchLayer(vector, current, efConstruction, l, null);
+            int max = l == 0 ? maxConnectionsLevel0 : maxConnections;
+            for (Neighbor neighbor : candidates.subList(0, Math.min(maxConnections, candidates.size()))) {
+                connect(node, neighbor.node(), l, max);
+                connect(neighbor.node(), node, l, max);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Approximate nearest neighbours sorted by ascending distance.
+     * Nodes rejected by the filter are still traversed but never returned.
+     */
+    public List<Neighbor> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        List<Neighbor> found = searchLayer(query, current, Math.max(ef, k), 0, filter);
+        return found.size() > k ? found.subList(0, k) : found;
+    }
+
+    /**
+     * Exact nearest neighbours among the given nodes, used when a filter leaves too few nodes for graph traversal.
+     */
+    public List<Neighbor> scan(float[] query, int k, int[] nodes, int count) {
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::distance).reversed());
+        for (int i = 0; i < count; i++) {
+            float distance = distance(query, nodes[i]);
+            if (best.size() < k) {
+                best.add(new Neighbor(nodes[i], distance));
+            } else if (distance < best.peek().distance()) {
+                best.poll();
+                best.add(new Neighbor(nodes[i], distance));
+            }
+        }
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::distance));
+        return result;
+    }
+
+    private List<Neighbor> searchLayer(float[] query, int entry, int ef, int level, IntPredicate filter) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::distance));
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::distance).reversed());
+
+        Neighbor start = new Neighbor(entry, distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        if (filter == null || filter.test(entry)) {
+            results.add(start);
+        }
+
+        while (!candidates.isEmpty()) {
+            Neighbor closest = candidates.poll();
+            if (results.size() >= ef && closest.distance() > results.peek().distance()) {
+                break;
+            }
+            int[] neighbours = links[closest.node()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int next = neighbours[i];
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                float distance = distance(query, next);
+                boolean accepted = filter == null || filter.test(next);
+                if (results.size() < ef || distance < results.peek().distance()) {
+                    candidates.add(new Neighbor(next, distance));
+                    if (accepted) {
+                        results.add(new Neighbor(next, distance));
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Neighbor::distance));
+        return sorted;
+    }
+
+    private int greedyClosest(float[] query, int entry, int level) {
+        int current = entry;
+        float currentDistance = distance(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float distance = distance(query, neighbours[i]);
+                if (distance < currentDistance) {
+                    currentDistance = distance;
+                    current = neighbours[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private void connect(int from, int to, int level, int max) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        if (count < max) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+        // full: replace the farthest neighbour if the new one is closer
+        int farthest = -1;
+        float farthestDistance = distance(from, to);
+        for (int i = 1; i <= count; i++) {
+            float distance = distance(from, neighbours[i]);
+            if (distance > farthestDistance) {
+                farthestDistance = distance;
+                farthest = i;
+            }
+        }
+        if (farthest > 0) {
+            neighbours[farthest] = to;
+        }
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - random.nextDouble();
+        return (int) (-Math.log(uniform) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        MemorySegment grown = Arena.ofAuto().allocate((long) newCapacity * dimension * Float.BYTES, Float.BYTES);
+        MemorySegment.copy(vectors, 0, grown, 0, (long) size * dimension * Float.BYTES);
+        vectors = grown;
+        links = Arrays.copyOf(links, newCapacity);
+        capacity = newCapacity;
+    }
+
+    float distance(float[] query, int node) {
+        long base = (long) node * dimension;
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            float diff = query[i] - vectors.getAtIndex(ValueLayout.JAVA_FLOAT, base + i);
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private float distance(int a, int b) {
+        long baseA = (long) a * dimension;
+        long baseB = (long) b * dimension;
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            float diff = vectors.getAtIndex(ValueLayout.JAVA_FLOAT, baseA + i) - vectors.getAtIndex(ValueLayout.JAVA_FLOAT, baseB + i);
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * @param distance squared euclidean distance to the query
+     */
+    public record Neighbor(int node, float distance) {
+    }
+}
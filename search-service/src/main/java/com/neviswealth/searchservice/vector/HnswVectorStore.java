@@ -0,0 +1,409 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.config.VectorStoreProperties;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentUpdatedEvent;
+import com.neviswealth.searchservice.domain.EmbeddingModelActivatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Serves semantic search from an in-process HNSW graph loaded from {@code document_chunks} at startup.
+ * Scores match the SQL path: {@code 1 - euclidean distance}.
+ */
+public class HnswVectorStore implements VectorStore, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+    // several chunks of the same document usually sit next to each other in the result
+    private static final int CHUNKS_PER_RESULT = 4;
+
+    private final DocumentRepository documentRepository;
+    private final EmbeddingModels embeddingModels;
+    private final VectorStoreProperties.Hnsw properties;
+    private final double threshold;
+    private final Executor compactionExecutor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state;
+    private boolean compacting;
+    // changes made while a reload or a compaction builds the next state, replayed onto it before it replaces the
+    // current one
+    private final Set<List<Consumer<State>>> journals = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public HnswVectorStore(DocumentRepository documentRepository,
+                           EmbeddingModels embeddingModels,
+                           VectorStoreProperties.Hnsw properties,
+                           double threshold,
+                           Executor compactionExecutor) {
+        this.documentRepository = documentRepository;
+        this.embeddingModels = embeddingModels;
+        this.properties = properties;
+        this.threshold = threshold;
+        this.compactionExecutor = compactionExecutor;
+        this.state = newState();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    /**
+     * Loads the graph from the table. Searches and changes go on while it loads; changes are journaled from before
+     * the load starts and replayed onto the loaded graph, those the load already saw replay as no-ops.
+     */
+    @Override
+    public void reload() {
+        long started = System.nanoTime();
+        List<Consumer<State>> journal = startJournal();
+        State loaded = newState();
+        try {
+            documentRepository.forEachChunk(loaded::add);
+        } catch (RuntimeException e) {
+            stopJournal(journal);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            replay(journal, loaded);
+            state = loaded;
+            journals.remove(journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} chunks of {} documents into the HNSW index in {} ms",
+                loaded.index.size(), loaded.documents.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        List<ChunkEmbeddingRow> chunks = documentRepository.findChunks(event.document().id());
+        change(current -> {
+            // a reload may have loaded the document already
+            current.retire(event.document());
+            chunks.forEach(current::add);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentUpdated(DocumentUpdatedEvent event) {
+        List<ChunkEmbeddingRow> chunks = documentRepository.findChunks(event.document().id());
+        change(current -> {
+            current.retire(event.document());
+            chunks.forEach(current::add);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        change(current -> current.retire(event.document()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientDeleted(ClientDeletedEvent event) {
+        change(current -> current.retireClient(event.client().id()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingModelActivated(EmbeddingModelActivatedEvent event) {
+        reload();
+    }
+
+    @Override
+    public List<DocumentSearchRow> search(List<UUID> clientIds, float[] queryVector, int limit) {
+        lock.readLock().lock();
+        try {
+            int dimension = state.index.dimension();
+            if (queryVector.length != dimension) {
+                if (queryVector.length == embeddingModels.active().dimension()) {
+                    // the graph still holds the vectors of the previous model until the reload after a switch is done
+                    return List.of();
+                }
+                throw new IllegalArgumentException("Expected query vector of dimension " + dimension + " but got " + queryVector.length);
+            }
+            return state.search(clientIds, queryVector, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return nodes in the graph and documents known to it, live or not
+     */
+    int[] size() {
+        lock.readLock().lock();
+        try {
+            return new int[]{state.index.size(), state.documents.size()};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(Consumer<State> change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            // journaled first, a change that does not fit the current graph, e.g. vectors of a model it is being
+            // reloaded for, still reaches the next one
+            journals.forEach(journal -> journal.add(change));
+            change.accept(state);
+            compact = !compacting
+                    && (long) state.retiredNodes * 100 > (long) state.index.size() * properties.getCompactRetiredPercent();
+            compacting |= compact;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            compactionExecutor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the nodes of live chunks, which drops the retired ones that slow down traversal and
+     * crowd live neighbours out of the results. Searches and changes go on while the graph is built.
+     */
+    void compact() {
+        long started = System.nanoTime();
+        State source;
+        State compacted = newState();
+        List<Consumer<State>> journal = new ArrayList<>();
+        try {
+            List<LiveNode> live;
+            lock.readLock().lock();
+            try {
+                source = state;
+                live = source.liveNodes();
+                // writers are held off by the read lock, so the journal starts exactly at the copied state; a
+                // compaction runs alone and reloads register theirs under the write lock
+                journals.add(journal);
+            } finally {
+                lock.readLock().unlock();
+            }
+            live.forEach(node -> compacted.add(node.document(), node.snippet(), node.vector()));
+        } catch (RuntimeException e) {
+            log.warn("Compacting the HNSW index failed, retrying on the next change", e);
+            lock.writeLock().lock();
+            try {
+                journals.remove(journal);
+                compacting = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // a reload replaced the state meanwhile, it has no retired nodes either
+            if (state == source) {
+                replay(journal, compacted);
+                state = compacted;
+            }
+            journals.remove(journal);
+            compacting = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Compacted the HNSW index from {} to {} nodes in {} ms",
+                source.index.size(), compacted.index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private List<Consumer<State>> startJournal() {
+        List<Consumer<State>> journal = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            journals.add(journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return journal;
+    }
+
+    private void stopJournal(List<Consumer<State>> journal) {
+        lock.writeLock().lock();
+        try {
+            journals.remove(journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void replay(List<Consumer<State>> journal, State next) {
+        for (Consumer<State> change : journal) {
+            try {
+                change.accept(next);
+            } catch (RuntimeException e) {
+                // e.g. vectors of the previous model, read just before a switch
+                log.warn("Skipping a change that does not apply to the rebuilt HNSW index", e);
+            }
+        }
+    }
+
+    private State newState() {
+        return new State(new HnswIndex(embeddingModels.active().dimension(), properties.getM(), properties.getEfConstruction()));
+    }
+
+    private class State {
+        private final HnswIndex index;
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<UUID, Integer> documentOrdinals = new HashMap<>();
+        private final Map<UUID, NodeList> clientNodes = new HashMap<>();
+        private final Map<Integer, NodeList> documentNodes = new HashMap<>();
+        private final List<String> snippets = new ArrayList<>();
+        // nodes of replaced or deleted chunks stay in the graph as waypoints but are never returned, a compaction drops them
+        private final BitSet retired = new BitSet();
+        private int retiredNodes;
+        private int[] nodeDocuments = new int[1024];
+
+        private State(HnswIndex index) {
+            this.index = index;
+        }
+
+        private void add(ChunkEmbeddingRow row) {
+            add(row.document(), row.content(), row.embedding());
+        }
+
+        private void add(Document document, String snippet, float[] embedding) {
+            int ordinal = documentOrdinals.computeIfAbsent(document.id(), id -> {
+                documents.add(document);
+                return documents.size() - 1;
+            });
+
+            int node = index.add(embedding);
+            if (node >= nodeDocuments.length) {
+                nodeDocuments = Arrays.copyOf(nodeDocuments, nodeDocuments.length * 2);
+            }
+            nodeDocuments[node] = ordinal;
+            snippets.add(snippet);
+            clientNodes.computeIfAbsent(document.clientId(), id -> new NodeList()).add(node);
+            documentNodes.computeIfAbsent(ordinal, o -> new NodeList()).add(node);
+        }
+
+        private void retire(Document document) {
+            Integer ordinal = documentOrdinals.remove(document.id());
+            if (ordinal == null) {
+                return;
+            }
+            NodeList nodes = documentNodes.remove(ordinal);
+            for (int i = 0; nodes != null && i < nodes.size; i++) {
+                retireNode(nodes.values[i]);
+            }
+            NodeList clientNodeList = clientNodes.get(document.clientId());
+            NodeList live = new NodeList();
+            for (int i = 0; clientNodeList != null && i < clientNodeList.size; i++) {
+                if (!retired.get(clientNodeList.values[i])) {
+                    live.add(clientNodeList.values[i]);
+                }
+            }
+            clientNodes.put(document.clientId(), live);
+        }
+
+        private void retireClient(UUID clientId) {
+            NodeList nodes = clientNodes.remove(clientId);
+            for (int i = 0; nodes != null && i < nodes.size; i++) {
+                int ordinal = nodeDocuments[nodes.values[i]];
+                retireNode(nodes.values[i]);
+                documentNodes.remove(ordinal);
+                documentOrdinals.remove(documents.get(ordinal).id(), ordinal);
+            }
+        }
+
+        private void retireNode(int node) {
+            if (!retired.get(node)) {
+                retired.set(node);
+                retiredNodes++;
+            }
+        }
+
+        /**
+         * Copies of the nodes of live chunks; documents, snippets and vectors of retired ones are left behind.
+         */
+        private List<LiveNode> liveNodes() {
+            List<LiveNode> live = new ArrayList<>(index.size() - retiredNodes);
+            for (int node = 0; node < index.size(); node++) {
+                if (!retired.get(node)) {
+                    live.add(new LiveNode(documents.get(nodeDocuments[node]), snippets.get(node), index.vector(node)));
+                }
+            }
+            return live;
+        }
+
+        private List<DocumentSearchRow> search(List<UUID> clientIds, float[] queryVector, int limit) {
+            int k = limit * CHUNKS_PER_RESULT;
+            int ef = Math.max(properties.getEfSearch(), k);
+
+            List<HnswIndex.Neighbor> neighbors;
+            if (clientIds == null) {
+                neighbors = index.search(queryVector, k, ef, retired.isEmpty() ? null : node -> !retired.get(node));
+            } else {
+                NodeList nodes = nodesOf(clientIds);
+                if (nodes.size == 0) {
+                    return List.of();
+                }
+                Set<UUID> scope = Set.copyOf(clientIds);
+                // a selective filter makes graph traversal visit most of the graph, scanning the clients' nodes is cheaper
+                neighbors = nodes.size <= ef
+                        ? index.scan(queryVector, k, nodes.values, nodes.size)
+                        : index.search(queryVector, k, ef,
+                        node -> !retired.get(node) && scope.contains(documents.get(nodeDocuments[node]).clientId()));
+            }
+
+            Map<Integer, DocumentSearchRow> bestPerDocument = new LinkedHashMap<>();
+            for (HnswIndex.Neighbor neighbor : neighbors) {
+                double score = 1 - Math.sqrt(neighbor.distance());
+                if (score < threshold || bestPerDocument.size() == limit) {
+                    break;
+                }
+                int ordinal = nodeDocuments[neighbor.node()];
+                bestPerDocument.putIfAbsent(ordinal,
+                        new DocumentSearchRow(documents.get(ordinal), score, snippets.get(neighbor.node()), false));
+            }
+            return List.copyOf(bestPerDocument.values());
+        }
+
+        private NodeList nodesOf(List<UUID> clientIds) {
+            if (clientIds.size() == 1) {
+                return clientNodes.getOrDefault(clientIds.getFirst(), new NodeList());
+            }
+            NodeList nodes = new NodeList();
+            for (UUID clientId : new LinkedHashSet<>(clientIds)) {
+                NodeList clientNodeList = clientNodes.get(clientId);
+                for (int i = 0; clientNodeList != null && i < clientNodeList.size; i++) {
+                    nodes.add(clientNodeList.values[i]);
+                }
+            }
+            return nodes;
+        }
+    }
+
+    private record LiveNode(Document document, String snippet, float[] vector) {
+    }
+
+    private static class NodeList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int node) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = node;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class PgVectorStore implements VectorStore {
+
+    private final DocumentRepository documentRepository;
+
+    public PgVectorStore(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    @Override
+    public List<DocumentSearchRow> search(List<UUID> clientIds, float[] queryVector, int limit) {
+        return documentRepository.searchWithEmbeddings(clientIds, queryVector, limit);
+    }
+
+    /**
+     * Unscoped queries of the plain search share one statement, the others go through {@link #search} one by one
+     * so that they pick the same quantized, coarse-to-fine or exact client search as a single query.
+     */
+    @Override
+    public List<List<DocumentSearchRow>> searchAll(List<UUID> clientIds, List<float[]> queryVectors, int limit) {
+        boolean plain = documentRepository.isPlainSearch();
+        List<List<DocumentSearchRow>> results = new ArrayList<>(Collections.nCopies(queryVectors.size(), List.of()));
+        List<Integer> batched = new ArrayList<>();
+        for (int i = 0; i < queryVectors.size(); i++) {
+            UUID clientId = clientIds.get(i);
+            if (plain && clientId == null) {
+                batched.add(i);
+            } else {
+                results.set(i, search(clientId == null ? null : List.of(clientId), queryVectors.get(i), limit));
+            }
+        }
+        List<List<DocumentSearchRow>> found = documentRepository.searchWithEmbeddingsBatch(
+                batched.stream().map(queryVectors::get).toList(), limit);
+        for (int k = 0; k < batched.size(); k++) {
+            results.set(batched.get(k), found.get(k));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,21 @@
+package com.neviswealth.searchservice.vector;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+public class ScalarVectorScorer implements VectorScorer {
+
+    @Override
+    public void squaredDistances(float[] query, MemorySegment vectors, int count, float[] distances) {
+        int dimension = query.length;
+        for (int v = 0; v < count; v++) {
+            long base = (long) v * dimension;
+            float sum = 0;
+            for (int i = 0; i < dimension; i++) {
+                float diff = query[i] - vectors.getAtIndex(ValueLayout.JAVA_FLOAT, base + i);
+                sum += diff * diff;
+            }
+            distances[v] = sum;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.neviswealth.searchservice.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Vectorized with the preferred species of the CPU; the tail shorter than one lane block is summed
+ * in scalar order, so tiny vectors score exactly like {@link ScalarVectorScorer}.
+ */
+public class SimdVectorScorer implements VectorScorer {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void squaredDistances(float[] query, MemorySegment vectors, int count, float[] distances) {
+        int dimension = query.length;
+        int upperBound = SPECIES.loopBound(dimension);
+        long rowBytes = (long) dimension * Float.BYTES;
+        for (int v = 0; v < count; v++) {
+            long base = v * rowBytes;
+            FloatVector acc = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < upperBound; i += SPECIES.length()) {
+                FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+                FloatVector x = FloatVector.fromMemorySegment(SPECIES, vectors, base + (long) i * Float.BYTES, ByteOrder.nativeOrder());
+                FloatVector diff = q.sub(x);
+                acc = diff.fma(diff, acc);
+            }
+            float sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                float diff = query[i] - vectors.getAtIndex(ValueLayout.JAVA_FLOAT, (long) v * dimension + i);
+                sum += diff * diff;
+            }
+            distances[v] = sum;
+        }
+    }
+}
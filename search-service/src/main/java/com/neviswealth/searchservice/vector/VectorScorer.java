@@ -0,0 +1,28 @@
+package com.neviswealth.searchservice.vector;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Squared euclidean distances between a query and vectors stored back to back in a segment.
+ */
+public interface VectorScorer {
+
+    /**
+     * Fills {@code distances[0..count)} with the distance of the query to each of the first {@code count} vectors.
+     */
+    void squaredDistances(float[] query, MemorySegment vectors, int count, float[] distances);
+
+    /**
+     * SIMD scorer when the {@code jdk.incubator.vector} module is available, scalar otherwise.
+     */
+    static VectorScorer create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new SimdVectorScorer();
+            } catch (LinkageError e) {
+                // fall through to the scalar loop
+            }
+        }
+        return new ScalarVectorScorer();
+    }
+}
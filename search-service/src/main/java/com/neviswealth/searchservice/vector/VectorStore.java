@@ -0,0 +1,37 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public interface VectorStore {
+
+    /**
+     * Best matching chunk per document, ordered by descending score.
+     *
+     * @param clientIds clients to search within, {@code null} searches every client
+     */
+    List<DocumentSearchRow> search(List<UUID> clientIds, float[] queryVector, int limit);
+
+    /**
+     * {@link #search} for many queries; {@code clientIds} entries may be null.
+     *
+     * @return results per query, in query order
+     */
+    default List<List<DocumentSearchRow>> searchAll(List<UUID> clientIds, List<float[]> queryVectors, int limit) {
+        List<List<DocumentSearchRow>> results = new ArrayList<>(queryVectors.size());
+        for (int i = 0; i < queryVectors.size(); i++) {
+            UUID clientId = clientIds.get(i);
+            results.add(search(clientId == null ? null : List.of(clientId), queryVectors.get(i), limit));
+        }
+        return results;
+    }
+
+    /**
+     * Rebuilds in-memory state from the database; no-op for stores served by it.
+     */
+    default void reload() {
+    }
+}
@@ -2,7 +2,12 @@ package com.neviswealth.searchservice.chunking;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -119,4 +124,67 @@ class ParagraphChunkingStrategyTest {
         assertThat(chunks.get(2).content()).isNotEmpty();
         assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.content().length()).isLessThanOrEqualTo(70));
     }
+
+    @Test
+    void chunksStreamedContentLikeTheWholeContent() {
+        ParagraphChunkingStrategy strategy = new ParagraphChunkingStrategy(40);
+        String content = "\n  Intro line one\nline two  \r\n\r\nShort.\n \t \n\nNext one.\n\u2003\nsame paragraph\n\n"
+                + "A paragraph long enough that it has to be split into several pieces by words.\n\n   \n";
+
+        List<Chunk> streamed = new ArrayList<>();
+        strategy.chunkStream("Title", new StringReader(content)).forEachRemaining(streamed::add);
+
+        assertThat(streamed).isEqualTo(strategy.chunk("Title", content));
+        assertThat(streamed).hasSizeGreaterThan(3);
+        assertThat(strategy.chunkStream("Title", new StringReader(" \n\n ")).hasNext()).isFalse();
+    }
+
+    @Test
+    void keepsAParagraphThatDoesNotFitTheMergedOnes() {
+        ParagraphChunkingStrategy strategy = new ParagraphChunkingStrategy(30);
+
+        List<Chunk> chunks = strategy.chunk("", "Short one.\n\nShort two.\n\nA third paragraph.\n\nTail.");
+
+        assertThat(chunks).extracting(Chunk::content)
+                .containsExactly("Short one.\n\nShort two.", "A third paragraph.\n\nTail.");
+    }
+
+    @Test
+    void findsTheParagraphsAndWordsRegexSplitWould() {
+        Random random = new Random(7);
+        String[] pieces = {"word", "x", "\n", "\n", " ", "\t", "\r", "\u000B", "\f", "\u2003", "\u00A0", "😀"};
+        ParagraphChunkingStrategy merging = new ParagraphChunkingStrategy(Integer.MAX_VALUE / 2);
+        ParagraphChunkingStrategy splitting = new ParagraphChunkingStrategy(1);
+        for (int run = 0; run < 500; run++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                content.append(pieces[random.nextInt(pieces.length)]);
+            }
+            List<String> paragraphs = Arrays.stream(content.toString().split("\\n\\s*\\n"))
+                    .map(String::strip)
+                    .filter(paragraph -> !paragraph.isEmpty())
+                    .toList();
+
+            assertThat(merging.chunk("", content.toString())).extracting(Chunk::content)
+                    .isEqualTo(paragraphs.isEmpty() ? List.of() : List.of(String.join("\n\n", paragraphs)));
+            assertThat(splitting.chunk("", content.toString())).extracting(Chunk::content)
+                    .isEqualTo(paragraphs.stream().flatMap(paragraph -> Arrays.stream(paragraph.split("\\s+"))).toList());
+            List<Chunk> streamed = new ArrayList<>();
+            splitting.chunkStream("", new StringReader(content.toString())).forEachRemaining(streamed::add);
+            assertThat(streamed).isEqualTo(splitting.chunk("", content.toString()));
+        }
+    }
+
+    @Test
+    void chunksACharSequenceAsTheIteratorAdvances() {
+        ParagraphChunkingStrategy strategy = new ParagraphChunkingStrategy(40);
+        StringBuilder content = new StringBuilder("First paragraph.\n\nSecond paragraph, long enough to be split by words.");
+
+        List<Chunk> chunks = new ArrayList<>();
+        strategy.chunks("Title", content).forEachRemaining(chunks::add);
+
+        assertThat(chunks).isEqualTo(strategy.chunk("Title", content.toString()));
+        assertThat(chunks.stream().map(Chunk::content).collect(Collectors.joining("|")))
+                .isEqualTo("Title|First paragraph.|Second paragraph, long enough to be|split by words.");
+    }
 }
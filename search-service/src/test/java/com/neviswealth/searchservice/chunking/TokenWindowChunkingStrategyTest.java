@@ -0,0 +1,93 @@
+package com.neviswealth.searchservice.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenWindowChunkingStrategyTest {
+
+    @Test
+    void cutsOverlappingWindowsOfTokens() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(4, 1);
+
+        List<Chunk> chunks = strategy.chunk("Report", "  one two\n\nthree  four five\tsix seven  \n");
+
+        assertThat(chunks).extracting(Chunk::content)
+                .containsExactly("Report", "one two\n\nthree  four", "four five\tsix seven");
+        assertThat(chunks).extracting(Chunk::index).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void doesNotRepeatTheOverlapAsALastChunk() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(3, 1);
+
+        assertThat(strategy.chunk("", "a b c d e")).extracting(Chunk::content).containsExactly("a b c", "c d e");
+        assertThat(strategy.chunk("", "a b c d")).extracting(Chunk::content).containsExactly("a b c", "c d");
+    }
+
+    @Test
+    void cutsAdjacentWindowsWithoutOverlap() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(2, 0);
+
+        assertThat(strategy.chunk(null, "a b c d e")).extracting(Chunk::content).containsExactly("a b", "c d", "e");
+    }
+
+    @Test
+    void countsLongRunsAsSeveralTokens() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(2, 0);
+        String run = "x".repeat(TokenWindowChunkingStrategy.MAX_TOKEN_CHARS);
+        String pair = "😀".repeat(TokenWindowChunkingStrategy.MAX_TOKEN_CHARS);
+
+        assertThat(strategy.chunk("", run + run + run + " y")).extracting(Chunk::content)
+                .containsExactly(run + run, run + " y");
+        assertThat(strategy.chunk("", pair)).allSatisfy(chunk ->
+                assertThat(Character.isLowSurrogate(chunk.content().charAt(0))).isFalse());
+        assertThat(String.join("", strategy.chunk("", pair).stream().map(Chunk::content).toList())).isEqualTo(pair);
+    }
+
+    @Test
+    void returnsEmptyListWhenContentIsBlank() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(4, 1);
+
+        assertThat(strategy.chunk("Report", " \n\t ")).isEmpty();
+        assertThat(strategy.chunk("Report", null)).isEmpty();
+    }
+
+    @Test
+    void rejectsAnOverlapThatIsNotShorterThanTheWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenWindowChunkingStrategy(4, 4));
+        assertThrows(IllegalArgumentException.class, () -> new TokenWindowChunkingStrategy(4, -1));
+    }
+
+    @Test
+    void streamsTheChunksOfTheWholeContent() {
+        TokenWindowChunkingStrategy strategy = new TokenWindowChunkingStrategy(5, 2);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("word").append(i).append(i % 7 == 0 ? "\n\n" : " ");
+        }
+
+        List<Chunk> streamed = new ArrayList<>();
+        strategy.chunkStream("Report", trickle(content.toString())).forEachRemaining(streamed::add);
+
+        assertThat(streamed).isEqualTo(strategy.chunk("Report", content.toString()));
+        assertThat(streamed).hasSize(1 + 166);
+    }
+
+    private static Reader trickle(String content) {
+        return new FilterReader(new StringReader(content)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+    }
+}
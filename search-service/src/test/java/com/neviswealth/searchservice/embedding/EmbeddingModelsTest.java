@@ -0,0 +1,60 @@
+package com.neviswealth.searchservice.embedding;
+
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelRow;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmbeddingModelsTest {
+
+    private final EmbeddingModelRepository repository = mock(EmbeddingModelRepository.class);
+    private final EmbeddingModel small = new EmbeddingModel("small", 3, new MockEmbeddingProvider(3));
+    private final EmbeddingModel large = new EmbeddingModel("large", 5, new MockEmbeddingProvider(5));
+
+    @Test
+    void offersTheNextModelUntilItIsActive() {
+        when(repository.findActive()).thenReturn(Optional.of(row(1, "small", 3)));
+        EmbeddingModels models = new EmbeddingModels(repository, small, large);
+        models.afterPropertiesSet();
+
+        assertThat(models.active()).isEqualTo(small);
+        assertThat(models.activeId()).isEqualTo(1);
+        assertThat(models.next()).contains(large);
+        assertThat(models.refresh()).isFalse();
+
+        when(repository.findActive()).thenReturn(Optional.of(row(2, "large", 5)));
+
+        assertThat(models.refresh()).isTrue();
+        assertThat(models.active()).isEqualTo(large);
+        assertThat(models.activeId()).isEqualTo(2);
+        assertThat(models.next()).isEmpty();
+    }
+
+    @Test
+    void rejectsAnActiveModelThatIsNotConfigured() {
+        when(repository.findActive()).thenReturn(Optional.of(row(2, "large", 5)));
+        EmbeddingModels models = new EmbeddingModels(repository, small, null);
+
+        assertThrows(IllegalStateException.class, models::afterPropertiesSet);
+    }
+
+    @Test
+    void rejectsAnActiveModelOfAnotherDimension() {
+        when(repository.findActive()).thenReturn(Optional.of(row(1, "small", 384)));
+        EmbeddingModels models = new EmbeddingModels(repository, small, null);
+
+        assertThrows(IllegalStateException.class, models::afterPropertiesSet);
+    }
+
+    private static ModelRow row(int id, String name, int dimension) {
+        return new ModelRow(id, name, dimension, ModelStatus.ACTIVE, 0, null, OffsetDateTime.now(), OffsetDateTime.now());
+    }
+}
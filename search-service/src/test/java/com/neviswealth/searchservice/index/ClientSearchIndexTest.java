@@ -0,0 +1,127 @@
+package com.neviswealth.searchservice.index;
+
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.ClientRepository.ClientSearchRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ClientSearchIndexTest {
+
+    private final ClientRepository clientRepository = mock(ClientRepository.class);
+    private final SearchingProperties properties = new SearchingProperties();
+    private ClientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Client> clients = List.of(
+                client("Maria", "Lopez", "maria.lopez@laurelwealth.com"),
+                client("Li", "Chen", "li.chen@laurelwealth.com"),
+                client("Marcus", "Wee", "marcus.wee@northbank.com"));
+        doAnswer(invocation -> {
+            Consumer<Client> consumer = invocation.getArgument(0);
+            clients.forEach(consumer);
+            return null;
+        }).when(clientRepository).forEach(any());
+        properties.getClientIndex().setEnabled(true);
+        index = new ClientSearchIndex(clientRepository, properties);
+        index.afterPropertiesSet();
+    }
+
+    @Test
+    void searchesByNameLikeTheDatabase() {
+        assertThat(emails(index.searchByNameOrDomain("mar", "mar", 20).orElseThrow()))
+                .containsExactly("maria.lopez@laurelwealth.com", "marcus.wee@northbank.com");
+        assertThat(emails(index.searchByNameOrDomain("mari", "mari", 20).orElseThrow()))
+                .containsExactly("maria.lopez@laurelwealth.com", "marcus.wee@northbank.com");
+        assertThat(emails(index.searchByNameOrDomain("maria l", "marial", 20).orElseThrow()))
+                .containsExactly("maria.lopez@laurelwealth.com");
+        assertThat(emails(index.searchByNameOrDomain("chen", "chen", 20).orElseThrow()))
+                .containsExactly("li.chen@laurelwealth.com");
+    }
+
+    @Test
+    void scoresSubstringsOneAndOthersByWordSimilarity() {
+        List<ClientSearchRow> rows = index.searchByNameOrDomain("mari", "mari", 20).orElseThrow();
+
+        assertThat(rows).extracting(ClientSearchRow::score).containsExactly(1.0, (double) 0.6f);
+    }
+
+    @Test
+    void searchesByDomainOrFullNameFragmentsWithTypos() {
+        assertThat(emails(index.searchByNameOrDomain("laurelwealth", "laurelwealth", 20).orElseThrow()))
+                .containsExactlyInAnyOrder("maria.lopez@laurelwealth.com", "li.chen@laurelwealth.com");
+        assertThat(emails(index.searchByNameOrDomain("marcus lee", "marcuslee", 20).orElseThrow()))
+                .containsExactly("marcus.wee@northbank.com");
+        assertThat(emails(index.searchByNameOrDomain("laurel weal", "laurelweal", 20).orElseThrow()))
+                .containsExactlyInAnyOrder("maria.lopez@laurelwealth.com", "li.chen@laurelwealth.com");
+    }
+
+    @Test
+    void searchesByEmail() {
+        assertThat(emails(index.searchByEmail("@northnank.com", 20).orElseThrow())).containsExactly("marcus.wee@northbank.com");
+        assertThat(emails(index.searchByEmail("wee@northnank", 20).orElseThrow())).containsExactly("marcus.wee@northbank.com");
+        assertThat(emails(index.searchByEmail("lopez@northbank.com", 20).orElseThrow())).containsExactly("marcus.wee@northbank.com");
+    }
+
+    @Test
+    void addsCreatedClientsOnce() {
+        Client joana = client("Joana", "Silva", "joana.silva@lisboa-mail.pt");
+
+        index.onClientCreated(new ClientCreatedEvent(joana));
+        index.onClientCreated(new ClientCreatedEvent(joana));
+
+        assertThat(emails(index.searchByNameOrDomain("joana", "joana", 20).orElseThrow()))
+                .containsExactly("joana.silva@lisboa-mail.pt");
+    }
+
+    @Test
+    void removesDeletedClientsForGood() {
+        Client joana = client("Joana", "Silva", "joana.silva@lisboa-mail.pt");
+        index.onClientCreated(new ClientCreatedEvent(joana));
+
+        index.onClientDeleted(new ClientDeletedEvent(joana));
+        index.onClientCreated(new ClientCreatedEvent(joana));
+
+        assertThat(index.searchByNameOrDomain("joana", "joana", 20).orElseThrow()).isEmpty();
+        assertThat(index.searchByEmail("joana.silva@lisboa-mail.pt", 20).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void limitsResults() {
+        assertThat(index.searchByNameOrDomain("laurelwealth", "laurelwealth", 1).orElseThrow()).hasSize(1);
+    }
+
+    @Test
+    void fallsBackWhenDisabled() {
+        properties.getClientIndex().setEnabled(false);
+        ClientSearchIndex disabled = new ClientSearchIndex(clientRepository, properties);
+        disabled.afterPropertiesSet();
+
+        assertThat(disabled.searchByNameOrDomain("mar", "mar", 20)).isEmpty();
+        assertThat(disabled.searchByEmail("mar@", 20)).isEmpty();
+    }
+
+    private static List<String> emails(List<ClientSearchRow> rows) {
+        return rows.stream().map(row -> row.client().email()).toList();
+    }
+
+    private static Client client(String firstName, String lastName, String email) {
+        String domain = email.substring(email.indexOf('@') + 1);
+        return new Client(UUID.randomUUID(), email, domain, domain.split("\\.")[0].replaceAll("[^a-z0-9]", ""),
+                firstName, lastName, (firstName + " " + lastName).toLowerCase(), "PT", OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,129 @@
+package com.neviswealth.searchservice.index;
+
+import com.neviswealth.searchservice.config.SearchingProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SuggestIndexTest {
+
+    private final ClientRepository clientRepository = mock(ClientRepository.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final Client maria = client("Maria", "Lopez", "maria.lopez@laurelwealth.com");
+    private final Client marcus = client("Marcus", "Wee", "marcus.wee@northbank.com");
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Client> clients = List.of(maria, client("Li", "Chen", "li.chen@laurelwealth.com"), marcus);
+        List<Document> documents = List.of(
+                document(maria, "Passport scan"),
+                document(maria, "Utility bill September 2025"),
+                document(marcus, "Bank statement Q3 2025"));
+        doAnswer(invocation -> {
+            Consumer<Client> consumer = invocation.getArgument(0);
+            clients.forEach(consumer);
+            return null;
+        }).when(clientRepository).forEach(any());
+        doAnswer(invocation -> {
+            Consumer<Document> consumer = invocation.getArgument(0);
+            documents.forEach(consumer);
+            return null;
+        }).when(documentRepository).forEachDocument(any());
+        index = new SuggestIndex(clientRepository, documentRepository, new SearchingProperties());
+        index.afterPropertiesSet();
+    }
+
+    @Test
+    void suggestsClientsByNameEmailOrDomain() {
+        assertThat(emails(index.suggest("Mar", null, 10))).containsExactly("marcus.wee@northbank.com", "maria.lopez@laurelwealth.com");
+        assertThat(emails(index.suggest("maria  l", null, 10))).containsExactly("maria.lopez@laurelwealth.com");
+        assertThat(emails(index.suggest("lop", null, 10))).containsExactly("maria.lopez@laurelwealth.com");
+        assertThat(emails(index.suggest("laurelw", null, 10)))
+                .containsExactly("maria.lopez@laurelwealth.com", "li.chen@laurelwealth.com");
+        assertThat(emails(index.suggest("north", null, 10))).containsExactly("marcus.wee@northbank.com");
+    }
+
+    @Test
+    void suggestsDocumentTitlesByAnyWord() {
+        assertThat(titles(index.suggest("bill", null, 10))).containsExactly("Utility bill September 2025");
+        assertThat(titles(index.suggest("2025", null, 10)))
+                .containsExactly("Utility bill September 2025", "Bank statement Q3 2025");
+        assertThat(index.suggest("xyz", null, 10).documents()).isEmpty();
+    }
+
+    @Test
+    void restrictsDocumentsToClientAndSkipsClients() {
+        SuggestIndex.Suggestions suggestions = index.suggest("2025", marcus.id(), 10);
+
+        assertThat(suggestions.clients()).isEmpty();
+        assertThat(suggestions.documents()).extracting(Document::title).containsExactly("Bank statement Q3 2025");
+    }
+
+    @Test
+    void dropsDeletedEntries() {
+        Document passport = index.suggest("passport", null, 10).documents().getFirst();
+
+        index.onDocumentDeleted(new DocumentDeletedEvent(passport));
+        assertThat(index.suggest("passport", null, 10).documents()).isEmpty();
+        assertThat(titles(index.suggest("bill", null, 10))).containsExactly("Utility bill September 2025");
+
+        index.onClientDeleted(new ClientDeletedEvent(maria));
+        assertThat(emails(index.suggest("Mar", null, 10))).containsExactly("marcus.wee@northbank.com");
+        assertThat(index.suggest("bill", null, 10).documents()).isEmpty();
+    }
+
+    @Test
+    void addsCreatedEntriesOnce() {
+        Client joana = client("Joana", "Silva", "joana.silva@lisboa-mail.pt");
+        Document bill = document(joana, "Water bill August 2025");
+
+        index.onClientCreated(new ClientCreatedEvent(joana));
+        index.onClientCreated(new ClientCreatedEvent(joana));
+        index.onDocumentCreated(new DocumentCreatedEvent(bill));
+
+        assertThat(emails(index.suggest("jo", null, 10))).containsExactly("joana.silva@lisboa-mail.pt");
+        assertThat(titles(index.suggest("bill", null, 10)))
+                .containsExactly("Water bill August 2025", "Utility bill September 2025");
+    }
+
+    @Test
+    void limitsSuggestions() {
+        assertThat(index.suggest("m", null, 1).clients()).hasSize(1);
+    }
+
+    private static List<String> emails(SuggestIndex.Suggestions suggestions) {
+        return suggestions.clients().stream().map(Client::email).toList();
+    }
+
+    private static List<String> titles(SuggestIndex.Suggestions suggestions) {
+        return suggestions.documents().stream().map(Document::title).toList();
+    }
+
+    private static Document document(Client client, String title) {
+        return new Document(UUID.randomUUID(), client.id(), title, "content", "hash", null, OffsetDateTime.now());
+    }
+
+    private static Client client(String firstName, String lastName, String email) {
+        String domain = email.substring(email.indexOf('@') + 1);
+        return new Client(UUID.randomUUID(), email, domain, domain.split("\\.")[0].replaceAll("[^a-z0-9]", ""),
+                firstName, lastName, (firstName + " " + lastName).toLowerCase(), "PT", OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,35 @@
+package com.neviswealth.searchservice.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramsTest {
+
+    @Test
+    void matchesPgTrgmDocumentationExamples() {
+        assertThat(Trigrams.unique("word")).hasSize(5);
+        assertThat(Trigrams.unique("two words")).hasSize(10);
+        assertThat(Trigrams.similarity("word", "two words")).isEqualTo(4f / 11);
+        assertThat(Trigrams.wordSimilarity("word", "two words")).isEqualTo(0.8f);
+    }
+
+    @Test
+    void ignoresCaseAndPunctuation() {
+        assertThat(Trigrams.similarity("Maria.Lopez", "maria lopez")).isEqualTo(1f);
+        assertThat(Trigrams.unique("  --  ")).isEmpty();
+    }
+
+    @Test
+    void scoresPrefixOfAWordAgainstBestExtent() {
+        assertThat(Trigrams.wordSimilarity("mari", "marcus wee marcus.wee@northbank.com northbank")).isEqualTo(0.6f);
+        assertThat(Trigrams.wordSimilarity("maria", "maria lopez")).isEqualTo(1f);
+        assertThat(Trigrams.wordSimilarity("zzz", "maria lopez")).isZero();
+    }
+
+    @Test
+    void interiorTrigramsSkipPaddingAndShortWords() {
+        assertThat(Trigrams.interior("maria l")).hasSize(3);
+        assertThat(Trigrams.interior("li")).isEmpty();
+    }
+}
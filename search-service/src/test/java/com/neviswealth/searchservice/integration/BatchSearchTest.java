@@ -0,0 +1,106 @@
+package com.neviswealth.searchservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+class BatchSearchTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("search.exact-scan.enabled", () -> false);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+    }
+
+    @Test
+    void streamsOneResultPerQueryInOrder() throws Exception {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{-1, -2, -3});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Passport scan", "Passport of Maria"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("Utility bill", "Water utility bill"));
+
+        when(embeddingProvider.embedAll(anyList()))
+                .thenReturn(List.of(new float[]{1, 2, 3}, new float[]{-1, -2, -3}));
+        BatchSearchRequest request = new BatchSearchRequest(List.of(
+                new BatchSearchRequest.Query("passport of maria", null),
+                new BatchSearchRequest.Query("li.chen@laurelwealth.com", null),
+                new BatchSearchRequest.Query("something else", li.id())));
+
+        ResponseEntity<String> response = testRestTemplate.postForEntity("/search/batch", request, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<BatchSearchResultDto> results = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            results.add(objectMapper.readValue(line, BatchSearchResultDto.class));
+        }
+        assertThat(results).extracting(BatchSearchResultDto::index).containsExactly(0, 1, 2);
+        assertThat(results.get(0).documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("Passport scan");
+        assertThat(results.get(1).clients()).extracting(ScoredClientDto::client).extracting(ClientDto::email)
+                .containsExactly("li.chen@laurelwealth.com");
+        assertThat(results.get(2).clients()).isNull();
+        assertThat(results.get(2).documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("Utility bill");
+    }
+
+    @Test
+    void rejectsUnknownClientBeforeStreaming() {
+        BatchSearchRequest request = new BatchSearchRequest(List.of(new BatchSearchRequest.Query("any", UUID.randomUUID())));
+
+        ResponseEntity<String> response = testRestTemplate.postForEntity("/search/batch", request, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void rejectsEmptyBatch() {
+        ResponseEntity<String> response = testRestTemplate.postForEntity("/search/batch", new BatchSearchRequest(List.of()), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
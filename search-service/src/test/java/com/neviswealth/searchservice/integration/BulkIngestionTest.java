@@ -0,0 +1,103 @@
+package com.neviswealth.searchservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.api.dto.IngestionResultDto.Status;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+class BulkIngestionTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("ingestion.batch-size", () -> 2);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void copiesDocumentsAndChunksAndReportsEachLine() throws Exception {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(
+                new Chunk(0, i.getArgument(0)),
+                new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embedAll(anyList()))
+                .thenAnswer(i -> ((List<?>) i.getArgument(0)).stream().map(text -> new float[]{0.5f, -1f, 2f}).toList());
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Passport", "Passport of Maria"));
+
+        String body = String.join("\n",
+                objectMapper.writeValueAsString(new BulkDocumentRequest(maria.id(), "Bank statement", "Balance zürich")),
+                "{not json",
+                objectMapper.writeValueAsString(new BulkDocumentRequest(maria.id(), "Passport", "Duplicate")),
+                objectMapper.writeValueAsString(new BulkDocumentRequest(UUID.randomUUID(), "Tax return", "Income")),
+                objectMapper.writeValueAsString(new BulkDocumentRequest(maria.id(), "Tax return", "Income")));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        ResponseEntity<String> response = testRestTemplate.postForEntity("/documents/bulk", new HttpEntity<>(body, headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<IngestionResultDto> results = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            results.add(objectMapper.readValue(line, IngestionResultDto.class));
+        }
+        assertThat(results).extracting(IngestionResultDto::status)
+                .containsExactly(Status.CREATED, Status.INVALID, Status.CONFLICT, Status.NOT_FOUND, Status.CREATED);
+
+        DocumentWithContentDto statement = documentController.getDocument(results.getFirst().id());
+        assertThat(statement.title()).isEqualTo("Bank statement");
+        assertThat(statement.content()).isEqualTo("Balance zürich");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from document_chunks where document_id = ?",
+                Integer.class, statement.id())).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select embedding::text from documents where id = ?",
+                String.class, statement.id())).isEqualTo("[0.5,-1,2]");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from documents where client_id = ?",
+                Integer.class, maria.id())).isEqualTo(3);
+    }
+}
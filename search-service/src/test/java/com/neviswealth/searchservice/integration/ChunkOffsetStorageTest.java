@@ -0,0 +1,93 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ChunkOffsetStorageTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("chunking.store-offsets", () -> true);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void storesOffsetsAndServesSnippetsFromTheContent() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(
+                new Chunk(0, i.getArgument(0)),
+                new Chunk(1, "Advisory 😀 fee of 1%"),
+                new Chunk(2, "Custody is free for newbie clients")));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{-1, 0, 0})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{-1, 0, 0});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        DocumentDto document = documentController.createDocument(maria.id(),
+                new CreateDocumentRequest("Fee schedule", "Advisory 😀 fee of 1%\n\nCustody is free for newbie clients"));
+
+        List<Map<String, Object>> chunks = jdbcTemplate.queryForList(
+                "select content, chunk_start, chunk_end from document_chunks where document_id = ? order by chunk_index", document.id());
+        assertThat(chunks).containsExactly(
+                chunk("Fee schedule", null, null),
+                chunk(null, 0, 20),
+                chunk(null, 22, 56));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        SearchResultDto byEmbedding = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "xyzzy");
+        assertThat(byEmbedding.documents()).extracting(ScoredDocumentDto::matchedSnippet)
+                .containsExactly("Advisory 😀 fee of 1%");
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{-3, 2, 3});
+        SearchResultDto lexically = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "newbie");
+        assertThat(lexically.documents()).extracting(ScoredDocumentDto::matchedSnippet)
+                .containsExactly("Custody is free for newbie clients");
+    }
+
+    private static Map<String, Object> chunk(String content, Integer start, Integer end) {
+        Map<String, Object> chunk = new HashMap<>();
+        chunk.put("content", content);
+        chunk.put("chunk_start", start);
+        chunk.put("chunk_end", end);
+        return chunk;
+    }
+}
@@ -0,0 +1,106 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientImportTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("ingestion.client-batch-size", () -> 2);
+    }
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void importsCsvAndSkipsTakenEmails() {
+        clientController.createClient(new CreateClientRequest("Sam", "Peters", "sam.peters@northbank.com", "US"));
+        String csv = """
+                first_name,last_name,email,country_of_residence
+                Maria,Lopez,Maria.Lopez@Laurel-Wealth.com,ES
+                "Chen, Jr.",Li,li.chen@laurelwealth.com,
+                Sam,Peters,SAM.PETERS@northbank.com,US
+                Maria,Lopez,maria.lopez@laurel-wealth.com,ES
+                Sofia,Romero,sofia.romerogmail.com,ES
+                "broken,line
+                """;
+
+        ClientImportSummaryDto summary = post(csv, MediaType.parseMediaType("text/csv"));
+
+        assertThat(summary.inserted()).isEqualTo(2);
+        assertThat(summary.duplicates()).isEqualTo(2);
+        assertThat(summary.invalid()).isEqualTo(2);
+        assertThat(summary.invalidRows()).extracting(ClientImportSummaryDto.InvalidRow::row).containsExactly(5, 6);
+
+        List<ClientDto> clients = clientController.listClients(null, null, null, 100).items();
+        assertThat(clients).extracting(ClientDto::email).containsExactlyInAnyOrder(
+                "sam.peters@northbank.com", "maria.lopez@laurel-wealth.com", "li.chen@laurelwealth.com");
+        assertThat(clients).filteredOn(client -> client.email().startsWith("li.chen"))
+                .extracting(ClientDto::firstName).containsExactly("Chen, Jr.");
+        assertThat(jdbcTemplate.queryForObject("select email_domain_slug from clients where email = 'maria.lopez@laurel-wealth.com'",
+                String.class)).isEqualTo("laurelwealth");
+    }
+
+    @Test
+    void importsJsonLines() {
+        String ndjson = """
+                {"firstName":"Maria","lastName":"Lopez","email":"maria.lopez@laurelwealth.com","countryOfResidence":"ES"}
+                {"firstName":"Li"
+                {"firstName":"Li","lastName":"Chen","email":"li.chen@laurelwealth.com"}
+                """;
+
+        ClientImportSummaryDto summary = post(ndjson, MediaType.APPLICATION_NDJSON);
+
+        assertThat(summary.inserted()).isEqualTo(2);
+        assertThat(summary.invalidRows()).containsExactly(new ClientImportSummaryDto.InvalidRow(2, "Malformed row"));
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = testRestTemplate.postForEntity("/clients/import",
+                new HttpEntity<>("name,email\nMaria,maria@laurelwealth.com\n", headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private ClientImportSummaryDto post(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<ClientImportSummaryDto> response = testRestTemplate.postForEntity("/clients/import",
+                new HttpEntity<>(body, headers), ClientImportSummaryDto.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+}
@@ -0,0 +1,138 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ClientScopedDocumentSearchTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("search.exact-scan.enabled", () -> false);
+        registry.add("search.client-scope.exact-max-chunks", () -> 2);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+    }
+
+    @Test
+    void storesOwningClientOnChunks() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from document_chunks where client_id = ?", Integer.class, maria.id()))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void scansSmallClientExactly() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("My other title", "My other content"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1.2f, 2, 3});
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}&clientId={client}", SearchResultDto.class, "any", li.id());
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("My other title");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::score)
+                .containsExactly(0.8000000674277657);
+    }
+
+    @Test
+    void searchesLargeClientThroughIndex() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.2f, 2, 3})
+                .thenReturn(new float[]{1.2f, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My second title", "My second content"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("Exact match", "Exact content"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1.2f, 2, 3});
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}&clientId={client}", SearchResultDto.class, "any", maria.id());
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("My second title", "My title");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::score)
+                .containsExactly(0.8000000674277657, 0.7999999556690504);
+    }
+
+    @Test
+    void searchesSeveralClientsInOneQuery() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.2f, 2, 3})
+                .thenReturn(new float[]{1.2f, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+        ClientDto marcus = clientController.createClient(new CreateClientRequest("Marcus", "Wee", "marcus.wee@northbank.com", "UK"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("My other title", "My other content"));
+        documentController.createDocument(marcus.id(), new CreateDocumentRequest("Exact match", "Exact content"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1.2f, 2, 3});
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}&clientId={first}&clientId={second}",
+                SearchResultDto.class, "any", maria.id(), li.id());
+        assertThat(result.clients()).isNull();
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("My other title", "My title");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::score)
+                .containsExactly(0.8000000674277657, 0.7999999556690504);
+    }
+}
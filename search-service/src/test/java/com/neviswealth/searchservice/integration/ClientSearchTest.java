@@ -58,6 +58,14 @@ class ClientSearchTest extends AbstractIntegrationTest {
                 .containsExactly("maria.lopez@laurelwealth.com");
     }
 
+    @Test
+    void searchByPartiallyTypedName() {
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "marc");
+        assertThat(result.clients()).extracting(ScoredClientDto::client).extracting(ClientDto::email)
+                .containsExactly("marcus.wee@northbank.com", "maria.lopez@laurelwealth.com");
+        assertThat(result.clients()).extracting(ScoredClientDto::score).first().isEqualTo(1.0);
+    }
+
     @Test
     void searchByLastName() throws Exception {
         SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "Chen");
@@ -0,0 +1,108 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import com.neviswealth.searchservice.service.PurgeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class DeletionTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("purge.batch-size", () -> 1);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private PurgeService purgeService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void deletedDocumentLeavesSearchAtOnceAndItsTitleCanBeReused() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        DocumentDto fees = documentController.createDocument(maria.id(), new CreateDocumentRequest("Fees", "Advisory fee of 1%"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Custody", "Custody is free"));
+
+        ResponseEntity<Void> deleted = testRestTemplate.exchange("/documents/{id}", HttpMethod.DELETE, null, Void.class, fees.id());
+
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "any");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("Custody");
+        assertThat(testRestTemplate.getForEntity("/documents/{id}", String.class, fees.id()).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(testRestTemplate.exchange("/documents/{id}", HttpMethod.DELETE, null, Void.class, fees.id()).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        DocumentDto replacement = documentController.createDocument(maria.id(), new CreateDocumentRequest("Fees", "Advisory fee of 2%"));
+        assertThat(replacement.id()).isNotEqualTo(fees.id());
+    }
+
+    @Test
+    void purgeRemovesDeletedRowsInBatches() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Fees", "Advisory fee of 1%"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("Custody", "Custody is free"));
+
+        assertThat(testRestTemplate.exchange("/clients/{id}", HttpMethod.DELETE, null, Void.class, maria.id()).getStatusCode())
+                .isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(testRestTemplate.getForEntity("/clients/{id}", String.class, maria.id()).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "any");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("Custody");
+
+        // batches of one chunk: as many runs as it takes to reach the documents and the client
+        for (int run = 0; run < 10; run++) {
+            purgeService.purge();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from document_chunks", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("select title from documents", String.class)).containsExactly("Custody");
+        assertThat(jdbcTemplate.queryForList("select email from clients", String.class)).containsExactly("li.chen@laurelwealth.com");
+        ClientDto returning = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        assertThat(returning.id()).isNotEqualTo(maria.id());
+    }
+}
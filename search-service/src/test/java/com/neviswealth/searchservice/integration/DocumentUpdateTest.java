@@ -0,0 +1,100 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
+import com.neviswealth.searchservice.api.dto.DocumentDto;
+import com.neviswealth.searchservice.api.dto.UpdateDocumentRequest;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DocumentUpdateTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void reembedsOnlyNewParagraphsAndDropsTheSummary() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> {
+            List<Chunk> chunks = new ArrayList<>(List.of(new Chunk(0, i.getArgument(0))));
+            for (String paragraph : ((String) i.getArgument(1)).split("\n\n")) {
+                chunks.add(new Chunk(chunks.size(), paragraph));
+            }
+            return chunks;
+        });
+        when(embeddingProvider.embed(any())).thenAnswer(i -> new float[]{((String) i.getArgument(0)).length(), 1, 1});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        DocumentDto document = documentController.createDocument(maria.id(),
+                new CreateDocumentRequest("Fees", "Advisory fee of 1%\n\nCustody is free\n\nNo exit fees"));
+        jdbcTemplate.update("update documents set summary = 'old summary' where id = ?", document.id());
+        clearInvocations(embeddingProvider);
+
+        ResponseEntity<DocumentDto> response = testRestTemplate.exchange("/documents/{id}", HttpMethod.PUT,
+                new HttpEntity<>(new UpdateDocumentRequest("Advisory fee of 1%\n\nTrading costs 5 bps\n\nCustody is free")),
+                DocumentDto.class, document.id());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(embeddingProvider).embed("Trading costs 5 bps");
+        verifyNoMoreInteractions(embeddingProvider);
+        assertThat(jdbcTemplate.queryForList("select content from document_chunks where document_id = ? order by chunk_index",
+                String.class, document.id())).containsExactly("Fees", "Advisory fee of 1%", "Trading costs 5 bps", "Custody is free");
+        assertThat(jdbcTemplate.queryForObject("select embedding::text from document_chunks where document_id = ? and chunk_index = 3",
+                String.class, document.id())).isEqualTo("[15,1,1]");
+        assertThat(jdbcTemplate.queryForObject("select summary from documents where id = ?", String.class, document.id())).isNull();
+        assertThat(jdbcTemplate.queryForObject("select content from documents where id = ?", String.class, document.id()))
+                .isEqualTo("Advisory fee of 1%\n\nTrading costs 5 bps\n\nCustody is free");
+    }
+
+    @Test
+    void updatingAnUnknownDocumentIsNotFound() {
+        ResponseEntity<String> response = testRestTemplate.exchange("/documents/{id}", HttpMethod.PUT,
+                new HttpEntity<>(new UpdateDocumentRequest("content")), String.class, UUID.randomUUID());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,114 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.api.dto.DocumentDto;
+import com.neviswealth.searchservice.api.dto.DocumentWithContentDto;
+import com.neviswealth.searchservice.chunking.ParagraphChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import com.neviswealth.searchservice.util.ContentHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+class DocumentUploadTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("chunking.max-chars", () -> 60);
+        registry.add("ingestion.upload-window", () -> 2);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void uploadsPlainTextInWindows() {
+        when(embeddingProvider.embedAll(anyList()))
+                .thenAnswer(i -> ((List<?>) i.getArgument(0)).stream().map(text -> new float[]{1, 0, 0}).toList());
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            content.append("Paragraph ").append(i).append(" of the annual report, zürich office.\n\n");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+
+        ResponseEntity<DocumentDto> response = testRestTemplate.postForEntity("/clients/{clientId}/documents?title=Annual report",
+                new HttpEntity<>(content.toString(), headers), DocumentDto.class, maria.id());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        DocumentWithContentDto stored = documentController.getDocument(response.getBody().id());
+        assertThat(stored.content()).isEqualTo(content.toString().trim());
+        assertThat(jdbcTemplate.queryForObject("select content_hash from documents where id = ?", String.class, stored.id()))
+                .isEqualTo(ContentHash.sha256(content.toString().trim()));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from document_chunks where document_id = ?", Integer.class, stored.id()))
+                .isEqualTo(new ParagraphChunkingStrategy(60).chunk("Annual report", content.toString()).size());
+        assertThat(jdbcTemplate.queryForObject("select embedding::text from documents where id = ?", String.class, stored.id()))
+                .isEqualTo("[1,0,0]");
+    }
+
+    @Test
+    void uploadsFileAndRejectsTakenTitle() {
+        when(embeddingProvider.embedAll(anyList()))
+                .thenAnswer(i -> ((List<?>) i.getArgument(0)).stream().map(text -> new float[]{0, 1, 0}).toList());
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("title", "Passport");
+        form.add("file", new ByteArrayResource("Passport of Maria".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "passport.txt";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<DocumentDto> created = testRestTemplate.postForEntity("/clients/{clientId}/documents",
+                new HttpEntity<>(form, headers), DocumentDto.class, maria.id());
+        ResponseEntity<String> conflict = testRestTemplate.postForEntity("/clients/{clientId}/documents",
+                new HttpEntity<>(form, headers), String.class, maria.id());
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(documentController.getDocument(created.getBody().id()).content()).isEqualTo("Passport of Maria");
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+}
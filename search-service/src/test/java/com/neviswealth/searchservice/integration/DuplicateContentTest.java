@@ -0,0 +1,109 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.ClientDto;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
+import com.neviswealth.searchservice.api.dto.DocumentDto;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DuplicateContentTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void clonesChunksOfTheSameDocumentUploadedForAnotherClient() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Fee schedule", "Advisory fee of 1%"));
+        DocumentDto copy = documentController.createDocument(li.id(), new CreateDocumentRequest("Fee schedule", "Advisory fee of 1%"));
+
+        verify(chunkingStrategy, times(1)).chunk(any(), any());
+        verify(embeddingProvider, times(2)).embed(any());
+        assertThat(jdbcTemplate.queryForList("select content from document_chunks where document_id = ? and client_id = ? order by chunk_index",
+                String.class, copy.id(), li.id())).containsExactly("Fee schedule", "Advisory fee of 1%");
+        assertThat(jdbcTemplate.queryForObject("select embedding is not null from documents where id = ?", Boolean.class, copy.id())).isTrue();
+    }
+
+    @Test
+    void chunksAgainWhenTheTwinWasChunkedUnderOtherSettings() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        DocumentDto original = documentController.createDocument(maria.id(), new CreateDocumentRequest("Fee schedule", "Advisory fee of 1%"));
+        jdbcTemplate.update("update documents set chunking = 'paragraph:1' where id = ?", original.id());
+        documentController.createDocument(li.id(), new CreateDocumentRequest("Fee schedule", "Advisory fee of 1%"));
+
+        verify(chunkingStrategy, times(2)).chunk(any(), any());
+        verify(embeddingProvider, times(4)).embed(any());
+    }
+
+    @Test
+    void embedsOnlyTheTitleChunkOfTheSameContentUnderAnotherTitle() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(chunkingStrategy.chunks(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)),
+                new Chunk(1, i.getArgument(1).toString())).iterator());
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 0, 0})
+                .thenReturn(new float[]{0, 1, 0})
+                .thenReturn(new float[]{0, 0, 1});
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Fee schedule", "Advisory fee of 1%"));
+        clearInvocations(chunkingStrategy, embeddingProvider);
+        DocumentDto renamed = documentController.createDocument(maria.id(), new CreateDocumentRequest("Fees", "Advisory fee of 1%"));
+
+        verify(embeddingProvider, times(1)).embed("Fees");
+        verifyNoMoreInteractions(embeddingProvider);
+        verify(chunkingStrategy, never()).chunk(any(), any());
+        assertThat(jdbcTemplate.queryForList("select content from document_chunks where document_id = ? order by chunk_index",
+                String.class, renamed.id())).containsExactly("Fees", "Advisory fee of 1%");
+        assertThat(jdbcTemplate.queryForObject("select embedding <-> '[0,0.70710677,0.70710677]' from documents where id = ?",
+                Double.class, renamed.id())).isLessThan(1e-6);
+    }
+}
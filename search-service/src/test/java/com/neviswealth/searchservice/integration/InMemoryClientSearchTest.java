@@ -0,0 +1,27 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.index.ClientSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Runs the client search scenarios against the in-memory index, results must not differ from the database.
+ */
+class InMemoryClientSearchTest extends ClientSearchTest {
+
+    @DynamicPropertySource
+    static void enableClientIndex(DynamicPropertyRegistry registry) {
+        registry.add("search.client-index.enabled", () -> true);
+    }
+
+    @Autowired
+    private ClientSearchIndex clientSearchIndex;
+
+    @BeforeEach
+    void reloadIndex() {
+        // clients of previous tests are truncated behind the index's back
+        clientSearchIndex.reload();
+    }
+}
@@ -0,0 +1,119 @@
+package com.neviswealth.searchservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ListingTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void pagesThroughDocumentsOfOneClient() {
+        when(chunkingStrategy.chunk(any(), any())).thenReturn(List.of());
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Passport", "Passport of Maria"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("Utility bill", "Water utility bill"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Bank statement", "Balance"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Tax return", "Income"));
+
+        PageDto<DocumentDto> first = documentController.listDocuments(maria.id(), null, null, null, 2);
+        assertThat(first.items()).extracting(DocumentDto::title).containsExactly("Passport", "Bank statement");
+        assertThat(first.nextCursor()).isNotNull();
+
+        PageDto<DocumentDto> second = documentController.listDocuments(maria.id(), null, null, first.nextCursor(), 2);
+        assertThat(second.items()).extracting(DocumentDto::title).containsExactly("Tax return");
+        assertThat(second.nextCursor()).isNull();
+
+        PageDto<DocumentDto> all = documentController.listDocuments(null, null, null, null, 100);
+        assertThat(all.items()).hasSize(4);
+        PageDto<DocumentDto> none = documentController.listDocuments(null, all.items().getLast().createdAt().plusSeconds(1), null, null, 100);
+        assertThat(none.items()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughClients() {
+        clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+        clientController.createClient(new CreateClientRequest("Sam", "Peters", "sam.peters@northbank.com", "US"));
+
+        PageDto<ClientDto> first = clientController.listClients(null, null, null, 2);
+        PageDto<ClientDto> second = clientController.listClients(null, null, first.nextCursor(), 2);
+
+        assertThat(first.items()).extracting(ClientDto::email)
+                .containsExactly("maria.lopez@laurelwealth.com", "li.chen@laurelwealth.com");
+        assertThat(second.items()).extracting(ClientDto::email).containsExactly("sam.peters@northbank.com");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void streamsDocumentsAsJsonLines() throws Exception {
+        when(chunkingStrategy.chunk(any(), any())).thenReturn(List.of());
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Passport", "Passport of Maria"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Bank statement", "Balance"));
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity("/documents/stream?clientId={clientId}", String.class, maria.id());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<DocumentDto> documents = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            documents.add(objectMapper.readValue(line, DocumentDto.class));
+        }
+        assertThat(documents).extracting(DocumentDto::title).containsExactly("Passport", "Bank statement");
+    }
+
+    @Test
+    void rejectsInvalidCursorAndLimit() {
+        assertThat(testRestTemplate.getForEntity("/documents?cursor=nonsense", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(testRestTemplate.getForEntity("/clients?limit=0", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
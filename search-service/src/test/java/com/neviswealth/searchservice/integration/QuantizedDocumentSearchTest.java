@@ -0,0 +1,131 @@
+package com.neviswealth.searchservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+class QuantizedDocumentSearchTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("search.quantization.enabled", () -> true);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+    }
+
+    @Test
+    void rescoresQuantizedCandidatesWithExactDistance() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("My other title", "My other content"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1.2f, 2, 3});
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "any");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("My other title", "My title");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::score)
+                .containsExactly(0.8000000674277657, 0.7999999556690504);
+    }
+
+    @Test
+    void dropsCandidatesBelowThreshold() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{-1, -2, -3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Near", "Near"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Far", "Far"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "zzzz");
+        assertThat(result.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("Near");
+    }
+
+    @Test
+    void batchRescoresQuantizedCandidatesLikeSingleSearches() throws Exception {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(0)), new Chunk(1, i.getArgument(1))));
+        when(embeddingProvider.embed(any()))
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3})
+                .thenReturn(new float[]{1.4f, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto li = clientController.createClient(new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", "DE"));
+
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("My title", "My content"));
+        documentController.createDocument(li.id(), new CreateDocumentRequest("My other title", "My other content"));
+
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1.2f, 2, 3});
+        SearchResultDto all = testRestTemplate.getForObject("/search?q={query}", SearchResultDto.class, "any");
+        SearchResultDto scoped = testRestTemplate.getForObject("/search?q={query}&clientId={clientId}", SearchResultDto.class,
+                "any", maria.id());
+
+        when(embeddingProvider.embedAll(anyList()))
+                .thenReturn(List.of(new float[]{1.2f, 2, 3}, new float[]{1.2f, 2, 3}));
+        BatchSearchRequest request = new BatchSearchRequest(List.of(
+                new BatchSearchRequest.Query("any", null),
+                new BatchSearchRequest.Query("any", maria.id())));
+        String body = testRestTemplate.postForObject("/search/batch", request, String.class);
+        List<BatchSearchResultDto> results = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            results.add(objectMapper.readValue(line, BatchSearchResultDto.class));
+        }
+
+        assertThat(results).extracting(BatchSearchResultDto::index).containsExactly(0, 1);
+        assertThat(results.get(0).documents()).isEqualTo(all.documents());
+        assertThat(results.get(1).documents()).isEqualTo(scoped.documents());
+        assertThat(all.documents()).extracting(ScoredDocumentDto::document).extracting(DocumentDto::title)
+                .containsExactly("My other title", "My title");
+    }
+}
@@ -0,0 +1,116 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.embedding.EmbeddingModelChangedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.service.ReembeddingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ReembeddingTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+        registry.add("embedding.next.model", () -> "next");
+        registry.add("embedding.next.provider", () -> "mock");
+        registry.add("embedding.next.dimension", () -> 5);
+        registry.add("embedding.reembedding.batch-size", () -> 2);
+        registry.add("embedding.reembedding.batches-per-run", () -> 1);
+        registry.add("embedding.reembedding.interval", () -> "PT1H");
+    }
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private ReembeddingService reembeddingService;
+    @Autowired
+    private EmbeddingModels embeddingModels;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void reembedsTheCorpusAndSwitchesSearchToTheNextModel() {
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        DocumentDto fees = documentController.createDocument(maria.id(),
+                new CreateDocumentRequest("Fees", "Advisory fee of 1%\n\nCustody is free\n\nNo exit fees"));
+        documentController.createDocument(maria.id(),
+                new CreateDocumentRequest("Allocation", "Sixty percent equities\n\nForty percent bonds"));
+        int defaultModelId = embeddingModels.activeId();
+
+        reembeddingService.run();
+
+        EmbeddingModelDto[] models = testRestTemplate.getForObject("/embedding-models", EmbeddingModelDto[].class);
+        assertThat(models).extracting(EmbeddingModelDto::name, EmbeddingModelDto::status)
+                .containsExactly(tuple("default", "ACTIVE"), tuple("next", "BUILDING"));
+        assertThat(models[1].reembeddedChunks()).isEqualTo(2);
+        assertThat(embeddingModels.active().name()).isEqualTo("default");
+
+        for (int run = 0; run < 10 && !embeddingModels.active().name().equals("next"); run++) {
+            reembeddingService.run();
+        }
+
+        assertThat(embeddingModels.active().name()).isEqualTo("next");
+        assertThat(jdbcTemplate.queryForList("select distinct vector_dims(embedding) from document_chunks", Integer.class))
+                .containsExactly(5);
+        assertThat(jdbcTemplate.queryForList("select distinct vector_dims(embedding) from documents", Integer.class))
+                .containsExactly(5);
+        assertThat(jdbcTemplate.queryForList("""
+                select distinct m.name from document_chunks dc join embedding_models m on m.id = dc.embedding_model_id
+                """, String.class)).containsExactly("next");
+        models = testRestTemplate.getForObject("/embedding-models", EmbeddingModelDto[].class);
+        assertThat(Arrays.stream(models).map(EmbeddingModelDto::status)).containsExactly("RETIRED", "ACTIVE");
+        assertThat(models[1].reembeddedChunks())
+                .isEqualTo(jdbcTemplate.queryForObject("select count(*) from document_chunks", Long.class));
+
+        SearchResultDto result = testRestTemplate.getForObject("/search?q={q}", SearchResultDto.class, "Custody is free");
+        assertThat(result.documents()).extracting(document -> document.document().id()).contains(fees.id());
+
+        DocumentDto tax = documentController.createDocument(maria.id(),
+                new CreateDocumentRequest("Tax", "Withholding tax is reclaimed"));
+        assertThat(jdbcTemplate.queryForObject("""
+                select vector_dims(dc.embedding) from document_chunks dc join documents d on d.id = dc.document_id
+                where d.title = 'Tax' limit 1
+                """, Integer.class)).isEqualTo(5);
+
+        // embedded with the default model just before the switch, written after it
+        Document stale = new Document(tax.id(), maria.id(), "Tax", "Withholding tax is reclaimed", null, null, null);
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                documentRepository.insertChunks(stale, List.of(new DocumentChunk(tax.id(), 2, "Withholding tax",
+                        new float[]{1, 0, 0})), defaultModelId)))
+                .isInstanceOf(EmbeddingModelChangedException.class);
+    }
+}
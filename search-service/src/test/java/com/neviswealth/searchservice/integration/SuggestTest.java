@@ -0,0 +1,80 @@
+package com.neviswealth.searchservice.integration;
+
+import com.neviswealth.searchservice.api.ClientController;
+import com.neviswealth.searchservice.api.DocumentController;
+import com.neviswealth.searchservice.api.dto.*;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.SuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class SuggestTest extends AbstractIntegrationTest {
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("embedding.dimension", () -> 3);
+    }
+
+    @MockitoBean
+    private EmbeddingProvider embeddingProvider;
+    @MockitoBean
+    private ChunkingStrategy chunkingStrategy;
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private DocumentController documentController;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("truncate table clients cascade");
+        suggestIndex.reload();
+    }
+
+    @Test
+    void suggestsCreatedClientsAndDocumentTitles() {
+        when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(1))));
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 2, 3});
+
+        ClientDto maria = clientController.createClient(new CreateClientRequest("Maria", "Lopez", "maria.lopez@laurelwealth.com", "ES"));
+        ClientDto marcus = clientController.createClient(new CreateClientRequest("Marcus", "Wee", "marcus.wee@northbank.com", "UK"));
+        documentController.createDocument(maria.id(), new CreateDocumentRequest("Mortgage statement 2025", "Balance"));
+        documentController.createDocument(marcus.id(), new CreateDocumentRequest("Marriage certificate", "Certificate"));
+
+        SuggestResultDto result = testRestTemplate.getForObject("/search/suggest?prefix={prefix}", SuggestResultDto.class, "Mar");
+        assertThat(result.clients()).extracting(ClientDto::email)
+                .containsExactly("marcus.wee@northbank.com", "maria.lopez@laurelwealth.com");
+        assertThat(result.documents()).extracting(DocumentDto::title).containsExactly("Marriage certificate");
+
+        SuggestResultDto byClient = testRestTemplate.getForObject("/search/suggest?prefix={prefix}&clientId={clientId}",
+                SuggestResultDto.class, "statement", maria.id());
+        assertThat(byClient.clients()).isNull();
+        assertThat(byClient.documents()).extracting(DocumentDto::title).containsExactly("Mortgage statement 2025");
+    }
+
+    @Test
+    void rejectsUnknownClient() {
+        var response = testRestTemplate.getForEntity("/search/suggest?prefix={prefix}&clientId={clientId}",
+                String.class, "mar", UUID.randomUUID());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
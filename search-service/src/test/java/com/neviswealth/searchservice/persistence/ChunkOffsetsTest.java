@@ -0,0 +1,66 @@
+package com.neviswealth.searchservice.persistence;
+
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.TokenWindowChunkingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkOffsetsTest {
+
+    @Test
+    void locatesVerbatimChunksInCodePoints() {
+        String content = "Fee 😀 schedule\n\nAdvisory fee of 1%\n\nCustody is free";
+
+        int[][] offsets = ChunkOffsets.locate(content,
+                List.of("Fees", "Fee 😀 schedule", "Advisory fee of 1%", "merged\n\nparagraphs", "Custody is free"));
+
+        assertThat(offsets[0]).isNull();
+        assertThat(offsets[1]).containsExactly(0, 14);
+        assertThat(offsets[2]).containsExactly(16, 34);
+        assertThat(offsets[3]).isNull();
+        assertThat(offsets[4]).containsExactly(36, 51);
+    }
+
+    @Test
+    void looksForEachChunkAfterThePreviousOne() {
+        int[][] offsets = ChunkOffsets.locate("same same", List.of("same", "same", "same"));
+
+        assertThat(offsets[0]).containsExactly(0, 4);
+        assertThat(offsets[1]).containsExactly(5, 9);
+        assertThat(offsets[2]).isNull();
+    }
+
+    @Test
+    void locatesWindowsThatOverlapThePreviousOne() {
+        String content = "one two 😀 four\nfive six seven";
+
+        int[][] offsets = ChunkOffsets.locate(content,
+                List.of("Title", "one two 😀", "😀 four\nfive", "five six seven", "two"));
+
+        assertThat(offsets[0]).isNull();
+        assertThat(offsets[1]).containsExactly(0, 9);
+        assertThat(offsets[2]).containsExactly(8, 19);
+        assertThat(offsets[3]).containsExactly(15, 29);
+        assertThat(offsets[4]).isNull();
+    }
+
+    @Test
+    void locatesTokenWindowChunks() {
+        String content = "Advisory fees are charged quarterly in arrears.\n\nCustody of 😀 assets is free of charge.";
+        List<String> chunks = new TokenWindowChunkingStrategy(4, 2).chunk("Fees", content).stream()
+                .map(Chunk::content)
+                .toList();
+
+        int[][] offsets = ChunkOffsets.locate(content, chunks);
+
+        assertThat(offsets[0]).isNull();
+        for (int i = 1; i < chunks.size(); i++) {
+            int start = content.offsetByCodePoints(0, offsets[i][0]);
+            int end = content.offsetByCodePoints(0, offsets[i][1]);
+            assertThat(content.substring(start, end)).isEqualTo(chunks.get(i));
+        }
+    }
+}
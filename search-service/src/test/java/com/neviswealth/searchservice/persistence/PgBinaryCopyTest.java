@@ -0,0 +1,51 @@
+package com.neviswealth.searchservice.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgBinaryCopyTest {
+
+    @Test
+    void writesHeaderRowsAndTrailer() {
+        UUID id = UUID.fromString("00112233-4455-6677-8899-aabbccddeeff");
+
+        ByteBuffer copy = ByteBuffer.wrap(new PgBinaryCopy()
+                .row(4)
+                .uuid(id)
+                .text("é")
+                .vector(new float[]{1.5f, -2f})
+                .timestamptz(OffsetDateTime.parse("2000-01-01T00:00:01Z"))
+                .row(1)
+                .nullValue()
+                .finish());
+
+        byte[] signature = new byte[11];
+        copy.get(signature);
+        assertThat(signature).containsExactly('P', 'G', 'C', 'O', 'P', 'Y', '\n', 0xFF, '\r', '\n', 0);
+        assertThat(copy.getInt()).isZero();
+        assertThat(copy.getInt()).isZero();
+
+        assertThat(copy.getShort()).isEqualTo((short) 4);
+        assertThat(copy.getInt()).isEqualTo(16);
+        assertThat(new UUID(copy.getLong(), copy.getLong())).isEqualTo(id);
+        assertThat(copy.getInt()).isEqualTo(2);
+        assertThat(new byte[]{copy.get(), copy.get()}).containsExactly(0xC3, 0xA9);
+        assertThat(copy.getInt()).isEqualTo(12);
+        assertThat(copy.getShort()).isEqualTo((short) 2);
+        assertThat(copy.getShort()).isZero();
+        assertThat(copy.getFloat()).isEqualTo(1.5f);
+        assertThat(copy.getFloat()).isEqualTo(-2f);
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getLong()).isEqualTo(1_000_000L);
+
+        assertThat(copy.getShort()).isEqualTo((short) 1);
+        assertThat(copy.getInt()).isEqualTo(-1);
+        assertThat(copy.getShort()).isEqualTo((short) -1);
+        assertThat(copy.hasRemaining()).isFalse();
+    }
+}
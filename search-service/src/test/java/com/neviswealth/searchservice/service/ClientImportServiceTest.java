@@ -0,0 +1,105 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto;
+import com.neviswealth.searchservice.api.dto.ClientImportSummaryDto.InvalidRow;
+import com.neviswealth.searchservice.api.dto.CreateClientRequest;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientImportServiceTest {
+
+    @Mock
+    private ClientRepository clientRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClientImportService clientImportService;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setClientBatchSize(2);
+        clientImportService = new ClientImportService(clientRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher, transactionManager, properties);
+    }
+
+    @Test
+    void mergesNormalizedClientsInBatchesAndCountsDuplicates() {
+        // the second row repeats the first email, the database skips it
+        when(clientRepository.importClients(anyList())).thenAnswer(i -> {
+            List<Client> batch = i.getArgument(0);
+            return batch.stream().filter(client -> !client.firstName().equals("Copy")).map(ClientImportServiceTest::saved).toList();
+        });
+
+        ClientImportSummaryDto summary = importClients(
+                new CreateClientRequest(" Maria ", "Lopez", "Maria.Lopez@Laurel-Wealth.com", "ES"),
+                new CreateClientRequest("Copy", "Lopez", "maria.lopez@laurel-wealth.com", "ES"),
+                new CreateClientRequest("Li", "Chen", "li.chen@laurelwealth.com", null));
+
+        assertThat(summary.inserted()).isEqualTo(2);
+        assertThat(summary.duplicates()).isEqualTo(1);
+        assertThat(summary.invalid()).isZero();
+        ArgumentCaptor<List<Client>> batches = ArgumentCaptor.forClass(List.class);
+        verify(clientRepository, times(2)).importClients(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        Client maria = batches.getAllValues().getFirst().getFirst();
+        assertThat(maria.email()).isEqualTo("maria.lopez@laurel-wealth.com");
+        assertThat(maria.emailDomain()).isEqualTo("laurel-wealth.com");
+        assertThat(maria.emailDomainSlug()).isEqualTo("laurelwealth");
+        assertThat(maria.fullName()).isEqualTo("maria lopez");
+        verify(eventPublisher, times(2)).publishEvent(any(ClientCreatedEvent.class));
+    }
+
+    @Test
+    void reportsInvalidRowsWithTheirPosition() {
+        when(clientRepository.importClients(anyList())).thenAnswer(i -> ((List<Client>) i.getArgument(0)).stream()
+                .map(ClientImportServiceTest::saved)
+                .toList());
+
+        ClientImportSummaryDto summary = importClients(
+                null,
+                new CreateClientRequest("Sofia", "Romero", "sofia.romerogmail.com", "ES"),
+                new CreateClientRequest(" ", "Romero", "sofia.romero@gmail.com", "ES"),
+                new CreateClientRequest("Sofia", "Romero", "sofia.romero@gmail.com", "ES"));
+
+        assertThat(summary.inserted()).isEqualTo(1);
+        assertThat(summary.invalid()).isEqualTo(3);
+        assertThat(summary.invalidRows()).containsExactly(
+                new InvalidRow(1, "Malformed row"),
+                new InvalidRow(2, "Email must be valid"),
+                new InvalidRow(3, "First name is required"));
+    }
+
+    private ClientImportSummaryDto importClients(CreateClientRequest... rows) {
+        return clientImportService.importClients(Arrays.asList(rows).iterator());
+    }
+
+    private static Client saved(Client client) {
+        return new Client(UUID.randomUUID(), client.email(), client.emailDomain(), client.emailDomainSlug(),
+                client.firstName(), client.lastName(), client.fullName(), client.countryOfResidence(), OffsetDateTime.now());
+    }
+}
@@ -3,6 +3,8 @@ package com.neviswealth.searchservice.service;
 import com.neviswealth.searchservice.api.dto.ClientDto;
 import com.neviswealth.searchservice.api.dto.CreateClientRequest;
 import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
 import com.neviswealth.searchservice.persistence.ClientRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,15 +12,18 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +31,8 @@ class ClientServiceTest {
 
     @Mock
     private ClientRepository clientRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ClientService clientService;
@@ -51,6 +58,7 @@ class ClientServiceTest {
         assertThat(result.id()).isEqualTo(saved.id());
         assertThat(result.email()).isEqualTo("john@example.com");
         assertThat(result.firstName()).isEqualTo("John");
+        verify(eventPublisher).publishEvent(new ClientCreatedEvent(saved));
     }
 
     @Test
@@ -115,4 +123,25 @@ class ClientServiceTest {
         assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.NOT_FOUND);
         assertThat(ex.getReason()).contains("Client not found");
     }
+
+    @Test
+    void deletesClientAndPublishesEvent() {
+        Client deleted = new Client(UUID.randomUUID(), "john@example.com", "example.com", "examplecom",
+                "John", "Smith", "john smith", "PT", OffsetDateTime.now());
+        when(clientRepository.delete(deleted.id())).thenReturn(Optional.of(deleted));
+
+        clientService.deleteClient(deleted.id());
+
+        verify(eventPublisher).publishEvent(new ClientDeletedEvent(deleted));
+    }
+
+    @Test
+    void deletingMissingClientIsNotFound() {
+        UUID id = UUID.randomUUID();
+        when(clientRepository.delete(id)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> clientService.deleteClient(id));
+        assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.NOT_FOUND);
+        verifyNoInteractions(eventPublisher);
+    }
 }
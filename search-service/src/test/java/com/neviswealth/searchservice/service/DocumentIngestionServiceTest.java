@@ -0,0 +1,175 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.api.dto.BulkDocumentRequest;
+import com.neviswealth.searchservice.api.dto.IngestionResultDto;
+import com.neviswealth.searchservice.api.dto.IngestionResultDto.Status;
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ChunkingStrategy;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModelChangedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ClientTitle;
+import com.neviswealth.searchservice.persistence.DocumentRepository.NewDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentIngestionServiceTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+    @Mock
+    private VerifiedClientIds verifiedClientIds;
+    @Mock
+    private ClientRepository clientRepository;
+    @Mock
+    private ChunkingStrategy chunkingStrategy;
+    @Mock
+    private EmbeddingProvider embeddingProvider;
+    @Mock
+    private EmbeddingModels embeddingModels;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DocumentIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setBatchSize(2);
+        ingestionService = new DocumentIngestionService(documentRepository, verifiedClientIds, clientRepository, chunkingStrategy,
+                embeddingProvider, embeddingModels, eventPublisher, transactionManager, properties);
+        lenient().when(clientRepository.findExistingIds(anyCollection())).thenAnswer(i -> Set.copyOf(i.getArgument(0)));
+        lenient().when(chunkingStrategy.chunk(any(), any())).thenAnswer(i -> List.of(new Chunk(0, i.getArgument(1))));
+        lenient().when(embeddingProvider.embedAll(anyList()))
+                .thenAnswer(i -> ((List<?>) i.getArgument(0)).stream().map(text -> new float[]{1, 0}).toList());
+    }
+
+    @Test
+    void copiesEachBatchAfterOneEmbeddingRequest() {
+        UUID clientId = UUID.randomUUID();
+        when(verifiedClientIds.missing(anyList())).thenReturn(Set.of());
+        when(documentRepository.findExistingTitles(anyList())).thenReturn(Set.of());
+
+        List<IngestionResultDto> results = ingest(
+                new BulkDocumentRequest(clientId, "A", "alpha"),
+                new BulkDocumentRequest(clientId, "B", "beta"),
+                new BulkDocumentRequest(clientId, "C", "gamma"));
+
+        assertThat(results).extracting(IngestionResultDto::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(IngestionResultDto::status).containsOnly(Status.CREATED);
+        verify(embeddingProvider, times(2)).embedAll(anyList());
+        ArgumentCaptor<List<NewDocument>> copied = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository, times(2)).copyIn(copied.capture(), anyInt());
+        assertThat(copied.getAllValues().getFirst()).extracting(document -> document.document().title()).containsExactly("A", "B");
+        assertThat(copied.getAllValues().getFirst().getFirst().centroid()).containsExactly(1, 0);
+        verify(eventPublisher, times(3)).publishEvent(any(DocumentCreatedEvent.class));
+    }
+
+    @Test
+    void reportsRejectedDocumentsWithoutFailingTheOthers() {
+        UUID clientId = UUID.randomUUID();
+        UUID unknownClientId = UUID.randomUUID();
+        when(verifiedClientIds.missing(anyList())).thenAnswer(i -> ((List<?>) i.getArgument(0)).contains(unknownClientId)
+                ? Set.of(unknownClientId)
+                : Set.of());
+        when(documentRepository.findExistingTitles(anyList())).thenReturn(Set.of(new ClientTitle(clientId, "Taken")));
+
+        List<IngestionResultDto> results = ingest(
+                null,
+                new BulkDocumentRequest(clientId, "Taken", "content"),
+                new BulkDocumentRequest(unknownClientId, "Title", "content"),
+                new BulkDocumentRequest(clientId, " ", "content"),
+                new BulkDocumentRequest(clientId, "Fresh", "content"),
+                new BulkDocumentRequest(clientId, "Fresh ", "content"));
+
+        assertThat(results).extracting(IngestionResultDto::status).containsExactly(
+                Status.INVALID, Status.CONFLICT, Status.NOT_FOUND, Status.INVALID, Status.CREATED, Status.CONFLICT);
+        assertThat(results.get(4).id()).isNotNull();
+    }
+
+    @Test
+    void rejectsDocumentsOfClientsDeletedBeforeTheirCopy() {
+        UUID clientId = UUID.randomUUID();
+        UUID deletedClientId = UUID.randomUUID();
+        when(verifiedClientIds.missing(anyList())).thenReturn(Set.of());
+        when(documentRepository.findExistingTitles(anyList())).thenReturn(Set.of());
+        when(clientRepository.findExistingIds(Set.of(clientId, deletedClientId))).thenReturn(Set.of(clientId));
+
+        List<IngestionResultDto> results = ingest(
+                new BulkDocumentRequest(clientId, "A", "alpha"),
+                new BulkDocumentRequest(deletedClientId, "B", "beta"));
+
+        assertThat(results).extracting(IngestionResultDto::status).containsExactly(Status.CREATED, Status.NOT_FOUND);
+        ArgumentCaptor<List<NewDocument>> copied = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository).copyIn(copied.capture(), anyInt());
+        assertThat(copied.getValue()).extracting(document -> document.document().title()).containsExactly("A");
+    }
+
+    @Test
+    void failsOnlyTheBatchWhoseCopyFails() {
+        UUID clientId = UUID.randomUUID();
+        when(verifiedClientIds.missing(anyList())).thenReturn(Set.of());
+        when(documentRepository.findExistingTitles(anyList())).thenReturn(Set.of());
+        doThrow(new DataIntegrityViolationException("uq_documents_client_title"))
+                .doNothing()
+                .when(documentRepository).copyIn(anyList(), anyInt());
+
+        List<IngestionResultDto> results = ingest(
+                new BulkDocumentRequest(clientId, "A", "alpha"),
+                new BulkDocumentRequest(clientId, "B", "beta"),
+                new BulkDocumentRequest(clientId, "C", "gamma"));
+
+        assertThat(results).extracting(IngestionResultDto::status)
+                .containsExactly(Status.FAILED, Status.FAILED, Status.CREATED);
+    }
+
+    @Test
+    void failsBatchesEmbeddedWithAModelSwappedOutBeforeTheirCopy() {
+        UUID clientId = UUID.randomUUID();
+        when(verifiedClientIds.missing(anyList())).thenReturn(Set.of());
+        when(documentRepository.findExistingTitles(anyList())).thenReturn(Set.of());
+        when(embeddingModels.activeId()).thenReturn(1, 2);
+        doThrow(new EmbeddingModelChangedException(1, 2)).when(documentRepository).copyIn(anyList(), eq(1));
+
+        List<IngestionResultDto> results = ingest(
+                new BulkDocumentRequest(clientId, "A", "alpha"),
+                new BulkDocumentRequest(clientId, "B", "beta"),
+                new BulkDocumentRequest(clientId, "C", "gamma"));
+
+        assertThat(results).extracting(IngestionResultDto::status)
+                .containsExactly(Status.FAILED, Status.FAILED, Status.CREATED);
+        assertThat(results.getFirst().error()).isEqualTo("Embedding model changed, retry");
+        verify(documentRepository).copyIn(anyList(), eq(2));
+    }
+
+    private List<IngestionResultDto> ingest(BulkDocumentRequest... documents) {
+        List<IngestionResultDto> results = new ArrayList<>();
+        ingestionService.ingest(Arrays.asList(documents).iterator(), results::add);
+        return results;
+    }
+}
@@ -3,31 +3,47 @@ package com.neviswealth.searchservice.service;
 import com.neviswealth.searchservice.api.dto.CreateDocumentRequest;
 import com.neviswealth.searchservice.api.dto.DocumentDto;
 import com.neviswealth.searchservice.api.dto.DocumentWithContentDto;
+import com.neviswealth.searchservice.api.dto.PageDto;
+import com.neviswealth.searchservice.api.dto.UpdateDocumentRequest;
 import com.neviswealth.searchservice.chunking.Chunk;
 import com.neviswealth.searchservice.chunking.ChunkingFailedException;
 import com.neviswealth.searchservice.chunking.ChunkingStrategy;
 import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
 import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.domain.DocumentUpdatedEvent;
 import com.neviswealth.searchservice.embedding.EmbeddingFailedException;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
 import com.neviswealth.searchservice.embedding.EmbeddingProvider;
-import com.neviswealth.searchservice.persistence.ClientRepository;
 import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.KeptChunk;
+import com.neviswealth.searchservice.persistence.DocumentRepository.Twin;
+import com.neviswealth.searchservice.persistence.Keyset;
 import com.neviswealth.searchservice.summary.SummaryProvider;
+import com.neviswealth.searchservice.util.ContentHash;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -38,13 +54,15 @@ class DocumentServiceTest {
     @Mock
     private DocumentRepository documentRepository;
     @Mock
-    private ClientRepository clientRepository;
-    @Mock
     private ChunkingStrategy chunkingStrategy;
     @Mock
     private EmbeddingProvider embeddingProvider;
     @Mock
+    private EmbeddingModels embeddingModels;
+    @Mock
     private SummaryProvider summaryProvider;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private DocumentService documentService;
@@ -52,45 +70,114 @@ class DocumentServiceTest {
     @Test
     void createsDocumentAndPersistsChunks() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Utility bill")).thenReturn(false);
         when(chunkingStrategy.chunk(any(), eq("content body"))).thenReturn(List.of(new Chunk(0, "content body")));
         when(embeddingProvider.embed("content body")).thenReturn(new float[]{0.1f, 0.2f});
         Document saved = new Document(UUID.randomUUID(), clientId, "Utility bill", "content body", "hash", null, OffsetDateTime.now());
-        when(documentRepository.insert(any())).thenReturn(saved);
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
 
         DocumentDto dto = documentService.createDocument(clientId, new CreateDocumentRequest("Utility bill", "content body"));
 
         assertThat(dto.id()).isEqualTo(saved.id());
         ArgumentCaptor<List<DocumentChunk>> captor = ArgumentCaptor.forClass(List.class);
-        verify(documentRepository).insertChunks(any(), captor.capture());
+        verify(documentRepository).insertChunks(any(), captor.capture(), anyInt());
         assertThat(captor.getValue()).hasSize(1);
+        ArgumentCaptor<float[]> centroid = ArgumentCaptor.forClass(float[].class);
+        verify(documentRepository).updateEmbedding(eq(saved.id()), centroid.capture());
+        assertThat(centroid.getValue()[0]).isCloseTo(0.4472136f, within(1e-6f));
+        assertThat(centroid.getValue()[1]).isCloseTo(0.8944272f, within(1e-6f));
+        verify(eventPublisher).publishEvent(new DocumentCreatedEvent(saved));
+    }
+
+    @Test
+    void clonesChunksOfDocumentWithSameContentAndTitle() {
+        UUID clientId = UUID.randomUUID();
+        UUID twinId = UUID.randomUUID();
+        Document saved = new Document(UUID.randomUUID(), clientId, "Utility bill", null, null, null, OffsetDateTime.now());
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
+        when(documentRepository.findTwin(saved.id(), ContentHash.sha256("content body"), "Utility bill")).thenReturn(Optional.of(new Twin(twinId, true)));
+
+        DocumentDto dto = documentService.createDocument(clientId, new CreateDocumentRequest(" Utility bill ", " content body "));
+
+        assertThat(dto.id()).isEqualTo(saved.id());
+        verify(documentRepository).cloneChunks(twinId, saved);
+        verify(documentRepository, never()).insertChunks(any(), any(), anyInt());
+        verifyNoInteractions(chunkingStrategy, embeddingProvider);
+        verify(eventPublisher).publishEvent(new DocumentCreatedEvent(saved));
+    }
+
+    @Test
+    void updateEmbedsOnlyChunksWhoseTextChanged() {
+        Document stored = new Document(UUID.randomUUID(), UUID.randomUUID(), "Fees", "old", ContentHash.sha256("old"), "summary", OffsetDateTime.now());
+        when(documentRepository.findByIdForUpdate(stored.id())).thenReturn(Optional.of(stored));
+        // a paragraph is inserted before the second one, which moves down and is edited; the third moves unchanged
+        when(chunkingStrategy.chunk("Fees", "new content")).thenReturn(List.of(
+                new Chunk(0, "Fees"), new Chunk(1, "Inserted"), new Chunk(2, "Edited"), new Chunk(3, "Custody")));
+        Map<Integer, String> storedHashes = new LinkedHashMap<>();
+        storedHashes.put(0, ContentHash.sha256("Fees"));
+        storedHashes.put(1, ContentHash.sha256("Advisory"));
+        storedHashes.put(2, ContentHash.sha256("Custody"));
+        when(documentRepository.findChunkHashes(stored.id())).thenReturn(storedHashes);
+        when(embeddingProvider.embed(any())).thenReturn(new float[]{1, 0});
+
+        DocumentDto dto = documentService.updateDocument(stored.id(), new UpdateDocumentRequest(" new content "));
+
+        assertThat(dto.title()).isEqualTo("Fees");
+        verify(embeddingProvider).embed("Inserted");
+        verify(embeddingProvider).embed("Edited");
+        verifyNoMoreInteractions(embeddingProvider);
+        verify(documentRepository).updateContent(stored.id(), "new content", ContentHash.sha256("new content"));
+        ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+        ArgumentCaptor<List<KeptChunk>> kept = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<DocumentChunk>> added = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository).replaceChunks(document.capture(), kept.capture(), added.capture(), anyInt());
+        assertThat(document.getValue().content()).isEqualTo("new content");
+        assertThat(kept.getValue()).containsExactly(new KeptChunk(0, 0, "Fees"), new KeptChunk(2, 3, "Custody"));
+        assertThat(added.getValue()).extracting(DocumentChunk::chunkIndex).containsExactly(1, 2);
+        verify(eventPublisher).publishEvent(any(DocumentUpdatedEvent.class));
+    }
+
+    @Test
+    void updateWithUnchangedContentWritesNothing() {
+        Document stored = new Document(UUID.randomUUID(), UUID.randomUUID(), "Fees", "same", ContentHash.sha256("same"), null, OffsetDateTime.now());
+        when(documentRepository.findByIdForUpdate(stored.id())).thenReturn(Optional.of(stored));
+
+        documentService.updateDocument(stored.id(), new UpdateDocumentRequest("same"));
+
+        verify(documentRepository, never()).updateContent(any(), any(), any());
+        verify(documentRepository, never()).replaceChunks(any(), any(), any(), anyInt());
+        verifyNoInteractions(chunkingStrategy, embeddingProvider, eventPublisher);
+    }
+
+    @Test
+    void updateOfMissingDocumentIsNotFound() {
+        UUID documentId = UUID.randomUUID();
+        when(documentRepository.findByIdForUpdate(documentId)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> documentService.updateDocument(documentId, new UpdateDocumentRequest("content")));
+        assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.NOT_FOUND);
     }
 
     @Test
     void doesNotInsertChunksWhenChunkingReturnsEmpty() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Title")).thenReturn(false);
         when(chunkingStrategy.chunk(any(), eq("content body"))).thenReturn(List.of());
         Document saved = new Document(UUID.randomUUID(), clientId, "Title", "content body", "hash", null, OffsetDateTime.now());
-        when(documentRepository.insert(any())).thenReturn(saved);
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
 
         documentService.createDocument(clientId, new CreateDocumentRequest("Title", "content body"));
 
-        verify(documentRepository, never()).insertChunks(any(), any());
+        verify(documentRepository, never()).insertChunks(any(), any(), anyInt());
     }
 
     @Test
     void computesContentHashBeforeInsert() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Title")).thenReturn(false);
         when(chunkingStrategy.chunk(any(), eq("abc"))).thenReturn(List.of());
         ArgumentCaptor<Document> docCaptor = ArgumentCaptor.forClass(Document.class);
-        when(documentRepository.insert(docCaptor.capture())).thenReturn(
+        when(documentRepository.insert(docCaptor.capture())).thenReturn(Optional.of(
                 new Document(UUID.randomUUID(), clientId, "Title", "abc", "hash", null, OffsetDateTime.now())
-        );
+        ));
 
         documentService.createDocument(clientId, new CreateDocumentRequest("Title", "abc"));
 
@@ -101,19 +188,42 @@ class DocumentServiceTest {
     @Test
     void rejectsDuplicateTitle() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Utility bill")).thenReturn(true);
+        when(documentRepository.insert(any())).thenReturn(Optional.empty());
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
                 documentService.createDocument(clientId, new CreateDocumentRequest("Utility bill", "content body")));
         assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.CONFLICT);
         assertThat(ex.getReason()).contains("same title");
+        verifyNoInteractions(chunkingStrategy, embeddingProvider);
+    }
+
+    @Test
+    void rejectsDocumentOfDeletedClient() {
+        UUID clientId = UUID.randomUUID();
+        when(documentRepository.insert(any())).thenReturn(Optional.empty());
+        when(documentRepository.isClientDeleted(clientId)).thenReturn(true);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                documentService.createDocument(clientId, new CreateDocumentRequest("Utility bill", "content body")));
+        assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.NOT_FOUND);
+        verifyNoInteractions(chunkingStrategy, embeddingProvider);
+    }
+
+    @Test
+    void deletesDocumentAndPublishesEvent() {
+        Document deleted = new Document(UUID.randomUUID(), UUID.randomUUID(), "Title", null, "hash", null, OffsetDateTime.now());
+        when(documentRepository.delete(deleted.id())).thenReturn(Optional.of(deleted));
+
+        documentService.deleteDocument(deleted.id());
+
+        verify(eventPublisher).publishEvent(new DocumentDeletedEvent(deleted));
     }
 
     @Test
     void failsWhenClientMissing() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(false);
+        when(documentRepository.insert(any())).thenThrow(new DataIntegrityViolationException("fk_documents_client",
+                new SQLException("violates foreign key constraint \"fk_documents_client\"", "23503")));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
                 documentService.createDocument(clientId, new CreateDocumentRequest("Utility bill", "content body")));
@@ -121,6 +231,36 @@ class DocumentServiceTest {
         assertThat(ex.getReason()).contains("Client not found");
     }
 
+    @Test
+    void listsOnePageAndResumesAfterItsLastDocument() {
+        UUID clientId = UUID.randomUUID();
+        OffsetDateTime createdAt = OffsetDateTime.parse("2025-03-01T10:15:30.123456Z");
+        Document first = new Document(UUID.randomUUID(), clientId, "First", null, null, null, createdAt);
+        Document second = new Document(UUID.randomUUID(), clientId, "Second", null, null, null, createdAt);
+        Document third = new Document(UUID.randomUUID(), clientId, "Third", null, null, null, createdAt.plusSeconds(1));
+        when(documentRepository.findPage(clientId, null, null, null, 3)).thenReturn(List.of(first, second, third));
+
+        PageDto<DocumentDto> page = documentService.listDocuments(clientId, null, null, null, 2);
+
+        assertThat(page.items()).extracting(DocumentDto::title).containsExactly("First", "Second");
+        documentService.listDocuments(clientId, null, null, page.nextCursor(), 2);
+        verify(documentRepository).findPage(clientId, null, null, new Keyset(createdAt, second.id()), 3);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(documentRepository.findPage(null, null, null, null, 3)).thenReturn(List.of());
+
+        assertThat(documentService.listDocuments(null, null, null, null, 2).nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> documentService.listDocuments(null, null, null, "not-a-cursor", 2));
+        assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void getDocumentReturnsNotFoundWhenMissing() {
         UUID docId = UUID.randomUUID();
@@ -229,11 +369,9 @@ class DocumentServiceTest {
     @Test
     void throwsWhenChunkingFails() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Title")).thenReturn(false);
         when(chunkingStrategy.chunk(any(), eq("content body"))).thenThrow(new ChunkingFailedException("chunk error"));
         Document saved = new Document(UUID.randomUUID(), clientId, "Title", "content body", "hash", null, OffsetDateTime.now());
-        when(documentRepository.insert(any())).thenReturn(saved);
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
 
         var ex = assertThrows(ChunkingFailedException.class, () ->
                 documentService.createDocument(clientId, new CreateDocumentRequest("Title", "content body")));
@@ -243,12 +381,10 @@ class DocumentServiceTest {
     @Test
     void throwsWhenEmbeddingFails() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
-        when(documentRepository.existsByClientIdAndTitle(clientId, "Title")).thenReturn(false);
         when(chunkingStrategy.chunk(any(), eq("body"))).thenReturn(List.of(new Chunk(0, "body")));
         when(embeddingProvider.embed("body")).thenThrow(new EmbeddingFailedException("embed failed"));
         Document saved = new Document(UUID.randomUUID(), clientId, "Title", "body", "hash", null, OffsetDateTime.now());
-        when(documentRepository.insert(any())).thenReturn(saved);
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
 
         var ex = assertThrows(EmbeddingFailedException.class, () ->
                 documentService.createDocument(clientId, new CreateDocumentRequest("Title", "body")));
@@ -0,0 +1,117 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.chunking.Chunk;
+import com.neviswealth.searchservice.chunking.ParagraphChunkingStrategy;
+import com.neviswealth.searchservice.config.IngestionProperties;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentChunk;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.util.ContentHash;
+import com.neviswealth.searchservice.util.VectorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentUploadServiceTest {
+
+    private static final String CONTENT = "\n  First paragraph of the report.\n\nSecond paragraph, a little longer than the first."
+            + "\n\nThird 😀 paragraph.\n\nFourth paragraph closes the report.  \n\n ";
+
+    @Mock
+    private DocumentRepository documentRepository;
+    @Mock
+    private EmbeddingProvider embeddingProvider;
+    @Mock
+    private EmbeddingModels embeddingModels;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ParagraphChunkingStrategy chunkingStrategy = new ParagraphChunkingStrategy(40);
+    private DocumentUploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setUploadWindow(2);
+        uploadService = new DocumentUploadService(documentRepository, chunkingStrategy, embeddingProvider, embeddingModels,
+                eventPublisher, properties);
+    }
+
+    @Test
+    void storesWhatCreatingTheDocumentAtOnceWould() {
+        UUID clientId = UUID.randomUUID();
+        Document saved = new Document(UUID.randomUUID(), clientId, "Report", null, null, null, OffsetDateTime.now());
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
+        when(embeddingProvider.embedAll(anyList())).thenAnswer(i -> ((List<String>) i.getArgument(0)).stream()
+                .map(text -> new float[]{text.length(), 1})
+                .toList());
+
+        uploadService.uploadDocument(clientId, " Report ", trickle(CONTENT));
+
+        List<Chunk> expected = chunkingStrategy.chunk("Report", CONTENT.trim());
+        ArgumentCaptor<List<DocumentChunk>> windows = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository, atLeast(2)).insertChunks(eq(saved), windows.capture(), anyInt());
+        assertThat(windows.getAllValues()).allSatisfy(window -> assertThat(window).hasSizeLessThanOrEqualTo(2));
+        List<DocumentChunk> inserted = windows.getAllValues().stream().flatMap(List::stream).toList();
+        assertThat(inserted).extracting(DocumentChunk::content).containsExactlyElementsOf(expected.stream().map(Chunk::content).toList());
+        assertThat(inserted).extracting(DocumentChunk::chunkIndex).containsExactlyElementsOf(expected.stream().map(Chunk::index).toList());
+
+        ArgumentCaptor<String> pieces = ArgumentCaptor.forClass(String.class);
+        verify(documentRepository, atLeast(2)).stageContent(eq(saved.id()), anyInt(), pieces.capture());
+        assertThat(String.join("", pieces.getAllValues())).isEqualTo(CONTENT.trim());
+        ArgumentCaptor<float[]> centroid = ArgumentCaptor.forClass(float[].class);
+        verify(documentRepository).completeUpload(eq(saved.id()), eq(ContentHash.sha256(CONTENT.trim())), centroid.capture());
+        assertThat(centroid.getValue()).containsExactly(VectorUtil.centroid(inserted.stream().map(DocumentChunk::embedding).toList()));
+        verify(eventPublisher).publishEvent(new DocumentCreatedEvent(saved));
+    }
+
+    @Test
+    void rejectsBlankContent() {
+        Document saved = new Document(UUID.randomUUID(), UUID.randomUUID(), "Report", null, null, null, OffsetDateTime.now());
+        when(documentRepository.insert(any())).thenReturn(Optional.of(saved));
+
+        assertThrows(ResponseStatusException.class,
+                () -> uploadService.uploadDocument(saved.clientId(), "Report", new StringReader(" \n\n\t ")));
+
+        verifyNoInteractions(embeddingProvider, eventPublisher);
+        verify(documentRepository, never()).completeUpload(any(), any(), any());
+    }
+
+    /**
+     * A reader that hands out a few characters per read, like a slow request body.
+     */
+    private static Reader trickle(String content) {
+        return new FilterReader(new StringReader(content)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.config.PurgeProperties;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PurgeServiceTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+    @Mock
+    private ClientRepository clientRepository;
+
+    private PurgeService purgeService;
+
+    @BeforeEach
+    void setUp() {
+        PurgeProperties properties = new PurgeProperties();
+        properties.setBatchSize(100);
+        properties.setBatchesPerRun(3);
+        purgeService = new PurgeService(documentRepository, clientRepository, properties);
+    }
+
+    @Test
+    void purgesChunksUntilABatchComesBackShortThenDocumentsAndClients() {
+        when(documentRepository.purgeChunks(100)).thenReturn(100, 40);
+
+        assertThat(purgeService.purge()).isEqualTo(140);
+
+        InOrder inOrder = inOrder(documentRepository, clientRepository);
+        inOrder.verify(documentRepository).deleteDocumentsOfDeletedClients();
+        inOrder.verify(documentRepository, times(2)).purgeChunks(100);
+        inOrder.verify(documentRepository).purgeDocuments(100);
+        inOrder.verify(clientRepository).purgeClients(100);
+    }
+
+    @Test
+    void stopsAfterTheBatchesOfOneRun() {
+        when(documentRepository.purgeChunks(100)).thenReturn(100);
+
+        assertThat(purgeService.purge()).isEqualTo(300);
+
+        verify(documentRepository, times(3)).purgeChunks(100);
+    }
+
+    @Test
+    void scheduledRunSurvivesAFailure() {
+        when(documentRepository.deleteDocumentsOfDeletedClients()).thenThrow(new IllegalStateException("connection lost"));
+
+        purgeService.scheduledPurge();
+
+        verifyNoInteractions(clientRepository);
+    }
+}
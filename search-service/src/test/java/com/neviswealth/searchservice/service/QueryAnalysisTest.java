@@ -0,0 +1,55 @@
+package com.neviswealth.searchservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryAnalysisTest {
+
+    @Test
+    void normalizesQueryAndSlug() {
+        QueryAnalysis analysis = QueryAnalysis.of("  John    Doe Wealth ");
+
+        assertThat(analysis.normalized()).isEqualTo("john doe wealth");
+        assertThat(analysis.slug()).isEqualTo("johndoewealth");
+        assertThat(analysis.type()).isEqualTo(QueryAnalysis.Type.TEXT);
+        assertThat(analysis.semantic()).isTrue();
+    }
+
+    @Test
+    void fallsBackToQueryWhenSlugIsEmpty() {
+        assertThat(QueryAnalysis.of("---").slug()).isEqualTo("---");
+    }
+
+    @Test
+    void classifiesQueriesWithoutMeaningfulEmbedding() {
+        assertThat(QueryAnalysis.of("Maria.Lopez@LaurelWealth.com").type()).isEqualTo(QueryAnalysis.Type.EMAIL);
+        assertThat(QueryAnalysis.of("@northbank").type()).isEqualTo(QueryAnalysis.Type.EMAIL);
+        assertThat(QueryAnalysis.of("laurel-wealth.co.uk").type()).isEqualTo(QueryAnalysis.Type.DOMAIN);
+        assertThat(QueryAnalysis.of("northbank.com").type()).isEqualTo(QueryAnalysis.Type.DOMAIN);
+        assertThat(QueryAnalysis.of("Emma Jones").type()).isEqualTo(QueryAnalysis.Type.NAME);
+        assertThat(QueryAnalysis.of("Mary-Ann O'Neil").type()).isEqualTo(QueryAnalysis.Type.NAME);
+        assertThat(QueryAnalysis.of("3F2504E0-4F89-11D3-9A0C-0305E82C3301").type()).isEqualTo(QueryAnalysis.Type.IDENTIFIER);
+        assertThat(QueryAnalysis.of("li").type()).isEqualTo(QueryAnalysis.Type.SHORT_TOKEN);
+    }
+
+    @Test
+    void keepsSemanticSearchForWordsAndPhrases() {
+        assertThat(QueryAnalysis.of("dup").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("laurelwealth").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("q3 report.pdf").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("proof of address").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("Proof Of Address").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("emma jones").semantic()).isTrue();
+        assertThat(QueryAnalysis.of("Emma").semantic()).isTrue();
+    }
+
+    @Test
+    void keepsSemanticSearchForFileNamesAndUnknownTopLevelDomains() {
+        assertThat(QueryAnalysis.of("report.pdf").type()).isEqualTo(QueryAnalysis.Type.TEXT);
+        assertThat(QueryAnalysis.of("node.js").type()).isEqualTo(QueryAnalysis.Type.TEXT);
+        assertThat(QueryAnalysis.of("setup.py").type()).isEqualTo(QueryAnalysis.Type.TEXT);
+        assertThat(QueryAnalysis.of("statement.final").type()).isEqualTo(QueryAnalysis.Type.TEXT);
+        assertThat(QueryAnalysis.of("report.pdf").semantic()).isTrue();
+    }
+}
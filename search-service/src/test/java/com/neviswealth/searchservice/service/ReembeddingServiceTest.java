@@ -0,0 +1,151 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.config.EmbeddingProperties;
+import com.neviswealth.searchservice.domain.EmbeddingModelActivatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModel;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelRow;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.ModelStatus;
+import com.neviswealth.searchservice.persistence.EmbeddingModelRepository.PendingChunk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReembeddingServiceTest {
+
+    @Mock
+    private EmbeddingModels models;
+    @Mock
+    private EmbeddingModelRepository repository;
+    @Mock
+    private EmbeddingProvider nextProvider;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private DataSource dataSource;
+
+    private EmbeddingModel next;
+    private ReembeddingService reembeddingService;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProperties properties = new EmbeddingProperties();
+        properties.getReembedding().setBatchSize(2);
+        properties.getReembedding().setBatchesPerRun(2);
+        next = new EmbeddingModel("large", 5, nextProvider);
+        reembeddingService = new ReembeddingService(models, repository, properties, eventPublisher, dataSource);
+    }
+
+    @Test
+    void doesNothingWithoutANextModel() {
+        when(models.next()).thenReturn(Optional.empty());
+
+        reembeddingService.run();
+
+        verify(models).refresh();
+        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void startsBuildingAndEmbedsAFewBatchesPerRun() {
+        when(models.next()).thenReturn(Optional.of(next));
+        when(repository.findBuilding()).thenReturn(Optional.empty());
+        when(repository.startBuilding("large", 5)).thenReturn(row(2, ModelStatus.BUILDING));
+        List<PendingChunk> batch = List.of(chunk("Fees"), chunk("Custody"));
+        when(repository.findPendingChunks(2)).thenReturn(batch);
+        List<float[]> embeddings = List.of(new float[5], new float[5]);
+        when(nextProvider.embedAll(List.of("Fees", "Custody"))).thenReturn(embeddings);
+
+        reembeddingService.run();
+
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).dropShadow();
+        inOrder.verify(repository).startBuilding("large", 5);
+        inOrder.verify(repository).createShadow(5);
+        inOrder.verify(repository).createPendingIndexes();
+        verify(repository, times(2)).writeShadow(2, batch, embeddings);
+        verify(repository, never()).markIndexing(anyInt());
+        verify(repository, never()).swap(anyInt(), anyInt());
+    }
+
+    @Test
+    void switchesOnceEveryChunkIsReembedded() {
+        when(models.next()).thenReturn(Optional.of(next));
+        when(repository.findBuilding()).thenReturn(Optional.of(row(2, ModelStatus.BUILDING)));
+        List<PendingChunk> batch = List.of(chunk("Fees"));
+        when(repository.findPendingChunks(2)).thenReturn(batch);
+        when(nextProvider.embedAll(List.of("Fees"))).thenReturn(List.of(new float[5]));
+        when(repository.computeShadowCentroids(any(), anyInt())).thenReturn(Optional.of(UUID.randomUUID()), Optional.empty());
+        when(models.activeId()).thenReturn(1);
+        when(repository.swap(1, 2)).thenReturn(true);
+        when(models.active()).thenReturn(next);
+
+        reembeddingService.run();
+
+        InOrder inOrder = inOrder(repository, models, eventPublisher);
+        inOrder.verify(repository).writeShadow(eq(2), eq(batch), any());
+        inOrder.verify(repository).markIndexing(2);
+        inOrder.verify(repository).createShadowIndexes(5);
+        inOrder.verify(repository, times(2)).computeShadowCentroids(any(), anyInt());
+        inOrder.verify(repository).swap(1, 2);
+        inOrder.verify(models).refresh();
+        inOrder.verify(eventPublisher).publishEvent(new EmbeddingModelActivatedEvent("large", 5));
+        verify(repository, never()).startBuilding(any(), anyInt());
+    }
+
+    @Test
+    void retriesTheSwapWithoutRecomputingCentroids() {
+        when(models.next()).thenReturn(Optional.of(next));
+        when(repository.findBuilding()).thenReturn(Optional.of(row(2, ModelStatus.INDEXING)));
+        when(repository.findPendingChunks(2)).thenReturn(List.of());
+        when(repository.computeShadowCentroids(any(), anyInt())).thenReturn(Optional.empty());
+        when(models.activeId()).thenReturn(1);
+        when(repository.swap(1, 2)).thenReturn(false);
+
+        reembeddingService.run();
+        reembeddingService.run();
+
+        verify(repository, times(1)).computeShadowCentroids(any(), anyInt());
+        verify(repository, times(2)).swap(1, 2);
+        verify(repository, never()).markIndexing(anyInt());
+        verifyNoInteractions(nextProvider, eventPublisher);
+    }
+
+    @Test
+    void followsASwitchMadeByAnotherInstance() {
+        when(models.refresh()).thenReturn(true);
+        when(models.active()).thenReturn(next);
+        when(models.next()).thenReturn(Optional.empty());
+
+        reembeddingService.run();
+
+        verify(eventPublisher).publishEvent(new EmbeddingModelActivatedEvent("large", 5));
+        verifyNoInteractions(repository);
+    }
+
+    private static ModelRow row(int id, ModelStatus status) {
+        return new ModelRow(id, "large", 5, status, 0, 10L, OffsetDateTime.now(), null);
+    }
+
+    private static PendingChunk chunk(String content) {
+        return new PendingChunk(UUID.randomUUID(), 0, content);
+    }
+}
@@ -1,24 +1,31 @@
 package com.neviswealth.searchservice.service;
 
+import com.neviswealth.searchservice.api.dto.BatchSearchRequest;
+import com.neviswealth.searchservice.api.dto.BatchSearchResultDto;
 import com.neviswealth.searchservice.api.dto.ScoredDocumentDto;
 import com.neviswealth.searchservice.api.dto.SearchResultDto;
+import com.neviswealth.searchservice.config.SearchingProperties;
 import com.neviswealth.searchservice.domain.Client;
 import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
 import com.neviswealth.searchservice.embedding.EmbeddingProvider;
+import com.neviswealth.searchservice.index.ClientSearchIndex;
 import com.neviswealth.searchservice.persistence.ClientRepository;
 import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.vector.ClientExactScanner;
+import com.neviswealth.searchservice.vector.VectorStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +42,16 @@ class SearchServiceTest {
     private DocumentRepository documentRepository;
     @Mock
     private EmbeddingProvider embeddingProvider;
+    @Mock
+    private VectorStore vectorStore;
+    @Mock
+    private ClientExactScanner clientExactScanner;
+    @Mock
+    private ClientSearchIndex clientSearchIndex;
+    @Mock
+    private VerifiedClientIds verifiedClientIds;
+    @Spy
+    private SearchSnapshots searchSnapshots = new SearchSnapshots(new SearchingProperties());
 
     @InjectMocks
     private SearchService searchService;
@@ -42,7 +59,7 @@ class SearchServiceTest {
     @BeforeEach
     void setUpDefaults() {
         lenient().when(documentRepository.searchLexically(any(), anyString(), anyInt())).thenReturn(List.of());
-        lenient().when(documentRepository.searchWithEmbeddings(any(), any(float[].class), anyInt())).thenReturn(List.of());
+        lenient().when(vectorStore.search(any(), any(float[].class), anyInt())).thenReturn(List.of());
     }
 
     @Test
@@ -58,9 +75,9 @@ class SearchServiceTest {
     @Test
     void throwsWhenClientIdProvidedButMissing() {
         UUID clientId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(false);
+        when(verifiedClientIds.allExist(List.of(clientId))).thenReturn(false);
 
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> searchService.search("query", clientId));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> searchService.search("query", List.of(clientId)));
         assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         assertThat(ex.getReason()).contains("Client not found");
     }
@@ -81,7 +98,6 @@ class SearchServiceTest {
         );
         when(clientRepository.searchByEmail("user@example.com", 20))
                 .thenReturn(List.of(new ClientRepository.ClientSearchRow(client, 0.9d)));
-        when(embeddingProvider.embed(emailQuery)).thenReturn(new float[]{0.1f});
 
         SearchResultDto result = searchService.search(emailQuery, null);
 
@@ -91,6 +107,7 @@ class SearchServiceTest {
         assertThat(result.documents()).isEmpty();
         verify(clientRepository).searchByEmail("user@example.com", 20);
         verify(clientRepository, never()).searchByNameOrDomain(anyString(), anyString(), anyInt());
+        verifyNoInteractions(embeddingProvider);
     }
 
     @Test
@@ -120,32 +137,156 @@ class SearchServiceTest {
         verify(clientRepository, never()).searchByEmail(anyString(), anyInt());
     }
 
+    @Test
+    void prefersClientSearchIndex() {
+        Client client = new Client(UUID.randomUUID(), "john@example.com", "example.com", "example", "John", "Doe",
+                "john doe", "PT", OffsetDateTime.now());
+        when(clientSearchIndex.searchByNameOrDomain("john", "john", 20))
+                .thenReturn(Optional.of(List.of(new ClientRepository.ClientSearchRow(client, 1.0d))));
+        when(embeddingProvider.embed("john")).thenReturn(new float[]{0.5f});
+
+        SearchResultDto result = searchService.search("john", null);
+
+        assertThat(result.clients()).extracting(c -> c.client().email()).containsExactly("john@example.com");
+        verify(clientRepository, never()).searchByNameOrDomain(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void findsClientByIdWithoutSemanticSearch() {
+        Client client = new Client(UUID.randomUUID(), "john@example.com", "example.com", "example", "John", "Doe",
+                "john doe", "PT", OffsetDateTime.now());
+        when(clientRepository.findById(client.id())).thenReturn(Optional.of(client));
+
+        SearchResultDto result = searchService.search(client.id().toString().toUpperCase(), null);
+
+        assertThat(result.clients()).extracting(c -> c.client().email()).containsExactly("john@example.com");
+        assertThat(result.clients().getFirst().score()).isEqualTo(1.0d);
+        verify(clientRepository, never()).searchByNameOrDomain(anyString(), anyString(), anyInt());
+        verifyNoInteractions(embeddingProvider, vectorStore);
+    }
+
+    @Test
+    void searchesDomainsNamesAndShortTokensOnlyLexically() {
+        searchService.search("laurelwealth.com", null);
+        searchService.search("Emma Jones", null);
+        searchService.search("li", null);
+
+        verify(clientRepository).searchByNameOrDomain("laurelwealth.com", "laurelwealth", 20);
+        verify(clientRepository).searchByNameOrDomain("emma jones", "emmajones", 20);
+        verify(clientRepository).searchByNameOrDomain("li", "li", 20);
+        verify(documentRepository).searchLexically(null, "laurelwealth.com", 10);
+        verify(documentRepository).searchLexically(null, "Emma Jones", 10);
+        verify(documentRepository).searchLexically(null, "li", 10);
+        verifyNoInteractions(embeddingProvider, vectorStore);
+    }
+
+    @Test
+    void searchesBatchWithOneEmbeddingRequest() {
+        UUID clientId = UUID.randomUUID();
+        Document doc = new Document(UUID.randomUUID(), clientId, "Passport", "c", "h", null, OffsetDateTime.now());
+        List<BatchSearchRequest.Query> queries = List.of(
+                new BatchSearchRequest.Query("passport", null),
+                new BatchSearchRequest.Query("user@example.com", null),
+                new BatchSearchRequest.Query("passport scan", clientId));
+        when(documentRepository.searchLexicallyBatch(Arrays.asList(null, null, clientId),
+                List.of("passport", "user@example.com", "passport scan"), 10))
+                .thenReturn(List.of(List.of(), List.of(), List.of()));
+        when(embeddingProvider.embedAll(List.of("passport", "passport scan")))
+                .thenReturn(List.of(new float[]{0.1f}, new float[]{0.2f}));
+        when(clientExactScanner.search(eq(clientId), any(float[].class), eq(10))).thenReturn(Optional.empty());
+        when(vectorStore.searchAll(eq(Arrays.asList(null, clientId)), anyList(), eq(10)))
+                .thenReturn(List.of(List.of(), List.of(new DocumentRepository.DocumentSearchRow(doc, 0.9d, "snippet", false))));
+
+        List<BatchSearchResultDto> results = new ArrayList<>();
+        searchService.searchBatch(queries, results::add);
+
+        assertThat(results).extracting(BatchSearchResultDto::index).containsExactly(0, 1, 2);
+        assertThat(results.get(0).clients()).isEmpty();
+        assertThat(results.get(2).clients()).isNull();
+        assertThat(results.get(2).documents()).extracting(d -> d.document().title()).containsExactly("Passport");
+        verify(embeddingProvider, never()).embed(anyString());
+        verify(clientRepository).searchByEmail("user@example.com", 20);
+    }
+
+    @Test
+    void rejectsBatchWithUnknownClient() {
+        UUID clientId = UUID.randomUUID();
+        when(verifiedClientIds.allExist(Set.of(clientId))).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> searchService.validateBatch(List.of(new BatchSearchRequest.Query("q", clientId))));
+
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void searchesDocumentsForGivenClient() {
         UUID clientId = UUID.randomUUID();
         UUID documentId = UUID.randomUUID();
-        when(clientRepository.existsById(clientId)).thenReturn(true);
+        when(verifiedClientIds.allExist(List.of(clientId))).thenReturn(true);
         when(embeddingProvider.embed("payment")).thenReturn(new float[]{0.1f});
         Document document = new Document(documentId, clientId, "Payment doc", "body", "hash", null, OffsetDateTime.now());
-        when(documentRepository.searchLexically(eq(clientId), eq("payment"), eq(10))).thenReturn(List.of());
-        when(documentRepository.searchWithEmbeddings(eq(clientId), any(float[].class), eq(10)))
+        when(documentRepository.searchLexically(eq(List.of(clientId)), eq("payment"), eq(10))).thenReturn(List.of());
+        when(vectorStore.search(eq(List.of(clientId)), any(float[].class), eq(10)))
                 .thenReturn(List.of(new DocumentRepository.DocumentSearchRow(document, 0.3d, "matched", false)));
 
-        SearchResultDto result = searchService.search("payment", clientId);
+        SearchResultDto result = searchService.search("payment", List.of(clientId));
 
         assertThat(result.clients()).isNull();
         assertThat(result.documents()).hasSize(1);
         assertThat(result.documents().getFirst().document().id()).isEqualTo(documentId);
         assertThat(result.documents().getFirst().matchedSnippet()).isEqualTo("matched");
         assertThat(result.documents().getFirst().score()).isEqualTo(0.3d);
-        verify(clientRepository).existsById(clientId);
-        verify(documentRepository).searchWithEmbeddings(eq(clientId), any(float[].class), eq(10));
+        verify(verifiedClientIds).allExist(List.of(clientId));
+        verify(vectorStore).search(eq(List.of(clientId)), any(float[].class), eq(10));
+    }
+
+    @Test
+    void searchesDocumentsOfSeveralClientsInOneQuery() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(verifiedClientIds.allExist(List.of(first, second))).thenReturn(true);
+        when(embeddingProvider.embed("payment")).thenReturn(new float[]{0.1f});
+
+        SearchResultDto result = searchService.search("payment", List.of(first, second, first));
+
+        assertThat(result.clients()).isNull();
+        verify(documentRepository).searchLexically(List.of(first, second), "payment", 10);
+        verify(vectorStore).search(eq(List.of(first, second)), any(float[].class), eq(10));
+        verifyNoInteractions(clientExactScanner);
+    }
+
+    @Test
+    void rejectsSearchWhenAnyClientIsMissing() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(verifiedClientIds.allExist(List.of(first, second))).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> searchService.search("payment", List.of(first, second)));
+
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(embeddingProvider, documentRepository);
+    }
+
+    @Test
+    void prefersExactScanForGivenClient() {
+        UUID clientId = UUID.randomUUID();
+        when(verifiedClientIds.allExist(List.of(clientId))).thenReturn(true);
+        when(embeddingProvider.embed("payment")).thenReturn(new float[]{0.1f});
+        Document document = new Document(UUID.randomUUID(), clientId, "Payment doc", "body", "hash", null, OffsetDateTime.now());
+        when(clientExactScanner.search(eq(clientId), any(float[].class), eq(10)))
+                .thenReturn(Optional.of(List.of(new DocumentRepository.DocumentSearchRow(document, 0.7d, "matched", false))));
+
+        SearchResultDto result = searchService.search("payment", List.of(clientId));
+
+        assertThat(result.documents()).extracting(ScoredDocumentDto::score).containsExactly(0.7d);
+        verify(vectorStore, never()).search(any(), any(float[].class), anyInt());
     }
 
     @Test
     void limitsClientResultsToTwenty() {
         String query = "client@example.com";
-        when(embeddingProvider.embed(query)).thenReturn(new float[]{0.0f});
         when(documentRepository.searchLexically(isNull(), eq(query), eq(10))).thenReturn(List.of());
         List<ClientRepository.ClientSearchRow> clients = IntStream.range(0, 25)
                 .mapToObj(i -> new ClientRepository.ClientSearchRow(
@@ -164,8 +305,6 @@ class SearchServiceTest {
                 ))
                 .toList();
         when(clientRepository.searchByEmail(query, 20)).thenReturn(clients);
-        when(documentRepository.searchWithEmbeddings(isNull(), any(float[].class), eq(10)))
-                .thenReturn(List.of());
 
         SearchResultDto result = searchService.search(query, null);
 
@@ -195,7 +334,7 @@ class SearchServiceTest {
                 0.1d,
                 "low", false
         );
-        when(documentRepository.searchWithEmbeddings(isNull(), any(float[].class), eq(10)))
+        when(vectorStore.search(isNull(), any(float[].class), eq(10)))
                 .thenReturn(List.of(docHigh, docLow, docMid));
 
         SearchResultDto result = searchService.search("docs", null);
@@ -215,7 +354,7 @@ class SearchServiceTest {
         DocumentRepository.DocumentSearchRow embeddingHit = new DocumentRepository.DocumentSearchRow(doc, 0.9d, "embed", false);
 
         when(documentRepository.searchLexically(any(), eq("dup"), anyInt())).thenReturn(List.of(lexicalHit));
-        when(documentRepository.searchWithEmbeddings(any(), any(float[].class), anyInt())).thenReturn(List.of(embeddingHit));
+        when(vectorStore.search(any(), any(float[].class), anyInt())).thenReturn(List.of(embeddingHit));
 
         SearchResultDto result = searchService.search("dup", null);
 
@@ -225,7 +364,7 @@ class SearchServiceTest {
         // rank the lexical search higher
         assertThat(topDocument.score()).isEqualTo(0.7d);
         assertThat(topDocument.matchedSnippet()).isEqualTo("lexical");
-        verify(documentRepository).searchWithEmbeddings(isNull(), any(float[].class), eq(10));
+        verify(vectorStore).search(isNull(), any(float[].class), eq(10));
     }
 
     @Test
@@ -240,7 +379,7 @@ class SearchServiceTest {
                         "snippet" + i, false
                 ))
                 .toList();
-        when(documentRepository.searchWithEmbeddings(isNull(), any(float[].class), eq(10)))
+        when(vectorStore.search(isNull(), any(float[].class), eq(10)))
                 .thenReturn(docs);
 
         SearchResultDto result = searchService.search("docs", null);
@@ -248,4 +387,88 @@ class SearchServiceTest {
         assertThat(result.documents()).hasSize(10);
         assertThat(result.clients()).isEmpty();
     }
+
+    @Test
+    void pagesThroughOneRankingWithoutSearchingAgain() {
+        when(embeddingProvider.embed("docs")).thenReturn(new float[]{0.1f});
+        when(vectorStore.search(isNull(), any(float[].class), eq(500))).thenReturn(documentRows(25));
+        when(clientRepository.searchByNameOrDomain("docs", "docs", 500)).thenReturn(List.of());
+
+        List<ScoredDocumentDto> documents = new ArrayList<>();
+        SearchResultDto page = searchService.search("docs", null, 10, null);
+        documents.addAll(page.documents());
+        while (page.nextCursor() != null) {
+            page = searchService.search("docs", null, 10, page.nextCursor());
+            documents.addAll(page.documents());
+        }
+
+        assertThat(documents).hasSize(25);
+        assertThat(documents).extracting(hit -> hit.document().id()).doesNotHaveDuplicates();
+        assertThat(documents).extracting(ScoredDocumentDto::score).isSortedAccordingTo(Comparator.reverseOrder());
+        verify(embeddingProvider, times(1)).embed("docs");
+        verify(vectorStore, times(1)).search(isNull(), any(float[].class), eq(500));
+    }
+
+    @Test
+    void resumesAfterCursorPositionWhenRankingExpired() {
+        when(embeddingProvider.embed("docs")).thenReturn(new float[]{0.1f});
+        when(vectorStore.search(isNull(), any(float[].class), eq(500))).thenReturn(documentRows(15));
+
+        SearchResultDto first = searchService.search("docs", null, 10, null);
+        searchSnapshots.clear();
+        SearchResultDto second = searchService.search("docs", null, 10, first.nextCursor());
+
+        assertThat(second.documents()).hasSize(5);
+        assertThat(second.documents().getFirst().score()).isLessThan(first.documents().getLast().score());
+        assertThat(second.nextCursor()).isNull();
+        verify(vectorStore, times(2)).search(isNull(), any(float[].class), eq(500));
+        ScoredDocumentDto last = first.documents().getLast();
+        verify(documentRepository).searchLexicallyAfter(isNull(), eq("docs"), eq((last.score() - 0.5) * 2),
+                eq(last.document().id()), eq(500));
+    }
+
+    @Test
+    void dropsDeletedDocumentsFromLaterPagesWithoutRankingAgain() {
+        List<DocumentRepository.DocumentSearchRow> rows = documentRows(15);
+        when(embeddingProvider.embed("docs")).thenReturn(new float[]{0.1f});
+        when(vectorStore.search(isNull(), any(float[].class), eq(500))).thenReturn(rows);
+
+        SearchResultDto first = searchService.search("docs", null, 10, null);
+        Document deleted = rows.stream()
+                .map(DocumentRepository.DocumentSearchRow::document)
+                .filter(document -> first.documents().stream().noneMatch(hit -> hit.document().id().equals(document.id())))
+                .findFirst()
+                .orElseThrow();
+        searchSnapshots.onDocumentDeleted(new DocumentDeletedEvent(deleted));
+        SearchResultDto second = searchService.search("docs", null, 10, first.nextCursor());
+
+        assertThat(second.documents()).hasSize(4);
+        assertThat(second.documents()).extracting(hit -> hit.document().id()).doesNotContain(deleted.id());
+        verify(vectorStore, times(1)).search(isNull(), any(float[].class), eq(500));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSearch() {
+        when(embeddingProvider.embed(anyString())).thenReturn(new float[]{0.1f});
+        when(vectorStore.search(isNull(), any(float[].class), eq(500))).thenReturn(documentRows(15));
+        SearchResultDto first = searchService.search("docs", null, 10, null);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> searchService.search("other docs", null, 10, first.nextCursor()));
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseStatusException invalid = assertThrows(ResponseStatusException.class,
+                () -> searchService.search("docs", null, 10, "garbage"));
+        assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static List<DocumentRepository.DocumentSearchRow> documentRows(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new DocumentRepository.DocumentSearchRow(
+                        new Document(UUID.randomUUID(), UUID.randomUUID(), "Doc" + i, "b", "h", null, OffsetDateTime.now()),
+                        0.9 - (i / 2) * 0.01,
+                        "snippet" + i, false
+                ))
+                .toList();
+    }
 }
@@ -0,0 +1,80 @@
+package com.neviswealth.searchservice.service;
+
+import com.neviswealth.searchservice.domain.Client;
+import com.neviswealth.searchservice.domain.ClientCreatedEvent;
+import com.neviswealth.searchservice.domain.ClientDeletedEvent;
+import com.neviswealth.searchservice.persistence.ClientRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedClientIdsTest {
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @InjectMocks
+    private VerifiedClientIds verifiedClientIds;
+
+    @Test
+    void queriesOnlyUnverifiedIds() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(clientRepository.findExistingIds(Set.of(first))).thenReturn(Set.of(first));
+        when(clientRepository.findExistingIds(Set.of(second))).thenReturn(Set.of(second));
+
+        assertThat(verifiedClientIds.allExist(List.of(first))).isTrue();
+        assertThat(verifiedClientIds.allExist(List.of(first, second))).isTrue();
+        assertThat(verifiedClientIds.allExist(List.of(second, first))).isTrue();
+
+        verify(clientRepository).findExistingIds(Set.of(first));
+        verify(clientRepository).findExistingIds(Set.of(second));
+        verifyNoMoreInteractions(clientRepository);
+    }
+
+    @Test
+    void doesNotRememberMissingIds() {
+        UUID missing = UUID.randomUUID();
+        when(clientRepository.findExistingIds(Set.of(missing))).thenReturn(Set.of());
+
+        assertThat(verifiedClientIds.allExist(List.of(missing))).isFalse();
+        assertThat(verifiedClientIds.allExist(List.of(missing))).isFalse();
+
+        verify(clientRepository, times(2)).findExistingIds(Set.of(missing));
+    }
+
+    @Test
+    void doesNotVerifyClientsDeletedWhileQuerying() {
+        Client client = new Client(UUID.randomUUID(), "ann@example.com", "example.com", "example", "Ann", "Lee",
+                "ann lee", null, OffsetDateTime.now());
+        when(clientRepository.findExistingIds(Set.of(client.id()))).thenAnswer(i -> {
+            verifiedClientIds.onClientDeleted(new ClientDeletedEvent(client));
+            return Set.of(client.id());
+        }).thenReturn(Set.of());
+
+        assertThat(verifiedClientIds.allExist(List.of(client.id()))).isTrue();
+        assertThat(verifiedClientIds.allExist(List.of(client.id()))).isFalse();
+    }
+
+    @Test
+    void trustsCreatedClientsWithoutQuerying() {
+        UUID clientId = UUID.randomUUID();
+        verifiedClientIds.onClientCreated(new ClientCreatedEvent(new Client(clientId, "ann@example.com", "example.com",
+                "example", "Ann", "Lee", "ann lee", null, OffsetDateTime.now())));
+
+        assertThat(verifiedClientIds.allExist(List.of(clientId))).isTrue();
+
+        verifyNoInteractions(clientRepository);
+    }
+}
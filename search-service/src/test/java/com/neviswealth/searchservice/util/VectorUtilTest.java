@@ -0,0 +1,31 @@
+package com.neviswealth.searchservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VectorUtilTest {
+
+    @Test
+    void normalizesMeanOfVectors() {
+        float[] centroid = VectorUtil.centroid(List.of(new float[]{2, 0}, new float[]{0, 2}));
+
+        assertThat(centroid[0]).isCloseTo((float) Math.sqrt(0.5), within(1e-6f));
+        assertThat(centroid[1]).isCloseTo((float) Math.sqrt(0.5), within(1e-6f));
+    }
+
+    @Test
+    void returnsNullWithoutDirection() {
+        assertThat(VectorUtil.centroid(List.of())).isNull();
+        assertThat(VectorUtil.centroid(List.of(new float[]{1, 2}, new float[]{-1, -2}))).isNull();
+    }
+
+    @Test
+    void rejectsMixedDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> VectorUtil.centroid(List.of(new float[]{1, 2}, new float[]{1})));
+    }
+}
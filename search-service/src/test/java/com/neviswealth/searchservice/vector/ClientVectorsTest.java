@@ -0,0 +1,88 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClientVectorsTest {
+
+    private final UUID clientId = UUID.randomUUID();
+    private final Document first = document("First");
+    private final Document second = document("Second");
+
+    @Test
+    void returnsBestChunkPerDocumentScoredLikeSql() {
+        ClientVectors vectors = ClientVectors.of(3, List.of(
+                new ChunkEmbeddingRow(first, 0, "far", new float[]{-3, 2, 3}),
+                new ChunkEmbeddingRow(first, 1, "near", new float[]{1, 2, 3}),
+                new ChunkEmbeddingRow(second, 0, "nearer", new float[]{1.4f, 2, 3})
+        ));
+
+        List<DocumentSearchRow> rows = vectors.search(VectorScorer.create(), new float[]{1.2f, 2, 3}, 10, 0.2);
+
+        assertThat(rows).extracting(row -> row.document().title()).containsExactly("Second", "First");
+        assertThat(rows).extracting(DocumentSearchRow::matchedSnippet).containsExactly("nearer", "near");
+        assertThat(rows).extracting(DocumentSearchRow::score).containsExactly(0.8000000674277657, 0.7999999556690504);
+        assertThat(rows).noneMatch(DocumentSearchRow::lexically);
+    }
+
+    @Test
+    void appliesThresholdAndLimit() {
+        ClientVectors vectors = ClientVectors.of(3, List.of(
+                new ChunkEmbeddingRow(first, 0, "near", new float[]{1, 2, 3}),
+                new ChunkEmbeddingRow(second, 0, "far", new float[]{-1, -2, -3})
+        ));
+
+        assertThat(vectors.search(VectorScorer.create(), new float[]{1, 2, 3}, 10, 0.2))
+                .extracting(row -> row.document().title()).containsExactly("First");
+        assertThat(vectors.search(VectorScorer.create(), new float[]{1, 2, 3}, 1, -100)).hasSize(1);
+    }
+
+    @Test
+    void simdScorerAgreesWithScalar() {
+        Random random = new Random(5);
+        int dimension = 384;
+        int count = 100;
+        MemorySegment segment = Arena.ofAuto().allocate((long) count * dimension * Float.BYTES, Float.BYTES);
+        for (long i = 0; i < (long) count * dimension; i++) {
+            segment.setAtIndex(ValueLayout.JAVA_FLOAT, i, random.nextFloat() * 2 - 1);
+        }
+        float[] query = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            query[i] = random.nextFloat() * 2 - 1;
+        }
+
+        float[] simd = new float[count];
+        float[] scalar = new float[count];
+        new SimdVectorScorer().squaredDistances(query, segment, count, simd);
+        new ScalarVectorScorer().squaredDistances(query, segment, count, scalar);
+
+        for (int i = 0; i < count; i++) {
+            assertThat(simd[i]).isCloseTo(scalar[i], within(1e-3f));
+        }
+    }
+
+    @Test
+    void rejectsQueryOfOtherDimension() {
+        ClientVectors vectors = ClientVectors.of(3, List.of(new ChunkEmbeddingRow(first, 0, "near", new float[]{1, 2, 3})));
+
+        assertThrows(IllegalArgumentException.class, () -> vectors.search(VectorScorer.create(), new float[]{1, 2}, 10, 0.2));
+    }
+
+    private Document document(String title) {
+        return new Document(UUID.randomUUID(), clientId, title, null, null, null, OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,122 @@
+package com.neviswealth.searchservice.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @Test
+    void findsExactMatchFirst() {
+        HnswIndex index = new HnswIndex(3, 8, 32);
+        index.add(new float[]{1, 2, 3});
+        index.add(new float[]{1.4f, 2, 3});
+        index.add(new float[]{-3, 2, 3});
+
+        List<HnswIndex.Neighbor> neighbors = index.search(new float[]{1.4f, 2, 3}, 2, 16, null);
+
+        assertThat(neighbors).extracting(HnswIndex.Neighbor::node).containsExactly(1, 0);
+        assertThat(neighbors.getFirst().distance()).isZero();
+    }
+
+    @Test
+    void approximatesBruteForceRecall() {
+        Random random = new Random(7);
+        List<float[]> vectors = new ArrayList<>();
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 64);
+        for (int i = 0; i < 3000; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            assertThat(index.add(vector)).isEqualTo(i);
+        }
+
+        int k = 10;
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> expected = bruteForce(vectors, query, k, node -> true);
+            for (HnswIndex.Neighbor neighbor : index.search(query, k, 64, null)) {
+                if (expected.contains(neighbor.node())) {
+                    hits++;
+                }
+            }
+        }
+
+        assertThat(hits / (double) (queries * k)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void returnsOnlyNodesAcceptedByFilter() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 64);
+        for (int i = 0; i < 500; i++) {
+            index.add(randomVector(random));
+        }
+
+        List<HnswIndex.Neighbor> neighbors = index.search(randomVector(random), 10, 64, node -> node % 5 == 0);
+
+        assertThat(neighbors).hasSize(10);
+        assertThat(neighbors).allSatisfy(neighbor -> assertThat(neighbor.node() % 5).isZero());
+        assertThat(neighbors).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Neighbor::distance));
+    }
+
+    @Test
+    void scansGivenNodesExactly() {
+        Random random = new Random(13);
+        List<float[]> vectors = new ArrayList<>();
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 64);
+        for (int i = 0; i < 200; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            index.add(vector);
+        }
+        int[] nodes = {3, 17, 42, 99, 150, 199};
+        float[] query = randomVector(random);
+
+        List<HnswIndex.Neighbor> neighbors = index.scan(query, 3, nodes, nodes.length);
+
+        Set<Integer> allowed = Set.of(3, 17, 42, 99, 150, 199);
+        assertThat(neighbors).extracting(HnswIndex.Neighbor::node)
+                .containsExactlyInAnyOrderElementsOf(bruteForce(vectors, query, 3, allowed::contains));
+    }
+
+    @Test
+    void rejectsVectorsOfOtherDimension() {
+        HnswIndex index = new HnswIndex(3, 8, 32);
+
+        assertThrows(IllegalArgumentException.class, () -> index.add(new float[]{1, 2}));
+    }
+
+    private static Set<Integer> bruteForce(List<float[]> vectors, float[] query, int k, java.util.function.IntPredicate filter) {
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            if (filter.test(i)) {
+                nodes.add(i);
+            }
+        }
+        nodes.sort(Comparator.comparingDouble(node -> squaredDistance(vectors.get(node), query)));
+        return new HashSet<>(nodes.subList(0, k));
+    }
+
+    private static double squaredDistance(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
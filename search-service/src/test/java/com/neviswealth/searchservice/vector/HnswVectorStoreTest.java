@@ -0,0 +1,191 @@
+package com.neviswealth.searchservice.vector;
+
+import com.neviswealth.searchservice.config.VectorStoreProperties;
+import com.neviswealth.searchservice.domain.Document;
+import com.neviswealth.searchservice.domain.DocumentCreatedEvent;
+import com.neviswealth.searchservice.domain.DocumentDeletedEvent;
+import com.neviswealth.searchservice.domain.DocumentUpdatedEvent;
+import com.neviswealth.searchservice.embedding.EmbeddingModel;
+import com.neviswealth.searchservice.embedding.EmbeddingModels;
+import com.neviswealth.searchservice.embedding.MockEmbeddingProvider;
+import com.neviswealth.searchservice.persistence.DocumentRepository;
+import com.neviswealth.searchservice.persistence.DocumentRepository.ChunkEmbeddingRow;
+import com.neviswealth.searchservice.persistence.DocumentRepository.DocumentSearchRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HnswVectorStoreTest {
+
+    private static final int DIMENSION = 8;
+    private static final int DOCUMENTS = 200;
+    private static final int CHUNKS = 4;
+
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final Random random = new Random(5);
+    private final Map<UUID, List<ChunkEmbeddingRow>> live = new HashMap<>();
+
+    @Test
+    void compactsRetiredNodesAwayAndKeepsRecallThroughChurn() {
+        List<Runnable> compactions = new ArrayList<>();
+        HnswVectorStore store = store(compactions::add);
+        UUID clientId = UUID.randomUUID();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document document = new Document(UUID.randomUUID(), clientId, "Document " + i, null, null, null, OffsetDateTime.now());
+            documents.add(document);
+            embed(document);
+            store.onDocumentCreated(new DocumentCreatedEvent(document));
+        }
+
+        for (int cycle = 0; cycle < 1_000; cycle++) {
+            Document document = documents.get(random.nextInt(documents.size()));
+            if (cycle % 4 == 0) {
+                live.remove(document.id());
+                documents.remove(document);
+                store.onDocumentDeleted(new DocumentDeletedEvent(document));
+                document = new Document(UUID.randomUUID(), clientId, "Replacement " + cycle, null, null, null, OffsetDateTime.now());
+                documents.add(document);
+                embed(document);
+                store.onDocumentCreated(new DocumentCreatedEvent(document));
+            } else {
+                embed(document);
+                store.onDocumentUpdated(new DocumentUpdatedEvent(document));
+            }
+            // changes keep coming while the compaction runs and are replayed onto its result
+            if (!compactions.isEmpty() && cycle % 10 == 9) {
+                compactions.removeFirst().run();
+            }
+        }
+        compactions.forEach(Runnable::run);
+
+        int[] size = store.size();
+        assertThat(size[0]).isLessThanOrEqualTo(DOCUMENTS * CHUNKS * 6 / 5 + CHUNKS * 10);
+        assertThat(size[1]).isLessThanOrEqualTo(DOCUMENTS * 6 / 5 + 10);
+
+        int k = 10;
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector();
+            Set<UUID> expected = bruteForce(query, k);
+            for (DocumentSearchRow row : store.search(null, query, k)) {
+                assertThat(live).containsKey(row.document().id());
+                if (expected.contains(row.document().id())) {
+                    hits++;
+                }
+            }
+        }
+        assertThat(hits / (double) (queries * k)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void replaysChangesMadeDuringACompaction() {
+        List<Runnable> compactions = new ArrayList<>();
+        HnswVectorStore store = store(compactions::add);
+        UUID clientId = UUID.randomUUID();
+        Document kept = new Document(UUID.randomUUID(), clientId, "Kept", null, null, null, OffsetDateTime.now());
+        Document deleted = new Document(UUID.randomUUID(), clientId, "Deleted", null, null, null, OffsetDateTime.now());
+        for (Document document : List.of(kept, deleted)) {
+            embed(document);
+            store.onDocumentCreated(new DocumentCreatedEvent(document));
+        }
+        embed(kept);
+        store.onDocumentUpdated(new DocumentUpdatedEvent(kept));
+        assertThat(compactions).hasSize(1);
+
+        Document added = new Document(UUID.randomUUID(), clientId, "Added", null, null, null, OffsetDateTime.now());
+        store.onDocumentDeleted(new DocumentDeletedEvent(deleted));
+        live.remove(deleted.id());
+        embed(added);
+        store.onDocumentCreated(new DocumentCreatedEvent(added));
+        compactions.removeFirst().run();
+
+        assertThat(store.size()).containsExactly(2 * CHUNKS, 2);
+        assertThat(store.search(null, live.get(added.id()).getFirst().embedding(), 10))
+                .extracting(row -> row.document().title())
+                .containsExactlyInAnyOrder("Added", "Kept");
+    }
+
+    @Test
+    void replaysChangesMadeDuringAReload() {
+        HnswVectorStore store = store(Runnable::run);
+        UUID clientId = UUID.randomUUID();
+        Document kept = new Document(UUID.randomUUID(), clientId, "Kept", null, null, null, OffsetDateTime.now());
+        Document deleted = new Document(UUID.randomUUID(), clientId, "Deleted", null, null, null, OffsetDateTime.now());
+        Document added = new Document(UUID.randomUUID(), clientId, "Added", null, null, null, OffsetDateTime.now());
+        for (Document document : List.of(kept, deleted)) {
+            embed(document);
+        }
+        doAnswer(i -> {
+            Consumer<ChunkEmbeddingRow> consumer = i.getArgument(0);
+            live.values().forEach(chunks -> chunks.forEach(consumer));
+            // committed while the table is read, the first one already seen by the load
+            store.onDocumentCreated(new DocumentCreatedEvent(kept));
+            live.remove(deleted.id());
+            store.onDocumentDeleted(new DocumentDeletedEvent(deleted));
+            embed(added);
+            store.onDocumentCreated(new DocumentCreatedEvent(added));
+            return null;
+        }).when(documentRepository).forEachChunk(any());
+
+        store.reload();
+
+        assertThat(store.search(null, live.get(added.id()).getFirst().embedding(), 10))
+                .extracting(row -> row.document().title())
+                .containsExactlyInAnyOrder("Added", "Kept");
+    }
+
+    private HnswVectorStore store(Executor compactionExecutor) {
+        EmbeddingModels models = mock(EmbeddingModels.class);
+        when(models.active()).thenReturn(new EmbeddingModel("default", DIMENSION, new MockEmbeddingProvider(DIMENSION)));
+        when(documentRepository.findChunks(any()))
+                .thenAnswer(i -> live.get(i.<UUID>getArgument(0)));
+        return new HnswVectorStore(documentRepository, models, new VectorStoreProperties.Hnsw(), -10, compactionExecutor);
+    }
+
+    private void embed(Document document) {
+        List<ChunkEmbeddingRow> chunks = new ArrayList<>();
+        for (int i = 0; i < CHUNKS; i++) {
+            chunks.add(new ChunkEmbeddingRow(document, i, "Chunk " + i, randomVector()));
+        }
+        live.put(document.id(), chunks);
+    }
+
+    private Set<UUID> bruteForce(float[] query, int k) {
+        return live.entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> entry.getValue().stream()
+                        .mapToDouble(chunk -> distance(query, chunk.embedding()))
+                        .min()
+                        .orElseThrow()))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private static double distance(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}